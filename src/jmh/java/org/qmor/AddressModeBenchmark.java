@@ -0,0 +1,78 @@
+package org.qmor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loop of 16 loads using a single addressing mode, INDIRECT is measured with JMP ($0300) jumping to itself
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AddressModeBenchmark {
+    private static final int ORIGIN = 0x0200;
+    private static final long BUDGET = 10_000;
+    private static final Map<String, String> INSTRUCTIONS = Map.of(
+            "IMMEDIATE", "a910",
+            "ZERO_PAGE", "a510",
+            "ZERO_PAGE_X", "b510",
+            "ZERO_PAGE_Y", "b610",
+            "ABSOLUTE", "ad0003",
+            "ABSOLUTE_X", "bd0003",
+            "ABSOLUTE_Y", "b90003",
+            "INDIRECT_X", "a110",
+            "INDIRECT_Y", "b110");
+
+    @Param({"IMMEDIATE", "ZERO_PAGE", "ZERO_PAGE_X", "ZERO_PAGE_Y", "ABSOLUTE", "ABSOLUTE_X", "ABSOLUTE_Y",
+            "INDIRECT", "INDIRECT_X", "INDIRECT_Y"})
+    public String mode;
+
+    /**
+     * off by default: every loop here is idle and would measure the skip instead of address decoding
+     */
+    @Param("false")
+    public boolean idleSkip;
+
+    private CPU cpu;
+
+    @Setup
+    public void setup()
+    {
+        final var memory = new Memory();
+        cpu = new CPU(memory);
+        cpu.setIdleSkipEnabled(idleSkip);
+        cpu.reset();
+        //operand pointers: $10 -> $0300, $0300 -> ORIGIN
+        memory.load(0x10, new byte[]{0x00, 0x03});
+        memory.load(0x0300, new byte[]{0x00, 0x02});
+        final String code;
+        if (mode.equals("INDIRECT"))
+        {
+            code = "6c0003";
+        }
+        else
+        {
+            code = INSTRUCTIONS.get(mode).repeat(16) + "4c0002";
+        }
+        memory.load(ORIGIN, HexFormat.of().parseHex(code));
+        cpu.setPC(ORIGIN);
+    }
+
+    @Benchmark
+    public RunResult run(EmulationCounters counters)
+    {
+        final var result = cpu.run(BUDGET);
+        counters.add(result);
+        return result;
+    }
+}
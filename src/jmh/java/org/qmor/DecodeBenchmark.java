@@ -0,0 +1,37 @@
+package org.qmor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opcode byte to {@link OpCodes} lookup, over every byte value
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DecodeBenchmark {
+
+    @Benchmark
+    @OperationsPerInvocation(256)
+    public void decode(Blackhole bh)
+    {
+        for (int i = 0; i < 256; i++)
+            bh.consume(OpCodes.decode(i));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(256)
+    public void microcode(Blackhole bh)
+    {
+        for (int i = 0; i < 256; i++)
+            bh.consume(OpCodes.decode(i).getMicrocode());
+    }
+}
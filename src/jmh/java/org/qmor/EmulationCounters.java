@@ -0,0 +1,31 @@
+package org.qmor;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Secondary results of interpreter benchmarks. JMH reports them as rates in the benchmark's output time unit,
+ * so with microseconds {@code cycles} reads as emulated MHz and {@code instructions} as millions of instructions/s.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class EmulationCounters {
+    public long cycles;
+    public long instructions;
+
+    @Setup(Level.Iteration)
+    public void clear()
+    {
+        cycles = 0;
+        instructions = 0;
+    }
+
+    void add(RunResult result)
+    {
+        cycles += result.cycles();
+        instructions += result.instructions();
+    }
+}
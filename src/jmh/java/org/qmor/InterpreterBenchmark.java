@@ -0,0 +1,84 @@
+package org.qmor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Instruction mixes looping forever at $0200, each invocation runs a fixed cycle budget
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class InterpreterBenchmark {
+    private static final int ORIGIN = 0x0200;
+    private static final long BUDGET = 10_000;
+
+    public enum Workload {
+        /**
+         * LDA $10 / STA $0300 / LDX #$05 / STX $11 / LDY $11 / STY $0301 / LDA $0300,X / STA $12,X / JMP $0200
+         */
+        LOAD_STORE("a5108d0003a2058611a4118c0103bd00039512" + "4c0002"),
+        /**
+         * CLC / LDA #$01 / ADC #$10 / AND #$7F / ORA $11 / EOR #$55 / SBC #$03 / INC $12 / DEC $13 / CMP #$40 / JMP $0200
+         */
+        ALU("18a9016910297f051149" + "55e903e612c613c940" + "4c0002"),
+        /**
+         * JSR $0210 / JMP $0200, $0210: JSR $0220 / RTS, $0220: INX / RTS
+         */
+        JSR_RTS("2010024c0002" + "00".repeat(10) + "20200260" + "00".repeat(12) + "e860"),
+        /**
+         * JMP $0200, the idle loop of SimplePgmTest
+         */
+        TIGHT_LOOP("4c0002");
+
+        private final byte[] code;
+
+        Workload(String hex)
+        {
+            this.code = HexFormat.of().parseHex(hex);
+        }
+    }
+
+    @Param
+    public Workload workload;
+
+    @Param
+    public ExecutionCore core;
+
+    /**
+     * off by default: TIGHT_LOOP is an idle loop and would measure the skip instead of the interpreter
+     */
+    @Param("false")
+    public boolean idleSkip;
+
+    private CPU cpu;
+
+    @Setup
+    public void setup()
+    {
+        final var memory = new Memory();
+        cpu = new CPU(memory);
+        cpu.setCore(core);
+        cpu.setIdleSkipEnabled(idleSkip);
+        cpu.reset();
+        memory.load(ORIGIN, workload.code);
+        cpu.setPC(ORIGIN);
+    }
+
+    @Benchmark
+    public RunResult run(EmulationCounters counters)
+    {
+        final var result = cpu.run(BUDGET);
+        counters.add(result);
+        return result;
+    }
+}
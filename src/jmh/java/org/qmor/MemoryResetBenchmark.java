@@ -0,0 +1,49 @@
+package org.qmor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Memory#reset()} after writing to a number of pages, for each backing
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MemoryResetBenchmark {
+
+    @Param({"HEAP", "OFF_HEAP", "PAGED"})
+    public String backing;
+
+    @Param({"1", "16", "256"})
+    public int pages;
+
+    private Memory memory;
+
+    @Setup
+    public void setup()
+    {
+        memory = switch (backing)
+        {
+            case "OFF_HEAP" -> Memory.offHeap();
+            case "PAGED" -> Memory.paged();
+            default -> new Memory();
+        };
+    }
+
+    @Benchmark
+    public Memory reset()
+    {
+        for (int p = 0; p < pages; p++)
+            memory.write(p << 8, (byte) 1);
+        memory.reset();
+        return memory;
+    }
+}
@@ -0,0 +1,47 @@
+package org.qmor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bundled {@link Workload}s from install to halt
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WorkloadBenchmark {
+
+    @Param({"sieve", "memcpy", "bubblesort", "crc8", "crc16", "multiply", "fibonacci"})
+    public String workload;
+
+    @Param
+    public ExecutionCore core;
+
+    private Workload program;
+    private CPU cpu;
+
+    @Setup
+    public void setup()
+    {
+        program = Workload.load(workload);
+        cpu = new CPU(new Memory());
+        cpu.setCore(core);
+    }
+
+    @Benchmark
+    public long run(EmulationCounters counters)
+    {
+        program.install(cpu);
+        program.runToHalt(cpu, Long.MAX_VALUE / 2);
+        counters.add(new RunResult(cpu.getCycles(), cpu.getInstructions()));
+        return cpu.getCycles();
+    }
+}
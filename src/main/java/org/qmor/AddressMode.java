@@ -3,22 +3,16 @@ package org.qmor;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
-import java.util.concurrent.atomic.AtomicInteger;
-
 @Getter
 @RequiredArgsConstructor
 public enum AddressMode {
-    NONE(null),
+    NONE(0, null),
     /*
     Immediate addressing allows the programmer to directly specify an 8 bit constant within the instruction.
     It is indicated by a '#' symbol followed by an numeric expression.
      */
-    IMMEDIATE((cpu,cycles,direction)->
-    {
-        var addr = cpu.getPC();
-        cpu.setPC(cpu.getPC()+1);
-        return addr;
-    }),
+    IMMEDIATE(1, (cpu,operand,direction)->
+            cpu.getPC()-1),
     /*
     An instruction using zero page addressing mode has only an 8 bit address operand. This limits it to addressing only
     the first 256 bytes of memory (e.g. $0000 to $00FF) where the most significant byte of the address is always zero.
@@ -28,8 +22,8 @@ public enum AddressMode {
     An assembler will automatically select zero page addressing mode if the operand evaluates to a zero page address and the
     instruction supports the mode (not all do).
      */
-    ZERO_PAGE((cpu,cycles,direction)->
-            cpu.fetchByte(cycles)),
+    ZERO_PAGE(1, (cpu,operand,direction)->
+            operand),
     /*
     The address to be accessed by an instruction using indexed zero page addressing is calculated by taking the 8 bit
     zero page address from the instruction and adding the current value of the X register to it. For example if the X
@@ -40,11 +34,11 @@ public enum AddressMode {
     The address calculation wraps around if the sum of the base address and the register exceed $FF. If we repeat the last
     example but with $FF in the X register then the accumulator will be loaded from $007F (e.g. $80 + $FF => $7F) and not $017F.
      */
-    ZERO_PAGE_X((cpu,cycles,dir)->
+    ZERO_PAGE_X(1, (cpu,operand,dir)->
     {
-        var addr = cpu.fetchByte(cycles);
+        var addr = operand;
         addr+=cpu.getX();
-        cycles.decrementAndGet();
+        cpu.tick();
         return addr;
     }),
     /*
@@ -52,52 +46,52 @@ public enum AddressMode {
     zero page address from the instruction and adding the current value of the Y register to it. This mode can only be
     used with the LDX and STX instructions.
      */
-    ZERO_PAGE_Y((cpu,cycles,dir)->
+    ZERO_PAGE_Y(1, (cpu,operand,dir)->
     {
-        var addr = cpu.fetchByte(cycles)&0xff;
+        var addr = operand&0xff;
         addr+=cpu.getY();
-        cycles.decrementAndGet();
+        cpu.tick();
         return addr;
     }),
     /*
     Instructions using absolute addressing contain a full 16 bit address to identify the target location.
      */
-    ABSOLUTE((cpu,cycles,dir)->
-            cpu.fetchWord(cycles)),
+    ABSOLUTE(2, (cpu,operand,dir)->
+            operand),
     /*
     The address to be accessed by an instruction using X register indexed absolute addressing is computed by taking the
      16 bit address from the instruction and added the contents of the X register. For example if X contains $92 then
      an STA $2000,X instruction will store the accumulator at $2092 (e.g. $2000 + $92).
      */
-    ABSOLUTE_X((cpu,cycles,dir)->
+    ABSOLUTE_X(2, (cpu,operand,dir)->
     {
-        final var address = cpu.fetchWord(cycles);
+        final var address = operand;
         final int addressWithAdd = address+cpu.getX();
 
         if (dir == AddressModeFuncGetAddr.Direction.R && cpu.addressNotInSamePage(address, addressWithAdd))
         {
-            cycles.decrementAndGet();
+            cpu.penalty();
         }
         if (dir == AddressModeFuncGetAddr.Direction.W)
         {
-            cycles.decrementAndGet();
+            cpu.tick();
         }
        return addressWithAdd;}),
     /*
     The Y register indexed absolute addressing mode is the same as the previous mode only with the contents of the
     Y register added to the 16 bit address from the instruction.
      */
-    ABSOLUTE_Y((cpu,cycles,dir)->
+    ABSOLUTE_Y(2, (cpu,operand,dir)->
     {
-        final var address = cpu.fetchWord(cycles);
+        final var address = operand;
         final int addressWithAdd = address+cpu.getY();
         if (dir == AddressModeFuncGetAddr.Direction.R && cpu.addressNotInSamePage(address, addressWithAdd))
         {
-            cycles.decrementAndGet();
+            cpu.penalty();
         }
         if (dir == AddressModeFuncGetAddr.Direction.W)
         {
-            cycles.decrementAndGet();
+            cpu.tick();
         }
         return addressWithAdd;
     }),
@@ -106,25 +100,25 @@ public enum AddressMode {
      The address of the table is taken from the instruction and the X register added to it (with zero page wrap around)
       to give the location of the least significant byte of the target address.
      */
-    INDIRECT_X((cpu,cycles,dir)->{
-        final var instrAddr = cpu.fetchByte(cycles)&0xff;
-        final var baseAddr = (instrAddr+cpu.getX())&0xff;     cycles.decrementAndGet();
-        return cpu.readWord(cycles,baseAddr);
+    INDIRECT_X(1, (cpu,operand,dir)->{
+        final var instrAddr = operand&0xff;
+        final var baseAddr = (instrAddr+cpu.getX())&0xff;     cpu.tick();
+        return cpu.readWord(baseAddr);
     }),
     /*
     Indirect indirect addressing is the most common indirection mode used on the 6502. In instruction contains the
     zero page location of the least significant byte of 16 bit address. The Y register is dynamically added to this
     value to generated the actual target address for operation.
      */
-    INDIRECT_Y((cpu,cycles,direction)->{
-        final var instrAddr = cpu.fetchByte(cycles)&0xff;
-        final var addr = cpu.readWord(cycles,instrAddr);
+    INDIRECT_Y(1, (cpu,operand,direction)->{
+        final var instrAddr = operand&0xff;
+        final var addr = cpu.readWord(instrAddr);
         final var finalAddr = addr+cpu.getY();
         if (direction == AddressModeFuncGetAddr.Direction.R && cpu.addressNotInSamePage(addr, finalAddr))
-            cycles.decrementAndGet();
+            cpu.penalty();
 
         if (direction == AddressModeFuncGetAddr.Direction.W)
-            cycles.decrementAndGet();
+            cpu.tick();
         return finalAddr;
     }),
     /*
@@ -134,17 +128,34 @@ public enum AddressMode {
 For example if location $0120 contains $FC and location $0121 contains $BA then the instruction JMP ($0120) will cause
 the next instruction execution to occur at $BAFC (e.g. the contents of $0120 and $0121).
      */
-    INDIRECT((cpu,cycles,direction)->
-            cpu.fetchWord(cycles));
+    INDIRECT(2, (cpu,operand,direction)->
+            operand),
+    /*
+    Relative addressing mode is used by branch instructions (e.g. BEQ, BNE, etc.) which contain a signed 8 bit relative
+    offset (e.g. -128 to +127) which is added to program counter if the condition is true. As the program counter itself
+    is incremented during instruction execution by two the effective address range for the target instruction must be
+    with -126 to +129 bytes of the branch.
+     */
+    RELATIVE(1, (cpu,operand,direction)->
+            cpu.getPC()-1);
 
 
 
+    /**
+     * Effective address of an instruction whose opcode and operand bytes were already fetched (PC points past them).
+     * Only cycles spent after the operand fetch are ticked here, e.g. index addition or pointer reads.
+     * IMMEDIATE and RELATIVE resolve to the operand byte itself.
+     */
     public interface AddressModeFuncGetAddr
     {
-        enum Direction{R,W}
-        int getAddr(CPU cpu, AtomicInteger cycles,Direction direction);
+        enum Direction{R,W,NONE}
+        int getAddr(CPU cpu, int operand, Direction direction);
     }
 
+    /**
+     * number of operand bytes following the opcode
+     */
+    private final int operandSize;
     private final AddressModeFuncGetAddr addressModeImpl;
 
 }
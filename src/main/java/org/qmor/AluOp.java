@@ -0,0 +1,29 @@
+package org.qmor;
+
+/**
+ * Arithmetic/logic part of an instruction
+ */
+public enum AluOp {
+    NONE,
+    AND,
+    OR,
+    XOR,
+    ADC,
+    SBC,
+    INC,
+    DEC,
+    CMP,
+    BIT,
+    ASL,
+    LSR,
+    ROL,
+    ROR;
+
+    /**
+     * @return true for shifts and rotates, these set carry from the bit shifted out
+     */
+    public boolean isShift()
+    {
+        return this == ASL || this == LSR || this == ROL || this == ROR;
+    }
+}
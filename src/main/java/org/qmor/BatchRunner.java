@@ -0,0 +1,292 @@
+package org.qmor;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Runs one program image over many independent inputs in parallel.
+ * Every pool thread owns a reusable CPU+Memory worker with the image preloaded; between jobs only the pages the
+ * previous job wrote are restored, and jobs write their results into their own slot, so nothing is shared while
+ * instructions execute.
+ * <p>
+ * Whatever a job's setup changed on the machine is undone before the next job: devices are unmapped, IRQ sources
+ * released, events dropped, trace sink, profiler and recorder detached, and timing, core, predecode and idle loop
+ * skip set back to the defaults of a new {@link CPU}.
+ * <p>
+ * Jobs are driven by {@link CPU#run(long)} with an execute breakpoint at the halt address, so scheduled events and
+ * interrupts are served, idle loops are skipped and compiled blocks are used just as when running a single machine.
+ */
+public final class BatchRunner {
+    /**
+     * jobs executed by a leaf task without further splitting
+     */
+    private static final int LEAF_JOBS = 16;
+
+    /**
+     * Memory region copied into every {@link JobResult}
+     * @param address - first address
+     * @param length - number of bytes
+     */
+    public record MemoryRange(int address, int length) {
+    }
+
+    /**
+     * Machine state after a job
+     * @param index - position of the job's setup in the input
+     * @param halted - true if execution reached the halt address, false if the cycle budget ran out
+     * @param memory - content of captured ranges, in the order they were added
+     */
+    public record JobResult(int index, int pc, short a, short x, short y, int sp, short p, long cycles,
+                            long instructions, boolean halted, byte[][] memory) {
+    }
+
+    /**
+     * @param elapsedNanos - wall clock time of the whole batch
+     */
+    public record BatchStats(int jobs, long cycles, long instructions, long elapsedNanos) {
+        public double instructionsPerSecond()
+        {
+            return elapsedNanos == 0 ? 0 : instructions * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * @return emulated clock frequency summed over all workers
+         */
+        public double emulatedMHz()
+        {
+            return elapsedNanos == 0 ? 0 : cycles * 1e3 / elapsedNanos;
+        }
+    }
+
+    /**
+     * @param results - job results in input order
+     * @param stats - aggregated throughput
+     * @param coverage - union of the coverage of all jobs, null unless coverage is enabled
+     */
+    public record BatchResult(List<JobResult> results, BatchStats stats, Coverage coverage) {
+    }
+
+    private final Memory image = new Memory();
+    private final int entryPoint;
+    private final long cycleBudget;
+    private final ForkJoinPool pool;
+    private final List<MemoryRange> captures = new ArrayList<>();
+    private final ThreadLocal<Worker> workers = ThreadLocal.withInitial(this::newWorker);
+    /**
+     * coverage of every worker, merged after a run
+     */
+    private final List<Coverage> coverages = new ArrayList<>();
+    private final ThreadLocal<Coverage> workerCoverage = ThreadLocal.withInitial(this::newCoverage);
+    /**
+     * address execution stops at, -1 to always run the whole budget
+     */
+    @Getter
+    @Setter
+    private int haltAddress = -1;
+    /**
+     * collect execute/read/write coverage of all jobs into {@link BatchResult#coverage()}
+     */
+    @Getter
+    @Setter
+    private boolean coverageEnabled;
+    /**
+     * run jobs with the basic block JIT, see {@link CPU#setJitEnabled(boolean)}; workers keep their compiled code
+     * between jobs
+     */
+    @Getter
+    @Setter
+    private boolean jitEnabled;
+
+    /**
+     * @param program - machine code
+     * @param loadAddress - address program is loaded at
+     * @param entryPoint - initial PC of every job
+     * @param cycleBudget - cycles a job may run
+     * @param pool - pool executing jobs
+     */
+    public BatchRunner(byte[] program, int loadAddress, int entryPoint, long cycleBudget, ForkJoinPool pool)
+    {
+        image.load(loadAddress, program);
+        this.entryPoint = entryPoint;
+        this.cycleBudget = cycleBudget;
+        this.pool = pool;
+    }
+
+    public BatchRunner(byte[] program, int loadAddress, int entryPoint, long cycleBudget)
+    {
+        this(program, loadAddress, entryPoint, cycleBudget, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Capture memory region into every result
+     * @param address - first address
+     * @param length - number of bytes
+     * @return this
+     */
+    public BatchRunner capture(int address, int length)
+    {
+        Memory.checkRange(address, length);
+        captures.add(new MemoryRange(address, length));
+        return this;
+    }
+
+    /**
+     * Reusable machine of a pool thread
+     * @param breakpoints - the worker's own points, reattached if a setup replaced them
+     */
+    private record Worker(CPU cpu, Breakpoints breakpoints) {
+    }
+
+    private Worker newWorker()
+    {
+        final var memory = new Memory();
+        final var cpu = new CPU(memory);
+        cpu.reset();
+        memory.load(0, image.copyOf(0, Memory.MEM_SIZE));
+        memory.checkpoint();
+        return new Worker(cpu, new Breakpoints());
+    }
+
+    public BatchResult run(Stream<? extends Consumer<CPU>> setups)
+    {
+        return run(setups.toList());
+    }
+
+    /**
+     * @param setups - one input per job, applied to a freshly reset machine before it runs; it may map devices,
+     *               raise interrupts, schedule events or change any cpu setting, none of it is seen by other jobs
+     * @return results in input order and aggregated throughput
+     */
+    public BatchResult run(List<? extends Consumer<CPU>> setups)
+    {
+        final var results = new JobResult[setups.size()];
+        synchronized (coverages)
+        {
+            coverages.forEach(Coverage::clear);
+        }
+        final var start = System.nanoTime();
+        pool.invoke(new Shard(setups, results, 0, results.length));
+        final var elapsed = System.nanoTime() - start;
+        Coverage coverage = null;
+        if (coverageEnabled)
+        {
+            coverage = new Coverage();
+            synchronized (coverages)
+            {
+                for (var c: coverages)
+                    coverage.merge(c);
+            }
+        }
+        long cycles = 0;
+        long instructions = 0;
+        for (var r: results)
+        {
+            cycles += r.cycles();
+            instructions += r.instructions();
+        }
+        return new BatchResult(Arrays.asList(results), new BatchStats(results.length, cycles, instructions, elapsed),
+                coverage);
+    }
+
+    private JobResult runJob(int index, Consumer<CPU> setup)
+    {
+        final var worker = workers.get();
+        final var cpu = worker.cpu();
+        final var memory = cpu.getMemory();
+        restoreBaseline(cpu);
+        memory.rollback(image);
+        cpu.resetRegisters();
+        cpu.setPC(entryPoint);
+        cpu.setCoverage(coverageEnabled ? workerCoverage.get() : null);
+        cpu.setJitEnabled(jitEnabled);
+        final var halt = haltAddress;
+        final var breakpoints = worker.breakpoints();
+        if (halt < 0 ? !breakpoints.isEmpty() : breakpoints.size() != 1 || !breakpoints.isSet(Coverage.Access.EXECUTE, halt))
+        {
+            breakpoints.clear();
+            if (halt >= 0)
+                breakpoints.add(Coverage.Access.EXECUTE, halt);
+        }
+        if (cpu.getBreakpoints() != breakpoints)
+            cpu.setBreakpoints(breakpoints);
+        setup.accept(cpu);
+        cpu.run(cycleBudget - cpu.getCycles());
+        final var captured = new byte[captures.size()][];
+        for (int i = 0; i < captured.length; i++)
+            captured[i] = memory.copyOf(captures.get(i).address(), captures.get(i).length());
+        return new JobResult(index, cpu.getPC(), cpu.getA(), cpu.getX(), cpu.getY(), cpu.getSP(),
+                cpu.getF().getByteValue(), cpu.getCycles(), cpu.getInstructions(), cpu.getPC() == halt, captured);
+    }
+
+    /**
+     * Undo what the previous job's setup may have changed outside memory and registers.
+     * Only pages holding a device are unmapped, so compiled and predecoded RAM code survives.
+     * @param cpu - worker machine
+     */
+    private static void restoreBaseline(CPU cpu)
+    {
+        cpu.setRecorder(null);
+        for (var sources = cpu.getIrqSources(); sources != 0; sources &= sources - 1)
+            cpu.setIrq(Integer.numberOfTrailingZeros(sources), false);
+        final var bus = cpu.getBus();
+        for (int p = 0; p < Bus.PAGES; p++)
+        {
+            if (bus.getDevice(p << 8) != null)
+                bus.unmap(p, 1);
+        }
+        cpu.setTraceSink(null);
+        cpu.setProfiler(null);
+        cpu.setTiming(TimingMode.BUS_ACCURATE);
+        cpu.setCore(ExecutionCore.SWITCH);
+        cpu.setPredecodeEnabled(false);
+        cpu.setIdleSkipEnabled(true);
+    }
+
+    private Coverage newCoverage()
+    {
+        final var coverage = new Coverage();
+        synchronized (coverages)
+        {
+            coverages.add(coverage);
+        }
+        return coverage;
+    }
+
+    private final class Shard extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<? extends Consumer<CPU>> setups;
+        private final JobResult[] results;
+        private final int from;
+        private final int to;
+
+        Shard(List<? extends Consumer<CPU>> setups, JobResult[] results, int from, int to)
+        {
+            this.setups = setups;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (to - from <= LEAF_JOBS)
+            {
+                for (int i = from; i < to; i++)
+                    results[i] = runJob(i, setups.get(i));
+                return;
+            }
+            final var mid = (from + to) >>> 1;
+            invokeAll(new Shard(setups, results, from, mid), new Shard(setups, results, mid, to));
+        }
+    }
+}
@@ -0,0 +1,660 @@
+package org.qmor;
+
+import org.qmor.AddressMode.AddressModeFuncGetAddr.Direction;
+import org.qmor.BytecodeWriter.Code;
+import org.qmor.BytecodeWriter.Label;
+
+import java.lang.invoke.MethodHandles;
+
+import static org.qmor.BytecodeWriter.*;
+
+/**
+ * Translates a straight line run of 6502 instructions to a {@link CompiledBlock} class.
+ * <p>
+ * A, X and Y live in locals, operands are constants, and cycles are summed at compile time; only page crossing
+ * penalties are counted at run time. Everything else (flags, stack, bus) goes through the same CPU and Bus
+ * members the interpreter uses, so the result is exact. The block ends after a jump, branch, JSR or RTS,
+ * before an opcode that cannot be translated, or when the code runs into a page that is not RAM or ROM.
+ * Generated classes are hidden nestmates of CPU.
+ */
+final class BlockCompiler {
+    /**
+     * longest block in instructions, keeps methods well under the JIT inlining and size limits
+     */
+    static final int MAX_INSTRUCTIONS = 64;
+
+    private static final String CPU_CLASS = "org/qmor/CPU";
+    private static final String BUS_CLASS = "org/qmor/Bus";
+    private static final String JIT_CLASS = "org/qmor/Jit";
+    private static final String FLAGS_CLASS = "org/qmor/FlagRegister";
+    private static final String FLAG_CLASS = "org/qmor/Flag";
+    private static final String ALU_CLASS = "org/qmor/AluOp";
+    private static final String BLOCK_CLASS = "org/qmor/CompiledBlock";
+    private static final String FLAG_DESC = "Lorg/qmor/Flag;";
+
+    //locals of execute(CPU, int)
+    private static final int CPU = 1;
+    private static final int BUDGET = 2;
+    private static final int BUS = 3;
+    private static final int A = 4;
+    private static final int X = 5;
+    private static final int Y = 6;
+    private static final int PENALTY = 7;
+    private static final int EA = 8;
+    private static final int EXIT_PC = 9;
+    private static final int EXIT_CYCLES = 10;
+    private static final int EXIT_INSTRUCTIONS = 11;
+    private static final int JIT = 12;
+    private static final int TMP = 13;
+    /**
+     * cycles and instructions of completed passes through a looping block
+     */
+    private static final int LOOP_CYCLES = 14;
+    private static final int LOOP_INSTRUCTIONS = 15;
+    private static final int MAX_LOCALS = 16;
+    private static final int MAX_STACK = 8;
+
+    private final MethodHandles.Lookup lookup;
+    private final Bus bus;
+
+    private BytecodeWriter writer;
+    private Code code;
+    private Label epilogue;
+    private Label top;
+    private int start;
+    /**
+     * cycles of translated instructions without penalties
+     */
+    private int cycles;
+    /**
+     * worst case cycles on top of {@link #cycles}
+     */
+    private int extraCycles;
+    private int instructions;
+
+    /**
+     * @param lookup - full privilege lookup of {@link CPU}
+     * @param bus - bus code is read from
+     */
+    BlockCompiler(MethodHandles.Lookup lookup, Bus bus)
+    {
+        this.lookup = lookup;
+        this.bus = bus;
+    }
+
+    /**
+     * @param address - any address
+     * @return true if code at address may be translated: RAM, whose writes are watched, or ROM
+     */
+    boolean compilable(int address)
+    {
+        return address >= 0 && address <= 0xffff && bus.isMemory(address);
+    }
+
+    /**
+     * @param pc - address of the first instruction
+     * @return compiled block or null if the instruction at pc can't be translated
+     */
+    CompiledBlock compile(int pc)
+    {
+        writer = new BytecodeWriter("org/qmor/JitBlock", BLOCK_CLASS);
+        code = writer.code();
+        epilogue = new Label();
+        top = new Label();
+        start = pc;
+        cycles = 0;
+        extraCycles = 0;
+        instructions = 0;
+        prologue();
+        code.bind(top);
+        var at = pc;
+        while (true)
+        {
+            final var op = translatable(at);
+            var emitted = Emitted.UNSUPPORTED;
+            var size = 0;
+            if (op != null && instructions < MAX_INSTRUCTIONS)
+            {
+                size = 1 + op.getAddressMode().getOperandSize();
+                final var operand = size == 1 ? 0 : size == 2 ? read(at + 1) : read(at + 1) | read(at + 2) << 8;
+                final var staticCycles = op.getCycles();
+                final var extra = penalty(op);
+                cycles += staticCycles;
+                extraCycles += extra;
+                instructions++;
+                emitted = instruction(op, at + size, operand);
+                if (emitted == Emitted.UNSUPPORTED)
+                {
+                    cycles -= staticCycles;
+                    extraCycles -= extra;
+                    instructions--;
+                }
+            }
+            if (emitted == Emitted.UNSUPPORTED)
+            {
+                if (instructions == 0)
+                    return null;
+                exit(at);
+                break;
+            }
+            at += size;
+            if (emitted == Emitted.END)
+                break;
+        }
+        code.bind(epilogue);
+        epilogue();
+        writer.method("execute", "(Lorg/qmor/CPU;I)V", code, MAX_STACK, MAX_LOCALS);
+        constructor();
+        return define(pc, at - pc);
+    }
+
+    /**
+     * outcome of translating one instruction
+     */
+    private enum Emitted {
+        /**
+         * block continues with the next instruction
+         */
+        NEXT,
+        /**
+         * instruction transfers control, block ends
+         */
+        END,
+        /**
+         * nothing emitted, the interpreter has to execute the instruction
+         */
+        UNSUPPORTED
+    }
+
+    private CompiledBlock define(int pc, int length)
+    {
+        try
+        {
+            final var type = lookup.defineHiddenClass(writer.toByteArray(), true, MethodHandles.Lookup.ClassOption.NESTMATE)
+                    .lookupClass();
+            return (CompiledBlock) type.getConstructor(int.class, int.class, int.class, int.class)
+                    .newInstance(pc, length, instructions, cycles + extraCycles);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            throw new IllegalStateException("Can't define block at %04X".formatted(pc), e);
+        }
+    }
+
+    private int read(int address)
+    {
+        return bus.read(address);
+    }
+
+    /**
+     * @param at - instruction address
+     * @return instruction if it and its operand can be translated, null otherwise
+     */
+    private OpCodes translatable(int at)
+    {
+        if (!compilable(at))
+            return null;
+        final var op = OpCodes.decode(read(at));
+        if (op == OpCodes.ILLEGAL)
+            return null;
+        final var size = op.getAddressMode().getOperandSize();
+        if (size > 0 && !compilable(at + size))
+            return null;
+        return op;
+    }
+
+    /**
+     * @return worst case extra cycles of op beyond {@link OpCodes#getCycles()}
+     */
+    private static int penalty(OpCodes op)
+    {
+        if (op.getAddressMode() == AddressMode.RELATIVE)
+            return 2;
+        if (op.getMicrocode().direction() == Direction.R)
+        {
+            return switch (op.getAddressMode())
+            {
+                case ABSOLUTE_X, ABSOLUTE_Y, INDIRECT_Y -> 1;
+                default -> 0;
+            };
+        }
+        return 0;
+    }
+
+    private void prologue()
+    {
+        code.local(ALOAD, CPU).ref(GETFIELD, writer.fieldRef(CPU_CLASS, "bus", "Lorg/qmor/Bus;")).local(ASTORE, BUS);
+        code.local(ALOAD, CPU).ref(GETFIELD, writer.fieldRef(CPU_CLASS, "jit", "Lorg/qmor/Jit;")).local(ASTORE, JIT);
+        for (var r: new String[]{"A", "X", "Y"})
+            code.local(ALOAD, CPU).ref(GETFIELD, writer.fieldRef(CPU_CLASS, r, "S")).local(ISTORE, slot(r));
+        code.iconst(0).local(ISTORE, PENALTY);
+        code.iconst(0).local(ISTORE, LOOP_CYCLES);
+        code.iconst(0).local(ISTORE, LOOP_INSTRUCTIONS);
+    }
+
+    private void epilogue()
+    {
+        for (var r: new String[]{"A", "X", "Y"})
+            code.local(ALOAD, CPU).local(ILOAD, slot(r)).op(I2S).ref(PUTFIELD, writer.fieldRef(CPU_CLASS, r, "S"));
+        code.local(ALOAD, CPU).local(ILOAD, EXIT_PC).ref(PUTFIELD, writer.fieldRef(CPU_CLASS, "PC", "I"));
+        final var cyclesField = writer.fieldRef(CPU_CLASS, "cycles", "J");
+        code.local(ALOAD, CPU).op(DUP).ref(GETFIELD, cyclesField)
+                .local(ILOAD, EXIT_CYCLES).local(ILOAD, PENALTY).op(IADD).local(ILOAD, LOOP_CYCLES).op(IADD)
+                .op(I2L).op(LADD)
+                .ref(PUTFIELD, cyclesField);
+        final var instructionsField = writer.fieldRef(CPU_CLASS, "instructions", "J");
+        code.local(ALOAD, CPU).op(DUP).ref(GETFIELD, instructionsField)
+                .local(ILOAD, EXIT_INSTRUCTIONS).local(ILOAD, LOOP_INSTRUCTIONS).op(IADD).op(I2L).op(LADD)
+                .ref(PUTFIELD, instructionsField);
+        code.op(RETURN);
+    }
+
+    private void constructor()
+    {
+        final var init = writer.code();
+        init.local(ALOAD, 0).local(ILOAD, 1).local(ILOAD, 2).local(ILOAD, 3).local(ILOAD, 4)
+                .ref(INVOKESPECIAL, writer.methodRef(BLOCK_CLASS, "<init>", "(IIII)V"))
+                .op(RETURN);
+        writer.method("<init>", "(IIII)V", init, 5, 5);
+    }
+
+    private static int slot(String register)
+    {
+        return switch (register)
+        {
+            case "A" -> A;
+            case "X" -> X;
+            default -> Y;
+        };
+    }
+
+    private static int slot(Register register)
+    {
+        return slot(register.name());
+    }
+
+    /**
+     * leave the block with a constant PC, counting everything translated so far
+     */
+    private void exit(int pc)
+    {
+        code.iconst(pc).local(ISTORE, EXIT_PC);
+        exitCounters(0);
+    }
+
+    /**
+     * transfer control to a constant target. A jump back to the start of the block loops inside the generated
+     * code while the remaining budget allows another full pass, as the interpreter loop would re-enter the block
+     * @param target - jump target
+     * @param extra - cycles of the taken path on top of {@link #cycles}
+     */
+    private void jump(int target, int extra)
+    {
+        if (target == start)
+        {
+            final var leave = new Label();
+            code.local(ILOAD, LOOP_CYCLES).iconst(cycles + extra).op(IADD).local(ILOAD, PENALTY).op(IADD)
+                    .local(ISTORE, LOOP_CYCLES)
+                    .iconst(0).local(ISTORE, PENALTY)
+                    .iinc(LOOP_INSTRUCTIONS, instructions)
+                    .local(ILOAD, BUDGET).local(ILOAD, LOOP_CYCLES).op(ISUB).iconst(cycles + extraCycles)
+                    .jump(IF_ICMPLT, leave)
+                    .jump(GOTO, top)
+                    .bind(leave)
+                    .iconst(target).local(ISTORE, EXIT_PC)
+                    .iconst(0).local(ISTORE, EXIT_CYCLES)
+                    .iconst(0).local(ISTORE, EXIT_INSTRUCTIONS)
+                    .jump(GOTO, epilogue);
+            return;
+        }
+        code.iconst(target).local(ISTORE, EXIT_PC);
+        exitCounters(extra);
+    }
+
+    /**
+     * leave the block with PC on the operand stack
+     */
+    private void exitDynamic()
+    {
+        code.local(ISTORE, EXIT_PC);
+        exitCounters(0);
+    }
+
+    private void exitCounters(int extraCycles)
+    {
+        code.iconst(cycles + extraCycles).local(ISTORE, EXIT_CYCLES)
+                .iconst(instructions).local(ISTORE, EXIT_INSTRUCTIONS)
+                .jump(GOTO, epilogue);
+    }
+
+    /**
+     * after a store or flag restore: leave the block if it modified compiled code, the rest of the block may be stale,
+     * or if an interrupt has to be taken
+     */
+    private void checkExitRequested(int next)
+    {
+        final var cont = new Label();
+        code.local(ALOAD, JIT).ref(GETFIELD, writer.fieldRef(JIT_CLASS, "exitRequested", "Z")).jump(IFEQ, cont);
+        exit(next);
+        code.bind(cont);
+    }
+
+    /**
+     * after I may have been cleared: leave the block if a pending interrupt is now taken
+     */
+    private void checkInterrupts(int next)
+    {
+        code.local(ALOAD, CPU).ref(INVOKEVIRTUAL, writer.methodRef(CPU_CLASS, "checkInterrupts", "()V"));
+        checkExitRequested(next);
+    }
+
+    private void busRead()
+    {
+        code.ref(INVOKEVIRTUAL, writer.methodRef(BUS_CLASS, "read", "(I)S"));
+    }
+
+    /**
+     * push word at constant address, with the same (lack of) wrap around as {@link CPU#readWord(int)}
+     */
+    private void readWord(int address)
+    {
+        code.local(ALOAD, BUS).iconst(address);
+        busRead();
+        code.local(ALOAD, BUS).iconst(address + 1);
+        busRead();
+        code.iconst(8).op(ISHL).op(IOR);
+    }
+
+    /**
+     * add a cycle to PENALTY if base and EA are on different pages, as {@link CPU#addressNotInSamePage(int, int)}
+     */
+    private void pagePenalty(Runnable pushBase)
+    {
+        final var same = new Label();
+        pushBase.run();
+        code.local(ILOAD, EA).op(IXOR).iconst(0x100).op(IAND).jump(IFEQ, same).iinc(PENALTY, 1).bind(same);
+    }
+
+    /**
+     * compute effective address of the operand into EA, mirroring {@link AddressMode}
+     */
+    private void effectiveAddress(AddressMode mode, int operand, Direction direction)
+    {
+        switch (mode)
+        {
+            case ZERO_PAGE, ABSOLUTE -> code.iconst(operand).local(ISTORE, EA);
+            case ZERO_PAGE_X -> code.iconst(operand).local(ILOAD, X).op(IADD).local(ISTORE, EA);
+            case ZERO_PAGE_Y -> code.iconst(operand).local(ILOAD, Y).op(IADD).local(ISTORE, EA);
+            case ABSOLUTE_X, ABSOLUTE_Y -> {
+                code.iconst(operand).local(ILOAD, mode == AddressMode.ABSOLUTE_X ? X : Y).op(IADD).local(ISTORE, EA);
+                if (direction == Direction.R)
+                    pagePenalty(() -> code.iconst(operand));
+            }
+            case INDIRECT_X -> {
+                code.iconst(operand).local(ILOAD, X).op(IADD).iconst(0xff).op(IAND).local(ISTORE, TMP);
+                code.local(ALOAD, BUS).local(ILOAD, TMP);
+                busRead();
+                code.local(ALOAD, BUS).local(ILOAD, TMP).iconst(1).op(IADD);
+                busRead();
+                code.iconst(8).op(ISHL).op(IOR).local(ISTORE, EA);
+            }
+            case INDIRECT_Y -> {
+                readWord(operand);
+                code.local(ISTORE, TMP).local(ILOAD, TMP).local(ILOAD, Y).op(IADD).local(ISTORE, EA);
+                if (direction == Direction.R)
+                    pagePenalty(() -> code.local(ILOAD, TMP));
+            }
+            default -> throw new IllegalArgumentException("No effective address for " + mode);
+        }
+    }
+
+    /**
+     * push operand value, immediates are constants
+     */
+    private void operandValue(OpCodes op, int operand)
+    {
+        if (op.getAddressMode() == AddressMode.IMMEDIATE)
+        {
+            code.iconst(operand);
+            return;
+        }
+        effectiveAddress(op.getAddressMode(), operand, op.getMicrocode().direction());
+        code.local(ALOAD, BUS).local(ILOAD, EA);
+        busRead();
+    }
+
+    /**
+     * write value in local slot to EA
+     */
+    private void store(int slot, int next)
+    {
+        code.local(ALOAD, BUS).local(ILOAD, EA).local(ILOAD, slot).op(I2B)
+                .ref(INVOKEVIRTUAL, writer.methodRef(BUS_CLASS, "write", "(IB)V"));
+        checkExitRequested(next);
+    }
+
+    private void applyFlags(int mask, int slot)
+    {
+        code.local(ALOAD, CPU).iconst(mask).local(ILOAD, slot)
+                .ref(INVOKEVIRTUAL, writer.methodRef(CPU_CLASS, "applyFlags", "(IS)V"));
+    }
+
+    private void flags()
+    {
+        code.local(ALOAD, CPU).ref(GETFIELD, writer.fieldRef(CPU_CLASS, "F", "Lorg/qmor/FlagRegister;"));
+    }
+
+    private void flag(Flag flag)
+    {
+        code.ref(GETSTATIC, writer.fieldRef(FLAG_CLASS, flag.name(), FLAG_DESC));
+    }
+
+    private void carry()
+    {
+        flags();
+        flag(Flag.C);
+        code.ref(INVOKEVIRTUAL, writer.methodRef(FLAGS_CLASS, "getAsInt", "(" + FLAG_DESC + ")I"));
+    }
+
+    private void setFlag(Flag flag, boolean value)
+    {
+        flags();
+        flag(flag);
+        code.iconst(value ? 1 : 0).ref(INVOKEVIRTUAL, writer.methodRef(FLAGS_CLASS, "setFlag", "(" + FLAG_DESC + "Z)V"));
+    }
+
+    /**
+     * register result bookkeeping done by the interpreter after every instruction
+     */
+    private void result(Microcode mc)
+    {
+        if (mc.register() == Register.NONE)
+            return;
+        final var slot = slot(mc.register());
+        if (mc.flagMask() != 0)
+            applyFlags(mc.flagMask(), slot);
+        code.local(ILOAD, slot).iconst(0xff).op(IAND).local(ISTORE, slot);
+    }
+
+    private void branch(Flag flag, boolean takenWhenSet, int next, int operand)
+    {
+        final var notTaken = new Label();
+        flags();
+        flag(flag);
+        code.ref(INVOKEVIRTUAL, writer.methodRef(FLAGS_CLASS, "getAsBoolean", "(" + FLAG_DESC + ")Z"))
+                .jump(takenWhenSet ? IFEQ : IFNE, notTaken);
+        final var target = (next + (byte) operand) & 0xffff;
+        jump(target, ((next & 0x100) != (target & 0x100)) ? 2 : 1);
+        code.bind(notTaken);
+        exit(next);
+    }
+
+    /**
+     * emit one instruction
+     * @param op - instruction
+     * @param next - address of the following instruction
+     * @param operand - operand byte or word
+     * @return whether the block goes on
+     */
+    private Emitted instruction(OpCodes op, int next, int operand)
+    {
+        final var mc = op.getMicrocode();
+        switch (op)
+        {
+            case JSR -> {
+                code.local(ALOAD, CPU).iconst((short) (next - 1))
+                        .ref(INVOKEVIRTUAL, writer.methodRef(CPU_CLASS, "writeWordToStack", "(S)V"));
+                exit(operand);
+                return Emitted.END;
+            }
+            case RTS -> {
+                code.local(ALOAD, CPU).ref(INVOKEVIRTUAL, writer.methodRef(CPU_CLASS, "readWordFromStack", "()I"))
+                        .iconst(1).op(IADD);
+                exitDynamic();
+                return Emitted.END;
+            }
+            case JMP_ABSOLUTE -> {
+                jump(operand, 0);
+                return Emitted.END;
+            }
+            case JMP_INDIRECT -> {
+                readWord(operand);
+                exitDynamic();
+                return Emitted.END;
+            }
+            case BPL -> branch(Flag.N, false, next, operand);
+            case BMI -> branch(Flag.N, true, next, operand);
+            case BVC -> branch(Flag.V, false, next, operand);
+            case BVS -> branch(Flag.V, true, next, operand);
+            case BCC -> branch(Flag.C, false, next, operand);
+            case BCS -> branch(Flag.C, true, next, operand);
+            case BNE -> branch(Flag.Z, false, next, operand);
+            case BEQ -> branch(Flag.Z, true, next, operand);
+
+            case LDA_IM, LDA_ZP, LDA_ZP_X, LDA_ABSOLUTE, LDA_ABSOLUTE_X, LDA_ABSOLUTE_Y, LDA_INDIRECT_X, LDA_INDIRECT_Y,
+             LDX_IM, LDX_ZP, LDX_ZP_Y, LDX_ABSOLUTE, LDX_ABSOLUTE_Y,
+             LDY_IM, LDY_ZP, LDY_ZP_X, LDY_ABSOLUTE, LDY_ABSOLUTE_X -> {
+                operandValue(op, operand);
+                code.local(ISTORE, slot(mc.register()));
+            }
+            case STA_ZP, STA_ZP_X, STA_ABSOLUTE, STA_ABSOLUTE_X, STA_ABSOLUTE_Y, STA_INDIRECT_X, STA_INDIRECT_Y,
+             STX_ZP, STX_ZP_Y, STX_ABSOLUTE, STY_ZP, STY_ZP_X, STY_ABSOLUTE -> {
+                effectiveAddress(op.getAddressMode(), operand, mc.direction());
+                store(slot(op.name().substring(2, 3)), next);
+            }
+
+            case TXA -> code.local(ILOAD, X).local(ISTORE, A);
+            case TYA -> code.local(ILOAD, Y).local(ISTORE, A);
+            case TAX -> code.local(ILOAD, A).local(ISTORE, X);
+            case TAY -> code.local(ILOAD, A).local(ISTORE, Y);
+            case TSX -> code.local(ALOAD, CPU).ref(GETFIELD, writer.fieldRef(CPU_CLASS, "SP", "I")).local(ISTORE, X);
+            case TXS -> code.local(ALOAD, CPU).local(ILOAD, X).ref(PUTFIELD, writer.fieldRef(CPU_CLASS, "SP", "I"));
+            case PHA -> {
+                code.local(ALOAD, CPU).local(ILOAD, A).op(I2B)
+                        .ref(INVOKEVIRTUAL, writer.methodRef(CPU_CLASS, "writeByteToStack", "(B)V"));
+                checkExitRequested(next);
+            }
+            case PLA -> code.local(ALOAD, CPU).ref(INVOKEVIRTUAL, writer.methodRef(CPU_CLASS, "readByteFromStack", "()I"))
+                    .local(ISTORE, A);
+            case PHP -> {
+                code.local(ALOAD, CPU);
+                flags();
+                code.ref(INVOKEVIRTUAL, writer.methodRef(FLAGS_CLASS, "getByteValue", "()S")).op(I2B)
+                        .ref(INVOKEVIRTUAL, writer.methodRef(CPU_CLASS, "writeByteToStack", "(B)V"));
+                checkExitRequested(next);
+            }
+            case PLP -> {
+                flags();
+                code.local(ALOAD, CPU).ref(INVOKEVIRTUAL, writer.methodRef(CPU_CLASS, "readByteFromStack", "()I"))
+                        .iconst(0xff).op(IAND).op(I2S)
+                        .ref(INVOKEVIRTUAL, writer.methodRef(FLAGS_CLASS, "setByteValue", "(S)V"));
+                checkInterrupts(next);
+            }
+
+            case AND_IM, AND_ZP, AND_ZP_X, AND_ABSOLUTE, AND_ABSOLUTE_X, AND_ABSOLUTE_Y, AND_INDIRECT_X, AND_INDIRECT_Y,
+             OR_IM, OR_ZP, OR_ZP_X, OR_ABSOLUTE, OR_ABSOLUTE_X, OR_ABSOLUTE_Y, OR_INDIRECT_X, OR_INDIRECT_Y,
+             EOR_IM, EOR_ZP, EOR_ZP_X, EOR_ABSOLUTE, EOR_ABSOLUTE_X, EOR_ABSOLUTE_Y, EOR_INDIRECT_X, EOR_INDIRECT_Y -> {
+                code.local(ILOAD, A);
+                operandValue(op, operand);
+                code.op(switch (mc.alu())
+                {
+                    case OR -> IOR;
+                    case XOR -> IXOR;
+                    default -> IAND;
+                }).local(ISTORE, A);
+            }
+
+            case DEX, DEY, INX, INY -> {
+                final var slot = slot(mc.register());
+                code.local(ILOAD, slot).iconst(mc.alu() == AluOp.INC ? 1 : -1).op(IADD).iconst(0xff).op(IAND)
+                        .local(ISTORE, slot);
+            }
+
+            case INC_ZP, INC_ZP_X, INC_ABSOLUTE, INC_ABSOLUTE_X, DEC_ZP, DEC_ZP_X, DEC_ABSOLUTE, DEC_ABSOLUTE_X -> {
+                operandValue(op, operand);
+                code.iconst(mc.alu() == AluOp.INC ? 1 : -1).op(IADD).iconst(0xff).op(IAND).local(ISTORE, TMP);
+                applyFlags(mc.flagMask(), TMP);
+                store(TMP, next);
+            }
+
+            case BIT_ABSOLUTE, BIT_ZP -> {
+                code.local(ALOAD, CPU).local(ILOAD, A);
+                operandValue(op, operand);
+                code.ref(INVOKEVIRTUAL, writer.methodRef(CPU_CLASS, "bit", "(SS)V"));
+            }
+
+            case ADC_IM, ADC_ZP, ADC_ZP_X, ADC_ABSOLUTE, ADC_ABSOLUTE_X, ADC_ABSOLUTE_Y, ADC_INDIRECT_X, ADC_INDIRECT_Y -> {
+                code.local(ILOAD, A);
+                operandValue(op, operand);
+                carry();
+                code.op(IADD).op(I2S).op(IADD).op(I2S).local(ISTORE, A);
+            }
+            case SBC_IM, SBC_ZP, SBC_ZP_X, SBC_ABSOLUTE, SBC_ABSOLUTE_X, SBC_ABSOLUTE_Y, SBC_INDIRECT_X, SBC_INDIRECT_Y -> {
+                code.local(ILOAD, A);
+                operandValue(op, operand);
+                code.iconst(1);
+                carry();
+                code.op(ISUB).op(IADD).op(I2S).op(ISUB).op(I2S).local(ISTORE, A);
+            }
+            case CMP_IM, CMP_ZP, CMP_ZP_X, CMP_ABSOLUTE, CMP_ABSOLUTE_X, CMP_ABSOLUTE_Y, CMP_INDIRECT_X, CMP_INDIRECT_Y,
+             CPX_IM, CPX_ZP, CPX_ABSOLUTE, CPY_IM, CPY_ZP, CPY_ABSOLUTE -> {
+                code.local(ALOAD, CPU).local(ILOAD, slot(mc.register()));
+                operandValue(op, operand);
+                code.ref(INVOKEVIRTUAL, writer.methodRef(CPU_CLASS, "cmp", "(SS)V"));
+            }
+
+            case ASL_A, LSR_A, ROL_A, ROR_A -> {
+                code.local(ALOAD, CPU).ref(GETSTATIC, writer.fieldRef(ALU_CLASS, mc.alu().name(), "Lorg/qmor/AluOp;"))
+                        .local(ILOAD, A)
+                        .ref(INVOKEVIRTUAL, writer.methodRef(CPU_CLASS, "shift", "(Lorg/qmor/AluOp;I)S"))
+                        .local(ISTORE, A);
+            }
+            case ASL_ZP, ASL_ZP_X, ASL_ABSOLUTE, ASL_ABSOLUTE_X, LSR_ZP, LSR_ZP_X, LSR_ABSOLUTE, LSR_ABSOLUTE_X,
+             ROL_ZP, ROL_ZP_X, ROL_ABSOLUTE, ROL_ABSOLUTE_X, ROR_ZP, ROR_ZP_X, ROR_ABSOLUTE, ROR_ABSOLUTE_X -> {
+                code.local(ALOAD, CPU).ref(GETSTATIC, writer.fieldRef(ALU_CLASS, mc.alu().name(), "Lorg/qmor/AluOp;"));
+                operandValue(op, operand);
+                code.ref(INVOKEVIRTUAL, writer.methodRef(CPU_CLASS, "shift", "(Lorg/qmor/AluOp;I)S"))
+                        .local(ISTORE, TMP);
+                applyFlags(mc.flagMask(), TMP);
+                store(TMP, next);
+            }
+
+            case SEC, CLC -> setFlag(Flag.C, op == OpCodes.SEC);
+            case CLV -> setFlag(Flag.V, false);
+            case SEI -> setFlag(Flag.I, true);
+            case CLI -> {
+                setFlag(Flag.I, false);
+                checkInterrupts(next);
+            }
+            case NOP -> {
+            }
+            default -> {
+                return Emitted.UNSUPPORTED;
+            }
+        }
+        if (op.getAddressMode() == AddressMode.RELATIVE)
+            return Emitted.END;
+        result(mc);
+        return Emitted.NEXT;
+    }
+}
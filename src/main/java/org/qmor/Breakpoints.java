@@ -0,0 +1,251 @@
+package org.qmor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Execute breakpoints and read/write watchpoints, attached with {@link CPU#setBreakpoints(Breakpoints)}.
+ * <p>
+ * Points are kept per access kind as per-page bitmaps: pages without a point are null, so an access to them costs
+ * one array load. {@link CPU#run(long)} stops at the instruction boundary before an instruction at a breakpoint,
+ * and right after an instruction that read or wrote a watched address; cycles and instructions counted are exactly
+ * those executed. Running again from a breakpoint passes over it. Compiled blocks and idle loop fast-forward bypass
+ * the checks: they are off while watchpoints are set, and with breakpoints only, blocks and idle loops holding a
+ * breakpoint are interpreted instead. With no points set the cpu runs at full speed.
+ * <p>
+ * Points may be added and removed while attached, between runs or from a device or event callback; a running
+ * {@link CPU#run(long)} checks them from the next instruction boundary on.
+ */
+public final class Breakpoints {
+    /**
+     * Why {@link CPU#run(long)} stopped early
+     * @param access - EXECUTE for a breakpoint, READ or WRITE for a watchpoint
+     * @param address - breakpoint or accessed address
+     * @param pc - instruction at the breakpoint or the one that made the access,
+     *             the interrupted PC if it was made by an interrupt entry
+     */
+    public record Hit(Coverage.Access access, int address, int pc) {
+        @Override
+        public String toString()
+        {
+            return "%s %04X at %04X".formatted(access, address, pc);
+        }
+    }
+
+    private static final int PAGE_WORDS = Bus.PAGE_SIZE / Long.SIZE;
+
+    private final long[][] execute = new long[Bus.PAGES][];
+    private final long[][] read = new long[Bus.PAGES][];
+    private final long[][] write = new long[Bus.PAGES][];
+    private int points;
+    /**
+     * read and write points among them
+     */
+    private int watchpoints;
+    /**
+     * cpus using these points, told about every change
+     */
+    private final List<CPU> cpus = new ArrayList<>(1);
+
+    void attach(CPU cpu)
+    {
+        cpus.add(cpu);
+    }
+
+    void detach(CPU cpu)
+    {
+        cpus.remove(cpu);
+    }
+
+    private void changed()
+    {
+        for (var cpu: cpus)
+            cpu.breakpointsChanged();
+    }
+
+    private long[][] pages(Coverage.Access access)
+    {
+        return switch (access)
+        {
+            case EXECUTE -> execute;
+            case READ -> read;
+            case WRITE -> write;
+        };
+    }
+
+    private static boolean isSet(long[][] pages, int address)
+    {
+        final var page = pages[(address & 0xffff) >>> 8];
+        return page != null && (page[(address >>> 6) & (PAGE_WORDS - 1)] & 1L << address) != 0;
+    }
+
+    boolean isExecute(int address)
+    {
+        return isSet(execute, address);
+    }
+
+    boolean isRead(int address)
+    {
+        return isSet(read, address);
+    }
+
+    boolean isWrite(int address)
+    {
+        return isSet(write, address);
+    }
+
+    /**
+     * @return true if any read or write watchpoint is set
+     */
+    boolean hasWatchpoints()
+    {
+        return watchpoints != 0;
+    }
+
+    /**
+     * @param first - first address
+     * @param last - last address, inclusive, may wrap around to page 0
+     * @return true if a breakpoint is set in the range
+     */
+    boolean anyExecute(int first, int last)
+    {
+        for (int address = first; address <= last; address = (address | 0xff) + 1)
+        {
+            final var page = execute[(address & 0xffff) >>> 8];
+            if (page == null)
+                continue;
+            final var to = Math.min(last, address | 0xff);
+            for (int a = address; a <= to; a++)
+            {
+                if ((page[(a >>> 6) & (PAGE_WORDS - 1)] & 1L << a) != 0)
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param access - EXECUTE for a breakpoint, READ or WRITE for a watchpoint
+     * @param address - address
+     * @return true if the point is set
+     */
+    public boolean isSet(Coverage.Access access, int address)
+    {
+        return isSet(pages(access), address);
+    }
+
+    /**
+     * @param access - EXECUTE for a breakpoint, READ or WRITE for a watchpoint
+     * @param address - address
+     * @return this
+     */
+    public Breakpoints add(Coverage.Access access, int address)
+    {
+        return add(access, address, address);
+    }
+
+    /**
+     * Set points on a range of addresses
+     * @param access - EXECUTE for breakpoints, READ or WRITE for watchpoints
+     * @param first - first address
+     * @param last - last address, inclusive
+     * @return this
+     */
+    public Breakpoints add(Coverage.Access access, int first, int last)
+    {
+        checkRange(first, last);
+        final var pages = pages(access);
+        for (int address = first; address <= last; address++)
+        {
+            var page = pages[address >>> 8];
+            if (page == null)
+                page = pages[address >>> 8] = new long[PAGE_WORDS];
+            final var bit = 1L << address;
+            final var i = (address >>> 6) & (PAGE_WORDS - 1);
+            if ((page[i] & bit) == 0)
+            {
+                page[i] |= bit;
+                points++;
+                if (access != Coverage.Access.EXECUTE)
+                    watchpoints++;
+            }
+        }
+        changed();
+        return this;
+    }
+
+    /**
+     * @param access - EXECUTE for a breakpoint, READ or WRITE for a watchpoint
+     * @param address - address
+     * @return this
+     */
+    public Breakpoints remove(Coverage.Access access, int address)
+    {
+        return remove(access, address, address);
+    }
+
+    /**
+     * Clear points on a range of addresses, pages left without any stop being checked
+     * @param access - EXECUTE for breakpoints, READ or WRITE for watchpoints
+     * @param first - first address
+     * @param last - last address, inclusive
+     * @return this
+     */
+    public Breakpoints remove(Coverage.Access access, int first, int last)
+    {
+        checkRange(first, last);
+        final var pages = pages(access);
+        for (int address = first; address <= last; address++)
+        {
+            final var page = pages[address >>> 8];
+            if (page == null)
+                continue;
+            final var bit = 1L << address;
+            final var i = (address >>> 6) & (PAGE_WORDS - 1);
+            if ((page[i] & bit) != 0)
+            {
+                page[i] &= ~bit;
+                points--;
+                if (access != Coverage.Access.EXECUTE)
+                    watchpoints--;
+            }
+            if ((page[0] | page[1] | page[2] | page[3]) == 0)
+                pages[address >>> 8] = null;
+        }
+        changed();
+        return this;
+    }
+
+    /**
+     * @return number of points set
+     */
+    public int size()
+    {
+        return points;
+    }
+
+    /**
+     * @return true if no point is set
+     */
+    public boolean isEmpty()
+    {
+        return points == 0;
+    }
+
+    /**
+     * Remove all points
+     */
+    public void clear()
+    {
+        for (int i = 0; i < Bus.PAGES; i++)
+            execute[i] = read[i] = write[i] = null;
+        points = watchpoints = 0;
+        changed();
+    }
+
+    private static void checkRange(int first, int last)
+    {
+        if (first < 0 || last < first || last >= Memory.MEM_SIZE)
+            throw new IllegalArgumentException("Bad address range %04x-%04x".formatted(first, last));
+    }
+}
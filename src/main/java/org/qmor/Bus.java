@@ -0,0 +1,171 @@
+package org.qmor;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * Address decoder between the CPU and memory.
+ * Each of the 256 pages of 256 bytes is either plain RAM, served straight from {@link Memory#ram()},
+ * or a {@link Device}. Only device pages pay for a virtual call.
+ * Memory without a heap array (e.g. {@link OffHeapMemory}) is itself mapped as the device of every page.
+ */
+public final class Bus {
+    public static final int PAGE_SIZE = 0x100;
+    public static final int PAGES = Memory.MEM_SIZE / PAGE_SIZE;
+
+    @Getter
+    private final Memory memory;
+    private final byte[] ram;
+    /**
+     * dirty page bits of memory, updated inline on RAM writes
+     */
+    private final long[] dirty;
+    /**
+     * pages of memory holding decoded or compiled code, see {@link Memory#watchCode(int, int, boolean)}
+     */
+    private final byte[] codePages;
+    /**
+     * what an unmapped page resolves to, null when RAM is served from the array
+     */
+    private final Device ramDevice;
+    /**
+     * device per page, null for RAM pages
+     */
+    private final Device[] pages = new Device[PAGES];
+    /**
+     * pages served by RAM or ROM, whose reads have no side effects
+     */
+    private final boolean[] memoryPages = new boolean[PAGES];
+    /**
+     * reads and writes of device pages other than RAM and ROM, lets callers see that an instruction had side effects
+     */
+    private long deviceAccesses;
+
+    public Bus(Memory memory)
+    {
+        this.memory = memory;
+        this.ram = memory.ram();
+        this.dirty = memory.dirty;
+        this.codePages = memory.codePages;
+        this.ramDevice = ram == null ? memory : null;
+        Arrays.fill(pages, ramDevice);
+        Arrays.fill(memoryPages, true);
+    }
+
+    /**
+     * @param address - address to read, wrapped to 16 bits
+     * @return byte value
+     */
+    public short read(int address)
+    {
+        address &= 0xffff;
+        final var device = pages[address >>> 8];
+        if (device == null)
+            return (short) (ram[address] & 0xff);
+        if (!memoryPages[address >>> 8])
+            deviceAccesses++;
+        return device.read(address);
+    }
+
+    /**
+     * @param address - address to write, wrapped to 16 bits
+     * @param value - byte to write
+     */
+    public void write(int address, byte value)
+    {
+        address &= 0xffff;
+        final var device = pages[address >>> 8];
+        if (device == null)
+        {
+            ram[address] = value;
+            dirty[address >>> 14] |= 1L << (address >>> 8);
+            if (codePages[address >>> 8] != 0)
+                memory.codeWritten(address, 1);
+        }
+        else
+        {
+            if (!memoryPages[address >>> 8])
+                deviceAccesses++;
+            device.write(address, value);
+        }
+    }
+
+    /**
+     * Attach device to pages, replacing whatever was mapped there
+     * @param firstPage - first page (address >> 8)
+     * @param pageCount - number of pages
+     * @param device - device serving the pages
+     */
+    public void map(int firstPage, int pageCount, Device device)
+    {
+        checkRange(firstPage, pageCount);
+        if (device == null)
+            throw new IllegalArgumentException("Device is null, use unmap to restore RAM");
+        for (int i = firstPage; i < firstPage + pageCount; i++)
+        {
+            pages[i] = device;
+            memoryPages[i] = device == ramDevice || device instanceof Rom;
+            remapped(i);
+        }
+    }
+
+    /**
+     * Restore plain RAM on pages
+     * @param firstPage - first page (address >> 8)
+     * @param pageCount - number of pages
+     */
+    public void unmap(int firstPage, int pageCount)
+    {
+        checkRange(firstPage, pageCount);
+        for (int i = firstPage; i < firstPage + pageCount; i++)
+        {
+            pages[i] = ramDevice;
+            memoryPages[i] = true;
+            remapped(i);
+        }
+    }
+
+    /**
+     * code decoded from a remapped page is stale, report it as written
+     * @param page - page number
+     */
+    private void remapped(int page)
+    {
+        if (codePages[page] != 0)
+            memory.codeWritten(page << 8, PAGE_SIZE);
+    }
+
+    /**
+     * @param address - any address within the page
+     * @return device mapped at the page or null for RAM
+     */
+    public Device getDevice(int address)
+    {
+        final var device = pages[(address & 0xffff) >>> 8];
+        return device == ramDevice ? null : device;
+    }
+
+    /**
+     * @param address - any address within the page
+     * @return true if the page is RAM or ROM, whose content only changes by writes and can be decoded ahead
+     */
+    boolean isMemory(int address)
+    {
+        return memoryPages[(address & 0xffff) >>> 8];
+    }
+
+    /**
+     * @return number of reads and writes that reached devices other than RAM and ROM
+     */
+    long getDeviceAccesses()
+    {
+        return deviceAccesses;
+    }
+
+    private static void checkRange(int firstPage, int pageCount)
+    {
+        if (firstPage < 0 || pageCount <= 0 || firstPage + pageCount > PAGES)
+            throw new IllegalArgumentException("Bad page range %02x+%d".formatted(firstPage, pageCount));
+    }
+}
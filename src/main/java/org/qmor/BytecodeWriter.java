@@ -0,0 +1,334 @@
+package org.qmor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal class file writer for {@link BlockCompiler}: one class, no fields, methods with straight code.
+ * Version 49 class files are written, they are verified by type inference and need no stack map frames.
+ */
+final class BytecodeWriter {
+    static final int ICONST_0 = 0x03;
+    static final int BIPUSH = 0x10;
+    static final int SIPUSH = 0x11;
+    static final int LDC_W = 0x13;
+    static final int ILOAD = 0x15;
+    static final int ALOAD = 0x19;
+    static final int ISTORE = 0x36;
+    static final int ASTORE = 0x3a;
+    static final int DUP = 0x59;
+    static final int IADD = 0x60;
+    static final int LADD = 0x61;
+    static final int ISUB = 0x64;
+    static final int ISHL = 0x78;
+    static final int IAND = 0x7e;
+    static final int IOR = 0x80;
+    static final int IXOR = 0x82;
+    static final int IINC = 0x84;
+    static final int I2L = 0x85;
+    static final int I2B = 0x91;
+    static final int I2S = 0x93;
+    static final int IFEQ = 0x99;
+    static final int IFNE = 0x9a;
+    static final int IF_ICMPLT = 0xa1;
+    static final int GOTO = 0xa7;
+    static final int RETURN = 0xb1;
+    static final int GETSTATIC = 0xb2;
+    static final int GETFIELD = 0xb4;
+    static final int PUTFIELD = 0xb5;
+    static final int INVOKEVIRTUAL = 0xb6;
+    static final int INVOKESPECIAL = 0xb7;
+
+    private static final int VERSION = 49;
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+    private final DataOutputStream poolOut = new DataOutputStream(pool);
+    private final Map<String, Integer> constants = new HashMap<>();
+    private int constantCount = 1;
+    private final List<byte[]> methods = new ArrayList<>();
+    private final int thisClass;
+    private final int superClass;
+    private final int[] interfaces;
+
+    /**
+     * @param name - internal class name
+     * @param superName - internal name of the super class
+     * @param interfaceNames - internal names of implemented interfaces
+     */
+    BytecodeWriter(String name, String superName, String... interfaceNames)
+    {
+        thisClass = classRef(name);
+        superClass = classRef(superName);
+        interfaces = new int[interfaceNames.length];
+        for (int i = 0; i < interfaceNames.length; i++)
+            interfaces[i] = classRef(interfaceNames[i]);
+    }
+
+    private int constant(String key, int tag, Writer body)
+    {
+        final var existing = constants.get(key);
+        if (existing != null)
+            return existing;
+        try
+        {
+            poolOut.writeByte(tag);
+            body.write(poolOut);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        constants.put(key, constantCount);
+        return constantCount++;
+    }
+
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    int utf8(String s)
+    {
+        return constant("U" + s, 1, out -> out.writeUTF(s));
+    }
+
+    int intConstant(int value)
+    {
+        return constant("I" + value, 3, out -> out.writeInt(value));
+    }
+
+    int classRef(String name)
+    {
+        final var n = utf8(name);
+        return constant("C" + name, 7, out -> out.writeShort(n));
+    }
+
+    private int nameAndType(String name, String descriptor)
+    {
+        final var n = utf8(name);
+        final var d = utf8(descriptor);
+        return constant("T" + name + ' ' + descriptor, 12, out -> {
+            out.writeShort(n);
+            out.writeShort(d);
+        });
+    }
+
+    private int member(int tag, String owner, String name, String descriptor)
+    {
+        final var c = classRef(owner);
+        final var nt = nameAndType(name, descriptor);
+        return constant(tag + owner + '.' + name + descriptor, tag, out -> {
+            out.writeShort(c);
+            out.writeShort(nt);
+        });
+    }
+
+    int fieldRef(String owner, String name, String descriptor)
+    {
+        return member(9, owner, name, descriptor);
+    }
+
+    int methodRef(String owner, String name, String descriptor)
+    {
+        return member(10, owner, name, descriptor);
+    }
+
+    /**
+     * Method body under construction, branch targets are {@link Label}s patched when bound
+     */
+    final class Code {
+        private byte[] code = new byte[256];
+        private int length;
+
+        private void u1(int v)
+        {
+            if (length == code.length)
+                code = Arrays.copyOf(code, length * 2);
+            code[length++] = (byte) v;
+        }
+
+        private void u2(int v)
+        {
+            u1(v >>> 8);
+            u1(v);
+        }
+
+        Code op(int opcode)
+        {
+            u1(opcode);
+            return this;
+        }
+
+        Code local(int opcode, int slot)
+        {
+            u1(opcode);
+            u1(slot);
+            return this;
+        }
+
+        Code iinc(int slot, int delta)
+        {
+            u1(IINC);
+            u1(slot);
+            u1(delta);
+            return this;
+        }
+
+        Code iconst(int value)
+        {
+            if (value >= -1 && value <= 5)
+            {
+                u1(ICONST_0 + value);
+            }
+            else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE)
+            {
+                u1(BIPUSH);
+                u1(value);
+            }
+            else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE)
+            {
+                u1(SIPUSH);
+                u2(value);
+            }
+            else
+            {
+                u1(LDC_W);
+                u2(intConstant(value));
+            }
+            return this;
+        }
+
+        /**
+         * @param opcode - field or method instruction taking a constant pool index
+         * @param index - constant pool index
+         */
+        Code ref(int opcode, int index)
+        {
+            u1(opcode);
+            u2(index);
+            return this;
+        }
+
+        Code jump(int opcode, Label target)
+        {
+            final var at = length;
+            u1(opcode);
+            if (target.position >= 0)
+            {
+                u2(target.position - at);
+            }
+            else
+            {
+                target.fixups.add(at);
+                u2(0);
+            }
+            return this;
+        }
+
+        Code bind(Label label)
+        {
+            label.position = length;
+            for (var at: label.fixups)
+            {
+                final var offset = length - at;
+                code[at + 1] = (byte) (offset >>> 8);
+                code[at + 2] = (byte) offset;
+            }
+            label.fixups.clear();
+            return this;
+        }
+
+        int length()
+        {
+            return length;
+        }
+    }
+
+    static final class Label {
+        private int position = -1;
+        private final List<Integer> fixups = new ArrayList<>();
+    }
+
+    Code code()
+    {
+        return new Code();
+    }
+
+    /**
+     * @param name - method name
+     * @param descriptor - method descriptor
+     * @param code - body, branch offsets must fit 16 bits
+     * @param maxStack - operand stack depth
+     * @param maxLocals - local variable slots including this and arguments
+     */
+    void method(String name, String descriptor, Code code, int maxStack, int maxLocals)
+    {
+        if (code.length > 0x7fff)
+            throw new IllegalArgumentException("Method too long: " + code.length);
+        final var nameIndex = utf8(name);
+        final var descriptorIndex = utf8(descriptor);
+        final var codeIndex = utf8("Code");
+        final var bytes = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(bytes))
+        {
+            out.writeShort(ACC_PUBLIC);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+            out.writeShort(1);
+            out.writeShort(codeIndex);
+            out.writeInt(12 + code.length);
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(code.length);
+            out.write(code.code, 0, code.length);
+            out.writeShort(0);
+            out.writeShort(0);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        methods.add(bytes.toByteArray());
+    }
+
+    /**
+     * @return class file bytes
+     */
+    byte[] toByteArray()
+    {
+        final var bytes = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(bytes))
+        {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(VERSION);
+            out.writeShort(constantCount);
+            pool.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(interfaces.length);
+            for (var i: interfaces)
+                out.writeShort(i);
+            out.writeShort(0);
+            out.writeShort(methods.size());
+            for (var m: methods)
+                out.write(m);
+            out.writeShort(0);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
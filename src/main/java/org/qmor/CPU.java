@@ -1,16 +1,12 @@
 package org.qmor;
 
+import lombok.AccessLevel;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
-import org.qmor.AddressMode.AddressModeFuncGetAddr.Direction;
 
-import java.util.List;
+import java.lang.invoke.MethodHandles;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.function.BinaryOperator;
-import java.util.function.Consumer;
-import java.util.function.Supplier;
 
 import static org.qmor.OpCodes.*;
 
@@ -18,13 +14,20 @@ import static org.qmor.OpCodes.*;
 //https://www.nesdev.org/wiki/Instruction_reference#LDA
 //http://www.6502.org/users/obelisk/6502/reference.html#JSR
 //https://www.masswerk.at/6502/
-@RequiredArgsConstructor
 @Getter
 @Slf4j
 public class CPU {
     public static final int STACK_LOW = 0x100;
     private static final int STACK_SIZE = 0xff;
     private static final int STACK_HIGH = STACK_LOW+STACK_SIZE;
+    private static final int NZ_MASK = Flag.N.getMask() | Flag.Z.getMask();
+    private static final boolean DEFAULT_LAZY_FLAGS = Boolean.getBoolean("org.qmor.lazyFlags");
+    public static final int NMI_VECTOR = 0xFFFA;
+    public static final int IRQ_VECTOR = 0xFFFE;
+    /**
+     * cycles taken to push PC and P and load the vector when an IRQ or NMI is serviced
+     */
+    private static final int INTERRUPT_CYCLES = 7;
     @Setter
     private int PC;
     /**
@@ -53,136 +56,664 @@ public class CPU {
     @Setter
     private FlagRegister F = new FlagRegister();
 
+    /**
+     * cycles elapsed since reset, plain field - a CPU is only ever driven by one thread
+     */
+    private long cycles;
+    /**
+     * instructions retired since reset
+     */
+    private long instructions;
+
+    /**
+     * defer N/Z evaluation of load/ALU results until the flags are read, see {@link FlagRegister#setResultFlagsLazy(int)}.
+     * Defaults to the org.qmor.lazyFlags system property.
+     */
+    @Setter
+    private boolean lazyFlags = DEFAULT_LAZY_FLAGS;
+
+    /**
+     * interpreter core used by {@link #step()}, both execute every instruction identically
+     */
+    @Setter
+    private ExecutionCore core = ExecutionCore.SWITCH;
+
+    /**
+     * how cycles are accounted, see {@link #setTiming(TimingMode)}
+     */
+    private TimingMode timing = TimingMode.BUS_ACCURATE;
+    /**
+     * cycles added per bus access or internal step: 1 when bus accurate, 0 when charged from {@link OpCodes#getCycles()}
+     */
+    @Getter(AccessLevel.NONE)
+    private int accessCycles = 1;
+
+    /**
+     * optional per-instruction trace, null when tracing is off
+     */
+    @Setter
+    private TraceSink traceSink;
+
+    /**
+     * optional execution profile, null when profiling is off
+     */
+    @Setter
+    private Profiler profiler;
+
+    /**
+     * optional execute/read/write coverage, null when not collected
+     */
+    @Setter
+    private Coverage coverage;
+
+    /**
+     * breakpoints and watchpoints {@link #run(long)} stops at, null when not debugging
+     */
+    private Breakpoints breakpoints;
+    /**
+     * first watchpoint hit since it was last cleared, kind and address
+     */
+    @Getter(AccessLevel.NONE)
+    private Coverage.Access watchAccess;
+    @Getter(AccessLevel.NONE)
+    private int watchAddress;
+    /**
+     * breakpoint the last run stopped at, passed over when the next run starts there
+     */
+    @Getter(AccessLevel.NONE)
+    private int stoppedAt = -1;
+    /**
+     * records interrupt inputs while attached, see {@link Recorder}
+     */
+    @Getter(AccessLevel.PACKAGE)
+    @Setter(AccessLevel.PACKAGE)
+    private Recorder recorder;
+
+    /**
+     * basic block compiler, null when only interpreting
+     */
+    private Jit jit;
+    /**
+     * predecoded instructions, null when decoding every step
+     */
+    private DecodeCache decodeCache;
+    /**
+     * idle loop fast-forward of {@link #run(long)}, null when disabled
+     */
+    @Getter(AccessLevel.NONE)
+    private IdleLoops idleLoops;
+
+    /**
+     * IRQ line, level triggered: one bit per source holding it asserted, see {@link #setIrq(int, boolean)}
+     */
+    private int irqSources;
+    /**
+     * NMI edge seen and not yet serviced
+     */
+    private boolean nmiPending;
+    /**
+     * time based events of devices, fired by {@link #run(long)}
+     */
+    private final Scheduler scheduler = new Scheduler(this);
+    /**
+     * cycle the inner loop of {@link #run(long)} stops at: the next event or the end of the budget,
+     * lowered to 0 when an interrupt has to be taken at the next instruction boundary
+     */
+    @Getter(AccessLevel.PACKAGE)
+    private long horizon;
+
     private final Memory memory;
+    private final Bus bus;
+
+    public CPU(Memory memory)
+    {
+        this(new Bus(memory));
+    }
+
+    public CPU(Bus bus)
+    {
+        this.bus = bus;
+        this.memory = bus.getMemory();
+        this.idleLoops = new IdleLoops(this, bus);
+    }
+
+    /**
+     * Create an independent machine with the same registers, counters and memory content.
+     * Memory is forked copy-on-write (see {@link Memory#fork()}); devices mapped on the bus, their scheduled events
+     * and interrupt lines, the trace sink, profiler, coverage and breakpoints carry their own state and are not copied,
+     * map them on the fork's bus if needed.
+     * @return forked CPU
+     */
+    public CPU fork()
+    {
+        final var child = new CPU(memory.fork());
+        child.PC = PC;
+        child.SP = SP;
+        child.A = A;
+        child.X = X;
+        child.Y = Y;
+        child.F = F.getCopy();
+        child.cycles = cycles;
+        child.instructions = instructions;
+        child.lazyFlags = lazyFlags;
+        child.core = core;
+        child.setTiming(timing);
+        child.setIdleSkipEnabled(idleLoops != null);
+        return child;
+    }
+
+    /**
+     * Switch the basic block JIT on or off, see {@link Jit}.
+     * Blocks are not used while a trace sink, profiler, coverage or watchpoints are set, and are not carried over by
+     * {@link #fork()}.
+     * @param enabled - true to compile hot code
+     */
+    public void setJitEnabled(boolean enabled)
+    {
+        if (enabled == (jit != null))
+            return;
+        if (enabled)
+        {
+            jit = new Jit(MethodHandles.lookup(), bus, Jit.DEFAULT_THRESHOLD);
+        }
+        else
+        {
+            jit.close();
+            jit = null;
+        }
+    }
+
+    /**
+     * Switch the predecode cache on or off, see {@link DecodeCache}.
+     * The cache is not carried over by {@link #fork()}.
+     * @param enabled - true to execute cached instructions without fetching and decoding them again
+     */
+    public void setPredecodeEnabled(boolean enabled)
+    {
+        if (enabled == (decodeCache != null))
+            return;
+        if (enabled)
+        {
+            decodeCache = new DecodeCache(bus);
+        }
+        else
+        {
+            decodeCache.close();
+            decodeCache = null;
+        }
+    }
+
+    /**
+     * Select cycle accounting. Both modes give identical totals after every instruction;
+     * only {@link TimingMode#BUS_ACCURATE} advances the counter between the accesses of an instruction.
+     * @param timing - accounting mode
+     */
+    public void setTiming(TimingMode timing)
+    {
+        this.timing = timing;
+        accessCycles = timing == TimingMode.BUS_ACCURATE ? 1 : 0;
+    }
+
+    /**
+     * Switch idle loop fast-forward on or off, it is on by default, see {@link IdleLoops}.
+     * Registers, memory and counters after {@link #run(long)} are the same either way.
+     * @param enabled - true to skip iterations of loops that provably change nothing but the cycle counter
+     */
+    public void setIdleSkipEnabled(boolean enabled)
+    {
+        if (enabled != (idleLoops != null))
+            idleLoops = enabled ? new IdleLoops(this, bus) : null;
+    }
+
+    /**
+     * @return cycles skipped by idle loop fast-forward, see {@link #setIdleSkipEnabled(boolean)}
+     */
+    public long getIdleCyclesSkipped()
+    {
+        return idleLoops == null ? 0 : idleLoops.getSkippedCycles();
+    }
+
+    /**
+     * advance the counters as if instructions were executed
+     * @param skippedCycles - cycles to add
+     * @param skippedInstructions - instructions to add
+     */
+    void skip(long skippedCycles, long skippedInstructions)
+    {
+        cycles += skippedCycles;
+        instructions += skippedInstructions;
+    }
+
+    /**
+     * Drive the IRQ line. It stays asserted while any source holds it and is taken at an instruction boundary
+     * of {@link #run(long)} whenever I is clear, so the handler has to make the device release it.
+     * @param source - source number 0..31, each device uses its own
+     * @param asserted - true to pull the line, false to release it
+     */
+    public void setIrq(int source, boolean asserted)
+    {
+        final var before = irqSources;
+        if (asserted)
+            irqSources |= 1 << source;
+        else
+            irqSources &= ~(1 << source);
+        if (recorder != null && irqSources != before)
+            recorder.irq(source, asserted);
+        checkInterrupts();
+    }
+
+    /**
+     * Signal an NMI edge, taken once at the next instruction boundary of {@link #run(long)} regardless of I
+     */
+    public void nmi()
+    {
+        if (recorder != null)
+            recorder.nmi();
+        nmiPending = true;
+        checkInterrupts();
+    }
+
+    /**
+     * @param breakpoints - breakpoints and watchpoints {@link #run(long)} stops at, null when not debugging.
+     *                    May be replaced from a device or event callback, the running run picks it up at once
+     */
+    public void setBreakpoints(Breakpoints breakpoints)
+    {
+        if (this.breakpoints != null)
+            this.breakpoints.detach(this);
+        this.breakpoints = breakpoints;
+        if (breakpoints != null)
+            breakpoints.attach(this);
+        breakpointsChanged();
+    }
+
+    /**
+     * stop the inner loop of {@link #run(long)}, and a running compiled block, so the next instruction boundary
+     * looks at the breakpoints again
+     */
+    void breakpointsChanged()
+    {
+        horizon = 0;
+        if (jit != null)
+            jit.exitRequested = true;
+    }
+
+    /**
+     * stop the inner loop of {@link #run(long)}, and a running compiled block, if an interrupt can be taken now.
+     * Called whenever an interrupt is raised or I may have been cleared
+     */
+    void checkInterrupts()
+    {
+        if (nmiPending || irqSources != 0 && !F.getAsBoolean(Flag.I))
+        {
+            horizon = 0;
+            if (jit != null)
+                jit.exitRequested = true;
+        }
+    }
+
+    /**
+     * make the inner loop of {@link #run(long)} stop at cycle, if that is earlier than it would
+     * @param cycle - cycle an event was scheduled at
+     */
+    void lowerHorizon(long cycle)
+    {
+        if (cycle < horizon)
+            horizon = cycle;
+    }
+
+    /**
+     * take a pending NMI, or an IRQ if not masked by I
+     */
+    private void serviceInterrupts()
+    {
+        final int vector;
+        if (nmiPending)
+        {
+            nmiPending = false;
+            vector = NMI_VECTOR;
+        }
+        else if (irqSources != 0 && !F.getAsBoolean(Flag.I))
+        {
+            vector = IRQ_VECTOR;
+        }
+        else
+        {
+            return;
+        }
+        interrupt(PC, vector, false);
+        cycles += INTERRUPT_CYCLES;
+        if (profiler != null)
+            profiler.interrupted(PC, INTERRUPT_CYCLES, getSP());
+    }
+
+    /**
+     * Push return address and P, set I and jump through vector, as BRK, IRQ and NMI do.
+     * The pushed P has the unused bit set and B telling BRK from a hardware interrupt. Untimed
+     * @param returnAddress - address RTI returns to
+     * @param vector - address of the handler address
+     * @param brk - true for BRK
+     */
+    void interrupt(int returnAddress, int vector, boolean brk)
+    {
+        writeWordToStack((short) returnAddress);
+        final var b = Flag.B.getMask();
+        writeByteToStack((byte) (F.getByteValue() & ~b | Flag.U.getMask() | (brk ? b : 0)));
+        F.setFlag(Flag.I, true);
+        PC = bus.read(vector) | bus.read(vector + 1) << 8;
+        if (coverage != null)
+        {
+            coverage.read(vector);
+            coverage.read(vector + 1);
+        }
+        if (breakpoints != null)
+        {
+            watchRead(vector);
+            watchRead(vector + 1);
+        }
+    }
+
+    /**
+     * Pull P and the return address pushed by {@link #interrupt(int, int, boolean)}.
+     * B and U are not kept, they only exist on the stack. Untimed
+     */
+    void returnFromInterrupt()
+    {
+        F.setByteValue((short) (readByteFromStack() & ~(Flag.B.getMask() | Flag.U.getMask())));
+        PC = readWordFromStack();
+        checkInterrupts();
+    }
+
     public String printRegs()
     {
         return "PC:%04X SP:%04X A:%02X X:%02X Y:%02X F:[%s]".formatted(PC,getSP(),A,X,Y,F.printFlags());
     }
+    /**
+     * Reset registers and zero memory. Memory only zeroes pages it saw written, anything written around it
+     * must be reported with {@link Memory#markAllDirty()} to be cleared; {@link Memory#data()} does so itself
+     */
     public void reset()
+    {
+        resetRegisters();
+        memory.reset();
+        if (jit != null)
+            jit.invalidateAll();
+        if (decodeCache != null)
+            decodeCache.invalidateAll();
+    }
+
+    /**
+     * reset registers and counters, memory is left as is.
+     * Pending events are dropped, their cycles refer to the old count; IRQ lines are held by devices and kept.
+     * The next run no longer passes over the breakpoint the last one stopped at
+     */
+    public void resetRegisters()
     {
         PC = 0xFFFC;
         SP = STACK_SIZE;
         F.reset();
         A = X = Y = 0;
-        memory.reset();
+        cycles = 0;
+        instructions = 0;
+        nmiPending = false;
+        stoppedAt = -1;
+        scheduler.clear();
+    }
+
+    /**
+     * account one bus or internal cycle
+     */
+    void tick()
+    {
+        cycles += accessCycles;
     }
 
+    /**
+     * account several internal cycles
+     * @param n - cycles to add
+     */
+    void tick(int n)
+    {
+        cycles += n * accessCycles;
+    }
 
+    /**
+     * account a cycle not included in {@link OpCodes#getCycles()}: page crossing or taken branch
+     */
+    void penalty()
+    {
+        cycles++;
+    }
 
-    int fetchWord(AtomicInteger cycles)
+    int fetchWord()
     {
-        return fetchByte(cycles) | (fetchByte(cycles)  << 8);
+        return fetchByte() | (fetchByte()  << 8);
     }
 
 
     /**
      * read byte from memory at PC and increments PC
-     * @param cycles - cycles holder
      * @return - fetched byte
      */
-    short fetchByte(AtomicInteger cycles)
+    short fetchByte()
     {
-        final var res = memory.data[PC]&0xff;
+        if (coverage != null)
+            coverage.execute(PC);
+        final var res = bus.read(PC);
         PC++;
-        cycles.decrementAndGet();
-        return (short) res;
+        tick();
+        return res;
     }
 
     /**
      * read byte from memory at address
-     * @param cycles - cycles holder
      * @param address - address to read byte from
      * @return - byte
      */
-    short readByte(AtomicInteger cycles, int address)
+    short readByte(int address)
     {
-        cycles.decrementAndGet();
-        return (short) (memory.data[address]&0xff);
+        if (coverage != null)
+            coverage.read(address);
+        if (breakpoints != null)
+            watchRead(address);
+        tick();
+        return bus.read(address);
     }
 
     /**
      * Read little endian word from memory at address
-     * @param cycles - cycles holder
      * @param address - address to read word from
      * @return word
      */
-    int readWord(AtomicInteger cycles, int address)
+    int readWord(int address)
     {
-        return readByte(cycles,address)| readByte(cycles,address+1)<<8;
+        return readByte(address)| readByte(address+1)<<8;
     }
 
     /**
      * Write byte value to memory at address
-     * @param cycles - cycles holder
      * @param address - address to write byte into
      * @param value - byte to write
      */
-    void writeByte(AtomicInteger cycles, int address, byte value)
-    {
-        memory.data[address] = value;
-        cycles.decrementAndGet();
-    }
-
-    /**
-     * Write little endian word to memory at address
-     * @param cycles - cycles holder
-     * @param address - address to write word into
-     * @param word - word to write
-     */
-    private void writeWord(AtomicInteger cycles, int address, short word)
+    void writeByte(int address, byte value)
     {
-        writeByte(cycles,address, (byte) (word&0xff));
-        writeByte(cycles,address+1, (byte) ((word>>8)&0xff));
+        if (coverage != null)
+            coverage.write(address);
+        if (breakpoints != null)
+            watchWrite(address);
+        bus.write(address, value);
+        tick();
     }
 
     /**
-     * Write Little endian word to stack at SP and decrement SP by 2
-     * @param cycles - cycles holder
+     * Write Little endian word to stack at SP and decrement SP by 2.
+     * Stack helpers don't tick, callers account the accesses with the rest of the instruction
      * @param word - word to place to stack
      */
-    private void writeWordToStack(AtomicInteger cycles, short word)
+    void writeWordToStack(short word)
     {
-        writeWord(cycles,STACK_LOW+((SP-2)&0xff), word);
+        final var address = STACK_LOW+((SP-2)&0xff);
+        bus.write(address, (byte) (word&0xff));
+        bus.write(address+1, (byte) ((word>>8)&0xff));
+        if (coverage != null)
+        {
+            coverage.write(address);
+            coverage.write(address+1);
+        }
+        if (breakpoints != null)
+        {
+            watchWrite(address);
+            watchWrite(address+1);
+        }
         setSP(SP-2);
     }
 
     /**
      * Write byte to stack at SP and decrement SP by 1
-     * @param cycles - cycles holder
      * @param b - byte to place to stack
      */
-    private void writeByteToStack(AtomicInteger cycles, byte b)
+    void writeByteToStack(byte b)
     {
-        writeByte(cycles, STACK_LOW+((SP-1)&0xff),b);
+        bus.write( STACK_LOW+((SP-1)&0xff),b);
+        if (coverage != null)
+            coverage.write(STACK_LOW+((SP-1)&0xff));
+        if (breakpoints != null)
+            watchWrite(STACK_LOW+((SP-1)&0xff));
         setSP(SP-1);
     }
     /**
      * read little endian word from stack at SP and increment SP by 2
-     * @param cycles - cycles holder
      * @return word fetched from stack
      */
-    private int readWordFromStack(AtomicInteger cycles)
+    int readWordFromStack()
     {
-        var word = readWord(cycles,STACK_LOW+SP);
+        var word = bus.read(STACK_LOW+SP) | bus.read(STACK_LOW+SP+1)<<8;
+        if (coverage != null)
+        {
+            coverage.read(STACK_LOW+SP);
+            coverage.read(STACK_LOW+SP+1);
+        }
+        if (breakpoints != null)
+        {
+            watchRead(STACK_LOW+SP);
+            watchRead(STACK_LOW+SP+1);
+        }
         setSP(SP+2);
         return word;
     }
 
     /**
-     * read little endian word from stack at SP and increment SP by 2
-     * @param cycles - cycles holder
-     * @return word fetched from stack
+     * read byte from stack at SP and increment SP by 1
+     * @return byte fetched from stack
      */
-    private int readByteFromStack(AtomicInteger cycles)
+    int readByteFromStack()
     {
-        var b = readByte(cycles,STACK_LOW+SP);
+        var b = bus.read(STACK_LOW+SP);
+        if (coverage != null)
+            coverage.read(STACK_LOW+SP);
+        if (breakpoints != null)
+            watchRead(STACK_LOW+SP);
         setSP(SP+1);
         return b;
     }
 
-    private void applyOpFunctions(OpCodes op, short data)
+    /**
+     * remember the first read watchpoint hit, {@link #run(long)} stops after the instruction
+     * @param address - address read
+     */
+    private void watchRead(int address)
+    {
+        if (watchAccess == null && breakpoints.isRead(address))
+        {
+            watchAccess = Coverage.Access.READ;
+            watchAddress = address & 0xffff;
+        }
+    }
+
+    /**
+     * remember the first write watchpoint hit, {@link #run(long)} stops after the instruction
+     * @param address - address written
+     */
+    private void watchWrite(int address)
+    {
+        if (watchAccess == null && breakpoints.isWrite(address))
+        {
+            watchAccess = Coverage.Access.WRITE;
+            watchAddress = address & 0xffff;
+        }
+    }
+
+    /**
+     * set flags from the instruction result as described by {@link Microcode#flagMask()}
+     * @param flagMask - flags to update
+     * @param result - result before it is masked to 8 bits
+     */
+    void applyFlags(int flagMask, short result)
+    {
+        if (lazyFlags && (flagMask & NZ_MASK) == NZ_MASK)
+        {
+            F.setResultFlagsLazy(result);
+        }
+        else
+        {
+            if ((flagMask & Flag.Z.getMask()) != 0)
+                F.setFlag(Flag.Z, (result & 0xff) == 0);
+            if ((flagMask & Flag.N.getMask()) != 0)
+                F.setFlag(Flag.N, (result & 0x80) == 0x80);
+        }
+        //carry is only raised, never cleared, see OpFunctions.CarryIfCarryOut
+        if ((flagMask & Flag.C.getMask()) != 0 && !F.getAsBoolean(Flag.C))
+            F.setFlag(Flag.C, result > 0xff);
+    }
+
+    private short getRegister(Register register)
     {
-        op.getFunctions().forEach(e->e.apply(F,data));
+        return switch (register)
+        {
+            case A -> A;
+            case X -> X;
+            case Y -> Y;
+            case NONE -> 0;
+        };
+    }
+
+    /**
+     * fetch operand bytes of the instruction at PC
+     * @param mode - addressing mode of the instruction
+     * @return operand, little endian
+     */
+    private int fetchOperand(AddressMode mode)
+    {
+        return switch (mode.getOperandSize())
+        {
+            case 0 -> 0;
+            case 1 -> fetchByte();
+            default -> fetchWord();
+        };
+    }
+
+    /**
+     * resolve operand address of the instruction
+     * @param op - instruction being executed
+     * @param operand - its operand bytes
+     * @return effective address
+     */
+    private int operandAddress(OpCodes op, int operand)
+    {
+        return op.getAddressMode().getAddressModeImpl().getAddr(this, operand, op.getMicrocode().direction());
+    }
+
+    /**
+     * read the value the instruction operates on, an immediate operand is the value itself
+     * @param op - instruction being executed
+     * @param operand - its operand bytes
+     * @return 8 bit value
+     */
+    private short operandValue(OpCodes op, int operand)
+    {
+        if (op.getAddressMode() == AddressMode.IMMEDIATE)
+            return (short) operand;
+        return readByte(operandAddress(op, operand));
     }
 
     /**
@@ -198,146 +729,353 @@ public class CPU {
 
 
     /**
-     * transfer (copy) value of one register to another
-     * @param cycles - cycles holder
-     * @param destRegWriteAccessor accessor to write destination reg
-     * @param srcRegReadAccessor accessor to read source reg
+     * shift or rotate value by one bit, carry receives the bit shifted out
+     * @param alu - ASL, LSR, ROL or ROR
+     * @param val - 8 bit operand
+     * @return 8 bit result
+     */
+    short shift(AluOp alu, int val)
+    {
+        final int carryIn = F.getAsInt(Flag.C);
+        final int res = switch (alu)
+        {
+            case ASL -> val << 1;
+            case ROL -> val << 1 | carryIn;
+            case LSR -> val >>> 1;
+            default -> val >>> 1 | carryIn << 7;
+        };
+        F.setFlag(Flag.C, (alu == AluOp.ASL || alu == AluOp.ROL ? val & 0x80 : val & 1) != 0);
+        return (short) (res & 0xff);
+    }
+
+    /**
+     * jump by relative offset if condition holds.
+     * A taken branch costs one more cycle, two if the target is on another page
+     * @param condition - branch condition
+     * @param operand - relative offset byte
      */
-    private void transferRegister(AtomicInteger cycles, Consumer<Short> destRegWriteAccessor, Supplier<Short> srcRegReadAccessor )
+    void branch(boolean condition, int operand)
+    {
+        final var offset = (byte) operand;
+        if (!condition)
+            return;
+        penalty();
+        final var target = (PC + offset) & 0xffff;
+        if (addressNotInSamePage(PC, target))
+            penalty();
+        PC = target;
+    }
+
+    void bit(short a, short v)
     {
-        cycles.decrementAndGet();
-        destRegWriteAccessor.accept(srcRegReadAccessor.get());
+        this.F.setFlag(Flag.Z, (a & v) == 0);
+        this.F.setFlag(Flag.V, ((v>>6)&1)==1);
+        this.F.setFlag(Flag.N, ((v>>7)&1)==1);
     }
 
-    private void cmp(final Supplier<Short> srcRegReadAccessor, final short val)
+    void cmp(final short reg, final short val)
     {
-        final var reg = srcRegReadAccessor.get();
         this.F.setFlag(Flag.C, reg >= val);
         this.F.setFlag(Flag.Z, reg == val);
         this.F.setFlag(Flag.N, reg-val<0);
     }
 
 
-    private static final List<OpCodes> OPERATION_OR = List.of(OR_IM,OR_ZP,OR_ZP_X,OR_ABSOLUTE,OR_ABSOLUTE_X,OR_ABSOLUTE_Y,OR_INDIRECT_X,OR_INDIRECT_Y);
-    private static final List<OpCodes> OPERATION_XOR = List.of(EOR_IM,EOR_ZP,EOR_ZP_X,EOR_ABSOLUTE,EOR_ABSOLUTE_X,EOR_ABSOLUTE_Y,EOR_INDIRECT_X,EOR_INDIRECT_Y);
-    private static final List<OpCodes> OPERATION_AND = List.of(AND_IM,AND_ZP,AND_ZP_X,AND_ABSOLUTE,AND_ABSOLUTE_X,AND_ABSOLUTE_Y,AND_INDIRECT_X,AND_INDIRECT_Y);
+    /**
+     * Legacy entry point: run until the holder budget is exhausted and subtract consumed cycles from it.
+     * The holder may go negative when the last instruction overruns the budget.
+     * @param cycles - cycles holder
+     */
     public void exec(AtomicInteger cycles)
     {
-        log.info("enter exec {}",cycles.get());
-        while (cycles.get() > 0)
+        final var result = run(cycles.get());
+        cycles.addAndGet((int) -result.cycles());
+    }
+
+    /**
+     * Execute instructions until at least cycleBudget cycles are consumed.
+     * The last instruction is always completed, so consumed cycles may exceed the budget.
+     * Due {@link Scheduler} events are fired and pending interrupts taken between instructions; in between,
+     * instructions run up to the next event without checking anything else.
+     * Stops early at {@link Breakpoints}: before an instruction at a breakpoint, unless it is the one the previous
+     * run stopped at, and after an instruction that hit a watchpoint.
+     * Compiled blocks and idle loop fast-forward are not used while a trace sink, profiler, coverage or watchpoints
+     * are attached; blocks and idle loops holding a breakpoint are interpreted.
+     * @param cycleBudget - cycles to run, nothing is executed if not positive
+     * @return cycles consumed, instructions retired and the point hit, if any
+     */
+    public RunResult run(long cycleBudget)
+    {
+        log.debug("enter run {}",cycleBudget);
+        final long startCycles = cycles;
+        final long startInstructions = instructions;
+        final long end = startCycles + cycleBudget;
+        var resumeAt = stoppedAt;
+        stoppedAt = -1;
+        watchAccess = null;
+        Breakpoints.Hit hit = null;
+        while (cycles < end && hit == null)
         {
-            final var op =OpCodes.fromByte(fetchByte(cycles));
-            switch (op)
+            scheduler.fireDue(cycles);
+            final var interrupted = PC;
+            serviceInterrupts();
+            if (watchAccess != null)
+            {
+                hit = watchHit(interrupted);
+                break;
+            }
+            horizon = Math.min(end, scheduler.nextCycle());
+            //points changed by callbacks lower the horizon, so they are picked up here
+            final var breaks = breakpoints == null || breakpoints.isEmpty() ? null : breakpoints;
+            //breakpoints alone are checked at instruction boundaries, watchpoints need every access to go through the hooks
+            final var watching = breaks != null && breaks.hasWatchpoints();
+            final var observed = traceSink != null || profiler != null || coverage != null || watching;
+            //blocks count cycles on exit, inputs recorded within one would be stamped with the cycle it started at
+            final var jit = observed || recorder != null ? null : this.jit;
+            final var idle = observed ? null : this.idleLoops;
+            var last = PC;
+            while (cycles < horizon)
             {
-                case JSR ->
+                if (breaks != null)
                 {
-                    var subAddress = fetchWord(cycles);
-                    writeWordToStack(cycles,(short)(PC-1));
-                    setPC(subAddress);
-                    cycles.decrementAndGet();
+                    final var pc = PC;
+                    if (pc != resumeAt && breaks.isExecute(pc))
+                    {
+                        hit = new Breakpoints.Hit(Coverage.Access.EXECUTE, pc, pc);
+                        stoppedAt = pc;
+                        break;
+                    }
+                    resumeAt = -1;
+                    if (watching)
+                    {
+                        step();
+                        if (watchAccess != null)
+                        {
+                            hit = watchHit(pc);
+                            break;
+                        }
+                        continue;
+                    }
                 }
-                case RTS ->
+                if (jit != null)
                 {
-                    var returnAddress = readWordFromStack(cycles);
-                    setPC(returnAddress+1);
-                    cycles.addAndGet(-3);
-                }
-                case JMP_ABSOLUTE -> PC = fetchWord(cycles);
-                case JMP_INDIRECT -> PC = readWord(cycles,op.getAddressMode().getAddressModeImpl().getAddr(this,cycles, Direction.R));
-                case LDA_IM, LDA_ZP, LDA_ZP_X, LDA_ABSOLUTE, LDA_ABSOLUTE_X, LDA_ABSOLUTE_Y,LDA_INDIRECT_X,LDA_INDIRECT_Y -> A = readByte(cycles,op.getAddressMode().getAddressModeImpl().getAddr(this,cycles,Direction.R));
-                case LDX_IM, LDX_ZP, LDX_ZP_Y, LDX_ABSOLUTE, LDX_ABSOLUTE_Y -> X = readByte(cycles,op.getAddressMode().getAddressModeImpl().getAddr(this,cycles,Direction.R));
-                case LDY_IM, LDY_ZP, LDY_ZP_X, LDY_ABSOLUTE, LDY_ABSOLUTE_X -> Y = readByte(cycles,op.getAddressMode().getAddressModeImpl().getAddr(this,cycles,Direction.R));
-                case STA_ZP,STA_ZP_X,STA_ABSOLUTE,STA_ABSOLUTE_X,STA_ABSOLUTE_Y,STA_INDIRECT_X,STA_INDIRECT_Y ->writeByte(cycles,op.getAddressMode().getAddressModeImpl().getAddr(this,cycles,Direction.W), (byte) A);
-                case STX_ZP,STX_ZP_Y,STX_ABSOLUTE -> writeByte(cycles,op.getAddressMode().getAddressModeImpl().getAddr(this,cycles,Direction.W), (byte) X);
-                case STY_ZP,STY_ZP_X,STY_ABSOLUTE -> writeByte(cycles,op.getAddressMode().getAddressModeImpl().getAddr(this,cycles,Direction.W), (byte) Y);
-
-                case TXA ->transferRegister(cycles,this::setA, this::getX);
-                case TYA ->transferRegister(cycles,this::setA, this::getY);
-                case TAX -> transferRegister(cycles,this::setX, this::getA);
-                case TAY -> transferRegister(cycles,this::setY, this::getA);
-
-                case TSX -> {X= (short) SP; cycles.decrementAndGet(); }
-                case TXS -> {SP = X; cycles.decrementAndGet();}
-                case PHA -> {writeByteToStack(cycles, (byte) A); cycles.decrementAndGet();}
-                case PLA -> {A = (short) readByteFromStack(cycles);cycles.addAndGet(-2);}
-
-                case PHP -> {writeByteToStack(cycles,(byte)F.getByteValue());cycles.decrementAndGet();}
-                case PLP ->{F.setByteValue((short) (readByteFromStack(cycles)&0xff));cycles.addAndGet(-2);}
-
-                case AND_IM,AND_ZP,AND_ZP_X,AND_ABSOLUTE,AND_ABSOLUTE_X,AND_ABSOLUTE_Y,AND_INDIRECT_X,AND_INDIRECT_Y,
-                 OR_IM,OR_ZP,OR_ZP_X,OR_ABSOLUTE,OR_ABSOLUTE_X,OR_ABSOLUTE_Y,OR_INDIRECT_X,OR_INDIRECT_Y,
-                 EOR_IM,EOR_ZP,EOR_ZP_X,EOR_ABSOLUTE,EOR_ABSOLUTE_X,EOR_ABSOLUTE_Y,EOR_INDIRECT_X,EOR_INDIRECT_Y -> {
-                    BinaryOperator<Integer> f = (a, b)->a&b;
-                    var val =readByte(cycles,op.getAddressMode().getAddressModeImpl().getAddr(this,cycles,Direction.R));
-                    if (OPERATION_OR.contains(op)) f  = (a,b)->a|b;
-                    else if (OPERATION_XOR.contains(op)) f = (a,b)->a^b;
-                    A = f.apply((int)A,(int)val).shortValue();
+                    final var block = jit.lookup(PC);
+                    //whole blocks only run if they can't overrun the horizon further than the interpreter would
+                    if (block != null && horizon - cycles >= block.maxCycles
+                            && (breaks == null || !breaks.anyExecute(block.pc, block.pc + block.length - 1)))
+                    {
+                        jit.execute(block, this, horizon - cycles);
+                        continue;
+                    }
                 }
+                final var pc = PC;
+                last = pc;
+                step();
+                if (PC <= pc && idle != null && (breaks == null || !breaks.anyExecute(PC, pc)))
+                    idle.backEdge(pc);
+            }
+            //a watchpoint added during the instruction that then hit it
+            if (hit == null && watchAccess != null)
+                hit = watchHit(last);
+        }
+        return new RunResult(cycles - startCycles, instructions - startInstructions, hit);
+    }
 
-                case DEX, DEY,INX, INY -> {
-                    cycles.decrementAndGet();
-                    final boolean isY = List.of(DEY, INY ).contains(op);
-                    final int sign = List.of(DEY,DEX).contains(op)?-1:1;
-                    final Supplier<Short> getter = isY?this::getY:this::getX;
-                    final Consumer<Short> setter = isY?this::setY:this::setX;
-                    setter.accept((short) ((short) (getter.get() + sign)&0xff));
-                }
+    private Breakpoints.Hit watchHit(int pc)
+    {
+        final var hit = new Breakpoints.Hit(watchAccess, watchAddress, pc);
+        watchAccess = null;
+        return hit;
+    }
 
-                case INC_ZP,INC_ZP_X, INC_ABSOLUTE,INC_ABSOLUTE_X, DEC_ZP,DEC_ZP_X,DEC_ABSOLUTE,DEC_ABSOLUTE_X ->
-                {
-                    var sign = List.of(INC_ZP,INC_ZP_X,INC_ABSOLUTE,INC_ABSOLUTE_X).contains(op)?1:-1;
-                    var addr = op.getAddressMode().getAddressModeImpl().getAddr(this,cycles,Direction.W);
-                    var val = (short)((readByte(cycles,addr) +sign)&0xff);
-                    OpFunctions.ZeroFlagIfZeroValue.apply(this.F,val);
-                    OpFunctions.NegFlagIf7BitRaised.apply(this.F,val);
-                    writeByte(cycles,addr, (byte) val);
-                    cycles.decrementAndGet();
-                }
+    /**
+     * Execute single instruction at PC
+     */
+    public void step()
+    {
+        final var pc = PC;
+        final var startCycle = cycles;
+        final var cache = decodeCache;
+        OpCodes op = null;
+        if (cache != null && (pc & ~0xffff) == 0)
+        {
+            op = cache.op(pc);
+            if (op == null)
+                op = cache.decode(pc);
+        }
+        final int opcode;
+        final int operand;
+        if (op != null)
+        {
+            //cached: account the fetch cycles without touching the bus
+            final var size = 1 + op.getAddressMode().getOperandSize();
+            opcode = op.getOpcode();
+            operand = cache.operand(pc);
+            PC = pc + size;
+            tick(size);
+            if (coverage != null)
+                coverage.execute(pc, size);
+        }
+        else
+        {
+            opcode = fetchByte();
+            op = OpCodes.decode(opcode);
+            operand = fetchOperand(op.getAddressMode());
+        }
+        if (accessCycles == 0)
+            cycles += op.getCycles();
+        if (traceSink != null)
+        {
+            traceSink.record(pc, opcode, operand, A, X, Y, getSP(), F.getByteValue(), startCycle);
+        }
+        if (core == ExecutionCore.HANDLERS)
+        {
+            OpHandlers.get(opcode).execute(this, operand);
+            instructions++;
+            if (profiler != null)
+                profiler.retired(pc, opcode, (int) (cycles - startCycle), PC, getSP());
+            return;
+        }
+        final var mc = op.getMicrocode();
+        switch (op)
+        {
+            case JSR ->
+            {
+                writeWordToStack((short)(PC-1));
+                setPC(operand);
+                tick(3);
+            }
+            case RTS ->
+            {
+                var returnAddress = readWordFromStack();
+                setPC(returnAddress+1);
+                tick(5);
+            }
+            case BRK ->
+            {
+                //the byte after BRK is skipped
+                interrupt(PC + 1, IRQ_VECTOR, true);
+                tick(6);
+            }
+            case RTI ->
+            {
+                returnFromInterrupt();
+                tick(5);
+            }
+            case JMP_ABSOLUTE -> PC = operand;
+            case JMP_INDIRECT -> PC = readWord(operandAddress(op, operand));
+            case LDA_IM, LDA_ZP, LDA_ZP_X, LDA_ABSOLUTE, LDA_ABSOLUTE_X, LDA_ABSOLUTE_Y,LDA_INDIRECT_X,LDA_INDIRECT_Y -> A = operandValue(op, operand);
+            case LDX_IM, LDX_ZP, LDX_ZP_Y, LDX_ABSOLUTE, LDX_ABSOLUTE_Y -> X = operandValue(op, operand);
+            case LDY_IM, LDY_ZP, LDY_ZP_X, LDY_ABSOLUTE, LDY_ABSOLUTE_X -> Y = operandValue(op, operand);
+            case STA_ZP,STA_ZP_X,STA_ABSOLUTE,STA_ABSOLUTE_X,STA_ABSOLUTE_Y,STA_INDIRECT_X,STA_INDIRECT_Y ->writeByte(operandAddress(op, operand), (byte) A);
+            case STX_ZP,STX_ZP_Y,STX_ABSOLUTE -> writeByte(operandAddress(op, operand), (byte) X);
+            case STY_ZP,STY_ZP_X,STY_ABSOLUTE -> writeByte(operandAddress(op, operand), (byte) Y);
 
+            case TXA -> {A = X; tick();}
+            case TYA -> {A = Y; tick();}
+            case TAX -> {X = A; tick();}
+            case TAY -> {Y = A; tick();}
 
+            case TSX -> {X= (short) SP; tick(); }
+            case TXS -> {SP = X; tick();}
+            case PHA -> {writeByteToStack( (byte) A); tick(2);}
+            case PLA -> {A = (short) readByteFromStack();tick(3);}
 
-                case BIT_ABSOLUTE,BIT_ZP -> {
-                    var v = readByte(cycles,op.getAddressMode().getAddressModeImpl().getAddr(this,cycles,Direction.R));
-                    this.getF().setFlag(Flag.Z, (A & v) == 0);
-                    this.getF().setFlag(Flag.V, ((v>>6)&1)==1);
-                    this.getF().setFlag(Flag.N, ((v>>7)&1)==1);
-                }
+            case PHP -> {writeByteToStack((byte)F.getByteValue());tick(2);}
+            case PLP ->{F.setByteValue((short) (readByteFromStack()&0xff));tick(3);checkInterrupts();}
 
-                case ADC_IM -> A+= (short)(readByte(cycles,op.getAddressMode().getAddressModeImpl().getAddr(this,cycles,Direction.R))+((this.getF().getAsBoolean(Flag.C))?1:0));
-                case SBC_IM -> A-= (short)(readByte(cycles,op.getAddressMode().getAddressModeImpl().getAddr(this,cycles,Direction.R))+(this.getF().getAsBoolean(Flag.C)?0:1));
-                case CMP_IM -> cmp(()->A,readByte(cycles,op.getAddressMode().getAddressModeImpl().getAddr(this,cycles,Direction.R)));
-                case CPX_IM,CPX_ZP,CPX_ABSOLUTE ->cmp(()->X,readByte(cycles,op.getAddressMode().getAddressModeImpl().getAddr(this,cycles,Direction.R)));
-                case CPY_IM,CPY_ZP,CPY_ABSOLUTE ->cmp(()->Y,readByte(cycles,op.getAddressMode().getAddressModeImpl().getAddr(this,cycles,Direction.R)));
-                case SEC,CLC-> {
-                    this.F.setFlag(Flag.C, op==SEC);
-                    cycles.decrementAndGet();
-                }
-                case CLV ->
+            case AND_IM,AND_ZP,AND_ZP_X,AND_ABSOLUTE,AND_ABSOLUTE_X,AND_ABSOLUTE_Y,AND_INDIRECT_X,AND_INDIRECT_Y,
+             OR_IM,OR_ZP,OR_ZP_X,OR_ABSOLUTE,OR_ABSOLUTE_X,OR_ABSOLUTE_Y,OR_INDIRECT_X,OR_INDIRECT_Y,
+             EOR_IM,EOR_ZP,EOR_ZP_X,EOR_ABSOLUTE,EOR_ABSOLUTE_X,EOR_ABSOLUTE_Y,EOR_INDIRECT_X,EOR_INDIRECT_Y -> {
+                final var val = operandValue(op, operand);
+                A = switch (mc.alu())
                 {
-                    this.F.setFlag(Flag.V,false);
-                    cycles.decrementAndGet();
-                }
+                    case OR -> (short) (A | val);
+                    case XOR -> (short) (A ^ val);
+                    default -> (short) (A & val);
+                };
+            }
 
-                case NOP -> cycles.decrementAndGet();
-                default -> throw new UnsupportedOperationException("Unsupported opcode: " + op);
+            case DEX, DEY,INX, INY -> {
+                tick();
+                final int sign = mc.alu() == AluOp.INC ? 1 : -1;
+                if (mc.register() == Register.Y)
+                    Y = (short) ((Y + sign) & 0xff);
+                else
+                    X = (short) ((X + sign) & 0xff);
             }
-            if (OpGroups.REG_A_LOAD_CODES.contains(op))
+
+            case INC_ZP,INC_ZP_X, INC_ABSOLUTE,INC_ABSOLUTE_X, DEC_ZP,DEC_ZP_X,DEC_ABSOLUTE,DEC_ABSOLUTE_X ->
             {
-                applyOpFunctions(op, A);
+                final int sign = mc.alu() == AluOp.INC ? 1 : -1;
+                var addr = operandAddress(op, operand);
+                var val = (short)((readByte(addr) +sign)&0xff);
+                applyFlags(mc.flagMask(), val);
+                writeByte(addr, (byte) val);
+                tick();
             }
-            else if (OpGroups.REG_X_LOAD_CODES.contains(op))
+
+
+
+            case BIT_ABSOLUTE,BIT_ZP -> bit(A, operandValue(op, operand));
+
+            case ADC_IM,ADC_ZP,ADC_ZP_X,ADC_ABSOLUTE,ADC_ABSOLUTE_X,ADC_ABSOLUTE_Y,ADC_INDIRECT_X,ADC_INDIRECT_Y ->
+                    A+= (short)(operandValue(op, operand)+((this.getF().getAsBoolean(Flag.C))?1:0));
+            case SBC_IM,SBC_ZP,SBC_ZP_X,SBC_ABSOLUTE,SBC_ABSOLUTE_X,SBC_ABSOLUTE_Y,SBC_INDIRECT_X,SBC_INDIRECT_Y ->
+                    A-= (short)(operandValue(op, operand)+(this.getF().getAsBoolean(Flag.C)?0:1));
+            case CMP_IM,CMP_ZP,CMP_ZP_X,CMP_ABSOLUTE,CMP_ABSOLUTE_X,CMP_ABSOLUTE_Y,CMP_INDIRECT_X,CMP_INDIRECT_Y,
+             CPX_IM,CPX_ZP,CPX_ABSOLUTE, CPY_IM,CPY_ZP,CPY_ABSOLUTE -> cmp(getRegister(mc.register()),operandValue(op, operand));
+
+            case ASL_A,LSR_A,ROL_A,ROR_A -> {
+                A = shift(mc.alu(), A);
+                tick();
+            }
+            case ASL_ZP,ASL_ZP_X,ASL_ABSOLUTE,ASL_ABSOLUTE_X, LSR_ZP,LSR_ZP_X,LSR_ABSOLUTE,LSR_ABSOLUTE_X,
+             ROL_ZP,ROL_ZP_X,ROL_ABSOLUTE,ROL_ABSOLUTE_X, ROR_ZP,ROR_ZP_X,ROR_ABSOLUTE,ROR_ABSOLUTE_X ->
             {
-                applyOpFunctions(op, X);
+                var addr = operandAddress(op, operand);
+                var val = shift(mc.alu(), readByte(addr));
+                applyFlags(mc.flagMask(), val);
+                writeByte(addr, (byte) val);
+                tick();
+            }
+
+            case BPL -> branch(!F.getAsBoolean(Flag.N), operand);
+            case BMI -> branch(F.getAsBoolean(Flag.N), operand);
+            case BVC -> branch(!F.getAsBoolean(Flag.V), operand);
+            case BVS -> branch(F.getAsBoolean(Flag.V), operand);
+            case BCC -> branch(!F.getAsBoolean(Flag.C), operand);
+            case BCS -> branch(F.getAsBoolean(Flag.C), operand);
+            case BNE -> branch(!F.getAsBoolean(Flag.Z), operand);
+            case BEQ -> branch(F.getAsBoolean(Flag.Z), operand);
+            case SEC,CLC-> {
+                this.F.setFlag(Flag.C, op==SEC);
+                tick();
             }
-            else if (OpGroups.REG_Y_LOAD_CODES.contains(op))
+            case CLV ->
             {
-                applyOpFunctions(op, Y);
+                this.F.setFlag(Flag.V,false);
+                tick();
             }
-            A = (short)(A&0xff);
-            X = (short)(X&0xff);
-            Y = (short)(Y&0xff);
-            log.info("exec after {}, {}",op,cycles.get());
-            log.info("{}",printRegs());
+            case SEI,CLI-> {
+                this.F.setFlag(Flag.I, op==SEI);
+                tick();
+                checkInterrupts();
+            }
+
+            case NOP -> tick();
+            case ILLEGAL -> throw new IllegalArgumentException("Unknown opcode %02x".formatted(opcode));
+            default -> throw new UnsupportedOperationException("Unsupported opcode: " + op);
+        }
+        if (mc.flagMask() != 0 && mc.register() != Register.NONE)
+        {
+            applyFlags(mc.flagMask(), getRegister(mc.register()));
         }
+        A = (short)(A&0xff);
+        X = (short)(X&0xff);
+        Y = (short)(Y&0xff);
+        instructions++;
+        if (profiler != null)
+            profiler.retired(pc, opcode, (int) (cycles - startCycle), PC, getSP());
     }
 }
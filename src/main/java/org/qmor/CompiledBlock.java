@@ -0,0 +1,40 @@
+package org.qmor;
+
+/**
+ * Basic block translated to JVM bytecode by {@link BlockCompiler}.
+ * Executing it has the same effect on registers, flags, memory and counters as interpreting its instructions.
+ */
+abstract class CompiledBlock {
+    /**
+     * address of the first instruction
+     */
+    final int pc;
+    /**
+     * bytes of 6502 code the block was translated from
+     */
+    final int length;
+    /**
+     * number of 6502 instructions
+     */
+    final int instructions;
+    /**
+     * upper bound of cycles one execution may consume
+     */
+    final int maxCycles;
+
+    protected CompiledBlock(int pc, int length, int instructions, int maxCycles)
+    {
+        this.pc = pc;
+        this.length = length;
+        this.instructions = instructions;
+        this.maxCycles = maxCycles;
+    }
+
+    /**
+     * Run the block, cpu.PC must equal {@link #pc}.
+     * A block ending with a jump to its own start repeats while another pass fits the budget.
+     * @param cpu - machine to run on
+     * @param budget - cycles left, at least {@link #maxCycles}
+     */
+    abstract void execute(CPU cpu, int budget);
+}
@@ -0,0 +1,275 @@
+package org.qmor;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Execute, read and write coverage of the 64 KiB address space, attached with {@link CPU#setCoverage(Coverage)}.
+ * <p>
+ * One bit per address and access kind, kept in long bitsets. Instruction bytes (opcode and operand) are marked
+ * executed as they are fetched; operand reads and writes, stack accesses and interrupt vector loads mark read and
+ * written bytes. Compiled blocks and idle loop fast-forward bypass the hooks, so both are off while coverage is
+ * attached.
+ * <p>
+ * Coverage of many runs is combined with {@link #merge(Coverage)}, a bitwise or of 3072 longs, or straight from the
+ * serialized form with {@link #merge(ByteBuffer)}. The binary form ({@link #toBytes()}) stores only non-zero words,
+ * so a typical run takes a few hundred bytes. Not thread safe: use one instance per thread and merge afterwards.
+ */
+public final class Coverage {
+    /**
+     * kind of access recorded
+     */
+    public enum Access {
+        EXECUTE('X'),
+        READ('R'),
+        WRITE('W');
+
+        private final char code;
+
+        Access(char code)
+        {
+            this.code = code;
+        }
+    }
+
+    static final int WORDS = Memory.MEM_SIZE / Long.SIZE;
+    /**
+     * "COV1", first int of the binary form
+     */
+    private static final int MAGIC = 0x434f5631;
+    private static final Access[] ACCESSES = Access.values();
+
+    private final long[] executed = new long[WORDS];
+    private final long[] read = new long[WORDS];
+    private final long[] written = new long[WORDS];
+
+    private long[] bits(Access access)
+    {
+        return switch (access)
+        {
+            case EXECUTE -> executed;
+            case READ -> read;
+            case WRITE -> written;
+        };
+    }
+
+    private static void set(long[] bits, int address)
+    {
+        //shift distance is taken mod 64
+        bits[(address & 0xffff) >>> 6] |= 1L << address;
+    }
+
+    void execute(int address)
+    {
+        set(executed, address);
+    }
+
+    /**
+     * @param address - first byte of the instruction
+     * @param length - instruction length
+     */
+    void execute(int address, int length)
+    {
+        for (int i = 0; i < length; i++)
+            set(executed, address + i);
+    }
+
+    void read(int address)
+    {
+        set(read, address);
+    }
+
+    void write(int address)
+    {
+        set(written, address);
+    }
+
+    /**
+     * @param access - kind of access
+     * @param address - address
+     * @return true if address was accessed that way
+     */
+    public boolean isCovered(Access access, int address)
+    {
+        return (bits(access)[(address & 0xffff) >>> 6] & 1L << address) != 0;
+    }
+
+    /**
+     * @param access - kind of access
+     * @return number of addresses accessed that way
+     */
+    public int count(Access access)
+    {
+        int n = 0;
+        for (var word: bits(access))
+            n += Long.bitCount(word);
+        return n;
+    }
+
+    /**
+     * Add the coverage of another run
+     * @param other - coverage to add, not modified
+     */
+    public void merge(Coverage other)
+    {
+        for (int i = 0; i < WORDS; i++)
+        {
+            executed[i] |= other.executed[i];
+            read[i] |= other.read[i];
+            written[i] |= other.written[i];
+        }
+    }
+
+    /**
+     * Add coverage in the binary form of {@link #toBytes()} without materializing it
+     * @param buffer - serialized coverage, position is advanced past it
+     * @throws IllegalArgumentException if the buffer does not hold valid coverage
+     */
+    public void merge(ByteBuffer buffer)
+    {
+        final var in = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        try
+        {
+            if (in.getInt() != MAGIC)
+                throw new IllegalArgumentException("Not coverage data");
+            for (var access: ACCESSES)
+            {
+                final var bits = bits(access);
+                final var words = in.getShort() & 0xffff;
+                if (words > WORDS)
+                    throw new IllegalArgumentException("Bad coverage word count %d".formatted(words));
+                for (int n = 0; n < words; n++)
+                {
+                    final var index = in.getShort() & 0xffff;
+                    if (index >= WORDS)
+                        throw new IllegalArgumentException("Bad coverage word index %d".formatted(index));
+                    bits[index] |= in.getLong();
+                }
+            }
+        }
+        catch (BufferUnderflowException e)
+        {
+            throw new IllegalArgumentException("Truncated coverage data", e);
+        }
+    }
+
+    /**
+     * Binary form, little endian: magic "COV1", then for execute, read and write the number of non-zero words
+     * (unsigned short) followed by that many (word index unsigned short, 64 bit word) pairs
+     * @return serialized coverage
+     */
+    public byte[] toBytes()
+    {
+        int size = Integer.BYTES;
+        for (var access: ACCESSES)
+            size += Short.BYTES + nonZeroWords(bits(access)) * (Short.BYTES + Long.BYTES);
+        final var out = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC);
+        for (var access: ACCESSES)
+        {
+            final var bits = bits(access);
+            out.putShort((short) nonZeroWords(bits));
+            for (int i = 0; i < WORDS; i++)
+            {
+                if (bits[i] != 0)
+                    out.putShort((short) i).putLong(bits[i]);
+            }
+        }
+        return out.array();
+    }
+
+    /**
+     * @param bytes - binary form from {@link #toBytes()}
+     * @return deserialized coverage
+     */
+    public static Coverage fromBytes(byte[] bytes)
+    {
+        final var coverage = new Coverage();
+        coverage.merge(ByteBuffer.wrap(bytes));
+        return coverage;
+    }
+
+    private static int nonZeroWords(long[] bits)
+    {
+        int n = 0;
+        for (var word: bits)
+        {
+            if (word != 0)
+                n++;
+        }
+        return n;
+    }
+
+    /**
+     * @param access - kind of access
+     * @return covered address ranges in ascending order, each as {first, last}
+     */
+    public List<int[]> ranges(Access access)
+    {
+        final var bits = bits(access);
+        final List<int[]> ranges = new ArrayList<>();
+        int address = 0;
+        while (address < Memory.MEM_SIZE)
+        {
+            final var first = next(bits, address, true);
+            if (first < 0)
+                break;
+            final var end = next(bits, first, false);
+            final var last = end < 0 ? Memory.MEM_SIZE - 1 : end - 1;
+            ranges.add(new int[]{first, last});
+            address = last + 1;
+        }
+        return ranges;
+    }
+
+    /**
+     * @return first address from start on whose bit equals set, -1 if there is none
+     */
+    private static int next(long[] bits, int start, boolean set)
+    {
+        var i = start >>> 6;
+        var word = (set ? bits[i] : ~bits[i]) & -1L << start;
+        while (word == 0)
+        {
+            if (++i == WORDS)
+                return -1;
+            word = set ? bits[i] : ~bits[i];
+        }
+        return i << 6 | Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * Human readable form: one line per covered range, access code X, R or W followed by the range,
+     * e.g. "X 0200-0235" or "W 00F0"
+     * @return ranges of all access kinds
+     */
+    public String toRangeString()
+    {
+        final var out = new StringBuilder();
+        for (var access: ACCESSES)
+        {
+            for (var range: ranges(access))
+            {
+                out.append(access.code).append(' ').append("%04X".formatted(range[0]));
+                if (range[1] != range[0])
+                    out.append('-').append("%04X".formatted(range[1]));
+                out.append('\n');
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Forget all coverage
+     */
+    public void clear()
+    {
+        Arrays.fill(executed, 0);
+        Arrays.fill(read, 0);
+        Arrays.fill(written, 0);
+    }
+}
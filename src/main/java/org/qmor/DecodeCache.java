@@ -0,0 +1,143 @@
+package org.qmor;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * Predecoded instructions keyed by PC, enabled with {@link CPU#setPredecodeEnabled(boolean)}.
+ * <p>
+ * The first execution of an address stores its decoded {@link OpCodes} (with its static cycle cost) and operand,
+ * later executions skip fetching and decoding. A write to any of the bytes of a cached instruction drops it,
+ * reported through the code watch of {@link Memory}, so self-modifying code stays correct.
+ * Writes bypassing Memory and the bus (e.g. to an array kept from {@link Memory#data()}) need {@link Memory#markAllDirty()}
+ * or {@link #invalidateAll()}.
+ */
+public final class DecodeCache {
+    /**
+     * longest instruction, a write at address may hit instructions starting up to this many bytes before
+     */
+    private static final int MAX_INSTRUCTION_SIZE = 3;
+
+    private final Memory memory;
+    private final Bus bus;
+    private final int watcher;
+    /**
+     * decoded instruction per address, null when not decoded
+     */
+    private final OpCodes[] ops = new OpCodes[Memory.MEM_SIZE];
+    /**
+     * operand bytes per address, little endian
+     */
+    private final int[] operands = new int[Memory.MEM_SIZE];
+    private final boolean[] watched = new boolean[Bus.PAGES];
+    /**
+     * instructions decoded since creation
+     */
+    @Getter
+    private long decodedInstructions;
+    /**
+     * cached instructions dropped because their bytes were written
+     */
+    @Getter
+    private long invalidatedInstructions;
+
+    /**
+     * @param bus - bus of the cpu
+     */
+    DecodeCache(Bus bus)
+    {
+        this.bus = bus;
+        this.memory = bus.getMemory();
+        this.watcher = memory.addCodeListener(this::codeWritten);
+    }
+
+    /**
+     * @param pc - address of the instruction
+     * @return cached instruction or null, see {@link #decode(int)}
+     */
+    OpCodes op(int pc)
+    {
+        return ops[pc];
+    }
+
+    /**
+     * @param pc - address of a cached instruction
+     * @return its operand
+     */
+    int operand(int pc)
+    {
+        return operands[pc];
+    }
+
+    /**
+     * Decode the instruction at pc and cache it if all of its bytes are RAM or ROM
+     * @param pc - address of the instruction, 0..0xffff
+     * @return decoded instruction or null if it can't be cached
+     */
+    OpCodes decode(int pc)
+    {
+        //device reads may have side effects, the interpreter fetches those instructions once itself
+        if (!bus.isMemory(pc))
+            return null;
+        final var op = OpCodes.decode(bus.read(pc));
+        final var size = op.getAddressMode().getOperandSize();
+        if (op == OpCodes.ILLEGAL || pc + size > 0xffff || !bus.isMemory(pc + size))
+            return null;
+        operands[pc] = switch (size)
+        {
+            case 0 -> 0;
+            case 1 -> bus.read(pc + 1);
+            default -> bus.read(pc + 1) | bus.read(pc + 2) << 8;
+        };
+        ops[pc] = op;
+        decodedInstructions++;
+        for (int page = pc >>> 8; page <= (pc + size) >>> 8; page++)
+        {
+            if (!watched[page])
+            {
+                watched[page] = true;
+                memory.watchCode(watcher, page, true);
+            }
+        }
+        return op;
+    }
+
+    private void codeWritten(int address, int length)
+    {
+        final var from = Math.max(0, address - (MAX_INSTRUCTION_SIZE - 1));
+        for (int pc = from; pc < address + length; pc++)
+        {
+            if (ops[pc] != null)
+            {
+                ops[pc] = null;
+                invalidatedInstructions++;
+            }
+        }
+    }
+
+    /**
+     * Drop all cached instructions
+     */
+    public void invalidateAll()
+    {
+        Arrays.fill(ops, null);
+        for (int page = 0; page < watched.length; page++)
+        {
+            if (watched[page])
+            {
+                watched[page] = false;
+                memory.watchCode(watcher, page, false);
+            }
+        }
+    }
+
+    /**
+     * Detach from memory, the cache must not be used afterwards
+     */
+    void close()
+    {
+        invalidateAll();
+        memory.removeCodeListener(watcher);
+    }
+}
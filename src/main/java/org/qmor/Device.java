@@ -0,0 +1,18 @@
+package org.qmor;
+
+/**
+ * Memory mapped device attached to {@link Bus} pages
+ */
+public interface Device {
+    /**
+     * @param address - 16 bit address being read
+     * @return byte value in lower 8 bits
+     */
+    short read(int address);
+
+    /**
+     * @param address - 16 bit address being written
+     * @param value - byte to write
+     */
+    void write(int address, byte value);
+}
@@ -0,0 +1,15 @@
+package org.qmor;
+
+/**
+ * Interpreter core executing decoded instructions, see {@link CPU#setCore(ExecutionCore)}
+ */
+public enum ExecutionCore {
+    /**
+     * one switch over all opcodes with shared flag and register post-processing
+     */
+    SWITCH,
+    /**
+     * array of small per-opcode handlers, see {@link OpHandlers}
+     */
+    HANDLERS
+}
@@ -16,4 +16,12 @@ public enum Flag {
     N(7);//Negative
 
     private final int offset;
+
+    /**
+     * @return bit of this flag within the status byte
+     */
+    public int getMask()
+    {
+        return 1 << offset;
+    }
 }
\ No newline at end of file
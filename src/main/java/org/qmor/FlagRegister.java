@@ -1,80 +1,128 @@
 package org.qmor;
 
-import lombok.EqualsAndHashCode;
-
 import java.util.ArrayList;
-import java.util.EnumSet;
 import java.util.List;
-import java.util.Set;
 
-@EqualsAndHashCode
+/**
+ * Processor status register P, kept as the packed byte the 6502 itself uses.
+ * Bit positions are given by {@link Flag#getOffset()}.
+ * <p>
+ * N and Z may be deferred with {@link #setResultFlagsLazy(int)}: only the result byte is remembered and
+ * the flags are derived from it when something reads the register or changes N/Z directly.
+ */
 public class FlagRegister
 {
-    private final Set<Flag> fields = EnumSet.noneOf(Flag.class);
+    private static final Flag[] FLAGS = Flag.values();
+    private static final int NZ_MASK = Flag.N.getMask() | Flag.Z.getMask();
+    private static final int NO_RESULT = -1;
+
+    private int bits;
+    /**
+     * result byte N and Z are not yet derived from, NO_RESULT if bits are up to date
+     */
+    private int pendingResult = NO_RESULT;
 
     public FlagRegister getCopy()
     {
         final var newF = new FlagRegister();
-        fields.forEach(newF::setFlag);
+        newF.bits = bits;
+        newF.pendingResult = pendingResult;
         return newF;
     }
 
+    /**
+     * Defer Z (result == 0) and N (result bit 7) until they are read
+     * @param result - value whose low byte defines N and Z
+     */
+    public void setResultFlagsLazy(int result)
+    {
+        pendingResult = result & 0xff;
+    }
+
+    /**
+     * @return status byte with pending N/Z folded in, register is not modified
+     */
+    private int value()
+    {
+        final var result = pendingResult;
+        if (result == NO_RESULT)
+            return bits;
+        return (bits & ~NZ_MASK) | (result & Flag.N.getMask()) | (result == 0 ? Flag.Z.getMask() : 0);
+    }
+
+    private void materialize()
+    {
+        if (pendingResult != NO_RESULT)
+        {
+            bits = value();
+            pendingResult = NO_RESULT;
+        }
+    }
+
     public String printFlags()
     {
         final List<String> r = new ArrayList<>();
-        fields.forEach(field -> r.add(field.toString()));
-
+        for (var flag: FLAGS)
+        {
+            if (getAsBoolean(flag))
+                r.add(flag.toString());
+        }
         return String.join(",",r);
     }
     public void setFlag(Flag flag, boolean value)
     {
-        if (value)
-            setFlag(flag);
-        else
-            clearFlag(flag);
+        materialize();
+        final var mask = flag.getMask();
+        bits = (bits & ~mask) | (value ? mask : 0);
     }
     public void setFlag(Flag flag)
     {
-        fields.add(flag);
+        materialize();
+        bits |= flag.getMask();
     }
     public void clearFlag(Flag flag)
     {
-        fields.remove(flag);
+        materialize();
+        bits &= ~flag.getMask();
     }
     public int getAsInt(Flag flag)
     {
-        return fields.contains(flag)?1:0;
+        return (value() >>> flag.getOffset()) & 1;
     }
     public boolean getAsBoolean(Flag flag)
     {
-        return fields.contains(flag);
+        return (value() & flag.getMask()) != 0;
     }
 
     public void reset()
     {
-        fields.clear();
+        bits = 0;
+        pendingResult = NO_RESULT;
     }
     public short getByteValue()
     {
-        int res = 0;
-        for (var r: Flag.values())
-        {
-            res = res | (getAsInt(r) << r.getOffset());
-        }
-        return (short)res;
+        return (short) value();
     }
     public void setByteValue(short val)
     {
-        fields.clear();
-        for (var flag: Flag.values())
-        {
-            if (((val>>flag.getOffset())&1) == 1)
-                setFlag(flag, true);
-        }
+        bits = val & 0xff;
+        pendingResult = NO_RESULT;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        return o instanceof FlagRegister other && value() == other.value();
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return value();
     }
 
     @Override
     public String toString() {
         return "[%s]".formatted(printFlags());
     }
-}
\ No newline at end of file
+}
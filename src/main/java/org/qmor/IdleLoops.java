@@ -0,0 +1,147 @@
+package org.qmor;
+
+/**
+ * Fast-forward of provably idle loops, e.g. JMP-to-self or polling a RAM location nobody writes.
+ * <p>
+ * {@link CPU#run(long)} reports every backward jump. Once the same loop head was reached often enough the loop is
+ * checked: its body must hold no instruction that writes memory, and one iteration executed under observation must
+ * touch no device and return to the head with registers and flags unchanged. Such a loop would repeat that
+ * iteration until the next scheduled event or the end of the budget, the horizon of the run loop, so whole
+ * iterations up to it are skipped by advancing the counters only; the rest is interpreted, leaving the machine
+ * exactly where plain interpretation would. Anything able to end the loop earlier, e.g. an interrupt becoming
+ * serviceable, lowers the horizon and stops the skip.
+ */
+final class IdleLoops {
+    /**
+     * back edges to the same head before the loop is checked, keeps the cost for busy loops at a counter increment
+     */
+    private static final int CHECK_AFTER = 64;
+    /**
+     * longest loop body checked, in instructions
+     */
+    private static final int MAX_BODY = 32;
+
+    private final CPU cpu;
+    private final Bus bus;
+    private int head = -1;
+    private int hits;
+    /**
+     * loop last proven idle, checked again on its next back edge without counting hits first,
+     * e.g. when an interrupt handler returns into it. -1 if none
+     */
+    private int idleHead = -1;
+    private int idleTail;
+    /**
+     * cycles skipped since creation
+     */
+    private long skippedCycles;
+
+    IdleLoops(CPU cpu, Bus bus)
+    {
+        this.cpu = cpu;
+        this.bus = bus;
+    }
+
+    long getSkippedCycles()
+    {
+        return skippedCycles;
+    }
+
+    /**
+     * Called after a jump from branchPc back to cpu.PC
+     * @param branchPc - address of the jumping instruction, the end of the loop body
+     */
+    void backEdge(int branchPc)
+    {
+        final var pc = cpu.getPC();
+        if (pc == idleHead && branchPc == idleTail)
+        {
+            check(pc, branchPc);
+            return;
+        }
+        if (pc != head)
+        {
+            head = pc;
+            hits = 1;
+            return;
+        }
+        if (++hits < CHECK_AFTER)
+            return;
+        hits = 0;
+        check(pc, branchPc);
+    }
+
+    private void check(int head, int branchPc)
+    {
+        if (writesMemory(head, branchPc) || !fastForward(head, branchPc))
+        {
+            idleHead = -1;
+            return;
+        }
+        idleHead = head;
+        idleTail = branchPc;
+    }
+
+    /**
+     * @return true if any instruction between head and branchPc may write memory, or can't be decoded safely
+     */
+    private boolean writesMemory(int head, int branchPc)
+    {
+        int at = head;
+        for (int n = 0; n < MAX_BODY && at <= branchPc; n++)
+        {
+            if (!bus.isMemory(at))
+                return true;
+            final var op = OpCodes.decode(bus.read(at));
+            if (op == OpCodes.ILLEGAL || op.getMicrocode().direction() == AddressMode.AddressModeFuncGetAddr.Direction.W)
+                return true;
+            switch (op)
+            {
+                case JSR, BRK, PHA, PHP -> {
+                    return true;
+                }
+                default -> at += 1 + op.getAddressMode().getOperandSize();
+            }
+        }
+        return at <= branchPc;
+    }
+
+    /**
+     * skip whole iterations up to {@link CPU#getHorizon()}, read again after the observed iteration in case
+     * it was lowered
+     * @return false if the observed iteration was not idle
+     */
+    private boolean fastForward(int head, int branchPc)
+    {
+        final var a = cpu.getA();
+        final var x = cpu.getX();
+        final var y = cpu.getY();
+        final var sp = cpu.getSP();
+        final var flags = cpu.getF().getByteValue();
+        final var deviceAccesses = bus.getDeviceAccesses();
+        final var startCycles = cpu.getCycles();
+        final var startInstructions = cpu.getInstructions();
+        for (int n = 0; n < MAX_BODY; n++)
+        {
+            if (cpu.getCycles() >= cpu.getHorizon())
+                return true;
+            cpu.step();
+            final var pc = cpu.getPC();
+            if (pc == head)
+                break;
+            if (pc < head || pc > branchPc)
+                return false;
+        }
+        if (cpu.getPC() != head || cpu.getA() != a || cpu.getX() != x || cpu.getY() != y || cpu.getSP() != sp
+                || cpu.getF().getByteValue() != flags || bus.getDeviceAccesses() != deviceAccesses)
+            return false;
+        final var period = cpu.getCycles() - startCycles;
+        final var iterations = (cpu.getHorizon() - cpu.getCycles() - 1) / period;
+        if (iterations > 0)
+        {
+            cpu.skip(iterations * period, iterations * (cpu.getInstructions() - startInstructions));
+            skippedCycles += iterations * period;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,168 @@
+package org.qmor;
+
+import lombok.Getter;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Basic block compiler tier of a {@link CPU}, enabled with {@link CPU#setJitEnabled(boolean)}.
+ * <p>
+ * The interpreter counts how often each address is reached; once an address gets hot the straight line code
+ * starting there is compiled by {@link BlockCompiler} and later executions of it run as JVM bytecode.
+ * Writes to pages holding compiled code drop the blocks of that page, through the code watch of {@link Memory}.
+ * Writes bypassing Memory and the bus (e.g. to an array kept from {@link Memory#data()}) need {@link Memory#markAllDirty()}
+ * or {@link #invalidateAll()}.
+ */
+public final class Jit {
+    /**
+     * times an address has to be reached before code there is compiled
+     */
+    public static final int DEFAULT_THRESHOLD = 16;
+    private static final int NOT_COMPILABLE = Integer.MIN_VALUE;
+
+    private final Memory memory;
+    private final BlockCompiler compiler;
+    private final CompiledBlock[] blocks = new CompiledBlock[Memory.MEM_SIZE];
+    private final int[] counters = new int[Memory.MEM_SIZE];
+    /**
+     * blocks holding code of each page
+     */
+    private final List<List<CompiledBlock>> pageBlocks = new ArrayList<>(Bus.PAGES);
+    private final int threshold;
+    private final int watcher;
+    /**
+     * set when compiled code was written or an interrupt became serviceable,
+     * a running block checks it after its stores and leaves
+     */
+    boolean exitRequested;
+    /**
+     * blocks compiled since creation
+     */
+    @Getter
+    private long compiledBlocks;
+    /**
+     * blocks dropped because their code was written
+     */
+    @Getter
+    private long invalidatedBlocks;
+
+    /**
+     * @param lookup - full privilege lookup of {@link CPU}, generated blocks become its nestmates
+     * @param bus - bus of the cpu
+     * @param threshold - times an address has to be reached before it is compiled
+     */
+    Jit(MethodHandles.Lookup lookup, Bus bus, int threshold)
+    {
+        this.memory = bus.getMemory();
+        this.compiler = new BlockCompiler(lookup, bus);
+        this.threshold = threshold;
+        for (int i = 0; i < Bus.PAGES; i++)
+            pageBlocks.add(new ArrayList<>());
+        watcher = memory.addCodeListener(this::codeWritten);
+    }
+
+    /**
+     * Called by the interpreter loop before every instruction
+     * @param pc - address of the next instruction
+     * @return compiled block starting at pc or null to interpret
+     */
+    CompiledBlock lookup(int pc)
+    {
+        if ((pc & ~0xffff) != 0)
+            return null;
+        final var block = blocks[pc];
+        if (block != null || ++counters[pc] != threshold)
+            return block;
+        return compile(pc);
+    }
+
+    private CompiledBlock compile(int pc)
+    {
+        final var block = compiler.compile(pc);
+        if (block == null)
+        {
+            counters[pc] = NOT_COMPILABLE;
+            return null;
+        }
+        blocks[pc] = block;
+        compiledBlocks++;
+        for (int page = pc >>> 8; page <= (pc + block.length - 1) >>> 8; page++)
+        {
+            pageBlocks.get(page).add(block);
+            memory.watchCode(watcher, page, true);
+        }
+        return block;
+    }
+
+    /**
+     * @param block - block from {@link #lookup(int)}
+     * @param cpu - cpu the block belongs to
+     * @param budget - cycles left, at least the block's maxCycles
+     */
+    void execute(CompiledBlock block, CPU cpu, long budget)
+    {
+        exitRequested = false;
+        block.execute(cpu, (int) Math.min(budget, Integer.MAX_VALUE));
+    }
+
+    private void codeWritten(int address, int length)
+    {
+        invalidatePage(address >>> 8);
+        exitRequested = true;
+    }
+
+    private void invalidatePage(int page)
+    {
+        final var list = pageBlocks.get(page);
+        for (var block: list)
+        {
+            if (blocks[block.pc] == block)
+            {
+                blocks[block.pc] = null;
+                counters[block.pc] = 0;
+                invalidatedBlocks++;
+            }
+        }
+        list.clear();
+        memory.watchCode(watcher, page, false);
+    }
+
+    /**
+     * Drop all compiled code and hotness counters
+     */
+    public void invalidateAll()
+    {
+        for (int page = 0; page < Bus.PAGES; page++)
+        {
+            if (!pageBlocks.get(page).isEmpty())
+                invalidatePage(page);
+        }
+        Arrays.fill(counters, 0);
+    }
+
+    /**
+     * @return number of blocks currently compiled
+     */
+    public int blockCount()
+    {
+        int n = 0;
+        for (var block: blocks)
+        {
+            if (block != null)
+                n++;
+        }
+        return n;
+    }
+
+    /**
+     * Detach from memory, the JIT must not be used afterwards
+     */
+    void close()
+    {
+        invalidateAll();
+        memory.removeCodeListener(watcher);
+    }
+}
@@ -2,14 +2,419 @@ package org.qmor;
 
 import java.util.Arrays;
 
-public class Memory {
+/**
+ * 64 KiB address space backed by an on-heap array.
+ * The array is used directly by {@link Bus} for RAM pages; see {@link OffHeapMemory} for an alternative backing.
+ * <p>
+ * Writes mark their 256 byte page dirty, so {@link #reset()}, {@link #snapshot()} and {@link #diffPages(Memory)}
+ * only visit pages that were actually written.
+ */
+public class Memory implements Device {
 
     public static final int MEM_SIZE = 1024*64;
-    final byte[] data = new byte[MEM_SIZE];
+    private static final int PAGES = MEM_SIZE / Bus.PAGE_SIZE;
+    /**
+     * backing array, null for implementations keeping data elsewhere
+     */
+    private final byte[] data;
+    /**
+     * pages written since the last checkpoint, bit per page
+     */
+    final long[] dirty = new long[PAGES / 64];
+    /**
+     * pages written before the last checkpoint and since the last reset
+     */
+    private final long[] written = new long[PAGES / 64];
+    /**
+     * pages holding decoded or compiled code, bit per code listener watching the page
+     */
+    final byte[] codePages = new byte[PAGES];
+    private final CodeListener[] codeListeners = new CodeListener[Byte.SIZE];
+
+    /**
+     * Receives writes to pages watched with {@link #watchCode(int, int, boolean)}
+     */
+    interface CodeListener {
+        /**
+         * @param address - first written address
+         * @param length - number of bytes written, all within one page
+         */
+        void codeWritten(int address, int length);
+    }
+
+    public Memory()
+    {
+        this(new byte[MEM_SIZE]);
+    }
+
+    protected Memory(byte[] data)
+    {
+        this.data = data;
+    }
+
+    /**
+     * Backing array for direct access, null for implementations keeping data elsewhere.
+     * Accesses through it bypass dirty page tracking and code watches, so every page counts as written:
+     * the next {@link #reset()} zeroes all of memory and decoded or compiled code is dropped
+     * @return the backing array
+     */
+    byte[] data()
+    {
+        markAllDirty();
+        return data;
+    }
+
+    /**
+     * @return backing array for {@link Bus}, which tracks its own writes
+     */
+    byte[] ram()
+    {
+        return data;
+    }
+
+    /**
+     * @return memory kept outside of the java heap
+     */
+    public static Memory offHeap()
+    {
+        return new OffHeapMemory();
+    }
+
+    /**
+     * @return memory with copy-on-write pages, cheap to {@link #fork()}
+     */
+    public static PagedMemory paged()
+    {
+        return new PagedMemory();
+    }
+
+    /**
+     * Independent copy of this memory. Only {@link PagedMemory} shares pages with its forks,
+     * other implementations are copied once into a new PagedMemory.
+     * Dirty page tracking of the fork starts empty.
+     * @return memory with the same content
+     */
+    public PagedMemory fork()
+    {
+        return PagedMemory.copyOf(this);
+    }
+
+    @Override
+    public short read(int address)
+    {
+        return (short) (data[address & 0xffff] & 0xff);
+    }
+
+    @Override
+    public void write(int address, byte value)
+    {
+        address &= 0xffff;
+        data[address] = value;
+        markDirty(address);
+    }
+
+    /**
+     * @param address - written address
+     */
+    final void markDirty(int address)
+    {
+        dirty[address >>> 14] |= 1L << (address >>> 8);
+        if (codePages[address >>> 8] != 0)
+            codeWritten(address, 1);
+    }
+
+    /**
+     * @param address - first written address
+     * @param length - number of bytes written
+     */
+    protected final void markDirty(int address, int length)
+    {
+        if (length <= 0)
+            return;
+        for (int page = address >>> 8; page <= (address + length - 1) >>> 8; page++)
+        {
+            dirty[page >>> 6] |= 1L << page;
+            if (codePages[page] != 0)
+            {
+                final var from = Math.max(address, page << 8);
+                final var to = Math.min(address + length, (page + 1) << 8);
+                codeWritten(from, to - from);
+            }
+        }
+    }
+
+    /**
+     * @param listener - receives writes to the pages it watches
+     * @return watcher id for {@link #watchCode(int, int, boolean)} and {@link #removeCodeListener(int)}
+     * @throws IllegalStateException if all watcher ids are taken
+     */
+    int addCodeListener(CodeListener listener)
+    {
+        for (int watcher = 0; watcher < codeListeners.length; watcher++)
+        {
+            if (codeListeners[watcher] == null)
+            {
+                codeListeners[watcher] = listener;
+                return watcher;
+            }
+        }
+        throw new IllegalStateException("Too many code listeners");
+    }
+
+    /**
+     * @param watcher - id from {@link #addCodeListener(CodeListener)}, its pages stop being watched
+     */
+    void removeCodeListener(int watcher)
+    {
+        codeListeners[watcher] = null;
+        for (int page = 0; page < PAGES; page++)
+            watchCode(watcher, page, false);
+    }
+
+    /**
+     * @param watcher - id from {@link #addCodeListener(CodeListener)}
+     * @param page - page number
+     * @param watch - true to report writes to the page to the listener
+     */
+    void watchCode(int watcher, int page, boolean watch)
+    {
+        if (watch)
+            codePages[page] |= (byte) (1 << watcher);
+        else
+            codePages[page] &= (byte) ~(1 << watcher);
+    }
+
+    /**
+     * @param address - first written address on a watched page
+     * @param length - number of bytes written, all within one page
+     */
+    final void codeWritten(int address, int length)
+    {
+        final var watchers = codePages[address >>> 8] & 0xff;
+        for (int watcher = 0; watcher < codeListeners.length; watcher++)
+        {
+            if ((watchers & (1 << watcher)) != 0)
+                codeListeners[watcher].codeWritten(address, length);
+        }
+    }
+
+    /**
+     * Consider the whole memory modified, e.g. after writing a copy of {@link #data()} obtained earlier
+     */
+    public void markAllDirty()
+    {
+        Arrays.fill(dirty, -1L);
+        allCodeWritten();
+    }
+
+    /**
+     * report every watched page as written, for changes made without {@link #markDirty(int, int)}
+     */
+    final void allCodeWritten()
+    {
+        for (int page = 0; page < PAGES; page++)
+        {
+            if (codePages[page] != 0)
+                codeWritten(page << 8, Bus.PAGE_SIZE);
+        }
+    }
+
+    /**
+     * @param page - page number (address >> 8)
+     * @return true if page was written since the last checkpoint
+     */
+    public boolean isPageDirty(int page)
+    {
+        return (dirty[page >>> 6] & (1L << page)) != 0;
+    }
+
+    /**
+     * @return number of pages written since the last checkpoint
+     */
+    public int dirtyPageCount()
+    {
+        int count = 0;
+        for (var w: dirty)
+            count += Long.bitCount(w);
+        return count;
+    }
+
+    /**
+     * Start a new tracking interval: snapshots and diffs will only cover pages written after this call
+     */
+    public void checkpoint()
+    {
+        for (int i = 0; i < dirty.length; i++)
+        {
+            written[i] |= dirty[i];
+            dirty[i] = 0;
+        }
+    }
+
+    /**
+     * Undo writes made since the last checkpoint by copying the written pages back from baseline
+     * @param baseline - memory holding the content this memory had at the checkpoint
+     */
+    public void rollback(Memory baseline)
+    {
+        final var page = new byte[Bus.PAGE_SIZE];
+        for (var p: dirtyPages(dirty, dirty))
+        {
+            baseline.copyTo(p << 8, page, 0, Bus.PAGE_SIZE);
+            load(p << 8, page, 0, Bus.PAGE_SIZE);
+        }
+        Arrays.fill(dirty, 0);
+    }
+
+    /**
+     * @return content of pages written since the last checkpoint
+     */
+    public MemorySnapshot snapshot()
+    {
+        final var pages = dirtyPages(dirty, dirty);
+        final var content = new byte[pages.length * Bus.PAGE_SIZE];
+        for (int i = 0; i < pages.length; i++)
+            copyTo(pages[i] << 8, content, i * Bus.PAGE_SIZE, Bus.PAGE_SIZE);
+        return new MemorySnapshot(pages, content);
+    }
+
+    /**
+     * Compare with memory that had the same content at the last checkpoint of both, e.g. a machine reset
+     * and loaded with the same image
+     * @param other - memory to compare
+     * @return pages, written since checkpoint in either memory, whose content differs
+     */
+    public int[] diffPages(Memory other)
+    {
+        final var candidates = dirtyPages(dirty, other.dirty);
+        final var a = new byte[Bus.PAGE_SIZE];
+        final var b = new byte[Bus.PAGE_SIZE];
+        int n = 0;
+        for (var page: candidates)
+        {
+            copyTo(page << 8, a, 0, Bus.PAGE_SIZE);
+            other.copyTo(page << 8, b, 0, Bus.PAGE_SIZE);
+            if (!Arrays.equals(a, b))
+                candidates[n++] = page;
+        }
+        return Arrays.copyOf(candidates, n);
+    }
+
+    private static int[] dirtyPages(long[] a, long[] b)
+    {
+        int count = 0;
+        for (int i = 0; i < a.length; i++)
+            count += Long.bitCount(a[i] | b[i]);
+        final var pages = new int[count];
+        int n = 0;
+        for (int i = 0; i < a.length; i++)
+        {
+            for (long bits = a[i] | b[i]; bits != 0; bits &= bits - 1)
+                pages[n++] = i * 64 + Long.numberOfTrailingZeros(bits);
+        }
+        return pages;
+    }
+
+    /**
+     * Copy bytes into memory
+     * @param address - destination address
+     * @param src - source bytes
+     * @param offset - first source byte
+     * @param length - number of bytes
+     */
+    public void load(int address, byte[] src, int offset, int length)
+    {
+        checkRange(address, length);
+        System.arraycopy(src, offset, data, address, length);
+        markDirty(address, length);
+    }
+
+    public void load(int address, byte[] src)
+    {
+        load(address, src, 0, src.length);
+    }
+
+    /**
+     * Copy bytes out of memory
+     * @param address - source address
+     * @param dst - destination array
+     * @param offset - first destination byte
+     * @param length - number of bytes
+     */
+    public void copyTo(int address, byte[] dst, int offset, int length)
+    {
+        checkRange(address, length);
+        System.arraycopy(data, address, dst, offset, length);
+    }
+
+    /**
+     * @param address - first address
+     * @param length - number of bytes
+     * @return copy of the region
+     */
+    public byte[] copyOf(int address, int length)
+    {
+        final var r = new byte[length];
+        copyTo(address, r, 0, length);
+        return r;
+    }
+
+    /**
+     * @param address - first address
+     * @param length - number of bytes
+     * @param value - byte to store
+     */
+    public void fill(int address, int length, byte value)
+    {
+        checkRange(address, length);
+        Arrays.fill(data, address, address + length, value);
+        markDirty(address, length);
+    }
+
+    /**
+     * @param other - memory to compare with, any implementation
+     * @return first address with different content or -1 if both are equal
+     */
+    public int mismatch(Memory other)
+    {
+        if (data != null && other.data != null)
+            return Arrays.mismatch(data, other.data);
+        final var chunk = new byte[Bus.PAGE_SIZE];
+        final var otherChunk = new byte[Bus.PAGE_SIZE];
+        for (int address = 0; address < MEM_SIZE; address += Bus.PAGE_SIZE)
+        {
+            copyTo(address, chunk, 0, Bus.PAGE_SIZE);
+            other.copyTo(address, otherChunk, 0, Bus.PAGE_SIZE);
+            final var i = Arrays.mismatch(chunk, otherChunk);
+            if (i >= 0)
+                return address + i;
+        }
+        return -1;
+    }
+
+    /**
+     * Zero memory, only pages written since the previous reset are touched
+     */
     public void reset()
     {
-        Arrays.fill(data, (byte)0);
+        for (var page: dirtyPages(dirty, written))
+            fill(page << 8, Bus.PAGE_SIZE, (byte) 0);
+        clearTracking();
     }
 
-}
+    /**
+     * forget all written pages, for implementations that zero memory on their own
+     */
+    protected final void clearTracking()
+    {
+        Arrays.fill(dirty, 0);
+        Arrays.fill(written, 0);
+    }
+
+    protected static void checkRange(int address, int length)
+    {
+        if (address < 0 || length < 0 || address + length > MEM_SIZE)
+            throw new IndexOutOfBoundsException("Bad memory range %04x+%d".formatted(address, length));
+    }
 
+}
@@ -0,0 +1,49 @@
+package org.qmor;
+
+import java.util.Arrays;
+
+/**
+ * Content of the pages written during one tracking interval of {@link Memory}
+ */
+public final class MemorySnapshot {
+    private final int[] pages;
+    private final byte[] content;
+
+    MemorySnapshot(int[] pages, byte[] content)
+    {
+        this.pages = pages;
+        this.content = content;
+    }
+
+    /**
+     * @return page numbers (address >> 8) in ascending order
+     */
+    public int[] getPages()
+    {
+        return pages.clone();
+    }
+
+    public int pageCount()
+    {
+        return pages.length;
+    }
+
+    /**
+     * @param address - any address
+     * @return true if the page of address is part of the snapshot
+     */
+    public boolean contains(int address)
+    {
+        return Arrays.binarySearch(pages, (address & 0xffff) >>> 8) >= 0;
+    }
+
+    /**
+     * Write snapshot pages into memory, pages not in the snapshot are left untouched
+     * @param memory - target memory
+     */
+    public void applyTo(Memory memory)
+    {
+        for (int i = 0; i < pages.length; i++)
+            memory.load(pages[i] << 8, content, i * Bus.PAGE_SIZE, Bus.PAGE_SIZE);
+    }
+}
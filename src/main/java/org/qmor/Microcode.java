@@ -0,0 +1,20 @@
+package org.qmor;
+
+import org.qmor.AddressMode.AddressModeFuncGetAddr.Direction;
+
+/**
+ * Immutable execution descriptor of an instruction, resolved once when {@link OpCodes} is initialised
+ * so the interpreter does not look anything up while executing.
+ * @param register - register receiving the result, flags in flagMask are derived from it after execution
+ * @param alu - arithmetic/logic operation
+ * @param flagMask - {@link Flag} bits set from the result
+ * @param direction - memory access direction of the operand, NONE if there is no memory operand
+ * @param baseCycles - cycles without page crossing penalties
+ */
+public record Microcode(Register register, AluOp alu, int flagMask, Direction direction, int baseCycles) {
+
+    public boolean affects(Flag flag)
+    {
+        return (flagMask & flag.getMask()) != 0;
+    }
+}
@@ -0,0 +1,52 @@
+package org.qmor;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * Incompletely decoded region that repeats a smaller window of the bus,
+ * e.g. 2 KiB of RAM visible four times in $0000-$1FFF
+ */
+public final class Mirror implements Device {
+    private final Bus bus;
+    /**
+     * first address of the mirrored window
+     */
+    @Getter(AccessLevel.PACKAGE)
+    private final int target;
+    private final int mask;
+
+    /**
+     * @param bus - bus the window lives on, the window itself must not be mapped to this mirror
+     * @param target - first address of the mirrored window
+     * @param size - window size, power of two
+     */
+    public Mirror(Bus bus, int target, int size)
+    {
+        if (size <= 0 || Integer.bitCount(size) != 1)
+            throw new IllegalArgumentException("Mirror size must be power of two: %d".formatted(size));
+        this.bus = bus;
+        this.target = target;
+        this.mask = size - 1;
+    }
+
+    /**
+     * @return window size
+     */
+    int getSize()
+    {
+        return mask + 1;
+    }
+
+    @Override
+    public short read(int address)
+    {
+        return bus.read(target + (address & mask));
+    }
+
+    @Override
+    public void write(int address, byte value)
+    {
+        bus.write(target + (address & mask), value);
+    }
+}
@@ -0,0 +1,69 @@
+package org.qmor;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Memory backed by a direct buffer, so thousands of resident machines do not add 64 KiB each to the
+ * heap the garbage collector has to scan. Accessed through {@link Bus} as a device on every page.
+ */
+public final class OffHeapMemory extends Memory {
+    private final ByteBuffer segment = ByteBuffer.allocateDirect(MEM_SIZE);
+
+    public OffHeapMemory()
+    {
+        super(null);
+    }
+
+    @Override
+    public short read(int address)
+    {
+        return (short) (segment.get(address & 0xffff) & 0xff);
+    }
+
+    @Override
+    public void write(int address, byte value)
+    {
+        address &= 0xffff;
+        segment.put(address, value);
+        markDirty(address);
+    }
+
+    @Override
+    public void load(int address, byte[] src, int offset, int length)
+    {
+        checkRange(address, length);
+        segment.put(address, src, offset, length);
+        markDirty(address, length);
+    }
+
+    @Override
+    public void copyTo(int address, byte[] dst, int offset, int length)
+    {
+        checkRange(address, length);
+        segment.get(address, dst, offset, length);
+    }
+
+    @Override
+    public void fill(int address, int length, byte value)
+    {
+        checkRange(address, length);
+        final var end = address + length;
+        var i = address;
+        final var pattern = (value & 0xffL) * 0x0101010101010101L;
+        for (; i < end && (i & 7) != 0; i++)
+            segment.put(i, value);
+        for (; i + 8 <= end; i += 8)
+            segment.putLong(i, pattern);
+        for (; i < end; i++)
+            segment.put(i, value);
+        markDirty(address, length);
+    }
+
+    @Override
+    public int mismatch(Memory other)
+    {
+        if (other instanceof OffHeapMemory o)
+            return segment.mismatch(o.segment);
+        return super.mismatch(other);
+    }
+}
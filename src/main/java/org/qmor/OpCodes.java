@@ -1,19 +1,16 @@
 package org.qmor;
 
 import lombok.Getter;
+import org.qmor.AddressMode.AddressModeFuncGetAddr.Direction;
 
+import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
-import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
 
 import static org.qmor.OpFunctions.NO_AFFECTS;
 import static org.qmor.OpFunctions.ZFIFZERO_NFIFNEG;
 import static org.qmor.OpFunctions.ZFIFZERO_NFIFNEG_CIFCARRY;
-import static org.qmor.OpGroups.REG_A_LOAD_CODES;
-import static org.qmor.OpGroups.REG_X_LOAD_CODES;
-import static org.qmor.OpGroups.REG_Y_LOAD_CODES;
 
 
 @Getter
@@ -21,137 +18,242 @@ import static org.qmor.OpGroups.REG_Y_LOAD_CODES;
 public enum OpCodes {
     JSR(0x20,NO_AFFECTS,6,AddressMode.ABSOLUTE),
     RTS(0x60,NO_AFFECTS,6,AddressMode.NONE),
+    BRK(0x00,NO_AFFECTS,7,AddressMode.NONE),
+    RTI(0x40,NO_AFFECTS,6,AddressMode.NONE),
 
     JMP_ABSOLUTE(0x4C,NO_AFFECTS,3,AddressMode.ABSOLUTE),
     JMP_INDIRECT(0x6C,NO_AFFECTS,5,AddressMode.INDIRECT),
 
-    LDA_IM(0xa9, ZFIFZERO_NFIFNEG,2,REG_A_LOAD_CODES, AddressMode.IMMEDIATE),
-    LDA_ZP(0xa5, ZFIFZERO_NFIFNEG,3,REG_A_LOAD_CODES, AddressMode.ZERO_PAGE),
-    LDA_ZP_X(0xB5, ZFIFZERO_NFIFNEG,4,REG_A_LOAD_CODES, AddressMode.ZERO_PAGE_X),
-    LDA_ABSOLUTE(0xAD, ZFIFZERO_NFIFNEG,4,REG_A_LOAD_CODES, AddressMode.ABSOLUTE),
-    LDA_ABSOLUTE_X(0xBD, ZFIFZERO_NFIFNEG,4,REG_A_LOAD_CODES,AddressMode.ABSOLUTE_X),
-    LDA_ABSOLUTE_Y(0xB9, ZFIFZERO_NFIFNEG,4,REG_A_LOAD_CODES,AddressMode.ABSOLUTE_Y),
-    LDA_INDIRECT_X(0xA1, ZFIFZERO_NFIFNEG,6,REG_A_LOAD_CODES,AddressMode.INDIRECT_X),
-    LDA_INDIRECT_Y(0xB1, ZFIFZERO_NFIFNEG,5,REG_A_LOAD_CODES,AddressMode.INDIRECT_Y),
-
-    LDX_IM(0xA2,ZFIFZERO_NFIFNEG,2,REG_X_LOAD_CODES, AddressMode.IMMEDIATE),
-    LDX_ZP(0xA6,ZFIFZERO_NFIFNEG,3,REG_X_LOAD_CODES, AddressMode.ZERO_PAGE),
-    LDX_ZP_Y(0xB6,ZFIFZERO_NFIFNEG,4,REG_X_LOAD_CODES,AddressMode.ZERO_PAGE_Y),
-    LDX_ABSOLUTE(0xAE,ZFIFZERO_NFIFNEG,4,REG_X_LOAD_CODES,AddressMode.ABSOLUTE),
-    LDX_ABSOLUTE_Y(0xBE,ZFIFZERO_NFIFNEG,4,REG_X_LOAD_CODES,AddressMode.ABSOLUTE_Y),
-
-    LDY_IM(0xA0,ZFIFZERO_NFIFNEG,2,REG_Y_LOAD_CODES, AddressMode.IMMEDIATE),
-    LDY_ZP(0xA4,ZFIFZERO_NFIFNEG,3,REG_Y_LOAD_CODES, AddressMode.ZERO_PAGE),
-    LDY_ZP_X(0xB4,ZFIFZERO_NFIFNEG,4,REG_Y_LOAD_CODES,AddressMode.ZERO_PAGE_X),
-    LDY_ABSOLUTE(0xAC,ZFIFZERO_NFIFNEG,4,REG_Y_LOAD_CODES,AddressMode.ABSOLUTE),
-    LDY_ABSOLUTE_X(0xBC,ZFIFZERO_NFIFNEG,4,REG_Y_LOAD_CODES,AddressMode.ABSOLUTE_X),
-
-    TAX(0xAA,ZFIFZERO_NFIFNEG, 2,REG_X_LOAD_CODES,AddressMode.NONE),
-    TXA(0x8A,ZFIFZERO_NFIFNEG, 2,REG_A_LOAD_CODES,AddressMode.NONE),
-    TAY(0xA8,ZFIFZERO_NFIFNEG, 2,REG_Y_LOAD_CODES,AddressMode.NONE),
-    TYA(0x98,ZFIFZERO_NFIFNEG, 2,REG_A_LOAD_CODES,AddressMode.NONE),
-
-
-    STA_ZP(0x85,NO_AFFECTS,3,AddressMode.ZERO_PAGE),
-    STA_ZP_X(0x95,NO_AFFECTS,4,AddressMode.ZERO_PAGE_X),
-    STA_ABSOLUTE(0x8D,NO_AFFECTS,4,AddressMode.ABSOLUTE),
-    STA_ABSOLUTE_X(0x9D,NO_AFFECTS,5,AddressMode.ABSOLUTE_X),
-    STA_ABSOLUTE_Y(0x99,NO_AFFECTS,5,AddressMode.ABSOLUTE_Y),
-    STA_INDIRECT_X(0x81,NO_AFFECTS,6,AddressMode.INDIRECT_X),
-    STA_INDIRECT_Y(0x91,NO_AFFECTS,6,AddressMode.INDIRECT_Y),
-
-    STX_ZP(0x86, NO_AFFECTS,3,AddressMode.ZERO_PAGE),
-    STX_ZP_Y(0x96, NO_AFFECTS,4,AddressMode.ZERO_PAGE_Y),
-    STX_ABSOLUTE(0x8e, NO_AFFECTS,4,AddressMode.ABSOLUTE),
-
-    STY_ZP(0x84, NO_AFFECTS,3,AddressMode.ZERO_PAGE),
-    STY_ZP_X(0x94, NO_AFFECTS,4,AddressMode.ZERO_PAGE_X),
-    STY_ABSOLUTE(0x8c, NO_AFFECTS,4,AddressMode.ABSOLUTE),
-
-    TSX(0xBA,ZFIFZERO_NFIFNEG,2, REG_X_LOAD_CODES,AddressMode.NONE),
+    LDA_IM(0xa9, ZFIFZERO_NFIFNEG,2,Register.A, AddressMode.IMMEDIATE),
+    LDA_ZP(0xa5, ZFIFZERO_NFIFNEG,3,Register.A, AddressMode.ZERO_PAGE),
+    LDA_ZP_X(0xB5, ZFIFZERO_NFIFNEG,4,Register.A, AddressMode.ZERO_PAGE_X),
+    LDA_ABSOLUTE(0xAD, ZFIFZERO_NFIFNEG,4,Register.A, AddressMode.ABSOLUTE),
+    LDA_ABSOLUTE_X(0xBD, ZFIFZERO_NFIFNEG,4,Register.A,AddressMode.ABSOLUTE_X),
+    LDA_ABSOLUTE_Y(0xB9, ZFIFZERO_NFIFNEG,4,Register.A,AddressMode.ABSOLUTE_Y),
+    LDA_INDIRECT_X(0xA1, ZFIFZERO_NFIFNEG,6,Register.A,AddressMode.INDIRECT_X),
+    LDA_INDIRECT_Y(0xB1, ZFIFZERO_NFIFNEG,5,Register.A,AddressMode.INDIRECT_Y),
+
+    LDX_IM(0xA2,ZFIFZERO_NFIFNEG,2,Register.X, AddressMode.IMMEDIATE),
+    LDX_ZP(0xA6,ZFIFZERO_NFIFNEG,3,Register.X, AddressMode.ZERO_PAGE),
+    LDX_ZP_Y(0xB6,ZFIFZERO_NFIFNEG,4,Register.X,AddressMode.ZERO_PAGE_Y),
+    LDX_ABSOLUTE(0xAE,ZFIFZERO_NFIFNEG,4,Register.X,AddressMode.ABSOLUTE),
+    LDX_ABSOLUTE_Y(0xBE,ZFIFZERO_NFIFNEG,4,Register.X,AddressMode.ABSOLUTE_Y),
+
+    LDY_IM(0xA0,ZFIFZERO_NFIFNEG,2,Register.Y, AddressMode.IMMEDIATE),
+    LDY_ZP(0xA4,ZFIFZERO_NFIFNEG,3,Register.Y, AddressMode.ZERO_PAGE),
+    LDY_ZP_X(0xB4,ZFIFZERO_NFIFNEG,4,Register.Y,AddressMode.ZERO_PAGE_X),
+    LDY_ABSOLUTE(0xAC,ZFIFZERO_NFIFNEG,4,Register.Y,AddressMode.ABSOLUTE),
+    LDY_ABSOLUTE_X(0xBC,ZFIFZERO_NFIFNEG,4,Register.Y,AddressMode.ABSOLUTE_X),
+
+    TAX(0xAA,ZFIFZERO_NFIFNEG, 2,Register.X,AddressMode.NONE),
+    TXA(0x8A,ZFIFZERO_NFIFNEG, 2,Register.A,AddressMode.NONE),
+    TAY(0xA8,ZFIFZERO_NFIFNEG, 2,Register.Y,AddressMode.NONE),
+    TYA(0x98,ZFIFZERO_NFIFNEG, 2,Register.A,AddressMode.NONE),
+
+
+    STA_ZP(0x85,NO_AFFECTS,3,Direction.W,AddressMode.ZERO_PAGE),
+    STA_ZP_X(0x95,NO_AFFECTS,4,Direction.W,AddressMode.ZERO_PAGE_X),
+    STA_ABSOLUTE(0x8D,NO_AFFECTS,4,Direction.W,AddressMode.ABSOLUTE),
+    STA_ABSOLUTE_X(0x9D,NO_AFFECTS,5,Direction.W,AddressMode.ABSOLUTE_X),
+    STA_ABSOLUTE_Y(0x99,NO_AFFECTS,5,Direction.W,AddressMode.ABSOLUTE_Y),
+    STA_INDIRECT_X(0x81,NO_AFFECTS,6,Direction.W,AddressMode.INDIRECT_X),
+    STA_INDIRECT_Y(0x91,NO_AFFECTS,6,Direction.W,AddressMode.INDIRECT_Y),
+
+    STX_ZP(0x86, NO_AFFECTS,3,Direction.W,AddressMode.ZERO_PAGE),
+    STX_ZP_Y(0x96, NO_AFFECTS,4,Direction.W,AddressMode.ZERO_PAGE_Y),
+    STX_ABSOLUTE(0x8e, NO_AFFECTS,4,Direction.W,AddressMode.ABSOLUTE),
+
+    STY_ZP(0x84, NO_AFFECTS,3,Direction.W,AddressMode.ZERO_PAGE),
+    STY_ZP_X(0x94, NO_AFFECTS,4,Direction.W,AddressMode.ZERO_PAGE_X),
+    STY_ABSOLUTE(0x8c, NO_AFFECTS,4,Direction.W,AddressMode.ABSOLUTE),
+
+    TSX(0xBA,ZFIFZERO_NFIFNEG,2, Register.X,AddressMode.NONE),
     TXS(0x9A,NO_AFFECTS,2,AddressMode.NONE),
     PHA(0x48,NO_AFFECTS,3,AddressMode.NONE),
     PHP(0x08,NO_AFFECTS,3,AddressMode.NONE),
-    PLA(0x68,ZFIFZERO_NFIFNEG,4,REG_A_LOAD_CODES,AddressMode.NONE),
+    PLA(0x68,ZFIFZERO_NFIFNEG,4,Register.A,AddressMode.NONE),
     PLP(0x28,NO_AFFECTS, 4,AddressMode.NONE),
 
 
-    AND_IM(0x29,ZFIFZERO_NFIFNEG,2,REG_A_LOAD_CODES,AddressMode.IMMEDIATE),
-    AND_ZP(0x25,ZFIFZERO_NFIFNEG,3,REG_A_LOAD_CODES,AddressMode.ZERO_PAGE),
-    AND_ZP_X(0x35,ZFIFZERO_NFIFNEG,4,REG_A_LOAD_CODES,AddressMode.ZERO_PAGE_X),
-    AND_ABSOLUTE(0x2d,ZFIFZERO_NFIFNEG,4,REG_A_LOAD_CODES,AddressMode.ABSOLUTE),
-    AND_ABSOLUTE_X(0x3d,ZFIFZERO_NFIFNEG,4,REG_A_LOAD_CODES,AddressMode.ABSOLUTE_X),
-    AND_ABSOLUTE_Y(0x39,ZFIFZERO_NFIFNEG,4,REG_A_LOAD_CODES,AddressMode.ABSOLUTE_Y),
-    AND_INDIRECT_X(0x21,ZFIFZERO_NFIFNEG,6,REG_A_LOAD_CODES,AddressMode.INDIRECT_X),
-    AND_INDIRECT_Y(0x31,ZFIFZERO_NFIFNEG,5,REG_A_LOAD_CODES,AddressMode.INDIRECT_Y),
-
-    OR_IM(0x09,ZFIFZERO_NFIFNEG,2,REG_A_LOAD_CODES,AddressMode.IMMEDIATE),
-    OR_ZP(0x05,ZFIFZERO_NFIFNEG,3,REG_A_LOAD_CODES,AddressMode.ZERO_PAGE),
-    OR_ZP_X(0x15,ZFIFZERO_NFIFNEG,4,REG_A_LOAD_CODES,AddressMode.ZERO_PAGE_X),
-    OR_ABSOLUTE(0x0d,ZFIFZERO_NFIFNEG,4,REG_A_LOAD_CODES,AddressMode.ABSOLUTE),
-    OR_ABSOLUTE_X(0x1d,ZFIFZERO_NFIFNEG,4,REG_A_LOAD_CODES,AddressMode.ABSOLUTE_X),
-    OR_ABSOLUTE_Y(0x19,ZFIFZERO_NFIFNEG,4,REG_A_LOAD_CODES,AddressMode.ABSOLUTE_Y),
-    OR_INDIRECT_X(0x01,ZFIFZERO_NFIFNEG,6,REG_A_LOAD_CODES,AddressMode.INDIRECT_X),
-    OR_INDIRECT_Y(0x11,ZFIFZERO_NFIFNEG,5,REG_A_LOAD_CODES,AddressMode.INDIRECT_Y),
+    AND_IM(0x29,ZFIFZERO_NFIFNEG,2,Register.A,AluOp.AND,AddressMode.IMMEDIATE),
+    AND_ZP(0x25,ZFIFZERO_NFIFNEG,3,Register.A,AluOp.AND,AddressMode.ZERO_PAGE),
+    AND_ZP_X(0x35,ZFIFZERO_NFIFNEG,4,Register.A,AluOp.AND,AddressMode.ZERO_PAGE_X),
+    AND_ABSOLUTE(0x2d,ZFIFZERO_NFIFNEG,4,Register.A,AluOp.AND,AddressMode.ABSOLUTE),
+    AND_ABSOLUTE_X(0x3d,ZFIFZERO_NFIFNEG,4,Register.A,AluOp.AND,AddressMode.ABSOLUTE_X),
+    AND_ABSOLUTE_Y(0x39,ZFIFZERO_NFIFNEG,4,Register.A,AluOp.AND,AddressMode.ABSOLUTE_Y),
+    AND_INDIRECT_X(0x21,ZFIFZERO_NFIFNEG,6,Register.A,AluOp.AND,AddressMode.INDIRECT_X),
+    AND_INDIRECT_Y(0x31,ZFIFZERO_NFIFNEG,5,Register.A,AluOp.AND,AddressMode.INDIRECT_Y),
+
+    OR_IM(0x09,ZFIFZERO_NFIFNEG,2,Register.A,AluOp.OR,AddressMode.IMMEDIATE),
+    OR_ZP(0x05,ZFIFZERO_NFIFNEG,3,Register.A,AluOp.OR,AddressMode.ZERO_PAGE),
+    OR_ZP_X(0x15,ZFIFZERO_NFIFNEG,4,Register.A,AluOp.OR,AddressMode.ZERO_PAGE_X),
+    OR_ABSOLUTE(0x0d,ZFIFZERO_NFIFNEG,4,Register.A,AluOp.OR,AddressMode.ABSOLUTE),
+    OR_ABSOLUTE_X(0x1d,ZFIFZERO_NFIFNEG,4,Register.A,AluOp.OR,AddressMode.ABSOLUTE_X),
+    OR_ABSOLUTE_Y(0x19,ZFIFZERO_NFIFNEG,4,Register.A,AluOp.OR,AddressMode.ABSOLUTE_Y),
+    OR_INDIRECT_X(0x01,ZFIFZERO_NFIFNEG,6,Register.A,AluOp.OR,AddressMode.INDIRECT_X),
+    OR_INDIRECT_Y(0x11,ZFIFZERO_NFIFNEG,5,Register.A,AluOp.OR,AddressMode.INDIRECT_Y),
 
     //XOR
-    EOR_IM(0x49,ZFIFZERO_NFIFNEG,2,REG_A_LOAD_CODES,AddressMode.IMMEDIATE),
-    EOR_ZP(0x45,ZFIFZERO_NFIFNEG,3,REG_A_LOAD_CODES,AddressMode.ZERO_PAGE),
-    EOR_ZP_X(0x55,ZFIFZERO_NFIFNEG,4,REG_A_LOAD_CODES,AddressMode.ZERO_PAGE_X),
-    EOR_ABSOLUTE(0x4d,ZFIFZERO_NFIFNEG,4,REG_A_LOAD_CODES,AddressMode.ABSOLUTE),
-    EOR_ABSOLUTE_X(0x5d,ZFIFZERO_NFIFNEG,4,REG_A_LOAD_CODES,AddressMode.ABSOLUTE_X),
-    EOR_ABSOLUTE_Y(0x59,ZFIFZERO_NFIFNEG,4,REG_A_LOAD_CODES,AddressMode.ABSOLUTE_Y),
-    EOR_INDIRECT_X(0x41,ZFIFZERO_NFIFNEG,6,REG_A_LOAD_CODES,AddressMode.INDIRECT_X),
-    EOR_INDIRECT_Y(0x51,ZFIFZERO_NFIFNEG,5,REG_A_LOAD_CODES,AddressMode.INDIRECT_Y),
-
-    DEX(0xCA,ZFIFZERO_NFIFNEG,2,REG_X_LOAD_CODES,AddressMode.NONE),
-    DEY(0x88,ZFIFZERO_NFIFNEG,2,REG_Y_LOAD_CODES,AddressMode.NONE),
-    INX(0xE8,ZFIFZERO_NFIFNEG,2,REG_X_LOAD_CODES,AddressMode.NONE),
-    INY(0xC8,ZFIFZERO_NFIFNEG,2,REG_Y_LOAD_CODES,AddressMode.NONE),
-
-    INC_ZP(0xE6,ZFIFZERO_NFIFNEG,5, AddressMode.ZERO_PAGE),
-    INC_ZP_X(0xF6,ZFIFZERO_NFIFNEG,6, AddressMode.ZERO_PAGE_X),
-    INC_ABSOLUTE(0xEE,ZFIFZERO_NFIFNEG,6, AddressMode.ABSOLUTE),
-    INC_ABSOLUTE_X(0xFE,ZFIFZERO_NFIFNEG,7, AddressMode.ABSOLUTE_X),
-
-
-    DEC_ZP(0xC6,ZFIFZERO_NFIFNEG,5, AddressMode.ZERO_PAGE),
-    DEC_ZP_X(0xD6,ZFIFZERO_NFIFNEG,6, AddressMode.ZERO_PAGE_X),
-    DEC_ABSOLUTE(0xCE,ZFIFZERO_NFIFNEG,6, AddressMode.ABSOLUTE),
-    DEC_ABSOLUTE_X(0xDE,ZFIFZERO_NFIFNEG,7, AddressMode.ABSOLUTE_X),
-
-    BIT_ZP(0x24,NO_AFFECTS,3,REG_A_LOAD_CODES,AddressMode.ZERO_PAGE),
-    BIT_ABSOLUTE(0x2C,NO_AFFECTS,4,REG_A_LOAD_CODES,AddressMode.ABSOLUTE),
-
-    ADC_IM(0x69,ZFIFZERO_NFIFNEG_CIFCARRY,2, REG_A_LOAD_CODES,AddressMode.IMMEDIATE),
-    SBC_IM(0xE9,ZFIFZERO_NFIFNEG_CIFCARRY,2, REG_A_LOAD_CODES,AddressMode.IMMEDIATE),
-    CMP_IM(0xC9,NO_AFFECTS,2,AddressMode.IMMEDIATE),
-    CPX_IM(0xE0,NO_AFFECTS,2,AddressMode.IMMEDIATE),
-    CPX_ZP(0xE4,NO_AFFECTS,3,AddressMode.ZERO_PAGE),
-    CPX_ABSOLUTE(0xEC,NO_AFFECTS,4,AddressMode.ABSOLUTE),
-    CPY_IM(0xC0,NO_AFFECTS,2,AddressMode.IMMEDIATE),
-    CPY_ZP(0xC4,NO_AFFECTS,3,AddressMode.ZERO_PAGE),
-    CPY_ABSOLUTE(0xCC,NO_AFFECTS,4,AddressMode.ABSOLUTE),
+    EOR_IM(0x49,ZFIFZERO_NFIFNEG,2,Register.A,AluOp.XOR,AddressMode.IMMEDIATE),
+    EOR_ZP(0x45,ZFIFZERO_NFIFNEG,3,Register.A,AluOp.XOR,AddressMode.ZERO_PAGE),
+    EOR_ZP_X(0x55,ZFIFZERO_NFIFNEG,4,Register.A,AluOp.XOR,AddressMode.ZERO_PAGE_X),
+    EOR_ABSOLUTE(0x4d,ZFIFZERO_NFIFNEG,4,Register.A,AluOp.XOR,AddressMode.ABSOLUTE),
+    EOR_ABSOLUTE_X(0x5d,ZFIFZERO_NFIFNEG,4,Register.A,AluOp.XOR,AddressMode.ABSOLUTE_X),
+    EOR_ABSOLUTE_Y(0x59,ZFIFZERO_NFIFNEG,4,Register.A,AluOp.XOR,AddressMode.ABSOLUTE_Y),
+    EOR_INDIRECT_X(0x41,ZFIFZERO_NFIFNEG,6,Register.A,AluOp.XOR,AddressMode.INDIRECT_X),
+    EOR_INDIRECT_Y(0x51,ZFIFZERO_NFIFNEG,5,Register.A,AluOp.XOR,AddressMode.INDIRECT_Y),
+
+    DEX(0xCA,ZFIFZERO_NFIFNEG,2,Register.X,AluOp.DEC,AddressMode.NONE),
+    DEY(0x88,ZFIFZERO_NFIFNEG,2,Register.Y,AluOp.DEC,AddressMode.NONE),
+    INX(0xE8,ZFIFZERO_NFIFNEG,2,Register.X,AluOp.INC,AddressMode.NONE),
+    INY(0xC8,ZFIFZERO_NFIFNEG,2,Register.Y,AluOp.INC,AddressMode.NONE),
+
+    INC_ZP(0xE6,ZFIFZERO_NFIFNEG,5,Register.NONE,AluOp.INC,AddressMode.ZERO_PAGE),
+    INC_ZP_X(0xF6,ZFIFZERO_NFIFNEG,6,Register.NONE,AluOp.INC,AddressMode.ZERO_PAGE_X),
+    INC_ABSOLUTE(0xEE,ZFIFZERO_NFIFNEG,6,Register.NONE,AluOp.INC,AddressMode.ABSOLUTE),
+    INC_ABSOLUTE_X(0xFE,ZFIFZERO_NFIFNEG,7,Register.NONE,AluOp.INC,AddressMode.ABSOLUTE_X),
+
+
+    DEC_ZP(0xC6,ZFIFZERO_NFIFNEG,5,Register.NONE,AluOp.DEC,AddressMode.ZERO_PAGE),
+    DEC_ZP_X(0xD6,ZFIFZERO_NFIFNEG,6,Register.NONE,AluOp.DEC,AddressMode.ZERO_PAGE_X),
+    DEC_ABSOLUTE(0xCE,ZFIFZERO_NFIFNEG,6,Register.NONE,AluOp.DEC,AddressMode.ABSOLUTE),
+    DEC_ABSOLUTE_X(0xDE,ZFIFZERO_NFIFNEG,7,Register.NONE,AluOp.DEC,AddressMode.ABSOLUTE_X),
+
+    BIT_ZP(0x24,NO_AFFECTS,3,Register.A,AluOp.BIT,AddressMode.ZERO_PAGE),
+    BIT_ABSOLUTE(0x2C,NO_AFFECTS,4,Register.A,AluOp.BIT,AddressMode.ABSOLUTE),
+
+    ADC_IM(0x69,ZFIFZERO_NFIFNEG_CIFCARRY,2,Register.A,AluOp.ADC,AddressMode.IMMEDIATE),
+    SBC_IM(0xE9,ZFIFZERO_NFIFNEG_CIFCARRY,2,Register.A,AluOp.SBC,AddressMode.IMMEDIATE),
+    CMP_IM(0xC9,NO_AFFECTS,2,Register.A,AluOp.CMP,AddressMode.IMMEDIATE),
+    ADC_ZP(0x65,ZFIFZERO_NFIFNEG_CIFCARRY,3,Register.A,AluOp.ADC,AddressMode.ZERO_PAGE),
+    ADC_ZP_X(0x75,ZFIFZERO_NFIFNEG_CIFCARRY,4,Register.A,AluOp.ADC,AddressMode.ZERO_PAGE_X),
+    ADC_ABSOLUTE(0x6D,ZFIFZERO_NFIFNEG_CIFCARRY,4,Register.A,AluOp.ADC,AddressMode.ABSOLUTE),
+    ADC_ABSOLUTE_X(0x7D,ZFIFZERO_NFIFNEG_CIFCARRY,4,Register.A,AluOp.ADC,AddressMode.ABSOLUTE_X),
+    ADC_ABSOLUTE_Y(0x79,ZFIFZERO_NFIFNEG_CIFCARRY,4,Register.A,AluOp.ADC,AddressMode.ABSOLUTE_Y),
+    ADC_INDIRECT_X(0x61,ZFIFZERO_NFIFNEG_CIFCARRY,6,Register.A,AluOp.ADC,AddressMode.INDIRECT_X),
+    ADC_INDIRECT_Y(0x71,ZFIFZERO_NFIFNEG_CIFCARRY,5,Register.A,AluOp.ADC,AddressMode.INDIRECT_Y),
+    SBC_ZP(0xE5,ZFIFZERO_NFIFNEG_CIFCARRY,3,Register.A,AluOp.SBC,AddressMode.ZERO_PAGE),
+    SBC_ZP_X(0xF5,ZFIFZERO_NFIFNEG_CIFCARRY,4,Register.A,AluOp.SBC,AddressMode.ZERO_PAGE_X),
+    SBC_ABSOLUTE(0xED,ZFIFZERO_NFIFNEG_CIFCARRY,4,Register.A,AluOp.SBC,AddressMode.ABSOLUTE),
+    SBC_ABSOLUTE_X(0xFD,ZFIFZERO_NFIFNEG_CIFCARRY,4,Register.A,AluOp.SBC,AddressMode.ABSOLUTE_X),
+    SBC_ABSOLUTE_Y(0xF9,ZFIFZERO_NFIFNEG_CIFCARRY,4,Register.A,AluOp.SBC,AddressMode.ABSOLUTE_Y),
+    SBC_INDIRECT_X(0xE1,ZFIFZERO_NFIFNEG_CIFCARRY,6,Register.A,AluOp.SBC,AddressMode.INDIRECT_X),
+    SBC_INDIRECT_Y(0xF1,ZFIFZERO_NFIFNEG_CIFCARRY,5,Register.A,AluOp.SBC,AddressMode.INDIRECT_Y),
+    CMP_ZP(0xC5,NO_AFFECTS,3,Register.A,AluOp.CMP,AddressMode.ZERO_PAGE),
+    CMP_ZP_X(0xD5,NO_AFFECTS,4,Register.A,AluOp.CMP,AddressMode.ZERO_PAGE_X),
+    CMP_ABSOLUTE(0xCD,NO_AFFECTS,4,Register.A,AluOp.CMP,AddressMode.ABSOLUTE),
+    CMP_ABSOLUTE_X(0xDD,NO_AFFECTS,4,Register.A,AluOp.CMP,AddressMode.ABSOLUTE_X),
+    CMP_ABSOLUTE_Y(0xD9,NO_AFFECTS,4,Register.A,AluOp.CMP,AddressMode.ABSOLUTE_Y),
+    CMP_INDIRECT_X(0xC1,NO_AFFECTS,6,Register.A,AluOp.CMP,AddressMode.INDIRECT_X),
+    CMP_INDIRECT_Y(0xD1,NO_AFFECTS,5,Register.A,AluOp.CMP,AddressMode.INDIRECT_Y),
+
+    ASL_A(0x0A,ZFIFZERO_NFIFNEG,2,Register.A,AluOp.ASL,AddressMode.NONE),
+    ASL_ZP(0x06,ZFIFZERO_NFIFNEG,5,Register.NONE,AluOp.ASL,AddressMode.ZERO_PAGE),
+    ASL_ZP_X(0x16,ZFIFZERO_NFIFNEG,6,Register.NONE,AluOp.ASL,AddressMode.ZERO_PAGE_X),
+    ASL_ABSOLUTE(0x0E,ZFIFZERO_NFIFNEG,6,Register.NONE,AluOp.ASL,AddressMode.ABSOLUTE),
+    ASL_ABSOLUTE_X(0x1E,ZFIFZERO_NFIFNEG,7,Register.NONE,AluOp.ASL,AddressMode.ABSOLUTE_X),
+    LSR_A(0x4A,ZFIFZERO_NFIFNEG,2,Register.A,AluOp.LSR,AddressMode.NONE),
+    LSR_ZP(0x46,ZFIFZERO_NFIFNEG,5,Register.NONE,AluOp.LSR,AddressMode.ZERO_PAGE),
+    LSR_ZP_X(0x56,ZFIFZERO_NFIFNEG,6,Register.NONE,AluOp.LSR,AddressMode.ZERO_PAGE_X),
+    LSR_ABSOLUTE(0x4E,ZFIFZERO_NFIFNEG,6,Register.NONE,AluOp.LSR,AddressMode.ABSOLUTE),
+    LSR_ABSOLUTE_X(0x5E,ZFIFZERO_NFIFNEG,7,Register.NONE,AluOp.LSR,AddressMode.ABSOLUTE_X),
+    ROL_A(0x2A,ZFIFZERO_NFIFNEG,2,Register.A,AluOp.ROL,AddressMode.NONE),
+    ROL_ZP(0x26,ZFIFZERO_NFIFNEG,5,Register.NONE,AluOp.ROL,AddressMode.ZERO_PAGE),
+    ROL_ZP_X(0x36,ZFIFZERO_NFIFNEG,6,Register.NONE,AluOp.ROL,AddressMode.ZERO_PAGE_X),
+    ROL_ABSOLUTE(0x2E,ZFIFZERO_NFIFNEG,6,Register.NONE,AluOp.ROL,AddressMode.ABSOLUTE),
+    ROL_ABSOLUTE_X(0x3E,ZFIFZERO_NFIFNEG,7,Register.NONE,AluOp.ROL,AddressMode.ABSOLUTE_X),
+    ROR_A(0x6A,ZFIFZERO_NFIFNEG,2,Register.A,AluOp.ROR,AddressMode.NONE),
+    ROR_ZP(0x66,ZFIFZERO_NFIFNEG,5,Register.NONE,AluOp.ROR,AddressMode.ZERO_PAGE),
+    ROR_ZP_X(0x76,ZFIFZERO_NFIFNEG,6,Register.NONE,AluOp.ROR,AddressMode.ZERO_PAGE_X),
+    ROR_ABSOLUTE(0x6E,ZFIFZERO_NFIFNEG,6,Register.NONE,AluOp.ROR,AddressMode.ABSOLUTE),
+    ROR_ABSOLUTE_X(0x7E,ZFIFZERO_NFIFNEG,7,Register.NONE,AluOp.ROR,AddressMode.ABSOLUTE_X),
+
+    BPL(0x10,NO_AFFECTS,2,AddressMode.RELATIVE),
+    BMI(0x30,NO_AFFECTS,2,AddressMode.RELATIVE),
+    BVC(0x50,NO_AFFECTS,2,AddressMode.RELATIVE),
+    BVS(0x70,NO_AFFECTS,2,AddressMode.RELATIVE),
+    BCC(0x90,NO_AFFECTS,2,AddressMode.RELATIVE),
+    BCS(0xB0,NO_AFFECTS,2,AddressMode.RELATIVE),
+    BNE(0xD0,NO_AFFECTS,2,AddressMode.RELATIVE),
+    BEQ(0xF0,NO_AFFECTS,2,AddressMode.RELATIVE),
+
+    CPX_IM(0xE0,NO_AFFECTS,2,Register.X,AluOp.CMP,AddressMode.IMMEDIATE),
+    CPX_ZP(0xE4,NO_AFFECTS,3,Register.X,AluOp.CMP,AddressMode.ZERO_PAGE),
+    CPX_ABSOLUTE(0xEC,NO_AFFECTS,4,Register.X,AluOp.CMP,AddressMode.ABSOLUTE),
+    CPY_IM(0xC0,NO_AFFECTS,2,Register.Y,AluOp.CMP,AddressMode.IMMEDIATE),
+    CPY_ZP(0xC4,NO_AFFECTS,3,Register.Y,AluOp.CMP,AddressMode.ZERO_PAGE),
+    CPY_ABSOLUTE(0xCC,NO_AFFECTS,4,Register.Y,AluOp.CMP,AddressMode.ABSOLUTE),
     SEC(0x38, NO_AFFECTS, 2, AddressMode.NONE),
     CLC(0x18, NO_AFFECTS, 2, AddressMode.NONE),
     CLV(0xB8, NO_AFFECTS, 2, AddressMode.NONE),
-    NOP(0xEA,NO_AFFECTS,2,AddressMode.NONE);
+    SEI(0x78, NO_AFFECTS, 2, AddressMode.NONE),
+    CLI(0x58, NO_AFFECTS, 2, AddressMode.NONE),
+    NOP(0xEA,NO_AFFECTS,2,AddressMode.NONE),
+
+    /**
+     * sentinel for decode table slots without implemented instruction
+     */
+    ILLEGAL(-1,NO_AFFECTS,0,AddressMode.NONE);
+
+    /**
+     * opcode byte -> instruction, built once so decode is a single array load
+     */
+    private static final OpCodes[] DECODE_TABLE = new OpCodes[256];
+    static {
+        Arrays.fill(DECODE_TABLE, ILLEGAL);
+        for (var op: values()) {
+            if (op == ILLEGAL)
+                continue;
+            if (DECODE_TABLE[op.opcode] != ILLEGAL)
+                throw new IllegalStateException("Duplicate opcode %02x: %s and %s".formatted(op.opcode, DECODE_TABLE[op.opcode], op));
+            DECODE_TABLE[op.opcode] = op;
+        }
+    }
 
     private final int opcode;
     private final List<BiFunction<FlagRegister, Short, FlagRegister>> functions;
     private final int cycles;
     private final AddressMode addressMode;
+    private final Microcode microcode;
 
     OpCodes(int opcode, List<BiFunction<FlagRegister, Short, FlagRegister>> functions, int cycles, AddressMode addressMode) {
+        this(opcode, functions, cycles, Register.NONE, AluOp.NONE, addressMode);
+    }
+
+    OpCodes(int opcode, List<BiFunction<FlagRegister, Short, FlagRegister>> functions, int cycles, Register register, AddressMode addressMode) {
+        this(opcode, functions, cycles, register, AluOp.NONE, addressMode);
+    }
+
+    /**
+     * instruction that only moves a register to memory
+     * @param direction - {@link Direction#W}, stores have no ALU operation to tell it from
+     */
+    OpCodes(int opcode, List<BiFunction<FlagRegister, Short, FlagRegister>> functions, int cycles, Direction direction, AddressMode addressMode) {
+        this(opcode, functions, cycles, Register.NONE, AluOp.NONE, direction, addressMode);
+    }
+
+    OpCodes(int opcode, List<BiFunction<FlagRegister, Short, FlagRegister>> functions, int cycles, Register register, AluOp alu, AddressMode addressMode) {
+        this(opcode, functions, cycles, register, alu, direction(alu, addressMode), addressMode);
+    }
+
+    OpCodes(int opcode, List<BiFunction<FlagRegister, Short, FlagRegister>> functions, int cycles, Register register, AluOp alu, Direction direction, AddressMode addressMode) {
         this.opcode = opcode;
         this.functions = functions;
         this.cycles = cycles;
         this.addressMode = addressMode;
+        this.microcode = new Microcode(register, alu, OpFunctions.flagMask(functions), direction, cycles);
     }
 
-    OpCodes(int opcode, List<BiFunction<FlagRegister, Short, FlagRegister>> functions, int cycles, Set<OpCodes> group, AddressMode addressMode) {
-        this(opcode, functions, cycles,addressMode);
-        Optional.ofNullable(group).ifPresent(e->e.add(this));
+    /**
+     * @return memory access direction implied by the ALU operation: read-modify-write ones write, the rest read
+     */
+    private static Direction direction(AluOp alu, AddressMode addressMode)
+    {
+        if (addressMode == AddressMode.NONE)
+            return Direction.NONE;
+        if (alu == AluOp.INC || alu == AluOp.DEC || alu.isShift())
+            return Direction.W;
+        return Direction.R;
     }
 
 
@@ -161,13 +263,20 @@ public enum OpCodes {
     }
 
 
+    /**
+     * decode opcode byte, never allocates or throws
+     * @param opcode - opcode byte, only lower 8 bits are used
+     * @return instruction or {@link #ILLEGAL} if opcode is not implemented
+     */
+    public static OpCodes decode(int opcode) {
+        return DECODE_TABLE[opcode & 0xff];
+    }
+
     public static OpCodes fromByte(int opcode) {
-        for (var b: OpCodes.values()) {
-            if (opcode == b.opcode) {
-                return b;
-            }
-        }
-        throw new IllegalArgumentException("Unknown opcode %02x".formatted(opcode));
+        final var op = (opcode & ~0xff) == 0 ? decode(opcode) : ILLEGAL;
+        if (op == ILLEGAL)
+            throw new IllegalArgumentException("Unknown opcode %02x".formatted(opcode));
+        return op;
     }
 
 
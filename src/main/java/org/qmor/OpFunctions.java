@@ -37,4 +37,25 @@ public class OpFunctions {
     public static final List<BiFunction<FlagRegister, Short, FlagRegister>> ZFIFZERO_NFIFNEG = List.of(ZeroFlagIfZeroValue,NegFlagIf7BitRaised);
     public static final List<BiFunction<FlagRegister, Short, FlagRegister>> ZFIFZERO_NFIFNEG_CIFCARRY = List.of(ZeroFlagIfZeroValue,NegFlagIf7BitRaised,CarryIfCarryOut);
     public static final List<BiFunction<FlagRegister, Short, FlagRegister>> NO_AFFECTS = List.of();
+
+    /**
+     * @param functions - flag functions of an instruction
+     * @return mask of {@link Flag} bits the functions set
+     */
+    public static int flagMask(List<BiFunction<FlagRegister, Short, FlagRegister>> functions)
+    {
+        int mask = 0;
+        for (var f: functions)
+        {
+            if (f == ZeroFlagIfZeroValue)
+                mask |= Flag.Z.getMask();
+            else if (f == NegFlagIf7BitRaised)
+                mask |= Flag.N.getMask();
+            else if (f == CarryIfCarryOut)
+                mask |= Flag.C.getMask();
+            else
+                throw new IllegalArgumentException("Unknown flag function");
+        }
+        return mask;
+    }
 }
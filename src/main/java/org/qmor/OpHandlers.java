@@ -0,0 +1,439 @@
+package org.qmor;
+
+import static org.qmor.OpCodes.*;
+
+/**
+ * Execution core of {@link ExecutionCore#HANDLERS}: one handler per opcode byte.
+ * <p>
+ * Every handler is its own non-capturing lambda class doing exactly one opcode in one addressing mode,
+ * including its flag updates, so each stays small and monomorphic. Handlers run after the opcode and operand
+ * bytes were fetched (see {@link CPU#step()}) and must leave A, X and Y masked to 8 bits.
+ */
+final class OpHandlers {
+    private static final int NZ_MASK = Flag.N.getMask() | Flag.Z.getMask();
+    private static final int NZC_MASK = NZ_MASK | Flag.C.getMask();
+
+    /**
+     * @see #get(int)
+     */
+    @FunctionalInterface
+    interface Handler {
+        /**
+         * @param c - cpu, PC points past the operand
+         * @param o - operand bytes, little endian
+         */
+        void execute(CPU c, int o);
+    }
+
+    /**
+     * handler for opcodes without implemented instruction
+     * @param opcode - opcode byte
+     */
+    private record Illegal(int opcode) implements Handler {
+        @Override
+        public void execute(CPU c, int o)
+        {
+            throw new IllegalArgumentException("Unknown opcode %02x".formatted(opcode));
+        }
+    }
+
+    private static final Handler[] TABLE = new Handler[256];
+
+    private OpHandlers()
+    {
+    }
+
+    /**
+     * @param opcode - opcode byte
+     * @return handler executing the instruction
+     */
+    static Handler get(int opcode)
+    {
+        return TABLE[opcode & 0xff];
+    }
+
+    private static void put(OpCodes op, Handler handler)
+    {
+        TABLE[op.getOpcode()] = handler;
+    }
+
+    static {
+        put(JSR, (c, o) -> {
+            c.writeWordToStack((short) (c.getPC() - 1));
+            c.setPC(o);
+            c.tick(3);
+        });
+        put(RTS, (c, o) -> {
+            c.setPC(c.readWordFromStack() + 1);
+            c.tick(5);
+        });
+        put(BRK, (c, o) -> {
+            c.interrupt(c.getPC() + 1, CPU.IRQ_VECTOR, true);
+            c.tick(6);
+        });
+        put(RTI, (c, o) -> {
+            c.returnFromInterrupt();
+            c.tick(5);
+        });
+        put(JMP_ABSOLUTE, (c, o) -> c.setPC(o));
+        put(JMP_INDIRECT, (c, o) -> c.setPC(c.readWord(o)));
+
+        put(LDA_IM, (c, o) -> c.setA(nz(c, (short) o)));
+        put(LDA_ZP, (c, o) -> c.setA(nz(c, c.readByte(o))));
+        put(LDA_ZP_X, (c, o) -> c.setA(nz(c, c.readByte(zeroPageX(c, o)))));
+        put(LDA_ABSOLUTE, (c, o) -> c.setA(nz(c, c.readByte(o))));
+        put(LDA_ABSOLUTE_X, (c, o) -> c.setA(nz(c, c.readByte(absoluteXRead(c, o)))));
+        put(LDA_ABSOLUTE_Y, (c, o) -> c.setA(nz(c, c.readByte(absoluteYRead(c, o)))));
+        put(LDA_INDIRECT_X, (c, o) -> c.setA(nz(c, c.readByte(indirectX(c, o)))));
+        put(LDA_INDIRECT_Y, (c, o) -> c.setA(nz(c, c.readByte(indirectYRead(c, o)))));
+
+        put(LDX_IM, (c, o) -> c.setX(nz(c, (short) o)));
+        put(LDX_ZP, (c, o) -> c.setX(nz(c, c.readByte(o))));
+        put(LDX_ZP_Y, (c, o) -> c.setX(nz(c, c.readByte(zeroPageY(c, o)))));
+        put(LDX_ABSOLUTE, (c, o) -> c.setX(nz(c, c.readByte(o))));
+        put(LDX_ABSOLUTE_Y, (c, o) -> c.setX(nz(c, c.readByte(absoluteYRead(c, o)))));
+
+        put(LDY_IM, (c, o) -> c.setY(nz(c, (short) o)));
+        put(LDY_ZP, (c, o) -> c.setY(nz(c, c.readByte(o))));
+        put(LDY_ZP_X, (c, o) -> c.setY(nz(c, c.readByte(zeroPageX(c, o)))));
+        put(LDY_ABSOLUTE, (c, o) -> c.setY(nz(c, c.readByte(o))));
+        put(LDY_ABSOLUTE_X, (c, o) -> c.setY(nz(c, c.readByte(absoluteXRead(c, o)))));
+
+        put(TAX, (c, o) -> {
+            c.tick();
+            c.setX(nz(c, c.getA()));
+        });
+        put(TXA, (c, o) -> {
+            c.tick();
+            c.setA(nz(c, c.getX()));
+        });
+        put(TAY, (c, o) -> {
+            c.tick();
+            c.setY(nz(c, c.getA()));
+        });
+        put(TYA, (c, o) -> {
+            c.tick();
+            c.setA(nz(c, c.getY()));
+        });
+
+        put(STA_ZP, (c, o) -> c.writeByte(o, (byte) c.getA()));
+        put(STA_ZP_X, (c, o) -> c.writeByte(zeroPageX(c, o), (byte) c.getA()));
+        put(STA_ABSOLUTE, (c, o) -> c.writeByte(o, (byte) c.getA()));
+        put(STA_ABSOLUTE_X, (c, o) -> c.writeByte(absoluteXWrite(c, o), (byte) c.getA()));
+        put(STA_ABSOLUTE_Y, (c, o) -> c.writeByte(absoluteYWrite(c, o), (byte) c.getA()));
+        put(STA_INDIRECT_X, (c, o) -> c.writeByte(indirectX(c, o), (byte) c.getA()));
+        put(STA_INDIRECT_Y, (c, o) -> c.writeByte(indirectYWrite(c, o), (byte) c.getA()));
+
+        put(STX_ZP, (c, o) -> c.writeByte(o, (byte) c.getX()));
+        put(STX_ZP_Y, (c, o) -> c.writeByte(zeroPageY(c, o), (byte) c.getX()));
+        put(STX_ABSOLUTE, (c, o) -> c.writeByte(o, (byte) c.getX()));
+
+        put(STY_ZP, (c, o) -> c.writeByte(o, (byte) c.getY()));
+        put(STY_ZP_X, (c, o) -> c.writeByte(zeroPageX(c, o), (byte) c.getY()));
+        put(STY_ABSOLUTE, (c, o) -> c.writeByte(o, (byte) c.getY()));
+
+        put(TSX, (c, o) -> {
+            c.tick();
+            c.setX(nz(c, (short) c.getSP()));
+        });
+        put(TXS, (c, o) -> {
+            c.tick();
+            c.setSP(c.getX());
+        });
+        put(PHA, (c, o) -> {
+            c.writeByteToStack((byte) c.getA());
+            c.tick(2);
+        });
+        put(PHP, (c, o) -> {
+            c.writeByteToStack((byte) c.getF().getByteValue());
+            c.tick(2);
+        });
+        put(PLA, (c, o) -> {
+            c.setA(nz(c, (short) c.readByteFromStack()));
+            c.tick(3);
+        });
+        put(PLP, (c, o) -> {
+            c.getF().setByteValue((short) (c.readByteFromStack() & 0xff));
+            c.tick(3);
+            c.checkInterrupts();
+        });
+
+        put(AND_IM, (c, o) -> c.setA(nz(c, (short) (c.getA() & (short) o))));
+        put(AND_ZP, (c, o) -> c.setA(nz(c, (short) (c.getA() & c.readByte(o)))));
+        put(AND_ZP_X, (c, o) -> c.setA(nz(c, (short) (c.getA() & c.readByte(zeroPageX(c, o))))));
+        put(AND_ABSOLUTE, (c, o) -> c.setA(nz(c, (short) (c.getA() & c.readByte(o)))));
+        put(AND_ABSOLUTE_X, (c, o) -> c.setA(nz(c, (short) (c.getA() & c.readByte(absoluteXRead(c, o))))));
+        put(AND_ABSOLUTE_Y, (c, o) -> c.setA(nz(c, (short) (c.getA() & c.readByte(absoluteYRead(c, o))))));
+        put(AND_INDIRECT_X, (c, o) -> c.setA(nz(c, (short) (c.getA() & c.readByte(indirectX(c, o))))));
+        put(AND_INDIRECT_Y, (c, o) -> c.setA(nz(c, (short) (c.getA() & c.readByte(indirectYRead(c, o))))));
+
+        put(OR_IM, (c, o) -> c.setA(nz(c, (short) (c.getA() | (short) o))));
+        put(OR_ZP, (c, o) -> c.setA(nz(c, (short) (c.getA() | c.readByte(o)))));
+        put(OR_ZP_X, (c, o) -> c.setA(nz(c, (short) (c.getA() | c.readByte(zeroPageX(c, o))))));
+        put(OR_ABSOLUTE, (c, o) -> c.setA(nz(c, (short) (c.getA() | c.readByte(o)))));
+        put(OR_ABSOLUTE_X, (c, o) -> c.setA(nz(c, (short) (c.getA() | c.readByte(absoluteXRead(c, o))))));
+        put(OR_ABSOLUTE_Y, (c, o) -> c.setA(nz(c, (short) (c.getA() | c.readByte(absoluteYRead(c, o))))));
+        put(OR_INDIRECT_X, (c, o) -> c.setA(nz(c, (short) (c.getA() | c.readByte(indirectX(c, o))))));
+        put(OR_INDIRECT_Y, (c, o) -> c.setA(nz(c, (short) (c.getA() | c.readByte(indirectYRead(c, o))))));
+
+        put(EOR_IM, (c, o) -> c.setA(nz(c, (short) (c.getA() ^ (short) o))));
+        put(EOR_ZP, (c, o) -> c.setA(nz(c, (short) (c.getA() ^ c.readByte(o)))));
+        put(EOR_ZP_X, (c, o) -> c.setA(nz(c, (short) (c.getA() ^ c.readByte(zeroPageX(c, o))))));
+        put(EOR_ABSOLUTE, (c, o) -> c.setA(nz(c, (short) (c.getA() ^ c.readByte(o)))));
+        put(EOR_ABSOLUTE_X, (c, o) -> c.setA(nz(c, (short) (c.getA() ^ c.readByte(absoluteXRead(c, o))))));
+        put(EOR_ABSOLUTE_Y, (c, o) -> c.setA(nz(c, (short) (c.getA() ^ c.readByte(absoluteYRead(c, o))))));
+        put(EOR_INDIRECT_X, (c, o) -> c.setA(nz(c, (short) (c.getA() ^ c.readByte(indirectX(c, o))))));
+        put(EOR_INDIRECT_Y, (c, o) -> c.setA(nz(c, (short) (c.getA() ^ c.readByte(indirectYRead(c, o))))));
+
+        put(DEX, (c, o) -> {
+            c.tick();
+            c.setX(nz(c, (short) ((c.getX() - 1) & 0xff)));
+        });
+        put(DEY, (c, o) -> {
+            c.tick();
+            c.setY(nz(c, (short) ((c.getY() - 1) & 0xff)));
+        });
+        put(INX, (c, o) -> {
+            c.tick();
+            c.setX(nz(c, (short) ((c.getX() + 1) & 0xff)));
+        });
+        put(INY, (c, o) -> {
+            c.tick();
+            c.setY(nz(c, (short) ((c.getY() + 1) & 0xff)));
+        });
+
+        put(INC_ZP, (c, o) -> incDec(c, o, 1));
+        put(INC_ZP_X, (c, o) -> incDec(c, zeroPageX(c, o), 1));
+        put(INC_ABSOLUTE, (c, o) -> incDec(c, o, 1));
+        put(INC_ABSOLUTE_X, (c, o) -> incDec(c, absoluteXWrite(c, o), 1));
+
+        put(DEC_ZP, (c, o) -> incDec(c, o, -1));
+        put(DEC_ZP_X, (c, o) -> incDec(c, zeroPageX(c, o), -1));
+        put(DEC_ABSOLUTE, (c, o) -> incDec(c, o, -1));
+        put(DEC_ABSOLUTE_X, (c, o) -> incDec(c, absoluteXWrite(c, o), -1));
+
+        put(BIT_ZP, (c, o) -> c.bit(c.getA(), c.readByte(o)));
+        put(BIT_ABSOLUTE, (c, o) -> c.bit(c.getA(), c.readByte(o)));
+
+        put(ADC_IM, (c, o) -> adc(c, (short) o));
+
+        put(SBC_IM, (c, o) -> sbc(c, (short) o));
+
+        put(CMP_IM, (c, o) -> c.cmp(c.getA(), (short) o));
+
+        put(ADC_ZP, (c, o) -> adc(c, c.readByte(o)));
+        put(ADC_ZP_X, (c, o) -> adc(c, c.readByte(zeroPageX(c, o))));
+        put(ADC_ABSOLUTE, (c, o) -> adc(c, c.readByte(o)));
+        put(ADC_ABSOLUTE_X, (c, o) -> adc(c, c.readByte(absoluteXRead(c, o))));
+        put(ADC_ABSOLUTE_Y, (c, o) -> adc(c, c.readByte(absoluteYRead(c, o))));
+        put(ADC_INDIRECT_X, (c, o) -> adc(c, c.readByte(indirectX(c, o))));
+        put(ADC_INDIRECT_Y, (c, o) -> adc(c, c.readByte(indirectYRead(c, o))));
+
+        put(SBC_ZP, (c, o) -> sbc(c, c.readByte(o)));
+        put(SBC_ZP_X, (c, o) -> sbc(c, c.readByte(zeroPageX(c, o))));
+        put(SBC_ABSOLUTE, (c, o) -> sbc(c, c.readByte(o)));
+        put(SBC_ABSOLUTE_X, (c, o) -> sbc(c, c.readByte(absoluteXRead(c, o))));
+        put(SBC_ABSOLUTE_Y, (c, o) -> sbc(c, c.readByte(absoluteYRead(c, o))));
+        put(SBC_INDIRECT_X, (c, o) -> sbc(c, c.readByte(indirectX(c, o))));
+        put(SBC_INDIRECT_Y, (c, o) -> sbc(c, c.readByte(indirectYRead(c, o))));
+
+        put(CMP_ZP, (c, o) -> c.cmp(c.getA(), c.readByte(o)));
+        put(CMP_ZP_X, (c, o) -> c.cmp(c.getA(), c.readByte(zeroPageX(c, o))));
+        put(CMP_ABSOLUTE, (c, o) -> c.cmp(c.getA(), c.readByte(o)));
+        put(CMP_ABSOLUTE_X, (c, o) -> c.cmp(c.getA(), c.readByte(absoluteXRead(c, o))));
+        put(CMP_ABSOLUTE_Y, (c, o) -> c.cmp(c.getA(), c.readByte(absoluteYRead(c, o))));
+        put(CMP_INDIRECT_X, (c, o) -> c.cmp(c.getA(), c.readByte(indirectX(c, o))));
+        put(CMP_INDIRECT_Y, (c, o) -> c.cmp(c.getA(), c.readByte(indirectYRead(c, o))));
+
+        put(ASL_A, (c, o) -> {
+            c.tick();
+            c.setA(nz(c, c.shift(AluOp.ASL, c.getA())));
+        });
+        put(ASL_ZP, (c, o) -> shiftMemory(c, AluOp.ASL, o));
+        put(ASL_ZP_X, (c, o) -> shiftMemory(c, AluOp.ASL, zeroPageX(c, o)));
+        put(ASL_ABSOLUTE, (c, o) -> shiftMemory(c, AluOp.ASL, o));
+        put(ASL_ABSOLUTE_X, (c, o) -> shiftMemory(c, AluOp.ASL, absoluteXWrite(c, o)));
+
+        put(LSR_A, (c, o) -> {
+            c.tick();
+            c.setA(nz(c, c.shift(AluOp.LSR, c.getA())));
+        });
+        put(LSR_ZP, (c, o) -> shiftMemory(c, AluOp.LSR, o));
+        put(LSR_ZP_X, (c, o) -> shiftMemory(c, AluOp.LSR, zeroPageX(c, o)));
+        put(LSR_ABSOLUTE, (c, o) -> shiftMemory(c, AluOp.LSR, o));
+        put(LSR_ABSOLUTE_X, (c, o) -> shiftMemory(c, AluOp.LSR, absoluteXWrite(c, o)));
+
+        put(ROL_A, (c, o) -> {
+            c.tick();
+            c.setA(nz(c, c.shift(AluOp.ROL, c.getA())));
+        });
+        put(ROL_ZP, (c, o) -> shiftMemory(c, AluOp.ROL, o));
+        put(ROL_ZP_X, (c, o) -> shiftMemory(c, AluOp.ROL, zeroPageX(c, o)));
+        put(ROL_ABSOLUTE, (c, o) -> shiftMemory(c, AluOp.ROL, o));
+        put(ROL_ABSOLUTE_X, (c, o) -> shiftMemory(c, AluOp.ROL, absoluteXWrite(c, o)));
+
+        put(ROR_A, (c, o) -> {
+            c.tick();
+            c.setA(nz(c, c.shift(AluOp.ROR, c.getA())));
+        });
+        put(ROR_ZP, (c, o) -> shiftMemory(c, AluOp.ROR, o));
+        put(ROR_ZP_X, (c, o) -> shiftMemory(c, AluOp.ROR, zeroPageX(c, o)));
+        put(ROR_ABSOLUTE, (c, o) -> shiftMemory(c, AluOp.ROR, o));
+        put(ROR_ABSOLUTE_X, (c, o) -> shiftMemory(c, AluOp.ROR, absoluteXWrite(c, o)));
+
+        put(BPL, (c, o) -> c.branch(!c.getF().getAsBoolean(Flag.N), o));
+        put(BMI, (c, o) -> c.branch(c.getF().getAsBoolean(Flag.N), o));
+        put(BVC, (c, o) -> c.branch(!c.getF().getAsBoolean(Flag.V), o));
+        put(BVS, (c, o) -> c.branch(c.getF().getAsBoolean(Flag.V), o));
+        put(BCC, (c, o) -> c.branch(!c.getF().getAsBoolean(Flag.C), o));
+        put(BCS, (c, o) -> c.branch(c.getF().getAsBoolean(Flag.C), o));
+        put(BNE, (c, o) -> c.branch(!c.getF().getAsBoolean(Flag.Z), o));
+        put(BEQ, (c, o) -> c.branch(c.getF().getAsBoolean(Flag.Z), o));
+
+        put(CPX_IM, (c, o) -> c.cmp(c.getX(), (short) o));
+        put(CPX_ZP, (c, o) -> c.cmp(c.getX(), c.readByte(o)));
+        put(CPX_ABSOLUTE, (c, o) -> c.cmp(c.getX(), c.readByte(o)));
+        put(CPY_IM, (c, o) -> c.cmp(c.getY(), (short) o));
+        put(CPY_ZP, (c, o) -> c.cmp(c.getY(), c.readByte(o)));
+        put(CPY_ABSOLUTE, (c, o) -> c.cmp(c.getY(), c.readByte(o)));
+
+        put(SEC, (c, o) -> {
+            c.tick();
+            c.getF().setFlag(Flag.C, true);
+        });
+        put(CLC, (c, o) -> {
+            c.tick();
+            c.getF().setFlag(Flag.C, false);
+        });
+        put(CLV, (c, o) -> {
+            c.tick();
+            c.getF().setFlag(Flag.V, false);
+        });
+        put(SEI, (c, o) -> {
+            c.tick();
+            c.getF().setFlag(Flag.I, true);
+        });
+        put(CLI, (c, o) -> {
+            c.tick();
+            c.getF().setFlag(Flag.I, false);
+            c.checkInterrupts();
+        });
+        put(NOP, (c, o) -> c.tick());
+
+
+        for (var op: OpCodes.values())
+        {
+            if (op != ILLEGAL && TABLE[op.getOpcode()] == null)
+                throw new IllegalStateException("No handler for " + op);
+        }
+        for (int opcode = 0; opcode < TABLE.length; opcode++)
+        {
+            if (TABLE[opcode] == null)
+                TABLE[opcode] = new Illegal(opcode);
+        }
+    }
+
+    /**
+     * set N and Z from an 8 bit result
+     * @param c - cpu
+     * @param value - result
+     * @return value
+     */
+    private static short nz(CPU c, short value)
+    {
+        c.applyFlags(NZ_MASK, value);
+        return value;
+    }
+
+    private static void adc(CPU c, short value)
+    {
+        final var result = (short) (c.getA() + value + c.getF().getAsInt(Flag.C));
+        c.applyFlags(NZC_MASK, result);
+        c.setA((short) (result & 0xff));
+    }
+
+    private static void sbc(CPU c, short value)
+    {
+        final var result = (short) (c.getA() - (value + (c.getF().getAsBoolean(Flag.C) ? 0 : 1)));
+        c.applyFlags(NZC_MASK, result);
+        c.setA((short) (result & 0xff));
+    }
+
+    private static void incDec(CPU c, int address, int delta)
+    {
+        final var value = (short) ((c.readByte(address) + delta) & 0xff);
+        c.applyFlags(NZ_MASK, value);
+        c.writeByte(address, (byte) value);
+        c.tick();
+    }
+
+    private static void shiftMemory(CPU c, AluOp alu, int address)
+    {
+        final var value = c.shift(alu, c.readByte(address));
+        c.applyFlags(NZ_MASK, value);
+        c.writeByte(address, (byte) value);
+        c.tick();
+    }
+
+    //effective addresses, the operand fetch is already accounted
+
+    private static int zeroPageX(CPU c, int o)
+    {
+        c.tick();
+        return o + c.getX();
+    }
+
+    private static int zeroPageY(CPU c, int o)
+    {
+        c.tick();
+        return (o & 0xff) + c.getY();
+    }
+
+    private static int indexedRead(CPU c, int base, int index)
+    {
+        final var address = base + index;
+        if (c.addressNotInSamePage(base, address))
+            c.penalty();
+        return address;
+    }
+
+    private static int absoluteXRead(CPU c, int o)
+    {
+        return indexedRead(c, o, c.getX());
+    }
+
+    private static int absoluteYRead(CPU c, int o)
+    {
+        return indexedRead(c, o, c.getY());
+    }
+
+    private static int absoluteXWrite(CPU c, int o)
+    {
+        c.tick();
+        return o + c.getX();
+    }
+
+    private static int absoluteYWrite(CPU c, int o)
+    {
+        c.tick();
+        return o + c.getY();
+    }
+
+    private static int indirectX(CPU c, int o)
+    {
+        c.tick();
+        return c.readWord((o + c.getX()) & 0xff);
+    }
+
+    private static int indirectYRead(CPU c, int o)
+    {
+        return indexedRead(c, c.readWord(o & 0xff), c.getY());
+    }
+
+    private static int indirectYWrite(CPU c, int o)
+    {
+        final var address = c.readWord(o & 0xff) + c.getY();
+        c.tick();
+        return address;
+    }
+}
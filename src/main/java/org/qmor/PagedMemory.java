@@ -0,0 +1,168 @@
+package org.qmor;
+
+import java.util.Arrays;
+
+/**
+ * Memory split into 256 byte pages that are shared copy-on-write between forks.
+ * {@link #fork()} copies the page table only, a page is duplicated the first time either side writes it,
+ * so a fork costs O(pages written) instead of O(64 KiB).
+ * <p>
+ * Shared pages are never modified, so forks may run on different threads once created.
+ * Forking itself must not race with writes to the memory being forked.
+ */
+public final class PagedMemory extends Memory {
+    private static final int PAGES = MEM_SIZE / Bus.PAGE_SIZE;
+    private static final byte[] ZERO_PAGE = new byte[Bus.PAGE_SIZE];
+
+    private final byte[][] pages = new byte[PAGES][];
+    /**
+     * page may be referenced by another memory and has to be copied before write
+     */
+    private final boolean[] shared = new boolean[PAGES];
+
+    public PagedMemory()
+    {
+        super(null);
+        clearPages();
+    }
+
+    private PagedMemory(PagedMemory parent)
+    {
+        super(null);
+        System.arraycopy(parent.pages, 0, pages, 0, PAGES);
+        Arrays.fill(shared, true);
+    }
+
+    /**
+     * @param memory - any memory
+     * @return paged copy of the memory content
+     */
+    public static PagedMemory copyOf(Memory memory)
+    {
+        final var r = new PagedMemory();
+        final var page = new byte[Bus.PAGE_SIZE];
+        for (int p = 0; p < PAGES; p++)
+        {
+            memory.copyTo(p << 8, page, 0, Bus.PAGE_SIZE);
+            if (!Arrays.equals(page, ZERO_PAGE))
+            {
+                r.pages[p] = page.clone();
+                r.shared[p] = false;
+            }
+        }
+        return r;
+    }
+
+    private void clearPages()
+    {
+        Arrays.fill(pages, ZERO_PAGE);
+        Arrays.fill(shared, true);
+    }
+
+    private byte[] writablePage(int page)
+    {
+        var r = pages[page];
+        if (shared[page])
+        {
+            r = r.clone();
+            pages[page] = r;
+            shared[page] = false;
+        }
+        return r;
+    }
+
+    @Override
+    public PagedMemory fork()
+    {
+        Arrays.fill(shared, true);
+        return new PagedMemory(this);
+    }
+
+    /**
+     * @return number of pages owned exclusively by this memory, i.e. copied on write since creation or the last fork
+     */
+    public int ownedPageCount()
+    {
+        int count = 0;
+        for (var s: shared)
+        {
+            if (!s)
+                count++;
+        }
+        return count;
+    }
+
+    @Override
+    public short read(int address)
+    {
+        return (short) (pages[(address & 0xffff) >>> 8][address & 0xff] & 0xff);
+    }
+
+    @Override
+    public void write(int address, byte value)
+    {
+        address &= 0xffff;
+        writablePage(address >>> 8)[address & 0xff] = value;
+        markDirty(address);
+    }
+
+    @Override
+    public void load(int address, byte[] src, int offset, int length)
+    {
+        checkRange(address, length);
+        for (int done = 0; done < length; )
+        {
+            final var a = address + done;
+            final var n = Math.min(length - done, Bus.PAGE_SIZE - (a & 0xff));
+            System.arraycopy(src, offset + done, writablePage(a >>> 8), a & 0xff, n);
+            done += n;
+        }
+        markDirty(address, length);
+    }
+
+    @Override
+    public void copyTo(int address, byte[] dst, int offset, int length)
+    {
+        checkRange(address, length);
+        for (int done = 0; done < length; )
+        {
+            final var a = address + done;
+            final var n = Math.min(length - done, Bus.PAGE_SIZE - (a & 0xff));
+            System.arraycopy(pages[a >>> 8], a & 0xff, dst, offset + done, n);
+            done += n;
+        }
+    }
+
+    @Override
+    public void fill(int address, int length, byte value)
+    {
+        checkRange(address, length);
+        for (int done = 0; done < length; )
+        {
+            final var a = address + done;
+            final var n = Math.min(length - done, Bus.PAGE_SIZE - (a & 0xff));
+            if (value == 0 && n == Bus.PAGE_SIZE)
+            {
+                pages[a >>> 8] = ZERO_PAGE;
+                shared[a >>> 8] = true;
+            }
+            else
+            {
+                Arrays.fill(writablePage(a >>> 8), a & 0xff, (a & 0xff) + n, value);
+            }
+            done += n;
+        }
+        markDirty(address, length);
+    }
+
+    /**
+     * Drop all pages, cost does not depend on how much was written. Code decoded from memory is dropped as well
+     */
+    @Override
+    public void reset()
+    {
+        clearPages();
+        clearTracking();
+        allCodeWritten();
+    }
+}
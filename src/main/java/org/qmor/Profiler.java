@@ -0,0 +1,302 @@
+package org.qmor;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Execution profile of a {@link CPU}, attached with {@link CPU#setProfiler(Profiler)}.
+ * <p>
+ * Instructions and cycles are counted per instruction address in plain arrays. In addition every instruction
+ * is charged to the subroutine it runs in: JSR, BRK and serviced interrupts enter a frame named after the address
+ * they jump to, and a frame is left as soon as the stack pointer rises above the point where its return address
+ * was pushed - by RTS, RTI, or code dropping the return address itself. Call paths are interned as nodes of a call
+ * tree, so counting never allocates; only entering a path not seen before does.
+ * {@link #writeCollapsed(Appendable, boolean)} exports the tree in the collapsed stack format flame graph tools read.
+ * <p>
+ * Cycles of a serviced interrupt belong to the handler frame but to no instruction address. Idle loop
+ * fast-forward and compiled blocks bypass the per instruction hook, so both are off while a profiler is attached.
+ */
+public final class Profiler {
+    /**
+     * deepest call path tracked, deeper calls are charged to the deepest frame
+     */
+    static final int MAX_DEPTH = 256;
+    private static final int ROOT = 0;
+    private static final long NO_KEY = -1;
+
+    private final long[] pcInstructions = new long[Memory.MEM_SIZE];
+    private final long[] pcCycles = new long[Memory.MEM_SIZE];
+
+    //call tree nodes, node 0 is the root
+    private int[] parent = new int[64];
+    private int[] entry = new int[64];
+    private long[] nodeInstructions = new long[64];
+    private long[] nodeCycles = new long[64];
+    private int nodes = 1;
+
+    /**
+     * (parent << 16 | entry) -> child node, open addressing
+     */
+    private long[] childKeys = newKeys(128);
+    private int[] childNodes = new int[128];
+
+    //current call path: node and stack pointer after the return address was pushed
+    private final int[] frameNode = new int[MAX_DEPTH];
+    private final int[] frameSp = new int[MAX_DEPTH];
+    private int depth;
+    private int node = ROOT;
+
+    private final Map<Integer, String> labels = new HashMap<>();
+
+    /**
+     * instructions counted since creation or {@link #reset()}
+     */
+    @Getter
+    private long totalInstructions;
+    /**
+     * cycles counted since creation or {@link #reset()}, including interrupt entry
+     */
+    @Getter
+    private long totalCycles;
+
+    /**
+     * Name the frame of a subroutine in the collapsed output, frames are named $XXXX otherwise
+     * @param address - subroutine entry
+     * @param name - name without ';' or whitespace
+     */
+    public void label(int address, String name)
+    {
+        labels.put(address & 0xffff, name);
+    }
+
+    /**
+     * @param labels - subroutine entry -> name, see {@link #label(int, String)}
+     */
+    public void labelAll(Map<Integer, String> labels)
+    {
+        labels.forEach(this::label);
+    }
+
+    /**
+     * called by the cpu after every instruction
+     * @param pc - address of the instruction
+     * @param opcode - opcode byte
+     * @param cycles - cycles it took
+     * @param nextPc - PC after it
+     * @param sp - stack pointer after it
+     */
+    void retired(int pc, int opcode, int cycles, int nextPc, int sp)
+    {
+        pcInstructions[pc & 0xffff]++;
+        pcCycles[pc & 0xffff] += cycles;
+        nodeInstructions[node]++;
+        nodeCycles[node] += cycles;
+        totalInstructions++;
+        totalCycles += cycles;
+        if (opcode == OpCodes.JSR.getOpcode() || opcode == OpCodes.BRK.getOpcode())
+            enter(nextPc, sp);
+        else
+            leave(sp);
+    }
+
+    /**
+     * called by the cpu after servicing IRQ or NMI
+     * @param handler - handler address
+     * @param cycles - cycles of the interrupt entry
+     * @param sp - stack pointer after pushing PC and P
+     */
+    void interrupted(int handler, int cycles, int sp)
+    {
+        enter(handler, sp);
+        nodeCycles[node] += cycles;
+        totalCycles += cycles;
+    }
+
+    private void enter(int address, int sp)
+    {
+        leave(sp);
+        if (depth == MAX_DEPTH)
+            return;
+        frameNode[depth] = node;
+        frameSp[depth] = sp;
+        depth++;
+        node = child(node, address & 0xffff);
+    }
+
+    private void leave(int sp)
+    {
+        while (depth > 0 && sp > frameSp[depth - 1])
+        {
+            depth--;
+            node = frameNode[depth];
+        }
+    }
+
+    private static long[] newKeys(int size)
+    {
+        final var keys = new long[size];
+        Arrays.fill(keys, NO_KEY);
+        return keys;
+    }
+
+    private int slot(long[] keys, long key)
+    {
+        final var mask = keys.length - 1;
+        var i = (int) (key * 0x9E3779B97F4A7C15L >>> 40) & mask;
+        while (keys[i] != NO_KEY && keys[i] != key)
+            i = (i + 1) & mask;
+        return i;
+    }
+
+    private int child(int parentNode, int address)
+    {
+        final var key = (long) parentNode << 16 | address;
+        var i = slot(childKeys, key);
+        if (childKeys[i] == key)
+            return childNodes[i];
+        if (nodes == parent.length)
+        {
+            parent = Arrays.copyOf(parent, nodes * 2);
+            entry = Arrays.copyOf(entry, nodes * 2);
+            nodeInstructions = Arrays.copyOf(nodeInstructions, nodes * 2);
+            nodeCycles = Arrays.copyOf(nodeCycles, nodes * 2);
+        }
+        final var created = nodes++;
+        parent[created] = parentNode;
+        entry[created] = address;
+        if (nodes * 2 > childKeys.length)
+        {
+            rehash();
+            i = slot(childKeys, key);
+        }
+        childKeys[i] = key;
+        childNodes[i] = created;
+        return created;
+    }
+
+    private void rehash()
+    {
+        final var keys = childKeys;
+        final var values = childNodes;
+        childKeys = newKeys(keys.length * 2);
+        childNodes = new int[keys.length * 2];
+        for (int i = 0; i < keys.length; i++)
+        {
+            if (keys[i] != NO_KEY)
+            {
+                final var j = slot(childKeys, keys[i]);
+                childKeys[j] = keys[i];
+                childNodes[j] = values[i];
+            }
+        }
+    }
+
+    /**
+     * @param pc - instruction address
+     * @return times the instruction at pc was executed
+     */
+    public long getInstructions(int pc)
+    {
+        return pcInstructions[pc & 0xffff];
+    }
+
+    /**
+     * @param pc - instruction address
+     * @return cycles spent in the instruction at pc
+     */
+    public long getCycles(int pc)
+    {
+        return pcCycles[pc & 0xffff];
+    }
+
+    /**
+     * @param n - number of addresses
+     * @return up to n executed instruction addresses, most cycles first
+     */
+    public int[] hottest(int n)
+    {
+        return IntStream.range(0, Memory.MEM_SIZE)
+                .filter(pc -> pcInstructions[pc] != 0)
+                .boxed()
+                .sorted((a, b) -> Long.compare(pcCycles[b], pcCycles[a]))
+                .limit(n)
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * @return current call depth
+     */
+    public int depth()
+    {
+        return depth;
+    }
+
+    /**
+     * Write one line per call path: frames from the outermost, separated by ';', then its own cycles or
+     * instructions. Paths without any are left out. The outermost frame is "root"
+     * @param out - destination
+     * @param cycles - true to weigh by cycles, false by instructions
+     */
+    public void writeCollapsed(Appendable out, boolean cycles)
+    {
+        final var weights = cycles ? nodeCycles : nodeInstructions;
+        final var path = new StringBuilder();
+        try
+        {
+            for (int n = 0; n < nodes; n++)
+            {
+                if (weights[n] == 0)
+                    continue;
+                path.setLength(0);
+                for (int at = n; at != ROOT; at = parent[at])
+                    path.insert(0, ';' + name(entry[at]));
+                out.append("root").append(path).append(' ').append(Long.toString(weights[n])).append('\n');
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param cycles - true to weigh by cycles, false by instructions
+     * @return collapsed stacks, see {@link #writeCollapsed(Appendable, boolean)}
+     */
+    public String collapsed(boolean cycles)
+    {
+        final var out = new StringBuilder();
+        writeCollapsed(out, cycles);
+        return out.toString();
+    }
+
+    private String name(int address)
+    {
+        final var label = labels.get(address);
+        return label != null ? label : "$%04X".formatted(address);
+    }
+
+    /**
+     * Clear all counts and the call path, labels are kept
+     */
+    public void reset()
+    {
+        Arrays.fill(pcInstructions, 0);
+        Arrays.fill(pcCycles, 0);
+        nodes = 1;
+        Arrays.fill(nodeInstructions, 0);
+        Arrays.fill(nodeCycles, 0);
+        Arrays.fill(childKeys, NO_KEY);
+        depth = 0;
+        node = ROOT;
+        totalInstructions = 0;
+        totalCycles = 0;
+    }
+}
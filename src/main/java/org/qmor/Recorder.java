@@ -0,0 +1,293 @@
+package org.qmor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Records a {@link CPU} run so that {@link Replayer} can reproduce it exactly.
+ * <p>
+ * Given the machine state, execution only depends on what comes from outside, so the log holds the state when
+ * recording started and every input after it:
+ * <ul>
+ * <li>values returned by device pages, in read order - on replay the log stands in for the devices</li>
+ * <li>IRQ line changes and NMI edges, with the cycle they happened at</li>
+ * <li>memory written by the host through {@link #write(int, byte)} and {@link #load(int, byte[])}</li>
+ * </ul>
+ * Timed inputs are re-applied by {@link Scheduler} events, which fire at the first instruction boundary at or after
+ * their cycle - the boundary the original change was first seen at. Compiled blocks count cycles on exit only, so
+ * the JIT is off while recording; idle loop fast-forward stays on. The final registers, counters and a memory
+ * checksum close the log, the whole of which is deflated.
+ * <p>
+ * Registers set and memory written by the host any other way while recording are not captured.
+ */
+public final class Recorder {
+    /**
+     * "RPL1", first int of the log
+     */
+    static final int MAGIC = 0x52504c31;
+
+    //what a page is mapped to
+    static final int PAGE_RAM = 0;
+    static final int PAGE_ROM = 1;
+    static final int PAGE_MIRROR = 2;
+    static final int PAGE_DEVICE = 3;
+
+    //timed inputs: kind << 24 | argument
+    static final int INPUT_IRQ = 0;
+    static final int INPUT_NMI = 1;
+    static final int INPUT_WRITE = 2;
+
+    private final CPU cpu;
+    /**
+     * state when recording started
+     */
+    private final byte[] start;
+    /**
+     * devices replaced by a tap while recording, null for other pages
+     */
+    private final Device[] devices = new Device[Bus.PAGES];
+
+    private long[] inputCycles = new long[64];
+    private int[] inputs = new int[64];
+    private int inputCount;
+
+    private byte[] reads = new byte[4096];
+    private int readCount;
+
+    /**
+     * Start recording, the cpu must not be running
+     * @param cpu - machine to record
+     * @throws IllegalStateException if it is already being recorded
+     */
+    public Recorder(CPU cpu)
+    {
+        if (cpu.getRecorder() != null)
+            throw new IllegalStateException("Already recording");
+        this.cpu = cpu;
+        final var bytes = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(bytes))
+        {
+            out.writeInt(MAGIC);
+            writeState(out, cpu);
+            out.writeInt(cpu.getIrqSources());
+            out.writeBoolean(cpu.isNmiPending());
+            writePages(out);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        start = bytes.toByteArray();
+        cpu.setRecorder(this);
+    }
+
+    /**
+     * RAM content, then per page how it is mapped; device pages get a tap
+     */
+    private void writePages(DataOutput out) throws IOException
+    {
+        final var memory = cpu.getMemory();
+        final var bus = cpu.getBus();
+        final var page = new byte[Bus.PAGE_SIZE];
+        for (int p = 0; p < Bus.PAGES; p++)
+        {
+            memory.copyTo(p << 8, page, 0, Bus.PAGE_SIZE);
+            final var zero = Arrays.mismatch(page, new byte[Bus.PAGE_SIZE]) < 0;
+            out.writeBoolean(!zero);
+            if (!zero)
+                out.write(page);
+        }
+        for (int p = 0; p < Bus.PAGES; p++)
+        {
+            final var device = bus.getDevice(p << 8);
+            if (device == null)
+            {
+                out.writeByte(PAGE_RAM);
+            }
+            else if (bus.isMemory(p << 8))
+            {
+                out.writeByte(PAGE_ROM);
+                for (int i = 0; i < Bus.PAGE_SIZE; i++)
+                    out.writeByte(bus.read(p << 8 | i));
+            }
+            else if (device instanceof Mirror mirror)
+            {
+                out.writeByte(PAGE_MIRROR);
+                out.writeShort(mirror.getTarget());
+                out.writeInt(mirror.getSize());
+            }
+            else
+            {
+                out.writeByte(PAGE_DEVICE);
+                devices[p] = device;
+                bus.map(p, 1, new Tap(device));
+            }
+        }
+    }
+
+    /**
+     * Write a byte of memory as the host, recorded as an input at the current cycle
+     * @param address - address
+     * @param value - byte to write
+     */
+    public void write(int address, byte value)
+    {
+        input(INPUT_WRITE << 24 | (address & 0xffff) << 8 | value & 0xff);
+        cpu.getMemory().write(address, value);
+    }
+
+    /**
+     * Load bytes into memory as the host, recorded byte by byte
+     * @param address - first address
+     * @param bytes - content
+     */
+    public void load(int address, byte[] bytes)
+    {
+        Memory.checkRange(address, bytes.length);
+        for (int i = 0; i < bytes.length; i++)
+            write(address + i, bytes[i]);
+    }
+
+    /**
+     * called by the cpu when an IRQ source changes the line
+     * @param source - source number
+     * @param asserted - new state of the source
+     */
+    void irq(int source, boolean asserted)
+    {
+        input(INPUT_IRQ << 24 | source << 1 | (asserted ? 1 : 0));
+    }
+
+    /**
+     * called by the cpu on an NMI edge
+     */
+    void nmi()
+    {
+        input(INPUT_NMI << 24);
+    }
+
+    private void input(int input)
+    {
+        if (inputCount == inputs.length)
+        {
+            inputCycles = Arrays.copyOf(inputCycles, inputCount * 2);
+            inputs = Arrays.copyOf(inputs, inputCount * 2);
+        }
+        inputCycles[inputCount] = cpu.getCycles();
+        inputs[inputCount++] = input;
+    }
+
+    /**
+     * @return inputs recorded so far, device reads included
+     */
+    public long inputCount()
+    {
+        return (long) inputCount + readCount;
+    }
+
+    /**
+     * Stop recording: restore the devices and detach from the cpu
+     * @return log for {@link Replayer#replay(byte[])}, ending with the current state
+     */
+    public byte[] stop()
+    {
+        final var bus = cpu.getBus();
+        for (int p = 0; p < Bus.PAGES; p++)
+        {
+            if (devices[p] != null)
+                bus.map(p, 1, devices[p]);
+        }
+        cpu.setRecorder(null);
+        final var bytes = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(new DeflaterOutputStream(bytes)))
+        {
+            out.write(start);
+            out.writeInt(inputCount);
+            for (int i = 0; i < inputCount; i++)
+            {
+                out.writeLong(inputCycles[i]);
+                out.writeInt(inputs[i]);
+            }
+            out.writeInt(readCount);
+            out.write(reads, 0, readCount);
+            writeState(out, cpu);
+            out.writeInt(checksum(cpu.getMemory()));
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * registers and counters
+     */
+    static void writeState(DataOutput out, CPU cpu) throws IOException
+    {
+        out.writeShort(cpu.getPC());
+        out.writeByte(cpu.getSP());
+        out.writeByte(cpu.getA());
+        out.writeByte(cpu.getX());
+        out.writeByte(cpu.getY());
+        out.writeByte(cpu.getF().getByteValue());
+        out.writeLong(cpu.getCycles());
+        out.writeLong(cpu.getInstructions());
+    }
+
+    /**
+     * read what {@link #writeState(DataOutput, CPU)} wrote into a fresh cpu
+     */
+    static void readState(DataInput in, CPU cpu) throws IOException
+    {
+        cpu.setPC(in.readUnsignedShort());
+        cpu.setSP(in.readUnsignedByte());
+        cpu.setA((short) in.readUnsignedByte());
+        cpu.setX((short) in.readUnsignedByte());
+        cpu.setY((short) in.readUnsignedByte());
+        cpu.getF().setByteValue((short) in.readUnsignedByte());
+        cpu.skip(in.readLong() - cpu.getCycles(), in.readLong() - cpu.getInstructions());
+    }
+
+    static int checksum(Memory memory)
+    {
+        final var crc = new CRC32();
+        crc.update(memory.copyOf(0, Memory.MEM_SIZE));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * passes accesses on to the recorded device, keeping what reads return
+     */
+    private final class Tap implements Device {
+        private final Device device;
+
+        Tap(Device device)
+        {
+            this.device = device;
+        }
+
+        @Override
+        public short read(int address)
+        {
+            final var value = device.read(address);
+            if (readCount == reads.length)
+                reads = Arrays.copyOf(reads, readCount * 2);
+            reads[readCount++] = (byte) value;
+            return value;
+        }
+
+        @Override
+        public void write(int address, byte value)
+        {
+            device.write(address, value);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package org.qmor;
+
+/**
+ * CPU register an instruction loads its result into
+ */
+public enum Register {
+    NONE,
+    A,
+    X,
+    Y
+}
@@ -0,0 +1,164 @@
+package org.qmor;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Re-executes a run captured by {@link Recorder} on a fresh machine: RAM, ROM and mirrors are restored, device
+ * pages answer reads from the log and ignore writes, and IRQ, NMI and host writes are scheduled at their cycles.
+ * The machine then runs at full speed - any core, predecode, JIT and idle loop fast-forward give the same result -
+ * and is checked against the state the log ends with.
+ */
+public final class Replayer {
+    private Replayer()
+    {
+    }
+
+    /**
+     * @param log - log from {@link Recorder#stop()}
+     * @return machine in the state recording stopped at
+     * @throws IllegalArgumentException if log is not a valid recording
+     * @throws IllegalStateException if the replay does not end in the recorded state
+     */
+    public static CPU replay(byte[] log)
+    {
+        return replay(log, cpu -> {});
+    }
+
+    /**
+     * @param log - log from {@link Recorder#stop()}
+     * @param config - applied to the fresh machine before anything else, e.g. to select the core or enable the JIT
+     * @return machine in the state recording stopped at
+     * @throws IllegalArgumentException if log is not a valid recording
+     * @throws IllegalStateException if the replay does not end in the recorded state
+     */
+    public static CPU replay(byte[] log, Consumer<CPU> config)
+    {
+        final var cpu = new CPU(new Memory());
+        config.accept(cpu);
+        final CPU expected;
+        try (var in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(log))))
+        {
+            if (in.readInt() != Recorder.MAGIC)
+                throw new IllegalArgumentException("Not a recording");
+            Recorder.readState(in, cpu);
+            final var irqSources = in.readInt();
+            for (int source = 0; source < Integer.SIZE; source++)
+            {
+                if ((irqSources & 1 << source) != 0)
+                    cpu.setIrq(source, true);
+            }
+            if (in.readBoolean())
+                cpu.nmi();
+            final var devices = readPages(in, cpu);
+            readInputs(in, cpu);
+            devices.reads = new byte[in.readInt()];
+            in.readFully(devices.reads);
+            expected = new CPU(new Memory());
+            Recorder.readState(in, expected);
+            final var checksum = in.readInt();
+
+            cpu.run(expected.getCycles() - cpu.getCycles());
+            //inputs after the last instruction
+            cpu.getScheduler().fireDue(cpu.getCycles());
+            final var actual = Recorder.checksum(cpu.getMemory());
+            if (!expected.printRegs().equals(cpu.printRegs()) || expected.getCycles() != cpu.getCycles()
+                    || expected.getInstructions() != cpu.getInstructions() || checksum != actual
+                    || devices.next != devices.reads.length)
+                throw new IllegalStateException("Replay diverged: expected %s at %d cycles, got %s at %d cycles, memory %s, %d of %d device reads"
+                        .formatted(expected.printRegs(), expected.getCycles(), cpu.printRegs(), cpu.getCycles(),
+                                checksum == actual ? "matches" : "differs", devices.next, devices.reads.length));
+        }
+        catch (EOFException | ZipException e)
+        {
+            throw new IllegalArgumentException("Truncated or corrupt recording", e);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        return cpu;
+    }
+
+    private static ReplayedDevice readPages(DataInputStream in, CPU cpu) throws IOException
+    {
+        final var memory = cpu.getMemory();
+        final var bus = cpu.getBus();
+        final var page = new byte[Bus.PAGE_SIZE];
+        for (int p = 0; p < Bus.PAGES; p++)
+        {
+            if (in.readBoolean())
+            {
+                in.readFully(page);
+                memory.load(p << 8, page);
+            }
+        }
+        final var devices = new ReplayedDevice();
+        for (int p = 0; p < Bus.PAGES; p++)
+        {
+            switch (in.readUnsignedByte())
+            {
+                case Recorder.PAGE_RAM ->
+                {
+                }
+                case Recorder.PAGE_ROM ->
+                {
+                    in.readFully(page);
+                    bus.map(p, 1, new Rom(p << 8, page));
+                }
+                case Recorder.PAGE_MIRROR -> bus.map(p, 1, new Mirror(bus, in.readUnsignedShort(), in.readInt()));
+                case Recorder.PAGE_DEVICE -> bus.map(p, 1, devices);
+                default -> throw new IllegalArgumentException("Bad page kind in recording");
+            }
+        }
+        return devices;
+    }
+
+    private static void readInputs(DataInputStream in, CPU cpu) throws IOException
+    {
+        final var scheduler = cpu.getScheduler();
+        final var count = in.readInt();
+        for (int i = 0; i < count; i++)
+        {
+            final var cycle = in.readLong();
+            final var input = in.readInt();
+            final var argument = input & 0xffffff;
+            final Scheduler.Event event = switch (input >>> 24)
+            {
+                case Recorder.INPUT_IRQ -> (c, due) -> c.setIrq(argument >>> 1, (argument & 1) != 0);
+                case Recorder.INPUT_NMI -> (c, due) -> c.nmi();
+                case Recorder.INPUT_WRITE -> (c, due) -> c.getMemory().write(argument >>> 8, (byte) argument);
+                default -> throw new IllegalArgumentException("Bad input kind in recording");
+            };
+            scheduler.schedule(cycle, event);
+        }
+    }
+
+    /**
+     * stands in for every recorded device page
+     */
+    private static final class ReplayedDevice implements Device {
+        private byte[] reads;
+        private int next;
+
+        @Override
+        public short read(int address)
+        {
+            if (next == reads.length)
+                throw new IllegalStateException("Replay diverged: more device reads than recorded at %04X".formatted(address));
+            return (short) (reads[next++] & 0xff);
+        }
+
+        @Override
+        public void write(int address, byte value)
+        {
+            //outputs are not replayed
+        }
+    }
+}
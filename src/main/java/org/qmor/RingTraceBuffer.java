@@ -0,0 +1,152 @@
+package org.qmor;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the last N traced instructions in preallocated arrays.
+ * Registers are packed into a single long per entry, text is only produced by {@link #render(int)}.
+ */
+public final class RingTraceBuffer implements TraceSink {
+    private final long[] states;
+    private final long[] stamps;
+    private final int mask;
+    /**
+     * total number of records ever written, including overwritten ones
+     */
+    @Getter
+    private long written;
+
+    /**
+     * @param capacity - number of records to keep, rounded up to power of two
+     */
+    public RingTraceBuffer(int capacity)
+    {
+        if (capacity <= 0 || capacity > 1 << 30)
+            throw new IllegalArgumentException("Bad trace capacity %d".formatted(capacity));
+        final var size = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+        states = new long[size];
+        stamps = new long[size];
+        mask = size - 1;
+    }
+
+    @Override
+    public void record(int pc, int opcode, int a, int x, int y, int sp, int p, long cycle)
+    {
+        final var i = (int) (written & mask);
+        states[i] = ((long) (pc & 0xffff) << 48)
+                | ((long) (opcode & 0xff) << 40)
+                | ((long) (a & 0xff) << 32)
+                | ((long) (x & 0xff) << 24)
+                | ((y & 0xff) << 16)
+                | ((sp & 0xff) << 8)
+                | (p & 0xff);
+        stamps[i] = cycle;
+        written++;
+    }
+
+    /**
+     * @return number of records available, at most capacity
+     */
+    public int size()
+    {
+        return (int) Math.min(written, states.length);
+    }
+
+    public int capacity()
+    {
+        return states.length;
+    }
+
+    public void clear()
+    {
+        written = 0;
+    }
+
+    private int slot(int index)
+    {
+        if (index < 0 || index >= size())
+            throw new IndexOutOfBoundsException(index);
+        return (int) ((written - size() + index) & mask);
+    }
+
+    /**
+     * @param index - 0 is the oldest retained record
+     */
+    public int getPC(int index)
+    {
+        return (int) (states[slot(index)] >>> 48);
+    }
+
+    public int getOpcode(int index)
+    {
+        return (int) (states[slot(index)] >>> 40) & 0xff;
+    }
+
+    public int getA(int index)
+    {
+        return (int) (states[slot(index)] >>> 32) & 0xff;
+    }
+
+    public int getX(int index)
+    {
+        return (int) (states[slot(index)] >>> 24) & 0xff;
+    }
+
+    public int getY(int index)
+    {
+        return (int) (states[slot(index)] >>> 16) & 0xff;
+    }
+
+    public int getSP(int index)
+    {
+        return (int) (states[slot(index)] >>> 8) & 0xff;
+    }
+
+    public int getP(int index)
+    {
+        return (int) states[slot(index)] & 0xff;
+    }
+
+    public long getCycle(int index)
+    {
+        return stamps[slot(index)];
+    }
+
+    /**
+     * Render one record in the same layout as {@link CPU#printRegs()}
+     * @param index - 0 is the oldest retained record
+     * @return text line
+     */
+    public String render(int index)
+    {
+        return render(getCycle(index), getOpcode(index), getPC(index), getSP(index), getA(index), getX(index),
+                getY(index), getP(index));
+    }
+
+    /**
+     * @return state before an instruction in the layout of {@link #render(int)}
+     */
+    static String render(long cycle, int opcode, int pc, int sp, int a, int x, int y, int p)
+    {
+        final var f = new FlagRegister();
+        f.setByteValue((short) p);
+        final var op = OpCodes.decode(opcode);
+        return "%d %02X %s PC:%04X SP:%04X A:%02X X:%02X Y:%02X F:[%s]".formatted(cycle, opcode, op, pc, sp, a, x, y,
+                f.printFlags());
+    }
+
+    /**
+     * @return all retained records rendered, oldest first
+     */
+    public List<String> render()
+    {
+        final var size = size();
+        final List<String> r = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            r.add(render(i));
+        return r;
+    }
+}
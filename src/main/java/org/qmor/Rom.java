@@ -0,0 +1,34 @@
+package org.qmor;
+
+/**
+ * Read only region, writes are ignored like on real hardware
+ */
+public final class Rom implements Device {
+    private final byte[] image;
+    private final int base;
+
+    /**
+     * @param base - address the first image byte is mapped at
+     * @param image - ROM content, copied
+     */
+    public Rom(int base, byte[] image)
+    {
+        this.base = base;
+        this.image = image.clone();
+    }
+
+    @Override
+    public short read(int address)
+    {
+        final var offset = address - base;
+        if (offset < 0 || offset >= image.length)
+            return 0;
+        return (short) (image[offset] & 0xff);
+    }
+
+    @Override
+    public void write(int address, byte value)
+    {
+        //ROM
+    }
+}
@@ -0,0 +1,14 @@
+package org.qmor;
+
+/**
+ * Outcome of {@link CPU#run(long)}
+ * @param cycles - cycles consumed
+ * @param instructions - instructions retired
+ * @param hit - breakpoint or watchpoint the run stopped at, null if it used up the budget
+ */
+public record RunResult(long cycles, long instructions, Breakpoints.Hit hit) {
+    public RunResult(long cycles, long instructions)
+    {
+        this(cycles, instructions, null);
+    }
+}
@@ -0,0 +1,187 @@
+package org.qmor;
+
+import java.util.Arrays;
+
+/**
+ * Future events of a {@link CPU}, keyed by the absolute cycle they are due at.
+ * <p>
+ * Devices schedule work (timer expiry, a scanline, raising an interrupt) instead of being polled.
+ * {@link CPU#run(long)} executes instructions in a tight loop up to the earliest due cycle or the end of the budget,
+ * whichever comes first, then fires the events that are due at that instruction boundary, lowest cycle first
+ * and in scheduling order for equal cycles. An event fires at the first boundary at or after its cycle,
+ * so it may see {@link CPU#getCycles()} a few cycles past it.
+ * <p>
+ * Kept as a binary min-heap in parallel arrays, scheduling and firing allocate nothing once the arrays have grown.
+ */
+public final class Scheduler {
+    /**
+     * @see #schedule(long, Event)
+     */
+    @FunctionalInterface
+    public interface Event {
+        /**
+         * @param cpu - cpu the event was scheduled on
+         * @param cycle - cycle the event was due at
+         */
+        void fire(CPU cpu, long cycle);
+    }
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final CPU cpu;
+    private long[] due = new long[INITIAL_CAPACITY];
+    /**
+     * scheduling sequence number, orders events due at the same cycle
+     */
+    private long[] order = new long[INITIAL_CAPACITY];
+    private Event[] events = new Event[INITIAL_CAPACITY];
+    private int size;
+    private long sequence;
+
+    Scheduler(CPU cpu)
+    {
+        this.cpu = cpu;
+    }
+
+    /**
+     * Schedule event at an absolute cycle. A cycle already passed fires at the next instruction boundary.
+     * Safe to call from a firing event, e.g. to reschedule a periodic timer.
+     * @param cycle - cycle the event is due at
+     * @param event - what to do
+     */
+    public void schedule(long cycle, Event event)
+    {
+        if (size == due.length)
+        {
+            due = Arrays.copyOf(due, size * 2);
+            order = Arrays.copyOf(order, size * 2);
+            events = Arrays.copyOf(events, size * 2);
+        }
+        set(size, cycle, sequence++, event);
+        up(size++);
+        cpu.lowerHorizon(cycle);
+    }
+
+    /**
+     * Remove every pending occurrence of event
+     * @param event - event passed to {@link #schedule(long, Event)}
+     * @return number of occurrences removed
+     */
+    public int cancel(Event event)
+    {
+        int kept = 0;
+        for (int i = 0; i < size; i++)
+        {
+            if (events[i] != event)
+                set(kept++, due[i], order[i], events[i]);
+        }
+        final var removed = size - kept;
+        Arrays.fill(events, kept, size, null);
+        size = kept;
+        for (int i = size / 2 - 1; i >= 0; i--)
+            down(i);
+        return removed;
+    }
+
+    /**
+     * Drop all pending events
+     */
+    public void clear()
+    {
+        Arrays.fill(events, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * @return number of pending events
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return cycle the earliest pending event is due at, Long.MAX_VALUE if there is none
+     */
+    public long nextCycle()
+    {
+        return size == 0 ? Long.MAX_VALUE : due[0];
+    }
+
+    /**
+     * fire all events due at or before now, including events they schedule for now or earlier
+     * @param now - current cycle
+     */
+    void fireDue(long now)
+    {
+        while (size > 0 && due[0] <= now)
+        {
+            final var cycle = due[0];
+            final var event = events[0];
+            removeAt(0);
+            event.fire(cpu, cycle);
+        }
+    }
+
+    private void removeAt(int i)
+    {
+        size--;
+        if (i != size)
+        {
+            set(i, due[size], order[size], events[size]);
+            up(i);
+            down(i);
+        }
+        events[size] = null;
+    }
+
+    private void set(int i, long cycle, long seq, Event event)
+    {
+        due[i] = cycle;
+        order[i] = seq;
+        events[i] = event;
+    }
+
+    private boolean before(int i, int j)
+    {
+        return due[i] < due[j] || due[i] == due[j] && order[i] < order[j];
+    }
+
+    private void swap(int i, int j)
+    {
+        final var cycle = due[i];
+        final var seq = order[i];
+        final var event = events[i];
+        set(i, due[j], order[j], events[j]);
+        set(j, cycle, seq, event);
+    }
+
+    private void up(int i)
+    {
+        while (i > 0)
+        {
+            final var parent = (i - 1) >>> 1;
+            if (!before(i, parent))
+                return;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void down(int i)
+    {
+        while (true)
+        {
+            final var left = 2 * i + 1;
+            if (left >= size)
+                return;
+            var child = left;
+            if (left + 1 < size && before(left + 1, left))
+                child = left + 1;
+            if (!before(child, i))
+                return;
+            swap(i, child);
+            i = child;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package org.qmor;
+
+/**
+ * Cycle accounting of a {@link CPU}, see {@link CPU#setTiming(TimingMode)}
+ */
+public enum TimingMode {
+    /**
+     * every fetch, read, write and internal step advances the cycle counter as it happens
+     */
+    BUS_ACCURATE,
+    /**
+     * each instruction is charged {@link OpCodes#getCycles()} in one addition when decoded,
+     * page crossing and taken branch penalties are added when they occur
+     */
+    STATIC
+}
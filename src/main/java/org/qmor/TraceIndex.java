@@ -0,0 +1,351 @@
+package org.qmor;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Seekable index over a trace written by {@link TraceWriter}, so queries on huge traces do not read them from the
+ * start.
+ * <p>
+ * {@link #build(Path, Path, int)} reads the trace once and saves a checkpoint every interval records: the file offset
+ * of the record and its full register state, which is all {@link TraceReader} needs to continue decoding from there.
+ * It also keeps, for every PC, how often it ran and the list of intervals it ran in. The index file is memory-mapped
+ * by {@link #open(Path, Path)}; a query looks the interval up in the mapping and decodes at most one interval
+ * of the trace for each interval the answer may be in.
+ * <p>
+ * Index file, big endian:
+ * <pre>
+ * header       magic, interval, records, trace size, checkpoints
+ * checkpoints  {@link TraceReader#STATE_SIZE} bytes each, checkpoint i is record i * interval
+ * PC table     65537 ints: start of the interval list of each PC, then the end of the last one;
+ *              65536 longs: occurrences of each PC
+ * intervals    ints, ascending for each PC
+ * </pre>
+ */
+public final class TraceIndex {
+    /**
+     * "TRX1", first int of the file
+     */
+    static final int MAGIC = 0x54525831;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4;
+    private static final int PCS = Memory.MEM_SIZE;
+    private static final int PC_TABLE_SIZE = (PCS + 1) * Integer.BYTES + PCS * Long.BYTES;
+    public static final int DEFAULT_INTERVAL = 4096;
+    /**
+     * read buffer of the readers queries use, they only decode up to one interval
+     */
+    private static final int SEEK_BUFFER_SIZE = 16 * 1024;
+
+    private final Path trace;
+    /**
+     * records between checkpoints
+     */
+    @Getter
+    private final int interval;
+    /**
+     * records in the trace
+     */
+    @Getter
+    private final long records;
+    private final int checkpoints;
+    private final ByteBuffer checkpointTable;
+    private final ByteBuffer pcTable;
+    private final ByteBuffer intervalLists;
+
+    private TraceIndex(Path trace, int interval, long records, int checkpoints, ByteBuffer checkpointTable,
+                       ByteBuffer pcTable, ByteBuffer intervalLists)
+    {
+        this.trace = trace;
+        this.interval = interval;
+        this.records = records;
+        this.checkpoints = checkpoints;
+        this.checkpointTable = checkpointTable;
+        this.pcTable = pcTable;
+        this.intervalLists = intervalLists;
+    }
+
+    /**
+     * Index a trace and open the index
+     * @param trace - trace file
+     * @param index - index file to create or replace
+     * @param interval - records between checkpoints, smaller is faster to query and larger on disk
+     * @throws UncheckedIOException if a file cannot be read or written
+     * @throws IllegalArgumentException if the trace is not one
+     * @throws IllegalStateException if the trace ends within a record
+     */
+    public static TraceIndex build(Path trace, Path index, int interval)
+    {
+        if (interval < 1)
+            throw new IllegalArgumentException("Checkpoint interval must be positive: %d".formatted(interval));
+        var checkpointTable = ByteBuffer.allocate(64 * TraceReader.STATE_SIZE);
+        //intervals each PC ran in, ascending
+        final var lists = new int[PCS][];
+        final var sizes = new int[PCS];
+        final var counts = new long[PCS];
+        long records = 0;
+        try (var reader = new TraceReader(trace))
+        {
+            for (; reader.next(); records++)
+            {
+                final var block = (int) (records / interval);
+                if (records % interval == 0)
+                {
+                    if (checkpointTable.remaining() < TraceReader.STATE_SIZE)
+                        checkpointTable = ByteBuffer.allocate(checkpointTable.capacity() * 2)
+                                .put(checkpointTable.flip());
+                    reader.saveState(checkpointTable);
+                }
+                final var pc = reader.getPC();
+                counts[pc]++;
+                final var size = sizes[pc];
+                var list = lists[pc];
+                if (size > 0 && list[size - 1] == block)
+                    continue;
+                if (list == null)
+                    list = lists[pc] = new int[4];
+                else if (size == list.length)
+                    list = lists[pc] = Arrays.copyOf(list, size * 2);
+                list[size] = block;
+                sizes[pc] = size + 1;
+            }
+        }
+        final var checkpoints = checkpointTable.flip().remaining() / TraceReader.STATE_SIZE;
+
+        final var header = ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(MAGIC)
+                .putInt(interval)
+                .putLong(records)
+                .putLong(size(trace))
+                .putInt(checkpoints)
+                .flip();
+        final var pcTable = ByteBuffer.allocate(PC_TABLE_SIZE);
+        int start = 0;
+        for (int pc = 0; pc < PCS; pc++)
+        {
+            pcTable.putInt(start);
+            start += sizes[pc];
+        }
+        pcTable.putInt(start);
+        for (int pc = 0; pc < PCS; pc++)
+            pcTable.putLong(counts[pc]);
+        pcTable.flip();
+
+        try (var channel = FileChannel.open(index, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            write(channel, header);
+            write(channel, checkpointTable);
+            write(channel, pcTable);
+            final var chunk = ByteBuffer.allocate(64 * 1024);
+            for (int pc = 0; pc < PCS; pc++)
+            {
+                for (int i = 0; i < sizes[pc]; i++)
+                {
+                    if (!chunk.hasRemaining())
+                        write(channel, chunk.flip()).clear();
+                    chunk.putInt(lists[pc][i]);
+                }
+            }
+            write(channel, chunk.flip());
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        return open(trace, index);
+    }
+
+    private static ByteBuffer write(FileChannel channel, ByteBuffer buffer) throws IOException
+    {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        return buffer;
+    }
+
+    private static long size(Path path)
+    {
+        try
+        {
+            return Files.size(path);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Map an index built by {@link #build(Path, Path, int)}
+     * @param trace - the indexed trace
+     * @param index - index file
+     * @throws UncheckedIOException if a file cannot be read
+     * @throws IllegalArgumentException if the index is not one, or not one of the trace as it is now
+     */
+    public static TraceIndex open(Path trace, Path index)
+    {
+        try (var channel = FileChannel.open(index, StandardOpenOption.READ))
+        {
+            final var size = channel.size();
+            final var header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0)
+                ;
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC)
+                throw new IllegalArgumentException("Not a trace index: " + index);
+            final var interval = header.getInt();
+            final var records = header.getLong();
+            final var traceSize = header.getLong();
+            final var checkpoints = header.getInt();
+            if (traceSize != size(trace))
+                throw new IllegalArgumentException("Index %s does not match trace %s".formatted(index, trace));
+            final long checkpointSize = (long) checkpoints * TraceReader.STATE_SIZE;
+            final var pcTableAt = HEADER_SIZE + checkpointSize;
+            final var listsAt = pcTableAt + PC_TABLE_SIZE;
+            if (interval < 1 || checkpoints < 0 || records < 0 || size < listsAt
+                    || checkpoints != (records + interval - 1) / interval)
+                throw new IllegalArgumentException("Corrupt trace index: " + index);
+            final var pcTable = channel.map(FileChannel.MapMode.READ_ONLY, pcTableAt, PC_TABLE_SIZE);
+            final var listsSize = (long) pcTable.getInt(PCS * Integer.BYTES) * Integer.BYTES;
+            if (size != listsAt + listsSize)
+                throw new IllegalArgumentException("Corrupt trace index: " + index);
+            return new TraceIndex(trace, interval, records, checkpoints,
+                    channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, checkpointSize),
+                    pcTable,
+                    channel.map(FileChannel.MapMode.READ_ONLY, listsAt, listsSize));
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * reader on the record of a checkpoint
+     */
+    private TraceReader atCheckpoint(int checkpoint)
+    {
+        final var reader = new TraceReader(trace, SEEK_BUFFER_SIZE);
+        reader.restoreState(checkpointTable.slice(checkpoint * TraceReader.STATE_SIZE, TraceReader.STATE_SIZE),
+                (long) checkpoint * interval);
+        return reader;
+    }
+
+    private long checkpointCycle(int checkpoint)
+    {
+        //cycle follows the offset in the saved state
+        return checkpointTable.getLong(checkpoint * TraceReader.STATE_SIZE + Long.BYTES);
+    }
+
+    /**
+     * Open a reader on a record. Its getters describe the record, {@link TraceReader#next()} goes on from there
+     * @param record - number of the record, the first is 0
+     * @return a reader the caller closes
+     * @throws IllegalArgumentException if the trace has no such record
+     */
+    public TraceReader reader(long record)
+    {
+        if (record < 0 || record >= records)
+            throw new IllegalArgumentException("No record %d in a trace of %d".formatted(record, records));
+        final var reader = atCheckpoint((int) (record / interval));
+        for (long i = record % interval; i > 0; i--)
+            reader.next();
+        return reader;
+    }
+
+    /**
+     * @param cycle - cycle counter value
+     * @return number of the instruction running at that cycle: the last record starting at or before it,
+     * -1 if the trace starts later
+     */
+    public long recordAtCycle(long cycle)
+    {
+        //last checkpoint starting at or before the cycle
+        int low = 0;
+        int high = checkpoints - 1;
+        while (low <= high)
+        {
+            final var middle = (low + high) >>> 1;
+            if (checkpointCycle(middle) <= cycle)
+                low = middle + 1;
+            else
+                high = middle - 1;
+        }
+        if (high < 0)
+            return -1;
+        try (var reader = atCheckpoint(high))
+        {
+            var record = reader.getIndex();
+            for (long i = 1; i < interval && reader.next() && reader.getCycle() <= cycle; i++)
+                record = reader.getIndex();
+            return record;
+        }
+    }
+
+    /**
+     * @param pc - instruction address
+     * @return how often an instruction at the address ran
+     */
+    public long count(int pc)
+    {
+        return pcTable.getLong((PCS + 1) * Integer.BYTES + (pc & 0xffff) * Long.BYTES);
+    }
+
+    /**
+     * @param pc - instruction address
+     * @return number of the first record at the address, -1 if it never ran
+     */
+    public long firstOccurrence(int pc)
+    {
+        return nextOccurrence(pc, 0);
+    }
+
+    /**
+     * @param pc - instruction address
+     * @param from - first record number to consider
+     * @return number of the first record at the address from there on, -1 if there is none
+     */
+    public long nextOccurrence(int pc, long from)
+    {
+        pc &= 0xffff;
+        from = Math.max(from, 0);
+        if (from >= records)
+            return -1;
+        final var end = pcTable.getInt((pc + 1) * Integer.BYTES);
+        //first interval in the list at or after the one of from
+        final var block = from / interval;
+        int low = pcTable.getInt(pc * Integer.BYTES);
+        int high = end;
+        while (low < high)
+        {
+            final var middle = (low + high) >>> 1;
+            if (intervalLists.getInt(middle * Integer.BYTES) < block)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        //it may only have run before from in the first interval looked at
+        for (int i = low; i < end; i++)
+        {
+            final var checkpoint = intervalLists.getInt(i * Integer.BYTES);
+            try (var reader = atCheckpoint(checkpoint))
+            {
+                for (long n = 1; ; n++)
+                {
+                    if (reader.getPC() == pc && reader.getIndex() >= from)
+                        return reader.getIndex();
+                    if (n == interval || !reader.next())
+                        break;
+                }
+            }
+        }
+        return -1;
+    }
+}
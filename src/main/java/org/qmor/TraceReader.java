@@ -0,0 +1,285 @@
+package org.qmor;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams a trace written by {@link TraceWriter} back one record at a time through a fixed size buffer,
+ * so traces of any length can be read. Getters describe the record {@link #next()} decoded last.
+ * {@link TraceIndex} starts readers in the middle of a trace.
+ */
+@Getter
+public final class TraceReader implements Closeable {
+    @Getter(AccessLevel.NONE)
+    private final FileChannel channel;
+    @Getter(AccessLevel.NONE)
+    private final ByteBuffer buffer;
+    @Getter(AccessLevel.NONE)
+    private boolean eof;
+    /**
+     * file offset of the next record
+     */
+    @Getter(AccessLevel.NONE)
+    private long position;
+
+    /**
+     * number of the record, the first is 0
+     */
+    private long index = -1;
+    /**
+     * file offset of the record
+     */
+    private long offset;
+    private int PC;
+    private int opcode;
+    /**
+     * operand bytes, little endian, 0 if the instruction has none
+     */
+    private int operand;
+    private int A;
+    private int X;
+    private int Y;
+    private int SP;
+    private int P;
+    /**
+     * cycle counter before the instruction
+     */
+    private long cycle;
+
+    /**
+     * bytes {@link #saveState(ByteBuffer)} takes
+     */
+    static final int STATE_SIZE = 8 + 8 + 2 + 2 + 1 + 1 + 5;
+
+    /**
+     * @param path - trace file
+     * @throws UncheckedIOException if it cannot be read
+     * @throws IllegalArgumentException if it is not a trace
+     */
+    public TraceReader(Path path)
+    {
+        this(path, TraceWriter.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param path - trace file
+     * @param bufferSize - read buffer size
+     * @throws UncheckedIOException if it cannot be read
+     * @throws IllegalArgumentException if it is not a trace
+     */
+    public TraceReader(Path path, int bufferSize)
+    {
+        if (bufferSize < TraceWriter.MAX_RECORD + Integer.BYTES)
+            throw new IllegalArgumentException("Trace buffer too small: %d".formatted(bufferSize));
+        try
+        {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        buffer = ByteBuffer.allocateDirect(bufferSize).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.flip();
+        fill();
+        if (buffer.remaining() < Integer.BYTES || buffer.getInt() != TraceWriter.MAGIC)
+        {
+            close();
+            throw new IllegalArgumentException("Not a trace: " + path);
+        }
+        position = Integer.BYTES;
+    }
+
+    /**
+     * make sure the buffer holds a whole record unless the file ends first
+     */
+    private void fill()
+    {
+        if (eof || buffer.remaining() >= TraceWriter.MAX_RECORD)
+            return;
+        buffer.compact();
+        try
+        {
+            while (buffer.hasRemaining())
+            {
+                if (channel.read(buffer) < 0)
+                {
+                    eof = true;
+                    break;
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Decode the next record
+     * @return false at the end of the trace
+     * @throws IllegalStateException if the trace ends within a record
+     */
+    public boolean next()
+    {
+        fill();
+        if (!buffer.hasRemaining())
+            return false;
+        final var in = buffer;
+        final var start = in.position();
+        try
+        {
+            final var flags = in.get() & 0xff;
+            final var cycles = flags >>> TraceWriter.CYCLES_SHIFT;
+            //implied by the previous record
+            final var impliedPc = index < 0 ? 0 : TraceWriter.impliedPc(PC, opcode, operand, cycles);
+            final var expectedCycles = TraceWriter.CYCLES[opcode];
+            opcode = in.get() & 0xff;
+            operand = switch (TraceWriter.OPERAND_SIZE[opcode])
+            {
+                case 0 -> 0;
+                case 1 -> in.get() & 0xff;
+                default -> in.getShort() & 0xffff;
+            };
+            PC = (flags & TraceWriter.FLAG_PC) != 0 ? in.getShort() & 0xffff : impliedPc;
+            if ((flags & 1 << 1) != 0)
+                A = in.get() & 0xff;
+            if ((flags & 1 << 2) != 0)
+                X = in.get() & 0xff;
+            if ((flags & 1 << 3) != 0)
+                Y = in.get() & 0xff;
+            if ((flags & 1 << 4) != 0)
+                SP = in.get() & 0xff;
+            if ((flags & 1 << 5) != 0)
+                P = in.get() & 0xff;
+            cycle += cycles == TraceWriter.CYCLES_VARINT ? getVarint(in) : expectedCycles + cycles;
+        }
+        catch (BufferUnderflowException e)
+        {
+            throw new IllegalStateException("Truncated trace record at offset %d".formatted(position), e);
+        }
+        index++;
+        offset = position;
+        position += in.position() - start;
+        return true;
+    }
+
+    /**
+     * Save what decoding the records after the current one needs, see {@link #restoreState(ByteBuffer, long)}
+     * @param out - receives {@link #STATE_SIZE} bytes
+     */
+    void saveState(ByteBuffer out)
+    {
+        out.putLong(offset);
+        out.putLong(cycle);
+        out.putShort((short) PC);
+        out.putShort((short) operand);
+        out.put((byte) opcode);
+        out.put((byte) (position - offset));
+        out.put((byte) A);
+        out.put((byte) X);
+        out.put((byte) Y);
+        out.put((byte) SP);
+        out.put((byte) P);
+    }
+
+    /**
+     * Make a saved record the current one, {@link #next()} continues after it
+     * @param in - state saved by {@link #saveState(ByteBuffer)} with a reader of the same trace
+     * @param index - number of the saved record
+     */
+    void restoreState(ByteBuffer in, long index)
+    {
+        this.index = index;
+        offset = in.getLong();
+        cycle = in.getLong();
+        PC = in.getShort() & 0xffff;
+        operand = in.getShort() & 0xffff;
+        opcode = in.get() & 0xff;
+        position = offset + (in.get() & 0xff);
+        A = in.get() & 0xff;
+        X = in.get() & 0xff;
+        Y = in.get() & 0xff;
+        SP = in.get() & 0xff;
+        P = in.get() & 0xff;
+        try
+        {
+            channel.position(position);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear().flip();
+        eof = false;
+    }
+
+    private static long getVarint(ByteBuffer in)
+    {
+        long value = 0;
+        for (int shift = 0; ; shift += 7)
+        {
+            final var b = in.get();
+            value |= (long) (b & 0x7f) << shift;
+            if (b >= 0)
+                return value;
+        }
+    }
+
+    /**
+     * @return the record in the layout of {@link RingTraceBuffer#render(int)}
+     */
+    public String render()
+    {
+        return RingTraceBuffer.render(cycle, opcode, PC, SP, A, X, Y, P);
+    }
+
+    /**
+     * @return the status register of the record
+     */
+    public FlagRegister getFlags()
+    {
+        final var flags = new FlagRegister();
+        flags.setByteValue((short) P);
+        return flags;
+    }
+
+    /**
+     * Load the registers of the record into a cpu, as they were before the instruction ran. Memory and the
+     * cycle counter are left alone
+     * @param cpu - cpu to load
+     */
+    public void restore(CPU cpu)
+    {
+        cpu.setPC(PC);
+        cpu.setSP(SP);
+        cpu.setA((short) A);
+        cpu.setX((short) X);
+        cpu.setY((short) Y);
+        cpu.setF(getFlags());
+    }
+
+    @Override
+    public void close()
+    {
+        try
+        {
+            channel.close();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
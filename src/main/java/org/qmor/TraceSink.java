@@ -0,0 +1,37 @@
+package org.qmor;
+
+/**
+ * Receives machine state at the start of every instruction when attached to {@link CPU#setTraceSink(TraceSink)}.
+ * Called on the interpreter hot path, so implementations must not allocate or block.
+ */
+public interface TraceSink {
+    /**
+     * @param pc - address of the instruction
+     * @param opcode - opcode byte
+     * @param a - accumulator
+     * @param x - X register
+     * @param y - Y register
+     * @param sp - stack pointer
+     * @param p - flags register byte value
+     * @param cycle - cycle counter value before the instruction
+     */
+    void record(int pc, int opcode, int a, int x, int y, int sp, int p, long cycle);
+
+    /**
+     * What the cpu calls, with the operand of the instruction. Sinks keeping operands override it,
+     * by default it drops the operand
+     * @param pc - address of the instruction
+     * @param opcode - opcode byte
+     * @param operand - operand bytes, little endian, 0 if the instruction has none
+     * @param a - accumulator
+     * @param x - X register
+     * @param y - Y register
+     * @param sp - stack pointer
+     * @param p - flags register byte value
+     * @param cycle - cycle counter value before the instruction
+     */
+    default void record(int pc, int opcode, int operand, int a, int x, int y, int sp, int p, long cycle)
+    {
+        record(pc, opcode, a, x, y, sp, p, cycle);
+    }
+}
@@ -0,0 +1,321 @@
+package org.qmor;
+
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Writes every traced instruction to a file in a compact binary form, read back by {@link TraceReader}.
+ * <p>
+ * Records are delta encoded against the previous one, little endian:
+ * <pre>
+ * flags      bit 0 PC follows (the instruction is not where the previous one leads, see below),
+ *            bits 1-5 A, X, Y, SP, P follow (changed),
+ *            bits 6-7 cycle delta: 0-2 = static cycles of the previous opcode + 0-2, 3 = varint follows
+ * opcode     1 byte
+ * operand    0-2 bytes, as many as the addressing mode has
+ * PC         2 bytes
+ * registers  1 byte each, in flag order
+ * delta      unsigned LEB128 varint
+ * </pre>
+ * The first record carries everything. An instruction is expected after the previous one, at the target of a
+ * previous JMP or JSR, or at the target of a previous branch when the cycle delta shows the branch was taken.
+ * Straight line code without penalties takes flags, opcode, operand and the registers it changes: 2 to 4 bytes
+ * an instruction.
+ * <p>
+ * {@link #record} encodes into a large direct buffer; full buffers are handed to a background thread writing them
+ * through a {@link FileChannel}, so the cpu only waits when the disk falls behind by more than all buffers.
+ * Write errors are reported by the next buffer hand-over or {@link #close()}.
+ */
+public final class TraceWriter implements TraceSink, Closeable {
+    /**
+     * "TRC1", first int of the file
+     */
+    static final int MAGIC = 0x54524331;
+    static final int FLAG_PC = 1;
+    static final int CYCLES_SHIFT = 6;
+    static final int CYCLES_VARINT = 3;
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+    private static final int BUFFERS = 4;
+    /**
+     * longest record: flags, opcode, operand, PC, registers and a varint of a long
+     */
+    static final int MAX_RECORD = 1 + 1 + 2 + 2 + 5 + 10;
+    static final byte[] OPERAND_SIZE = new byte[256];
+    static final byte[] CYCLES = new byte[256];
+    private static final byte[] FLOW = new byte[256];
+    private static final byte FLOW_JUMP = 1;
+    private static final byte FLOW_BRANCH = 2;
+    static {
+        for (int i = 0; i < 256; i++)
+        {
+            final var op = OpCodes.decode(i);
+            OPERAND_SIZE[i] = (byte) op.getAddressMode().getOperandSize();
+            CYCLES[i] = (byte) op.getCycles();
+            if (op == OpCodes.JMP_ABSOLUTE || op == OpCodes.JSR)
+                FLOW[i] = FLOW_JUMP;
+            else if (op.getAddressMode() == AddressMode.RELATIVE)
+                FLOW[i] = FLOW_BRANCH;
+        }
+    }
+
+    /**
+     * @param pc - previous instruction
+     * @param opcode - its opcode
+     * @param operand - its operand
+     * @param cyclesCode - cycle delta code of the record after it
+     * @return where the record after it is expected, its PC is only written when it is elsewhere
+     */
+    static int impliedPc(int pc, int opcode, int operand, int cyclesCode)
+    {
+        final var next = (pc + 1 + OPERAND_SIZE[opcode]) & 0xffff;
+        return switch (FLOW[opcode])
+        {
+            case FLOW_JUMP -> operand;
+            //taken branches cost 1 or 2 cycles more
+            case FLOW_BRANCH -> cyclesCode == 1 || cyclesCode == 2 ? (next + (byte) operand) & 0xffff : next;
+            default -> next;
+        };
+    }
+
+    private final FileChannel channel;
+    private final BlockingQueue<ByteBuffer> full = new ArrayBlockingQueue<>(BUFFERS + 1);
+    private final BlockingQueue<ByteBuffer> free = new ArrayBlockingQueue<>(BUFFERS);
+    /**
+     * tells the background thread to stop
+     */
+    private final ByteBuffer end = ByteBuffer.allocate(0);
+    private final Thread thread;
+    private volatile IOException failure;
+    private ByteBuffer buffer;
+    private boolean closed;
+
+    //previous record
+    private int pc = -1;
+    private int opcode;
+    private int operand;
+    private int a = -1;
+    private int x = -1;
+    private int y = -1;
+    private int sp = -1;
+    private int p = -1;
+    private long cycle;
+    private int expectedCycles = -1;
+
+    /**
+     * records written
+     */
+    @Getter
+    private long records;
+
+    /**
+     * @param path - file to create or truncate
+     * @throws UncheckedIOException if it cannot be opened
+     */
+    public TraceWriter(Path path)
+    {
+        this(path, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param path - file to create or truncate
+     * @param bufferSize - size of each of the direct buffers
+     * @throws UncheckedIOException if it cannot be opened
+     */
+    public TraceWriter(Path path, int bufferSize)
+    {
+        if (bufferSize < MAX_RECORD + Integer.BYTES)
+            throw new IllegalArgumentException("Trace buffer too small: %d".formatted(bufferSize));
+        try
+        {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        for (int i = 0; i < BUFFERS - 1; i++)
+            free.add(ByteBuffer.allocateDirect(bufferSize).order(ByteOrder.LITTLE_ENDIAN));
+        buffer = ByteBuffer.allocateDirect(bufferSize).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        thread = new Thread(this::drain, "trace-writer " + path.getFileName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void record(int pc, int opcode, int a, int x, int y, int sp, int p, long cycle)
+    {
+        record(pc, opcode, 0, a, x, y, sp, p, cycle);
+    }
+
+    @Override
+    public void record(int pc, int opcode, int operand, int a, int x, int y, int sp, int p, long cycle)
+    {
+        if (buffer.remaining() < MAX_RECORD)
+            handOver();
+        final var out = buffer;
+        final var at = out.position();
+        out.position(at + 1);
+        opcode &= 0xff;
+        out.put((byte) opcode);
+        final var size = OPERAND_SIZE[opcode];
+        if (size > 0)
+            out.put((byte) operand);
+        if (size > 1)
+            out.put((byte) (operand >>> 8));
+        final var delta = cycle - this.cycle - expectedCycles;
+        final var cyclesCode = delta >= 0 && delta < CYCLES_VARINT && expectedCycles >= 0 ? (int) delta : CYCLES_VARINT;
+        int flags = cyclesCode << CYCLES_SHIFT;
+        if (this.pc < 0 || pc != impliedPc(this.pc, this.opcode, this.operand, cyclesCode))
+        {
+            flags |= FLAG_PC;
+            out.putShort((short) pc);
+        }
+        if (a != this.a)
+        {
+            flags |= 1 << 1;
+            out.put((byte) a);
+        }
+        if (x != this.x)
+        {
+            flags |= 1 << 2;
+            out.put((byte) x);
+        }
+        if (y != this.y)
+        {
+            flags |= 1 << 3;
+            out.put((byte) y);
+        }
+        if (sp != this.sp)
+        {
+            flags |= 1 << 4;
+            out.put((byte) sp);
+        }
+        if (p != this.p)
+        {
+            flags |= 1 << 5;
+            out.put((byte) p);
+        }
+        if (cyclesCode == CYCLES_VARINT)
+            putVarint(out, cycle - this.cycle);
+        out.put(at, (byte) flags);
+        this.pc = pc & 0xffff;
+        this.opcode = opcode;
+        this.operand = size == 0 ? 0 : size == 1 ? operand & 0xff : operand & 0xffff;
+        this.a = a;
+        this.x = x;
+        this.y = y;
+        this.sp = sp;
+        this.p = p;
+        this.cycle = cycle;
+        expectedCycles = CYCLES[opcode];
+        records++;
+    }
+
+    private static void putVarint(ByteBuffer out, long value)
+    {
+        while ((value & ~0x7fL) != 0)
+        {
+            out.put((byte) (value & 0x7f | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    /**
+     * queue the current buffer for writing and continue in a free one
+     */
+    private void handOver()
+    {
+        checkFailure();
+        buffer.flip();
+        try
+        {
+            full.put(buffer);
+            buffer = free.take();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing trace", e);
+        }
+        buffer.clear();
+    }
+
+    private void checkFailure()
+    {
+        if (failure != null)
+            throw new UncheckedIOException(failure);
+    }
+
+    /**
+     * background thread: write full buffers in order and recycle them
+     */
+    private void drain()
+    {
+        try
+        {
+            while (true)
+            {
+                final var next = full.take();
+                if (next == end)
+                    return;
+                try
+                {
+                    while (failure == null && next.hasRemaining())
+                        channel.write(next);
+                }
+                catch (IOException e)
+                {
+                    failure = e;
+                }
+                free.put(next);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Write everything recorded and close the file. Detach the writer from the cpu first
+     * @throws UncheckedIOException if writing failed
+     */
+    @Override
+    public void close()
+    {
+        if (closed)
+            return;
+        closed = true;
+        try
+        {
+            //there is always room for every buffer and the end marker
+            full.put(buffer.flip());
+            full.put(end);
+            thread.join();
+            channel.close();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while closing trace", e);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        checkFailure();
+    }
+}
@@ -0,0 +1,272 @@
+package org.qmor;
+
+import lombok.Getter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Machine code program with known end state, loaded from a listing in the workloads resource folder.
+ * <p>
+ * Listing format, one item per line:
+ * <pre>
+ * ; comment
+ * .entry 0200            initial PC
+ * .halt 0240             PC of the JMP-to-self ending the program
+ * .expect A=90           register value after halt (A, X or Y)
+ * .expect 00F0=90 01     memory content after halt
+ * .instructions 1234     instructions executed until halt
+ * .cycles 5678           cycles consumed until halt
+ * 0200: A9 00 ; LDA #0   code/data bytes at address, text after ';' is ignored
+ * 0236: A9 00 ; mul8: .. except a leading "name:", which labels the address
+ * </pre>
+ * All numbers except instruction and cycle counts are hex.
+ */
+@Getter
+public final class Workload {
+    private static final String FOLDER = "/workloads/";
+    private static final Pattern LABEL = Pattern.compile("^\\s*(\\w+):");
+
+    /**
+     * @param address - first address
+     * @param bytes - content
+     */
+    public record Segment(int address, byte[] bytes) {
+    }
+
+    private final String name;
+    private final String description;
+    private final int entry;
+    private final int halt;
+    private final long instructions;
+    private final long cycles;
+    private final List<Segment> segments;
+    private final Map<Register, Integer> expectedRegisters;
+    private final List<Segment> expectedMemory;
+    /**
+     * address -> label from the listing comments, e.g. subroutine names for {@link Profiler#labelAll(Map)}
+     */
+    private final Map<Integer, String> labels;
+
+    private Workload(String name, String description, int entry, int halt, long instructions, long cycles,
+                     List<Segment> segments, Map<Register, Integer> expectedRegisters, List<Segment> expectedMemory,
+                     Map<Integer, String> labels)
+    {
+        this.name = name;
+        this.description = description;
+        this.entry = entry;
+        this.halt = halt;
+        this.instructions = instructions;
+        this.cycles = cycles;
+        this.segments = segments;
+        this.expectedRegisters = expectedRegisters;
+        this.expectedMemory = expectedMemory;
+        this.labels = labels;
+    }
+
+    /**
+     * @return names of all bundled workloads, in index order
+     */
+    public static List<String> names()
+    {
+        final List<String> names = new ArrayList<>();
+        for (var line: readLines("index"))
+        {
+            if (!line.isBlank())
+                names.add(line.strip());
+        }
+        return names;
+    }
+
+    /**
+     * @return all bundled workloads
+     */
+    public static List<Workload> all()
+    {
+        return names().stream().map(Workload::load).toList();
+    }
+
+    /**
+     * @param name - workload name, see {@link #names()}
+     * @return parsed workload
+     */
+    public static Workload load(String name)
+    {
+        return parse(name, readLines(name + ".lst"));
+    }
+
+    static Workload parse(String name, List<String> lines)
+    {
+        final var hex = HexFormat.of();
+        final var description = new StringBuilder();
+        int entry = -1;
+        int halt = -1;
+        long instructions = -1;
+        long cycles = -1;
+        final List<Segment> segments = new ArrayList<>();
+        final Map<Register, Integer> registers = new EnumMap<>(Register.class);
+        final List<Segment> memory = new ArrayList<>();
+        final Map<Integer, String> labels = new TreeMap<>();
+        for (var raw: lines)
+        {
+            final var line = raw.strip();
+            if (line.isEmpty())
+                continue;
+            if (line.startsWith(";"))
+            {
+                if (!description.isEmpty())
+                    description.append(' ');
+                description.append(line.substring(1).strip());
+                continue;
+            }
+            if (line.startsWith("."))
+            {
+                final var parts = line.split("\\s+", 2);
+                final var arg = parts.length > 1 ? parts[1] : "";
+                switch (parts[0])
+                {
+                    case ".entry" -> entry = Integer.parseInt(arg, 16);
+                    case ".halt" -> halt = Integer.parseInt(arg, 16);
+                    case ".instructions" -> instructions = Long.parseLong(arg);
+                    case ".cycles" -> cycles = Long.parseLong(arg);
+                    case ".expect" -> {
+                        final var kv = arg.split("=", 2);
+                        final var key = kv[0].strip();
+                        if (key.length() == 1)
+                            registers.put(Register.valueOf(key), Integer.parseInt(kv[1].strip(), 16));
+                        else
+                            memory.add(new Segment(Integer.parseInt(key, 16), parseBytes(hex, kv[1])));
+                    }
+                    default -> throw new IllegalArgumentException("%s: unknown directive %s".formatted(name, parts[0]));
+                }
+                continue;
+            }
+            final var parts = line.split(";", 2);
+            final var code = parts[0];
+            final var colon = code.indexOf(':');
+            if (colon < 0)
+                throw new IllegalArgumentException("%s: malformed line %s".formatted(name, raw));
+            final var address = Integer.parseInt(code.substring(0, colon).strip(), 16);
+            if (parts.length > 1)
+            {
+                final var label = LABEL.matcher(parts[1]);
+                if (label.find())
+                    labels.put(address, label.group(1));
+            }
+            final var bytes = parseBytes(hex, code.substring(colon + 1));
+            final var last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            if (last != null && last.address() + last.bytes().length == address)
+            {
+                final var merged = new byte[last.bytes().length + bytes.length];
+                System.arraycopy(last.bytes(), 0, merged, 0, last.bytes().length);
+                System.arraycopy(bytes, 0, merged, last.bytes().length, bytes.length);
+                segments.set(segments.size() - 1, new Segment(last.address(), merged));
+            }
+            else
+            {
+                segments.add(new Segment(address, bytes));
+            }
+        }
+        if (entry < 0 || halt < 0)
+            throw new IllegalArgumentException("%s: .entry and .halt are required".formatted(name));
+        return new Workload(name, description.toString(), entry, halt, instructions, cycles,
+                List.copyOf(segments), Map.copyOf(registers), List.copyOf(memory), Map.copyOf(labels));
+    }
+
+    private static byte[] parseBytes(HexFormat hex, String text)
+    {
+        return hex.parseHex(text.strip().replaceAll("\\s+", ""));
+    }
+
+    private static List<String> readLines(String resource)
+    {
+        final var in = Workload.class.getResourceAsStream(FOLDER + resource);
+        if (in == null)
+            throw new IllegalArgumentException("Unknown workload resource " + resource);
+        try (var reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)))
+        {
+            return reader.lines().toList();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reset cpu, load the program and point PC at the entry
+     * @param cpu - machine to prepare
+     */
+    public void install(CPU cpu)
+    {
+        cpu.reset();
+        for (var segment: segments)
+            cpu.getMemory().load(segment.address(), segment.bytes());
+        cpu.setPC(entry);
+    }
+
+    /**
+     * Step cpu until PC reaches the halt address
+     * @param cpu - machine prepared with {@link #install(CPU)}
+     * @param cycleLimit - cycles after which the program is considered hung
+     * @throws IllegalStateException if the limit is exceeded
+     */
+    public void runToHalt(CPU cpu, long cycleLimit)
+    {
+        final var end = cpu.getCycles() + cycleLimit;
+        while (cpu.getPC() != halt)
+        {
+            if (cpu.getCycles() >= end)
+                throw new IllegalStateException("%s did not halt within %d cycles, %s".formatted(name, cycleLimit, cpu.printRegs()));
+            cpu.step();
+        }
+    }
+
+    /**
+     * Compare the end state with expectations
+     * @param cpu - machine after {@link #runToHalt(CPU, long)}
+     * @return mismatch descriptions, empty if the state is as expected
+     */
+    public List<String> verify(CPU cpu)
+    {
+        final List<String> errors = new ArrayList<>();
+        if (cpu.getPC() != halt)
+            errors.add("PC %04X, expected %04X".formatted(cpu.getPC(), halt));
+        if (instructions >= 0 && cpu.getInstructions() != instructions)
+            errors.add("instructions %d, expected %d".formatted(cpu.getInstructions(), instructions));
+        if (cycles >= 0 && cpu.getCycles() != cycles)
+            errors.add("cycles %d, expected %d".formatted(cpu.getCycles(), cycles));
+        expectedRegisters.forEach((register, value) ->
+        {
+            final int actual = switch (register)
+            {
+                case A -> cpu.getA();
+                case X -> cpu.getX();
+                case Y -> cpu.getY();
+                case NONE -> value;
+            };
+            if (actual != value)
+                errors.add("%s %02X, expected %02X".formatted(register, actual, value));
+        });
+        for (var expected: expectedMemory)
+        {
+            final var actual = cpu.getMemory().copyOf(expected.address(), expected.bytes().length);
+            for (int i = 0; i < actual.length; i++)
+            {
+                if (actual[i] != expected.bytes()[i])
+                    errors.add("$%04X %02X, expected %02X".formatted(expected.address() + i, actual[i] & 0xff, expected.bytes()[i] & 0xff));
+            }
+        }
+        return errors;
+    }
+}
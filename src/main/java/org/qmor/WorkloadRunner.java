@@ -0,0 +1,138 @@
+package org.qmor;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs bundled {@link Workload}s and reports emulation speed.
+ * <p>
+ * Usage: {@code WorkloadRunner [-r repeats] [-p] [name ...]}, all workloads are run when no name is given.
+ * With -p each workload is run once more under a {@link Profiler} and its cycles are written as collapsed stacks
+ * to name.folded, ready for flame graph tools.
+ */
+@Slf4j
+public final class WorkloadRunner {
+    /**
+     * budget after which a workload is considered hung
+     */
+    private static final long CYCLE_LIMIT = 100_000_000L;
+
+    /**
+     * @param name - workload name
+     * @param runs - number of runs measured
+     * @param instructions - instructions of all runs
+     * @param cycles - cycles of all runs
+     * @param nanos - wall clock time of all runs
+     */
+    public record Report(String name, int runs, long instructions, long cycles, long nanos) {
+        public double emulatedMHz()
+        {
+            return nanos == 0 ? 0 : cycles * 1e3 / nanos;
+        }
+
+        public double mips()
+        {
+            return nanos == 0 ? 0 : instructions * 1e3 / nanos;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "%-12s runs:%d instructions:%d cycles:%d %.2f MHz %.2f MIPS"
+                    .formatted(name, runs, instructions, cycles, emulatedMHz(), mips());
+        }
+    }
+
+    private WorkloadRunner()
+    {
+    }
+
+    /**
+     * Run workload repeatedly on a fresh machine and check its end state after every run
+     * @param workload - program to run
+     * @param runs - number of runs
+     * @return totals of all runs
+     * @throws IllegalStateException if the program does not halt or ends in an unexpected state
+     */
+    public static Report run(Workload workload, int runs)
+    {
+        final var cpu = new CPU(new Memory());
+        long instructions = 0;
+        long cycles = 0;
+        long nanos = 0;
+        for (int i = 0; i < runs; i++)
+        {
+            workload.install(cpu);
+            final var start = System.nanoTime();
+            workload.runToHalt(cpu, CYCLE_LIMIT);
+            nanos += System.nanoTime() - start;
+            final var errors = workload.verify(cpu);
+            if (!errors.isEmpty())
+                throw new IllegalStateException(workload.getName() + ": " + String.join(", ", errors));
+            instructions += cpu.getInstructions();
+            cycles += cpu.getCycles();
+        }
+        return new Report(workload.getName(), runs, instructions, cycles, nanos);
+    }
+
+    /**
+     * Run workload once with a profiler attached, subroutines are named after the listing labels
+     * @param workload - program to run
+     * @return profile of the run
+     */
+    public static Profiler profile(Workload workload)
+    {
+        final var cpu = new CPU(new Memory());
+        final var profiler = new Profiler();
+        profiler.labelAll(workload.getLabels());
+        cpu.setProfiler(profiler);
+        workload.install(cpu);
+        workload.runToHalt(cpu, CYCLE_LIMIT);
+        return profiler;
+    }
+
+    public static void main(String[] args)
+    {
+        int runs = 1000;
+        boolean profile = false;
+        final List<String> names = new ArrayList<>();
+        for (int i = 0; i < args.length; i++)
+        {
+            switch (args[i])
+            {
+                case "-r" -> runs = Integer.parseInt(args[++i]);
+                case "-p" -> profile = true;
+                default -> names.add(args[i]);
+            }
+        }
+        if (names.isEmpty())
+            names.addAll(Workload.names());
+        log.info("running {} x {}", names, runs);
+        for (var name: names)
+        {
+            final var workload = Workload.load(name);
+            //first pass warms the interpreter up and is not reported
+            run(workload, runs);
+            log.info("{}", run(workload, runs));
+            if (profile)
+            {
+                final var file = Path.of(name + ".folded");
+                try
+                {
+                    Files.writeString(file, profile(workload).collapsed(true));
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+                log.info("profile written to {}", file);
+            }
+        }
+    }
+}
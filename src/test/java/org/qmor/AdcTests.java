@@ -12,8 +12,8 @@ class AdcTests extends BaseCpuTest {
 	@Test
 	void testAdcImmediate() {
 		var op = OpCodes.ADC_IM;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x20;
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x20;
 		cpu.setA((short) 0x10);
 		cpu.getF().setFlag(Flag.C, false); // Очистка флага переноса
 		var cycles = new AtomicInteger(op.getCycles());
@@ -28,8 +28,8 @@ class AdcTests extends BaseCpuTest {
 	@Test
 	void testAdcImmediateWithCarry() {
 		var op = OpCodes.ADC_IM;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x42;
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x42;
 		cpu.setA((short) 0x10);
 		cpu.getF().setFlag(Flag.C, true); // Установка флага переноса
 		var cycles = new AtomicInteger(op.getCycles());
@@ -44,8 +44,8 @@ class AdcTests extends BaseCpuTest {
 	@Test
 	void testAdcImmediateWithOverflow() {
 		var op = OpCodes.ADC_IM;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x01;
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x01;
 		cpu.setA((short) 0xFF);
 		cpu.getF().setFlag(Flag.C, false); // Очистка флага переноса
 		var cycles = new AtomicInteger(op.getCycles());
@@ -60,8 +60,8 @@ class AdcTests extends BaseCpuTest {
 	@Test
 	void testAdcImmediateWithOverflowAndCarry() {
 		var op = OpCodes.ADC_IM;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x01;
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x01;
 		cpu.setA((short) 0xFF);
 		cpu.getF().setFlag(Flag.C, true); // Установка флага переноса
 		var cycles = new AtomicInteger(op.getCycles());
@@ -12,8 +12,8 @@ class AndTests extends BaseCpuTest{
         final var op = AND_IM;
         cpu.setA((short) 0);
         cpu.setPC(0x1000);
-        memory.data[0x1000] = (byte) op.getOpcode();
-        memory.data[0x1001] = 0;
+        memory.data()[0x1000] = (byte) op.getOpcode();
+        memory.data()[0x1001] = 0;
         var c = op.getCyclesAi();
         cpu.exec(c);
         assertEquals(0,c.get());
@@ -28,8 +28,8 @@ class AndTests extends BaseCpuTest{
         final var op = AND_IM;
         cpu.setA((short) 0xff);
         cpu.setPC(0x1000);
-        memory.data[0x1000] = (byte) op.getOpcode();
-        memory.data[0x1001] = (byte) 0xff;
+        memory.data()[0x1000] = (byte) op.getOpcode();
+        memory.data()[0x1001] = (byte) 0xff;
         var c = op.getCyclesAi();
         cpu.exec(c);
         assertEquals(0,c.get());
@@ -44,9 +44,9 @@ class AndTests extends BaseCpuTest{
         final var op = AND_ZP;
         cpu.setA((short) 0xCC);
         cpu.setPC(0x1000);
-        memory.data[0x0] = (byte) 0xaa;
-        memory.data[0x1000] = (byte) op.getOpcode();
-        memory.data[0x1001] = (byte) 0;
+        memory.data()[0x0] = (byte) 0xaa;
+        memory.data()[0x1000] = (byte) op.getOpcode();
+        memory.data()[0x1001] = (byte) 0;
         var c = op.getCyclesAi();
         cpu.exec(c);
         assertEquals(0,c.get());
@@ -62,9 +62,9 @@ class AndTests extends BaseCpuTest{
         cpu.setA((short) 0xCC);
         cpu.setX((short) 1);
         cpu.setPC(0x1000);
-        memory.data[0x1] = (byte) 0xaa;
-        memory.data[0x1000] = (byte) op.getOpcode();
-        memory.data[0x1001] = (byte) 0;
+        memory.data()[0x1] = (byte) 0xaa;
+        memory.data()[0x1000] = (byte) op.getOpcode();
+        memory.data()[0x1001] = (byte) 0;
         var c = op.getCyclesAi();
         cpu.exec(c);
         assertEquals(0,c.get());
@@ -79,10 +79,10 @@ class AndTests extends BaseCpuTest{
         final var op = AND_ABSOLUTE;
         cpu.setA((short) 0xAA);
         cpu.setPC(0x1000);
-        memory.data[0x1234] = (byte) 0x55;
-        memory.data[0x1000] = (byte) op.getOpcode();
-        memory.data[0x1001] = (byte) 0x34;
-        memory.data[0x1002] = (byte) 0x12;
+        memory.data()[0x1234] = (byte) 0x55;
+        memory.data()[0x1000] = (byte) op.getOpcode();
+        memory.data()[0x1001] = (byte) 0x34;
+        memory.data()[0x1002] = (byte) 0x12;
         var c = op.getCyclesAi();
         cpu.exec(c);
         assertEquals(0,c.get());
@@ -98,10 +98,10 @@ class AndTests extends BaseCpuTest{
         cpu.setA((short) 0xAA);
         cpu.setPC(0x1000);
         cpu.setX((short) 1);
-        memory.data[0x1235] = (byte) 0x5f;
-        memory.data[0x1000] = (byte) op.getOpcode();
-        memory.data[0x1001] = (byte) 0x34;
-        memory.data[0x1002] = (byte) 0x12;
+        memory.data()[0x1235] = (byte) 0x5f;
+        memory.data()[0x1000] = (byte) op.getOpcode();
+        memory.data()[0x1001] = (byte) 0x34;
+        memory.data()[0x1002] = (byte) 0x12;
         var c = op.getCyclesAi();
         cpu.exec(c);
         assertEquals(0,c.get());
@@ -117,10 +117,10 @@ class AndTests extends BaseCpuTest{
         cpu.setA((short) 0xAA);
         cpu.setPC(0x1000);
         cpu.setY((short) 1);
-        memory.data[0x1235] = (byte) 0x5f;
-        memory.data[0x1000] = (byte) op.getOpcode();
-        memory.data[0x1001] = (byte) 0x34;
-        memory.data[0x1002] = (byte) 0x12;
+        memory.data()[0x1235] = (byte) 0x5f;
+        memory.data()[0x1000] = (byte) op.getOpcode();
+        memory.data()[0x1001] = (byte) 0x34;
+        memory.data()[0x1002] = (byte) 0x12;
         var c = op.getCyclesAi();
         cpu.exec(c);
         assertEquals(0,c.get());
@@ -136,11 +136,11 @@ class AndTests extends BaseCpuTest{
         cpu.setA((short) 0xAA);
         cpu.setPC(0x1000);
         cpu.setX((short) 1);
-        memory.data[0x1234] = (byte) 0x5f;
-        memory.data[0x1000] = (byte) op.getOpcode();
-        memory.data[0x1001] = (byte) 2;
-        memory.data[0x3] = (byte) 0x34;
-        memory.data[0x4] = (byte) 0x12;
+        memory.data()[0x1234] = (byte) 0x5f;
+        memory.data()[0x1000] = (byte) op.getOpcode();
+        memory.data()[0x1001] = (byte) 2;
+        memory.data()[0x3] = (byte) 0x34;
+        memory.data()[0x4] = (byte) 0x12;
         var c = op.getCyclesAi();
         cpu.exec(c);
         assertEquals(0,c.get());
@@ -157,11 +157,11 @@ class AndTests extends BaseCpuTest{
         cpu.setA((short) 0xAA);
         cpu.setPC(0x1000);
         cpu.setY((short) 1);
-        memory.data[0x1234] = (byte) 0x5f;
-        memory.data[0x1000] = (byte) op.getOpcode();
-        memory.data[0x1001] = (byte) 2;
-        memory.data[0x2] = (byte) 0x33;
-        memory.data[0x3] = (byte) 0x12;
+        memory.data()[0x1234] = (byte) 0x5f;
+        memory.data()[0x1000] = (byte) op.getOpcode();
+        memory.data()[0x1001] = (byte) 2;
+        memory.data()[0x2] = (byte) 0x33;
+        memory.data()[0x3] = (byte) 0x12;
         var c = op.getCyclesAi();
         cpu.exec(c);
         assertEquals(0,c.get());
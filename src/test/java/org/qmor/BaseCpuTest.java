@@ -2,6 +2,8 @@ package org.qmor;
 
 import org.junit.jupiter.api.BeforeEach;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 public class BaseCpuTest {
     protected final Memory memory = new Memory();
     protected final CPU cpu = new CPU(memory);
@@ -10,4 +12,19 @@ public class BaseCpuTest {
     protected void setup() {
         cpu.reset();
     }
+
+    /**
+     * Registers, status byte, counters and all of memory are equal
+     * @param expected - reference machine
+     * @param actual - machine under test
+     * @param message - identifies the case
+     */
+    protected static void assertSameState(CPU expected, CPU actual, String message)
+    {
+        assertEquals(expected.printRegs(), actual.printRegs(), message);
+        assertEquals(expected.getF().getByteValue(), actual.getF().getByteValue(), message);
+        assertEquals(expected.getCycles(), actual.getCycles(), message);
+        assertEquals(expected.getInstructions(), actual.getInstructions(), message);
+        assertEquals(-1, expected.getMemory().mismatch(actual.getMemory()), message);
+    }
 }
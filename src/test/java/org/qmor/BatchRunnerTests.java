@@ -0,0 +1,158 @@
+package org.qmor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchRunnerTests {
+
+    //LDA $10 / CLC / ADC #$01 / STA $0200 / INC $0201 / LDX $0201 / JMP $0310
+    private static final byte[] PGM = HexFormat.of().parseHex("a5101869018d0002ee0102ae01024c1003");
+
+    @Test
+    void runsEveryJobOnCleanMachine()
+    {
+        final var pool = new ForkJoinPool(4);
+        try
+        {
+            final var runner = new BatchRunner(PGM, 0x0300, 0x0300, 1000, pool).capture(0x0200, 2);
+            runner.setHaltAddress(0x0310);
+            final var jobs = 1000;
+            final var result = runner.run(IntStream.range(0, jobs).mapToObj(i -> (Consumer<CPU>) cpu -> cpu.getMemory().write(0x10, (byte) i)));
+            assertEquals(jobs, result.results().size());
+            for (int i = 0; i < jobs; i++)
+            {
+                final var r = result.results().get(i);
+                assertEquals(i, r.index());
+                assertTrue(r.halted());
+                assertEquals(0x0310, r.pc());
+                assertEquals((i + 1) & 0xff, r.a());
+                assertEquals((i + 1) & 0xff, r.memory()[0][0] & 0xff);
+                //INC $0201 must see a clean page, not the previous job's value
+                assertEquals(1, r.memory()[0][1]);
+                assertEquals(1, r.x());
+                assertEquals(7, r.instructions());
+            }
+            final var stats = result.stats();
+            assertEquals(jobs, stats.jobs());
+            assertEquals(jobs * 7L, stats.instructions());
+            assertEquals(jobs * result.results().get(0).cycles(), stats.cycles());
+            assertTrue(stats.elapsedNanos() > 0);
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void jobsRunLikeSingleMachine()
+    {
+        //LDX #0 / INX / CPX #200 / BNE -5 / JMP $0307, NMI handler at $0310: INC $20 / RTI
+        final var program = HexFormat.of().parseHex("a200e8e0c8d0fb4c0703000000000000e62040");
+        final List<Consumer<CPU>> setups = IntStream.range(0, 64).mapToObj(i -> (Consumer<CPU>) cpu ->
+        {
+            cpu.getMemory().load(CPU.NMI_VECTOR, new byte[]{0x10, 0x03});
+            cpu.getScheduler().schedule(20 + i * 17L, (c, cycle) -> c.nmi());
+        }).toList();
+        for (var jit : new boolean[]{false, true})
+        {
+            final var runner = new BatchRunner(program, 0x0300, 0x0300, 10_000).capture(0x20, 1);
+            runner.setHaltAddress(0x0307);
+            runner.setJitEnabled(jit);
+            final var results = runner.run(setups).results();
+            for (int i = 0; i < setups.size(); i++)
+            {
+                final var cpu = new CPU(new Memory());
+                cpu.reset();
+                cpu.getMemory().load(0x0300, program);
+                cpu.setPC(0x0300);
+                cpu.setBreakpoints(new Breakpoints().add(Coverage.Access.EXECUTE, 0x0307));
+                setups.get(i).accept(cpu);
+                cpu.run(10_000);
+                final var r = results.get(i);
+                assertTrue(r.halted());
+                assertEquals(1, r.memory()[0][0], "NMI served, job " + i);
+                assertEquals(cpu.getPC(), r.pc());
+                assertEquals(cpu.getX(), r.x());
+                assertEquals(cpu.getSP(), r.sp());
+                assertEquals(cpu.getF().getByteValue(), r.p());
+                assertEquals(cpu.getCycles(), r.cycles(), "job " + i);
+                assertEquals(cpu.getInstructions(), r.instructions());
+            }
+        }
+    }
+
+    @Test
+    void stopsAtCycleBudgetWithoutHaltAddress()
+    {
+        final var runner = new BatchRunner(HexFormat.of().parseHex("4c0003"), 0x0300, 0x0300, 30);
+        final var result = runner.run(List.of(cpu -> {}, cpu -> cpu.setX((short) 5)));
+        assertFalse(result.results().get(0).halted());
+        assertEquals(30, result.results().get(0).cycles());
+        assertEquals(10, result.results().get(1).instructions());
+        assertEquals(5, result.results().get(1).x());
+    }
+
+    @Test
+    void jobDoesNotSeeSettingsOfPreviousJob()
+    {
+        //LDA $D000 / STA $20 / JMP $0305
+        final var program = HexFormat.of().parseHex("ad00d085204c0503");
+        final var pool = new ForkJoinPool(1);
+        try
+        {
+            final var runner = new BatchRunner(program, 0x0300, 0x0300, 1000, pool).capture(0x20, 1);
+            runner.setHaltAddress(0x0305);
+            final var seen = new Object[5];
+            final var results = runner.run(List.of(cpu ->
+            {
+                cpu.getF().setFlag(Flag.I);
+                cpu.getBus().map(0xd0, 1, new Device() {
+                    @Override
+                    public short read(int address)
+                    {
+                        return 0x42;
+                    }
+
+                    @Override
+                    public void write(int address, byte value)
+                    {
+                    }
+                });
+                cpu.setIrq(3, true);
+                cpu.setTiming(TimingMode.STATIC);
+                cpu.setIdleSkipEnabled(false);
+                cpu.setTraceSink((pc, opcode, a, x, y, sp, p, cycle) -> {});
+                cpu.setBreakpoints(new Breakpoints());
+            }, cpu ->
+            {
+                seen[0] = cpu.getIrqSources();
+                seen[1] = cpu.getBus().getDevice(0xd000);
+                seen[2] = cpu.getTiming();
+                seen[3] = cpu.getTraceSink();
+                seen[4] = cpu.getBreakpoints().isSet(Coverage.Access.EXECUTE, 0x0305);
+            })).results();
+            assertEquals(0x42, results.get(0).a());
+            assertEquals(0x42, results.get(0).memory()[0][0]);
+            assertEquals(0, seen[0], "IRQ released");
+            assertNull(seen[1], "device unmapped");
+            assertEquals(TimingMode.BUS_ACCURATE, seen[2]);
+            assertNull(seen[3], "trace sink detached");
+            assertEquals(true, seen[4], "halt breakpoint attached");
+            assertTrue(results.get(1).halted());
+            assertEquals(0, results.get(1).a());
+            assertEquals(0, results.get(1).memory()[0][0]);
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+}
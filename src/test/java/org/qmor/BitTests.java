@@ -12,9 +12,9 @@ class BitTests extends BaseCpuTest{
         final var op = BIT_ZP;
         cpu.setA((short) 0x81);
         cpu.setPC(0x1000);
-        memory.data[0] = 0;
-        memory.data[0x1000] = (byte) op.getOpcode();
-        memory.data[0x1001] = 0;
+        memory.data()[0] = 0;
+        memory.data()[0x1000] = (byte) op.getOpcode();
+        memory.data()[0x1001] = 0;
         var c = op.getCyclesAi();
         cpu.exec(c);
         assertEquals(0,c.get());
@@ -31,9 +31,9 @@ class BitTests extends BaseCpuTest{
         final var op = BIT_ZP;
         cpu.setA((short) 0x81);
         cpu.setPC(0x1000);
-        memory.data[0] = 1;
-        memory.data[0x1000] = (byte) op.getOpcode();
-        memory.data[0x1001] = 0;
+        memory.data()[0] = 1;
+        memory.data()[0x1000] = (byte) op.getOpcode();
+        memory.data()[0x1001] = 0;
         var c = op.getCyclesAi();
         cpu.exec(c);
         assertEquals(0,c.get());
@@ -50,10 +50,10 @@ class BitTests extends BaseCpuTest{
         final var op = BIT_ZP;
         cpu.setA((short) 0x81);
         cpu.setPC(0x1000);
-        memory.data[0] = 1<<6;
-        memory.data[0x1000] = (byte) op.getOpcode();
-        memory.data[0x1001] = 0;
-        memory.data[0x1002] = 0;
+        memory.data()[0] = 1<<6;
+        memory.data()[0x1000] = (byte) op.getOpcode();
+        memory.data()[0x1001] = 0;
+        memory.data()[0x1002] = 0;
         var c = op.getCyclesAi();
         cpu.exec(c);
         assertEquals(0,c.get());
@@ -70,10 +70,10 @@ class BitTests extends BaseCpuTest{
         final var op = BIT_ZP;
         cpu.setA((short) 0x81);
         cpu.setPC(0x1000);
-        memory.data[0] = (byte) 0xC0;
-        memory.data[0x1000] = (byte) op.getOpcode();
-        memory.data[0x1001] = 0;
-        memory.data[0x1002] = 0;
+        memory.data()[0] = (byte) 0xC0;
+        memory.data()[0x1000] = (byte) op.getOpcode();
+        memory.data()[0x1001] = 0;
+        memory.data()[0x1002] = 0;
         var c = op.getCyclesAi();
         cpu.exec(c);
         assertEquals(0,c.get());
@@ -0,0 +1,71 @@
+package org.qmor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BranchTests extends BaseCpuTest {
+
+    private void branch(OpCodes op, int at, byte offset)
+    {
+        cpu.setPC(at);
+        memory.data()[at] = (byte) op.getOpcode();
+        memory.data()[at + 1] = offset;
+    }
+
+    @Test
+    void notTakenTest()
+    {
+        branch(OpCodes.BEQ, 0x1000, (byte) 0x10);
+        cpu.getF().setFlag(Flag.Z, false);
+        var cycles = new AtomicInteger(2);
+        cpu.exec(cycles);
+        assertEquals(0, cycles.get());
+        assertEquals(0x1002, cpu.getPC());
+    }
+
+    @Test
+    void takenForwardTest()
+    {
+        branch(OpCodes.BNE, 0x1000, (byte) 0x10);
+        cpu.getF().setFlag(Flag.Z, false);
+        var cycles = new AtomicInteger(3);
+        cpu.exec(cycles);
+        assertEquals(0, cycles.get());
+        assertEquals(0x1012, cpu.getPC());
+    }
+
+    @Test
+    void takenBackwardAcrossPageTest()
+    {
+        branch(OpCodes.BCS, 0x1000, (byte) -4);
+        cpu.getF().setFlag(Flag.C, true);
+        var cycles = new AtomicInteger(4);
+        cpu.exec(cycles);
+        assertEquals(0, cycles.get());
+        assertEquals(0x0ffe, cpu.getPC());
+    }
+
+    @Test
+    void conditionsTest()
+    {
+        record Case(OpCodes op, Flag flag, boolean takenWhenSet) {}
+        for (var c: new Case[]{
+                new Case(OpCodes.BPL, Flag.N, false), new Case(OpCodes.BMI, Flag.N, true),
+                new Case(OpCodes.BVC, Flag.V, false), new Case(OpCodes.BVS, Flag.V, true),
+                new Case(OpCodes.BCC, Flag.C, false), new Case(OpCodes.BCS, Flag.C, true),
+                new Case(OpCodes.BNE, Flag.Z, false), new Case(OpCodes.BEQ, Flag.Z, true)})
+        {
+            for (var set: new boolean[]{false, true})
+            {
+                cpu.reset();
+                branch(c.op(), 0x2000, (byte) 0x20);
+                cpu.getF().setFlag(c.flag(), set);
+                cpu.step();
+                assertEquals(set == c.takenWhenSet() ? 0x2022 : 0x2002, cpu.getPC(), c.op() + " " + set);
+            }
+        }
+    }
+}
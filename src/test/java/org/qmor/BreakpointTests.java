@@ -0,0 +1,216 @@
+package org.qmor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BreakpointTests extends BaseCpuTest {
+
+    private static CPU multiply(Consumer<CPU> config, Breakpoints breakpoints)
+    {
+        final var cpu = new CPU(new Memory());
+        config.accept(cpu);
+        cpu.setBreakpoints(breakpoints);
+        Workload.load("multiply").install(cpu);
+        return cpu;
+    }
+
+    @Test
+    void stopsBeforeBreakpointTest()
+    {
+        final var workload = Workload.load("multiply");
+        final var cpu = multiply(c -> {}, new Breakpoints().add(Coverage.Access.EXECUTE, 0x233));
+        final var result = cpu.run(1_000_000);
+        assertEquals(new Breakpoints.Hit(Coverage.Access.EXECUTE, 0x233, 0x233), result.hit());
+        assertEquals(0x233, cpu.getPC());
+        assertEquals(workload.getCycles(), cpu.getCycles());
+        assertEquals(workload.getInstructions(), result.instructions());
+        assertEquals(List.of(), workload.verify(cpu));
+    }
+
+    @Test
+    void resumePassesOverBreakpointTest()
+    {
+        final var breakpoints = new Breakpoints().add(Coverage.Access.EXECUTE, 0x236);
+        final var cpu = multiply(c -> {}, breakpoints);
+        for (int call = 0; call < 32; call++)
+        {
+            final var result = cpu.run(1_000_000);
+            assertNotNull(result.hit(), "call " + call);
+            assertEquals(0x236, cpu.getPC());
+            assertEquals(call * 2, cpu.getY());
+        }
+        final var last = cpu.run(1_000_000);
+        assertNull(last.hit());
+        assertTrue(last.cycles() >= 1_000_000);
+
+        //removing it restores the plain run
+        breakpoints.remove(Coverage.Access.EXECUTE, 0x236);
+        assertTrue(breakpoints.isEmpty());
+        cpu.run(1000);
+        assertTrue(cpu.getIdleCyclesSkipped() > 0);
+    }
+
+    @Test
+    void breakpointsKeepCompiledBlocksTest()
+    {
+        final var workload = Workload.load("multiply");
+        final var reference = multiply(c -> {}, null);
+        final var breakpoints = new Breakpoints().add(Coverage.Access.EXECUTE, 0x236);
+        final var cpu = multiply(c -> c.setJitEnabled(true), breakpoints);
+        //a breakpoint in the hot loop stops it every pass, exactly where the interpreter is
+        for (int call = 0; call < 32; call++)
+        {
+            assertNotNull(cpu.run(1_000_000).hit(), "call " + call);
+            assertEquals(0x236, cpu.getPC());
+            reference.run(cpu.getCycles() - reference.getCycles());
+            assertEquals(reference.getCycles(), cpu.getCycles(), "call " + call);
+        }
+        breakpoints.clear();
+        breakpoints.add(Coverage.Access.EXECUTE, 0x233);
+        final var result = cpu.run(1_000_000);
+        assertEquals(new Breakpoints.Hit(Coverage.Access.EXECUTE, 0x233, 0x233), result.hit());
+        assertEquals(workload.getCycles(), cpu.getCycles());
+        assertEquals(List.of(), workload.verify(cpu));
+        assertTrue(cpu.getJit().getCompiledBlocks() > 0);
+    }
+
+    @Test
+    void stopsAfterWriteTest()
+    {
+        final var workload = Workload.load("multiply");
+        final var reference = multiply(c -> {}, null);
+        workload.runToHalt(reference, 1_000_000);
+        final List<Consumer<CPU>> configs = List.of(
+                c -> {},
+                c -> c.setCore(ExecutionCore.HANDLERS),
+                c -> c.setPredecodeEnabled(true),
+                c -> c.setJitEnabled(true),
+                c -> c.setTiming(TimingMode.STATIC));
+        for (int i = 0; i < configs.size(); i++)
+        {
+            final var cpu = multiply(configs.get(i), new Breakpoints().add(Coverage.Access.WRITE, 0x511));
+            final var result = cpu.run(1_000_000);
+            //STA $0501,Y of the ninth product
+            assertEquals(new Breakpoints.Hit(Coverage.Access.WRITE, 0x511, 0x21c), result.hit(), "config " + i);
+            assertEquals(0x21f, cpu.getPC(), "config " + i);
+            assertEquals(0x10, cpu.getY(), "config " + i);
+            //the pause is invisible in the counters
+            assertNull(cpu.run(reference.getCycles() - cpu.getCycles()).hit(), "config " + i);
+            assertEquals(0x233, cpu.getPC(), "config " + i);
+            assertEquals(reference.getCycles(), cpu.getCycles(), "config " + i);
+            assertEquals(reference.getInstructions(), cpu.getInstructions(), "config " + i);
+        }
+    }
+
+    @Test
+    void readWatchpointTest()
+    {
+        //LDA $10 / LDX $11 / JMP $0204
+        memory.load(0x200, HexFormat.of().parseHex("a510a6114c0402"));
+        final var breakpoints = new Breakpoints().add(Coverage.Access.READ, 0x11, 0x12);
+        cpu.setBreakpoints(breakpoints);
+        cpu.setPC(0x200);
+        final var result = cpu.run(1000);
+        assertEquals(new Breakpoints.Hit(Coverage.Access.READ, 0x11, 0x202), result.hit());
+        assertEquals(2, result.instructions());
+        assertEquals(6, result.cycles());
+        assertEquals(0x204, cpu.getPC());
+        assertEquals(2, breakpoints.size());
+        assertTrue(breakpoints.isSet(Coverage.Access.READ, 0x12));
+        assertFalse(breakpoints.isSet(Coverage.Access.WRITE, 0x12));
+    }
+
+    @Test
+    void stackAndVectorWatchpointTest()
+    {
+        //BRK, handler RTI
+        memory.load(0x200, new byte[]{0x00, (byte) 0xff});
+        memory.load(0x300, new byte[]{0x40});
+        memory.load(CPU.IRQ_VECTOR, new byte[]{0x00, 0x03});
+        final var breakpoints = new Breakpoints().add(Coverage.Access.WRITE, 0x1fe);
+        cpu.setBreakpoints(breakpoints);
+        cpu.setPC(0x200);
+        assertEquals(new Breakpoints.Hit(Coverage.Access.WRITE, 0x1fe, 0x200), cpu.run(1000).hit());
+        assertEquals(0x300, cpu.getPC());
+        assertEquals(7, cpu.getCycles());
+
+        breakpoints.clear();
+        breakpoints.add(Coverage.Access.READ, CPU.IRQ_VECTOR + 1);
+        cpu.setPC(0x200);
+        assertEquals(new Breakpoints.Hit(Coverage.Access.READ, 0xffff, 0x200), cpu.run(1000).hit());
+    }
+
+    @Test
+    void interruptEntryWatchpointTest()
+    {
+        //CLI / JMP $0201, handler at $0300
+        memory.load(0x200, HexFormat.of().parseHex("584c0102"));
+        memory.load(0x300, HexFormat.of().parseHex("4c0003"));
+        memory.load(CPU.IRQ_VECTOR, new byte[]{0x00, 0x03});
+        cpu.getScheduler().schedule(100, (c, cycle) -> c.setIrq(0, true));
+        cpu.setBreakpoints(new Breakpoints().add(Coverage.Access.WRITE, 0x1fd));
+        cpu.setPC(0x200);
+        final var result = cpu.run(1000);
+        assertEquals(new Breakpoints.Hit(Coverage.Access.WRITE, 0x1fd, 0x201), result.hit());
+        assertEquals(0x300, cpu.getPC());
+    }
+
+    @Test
+    void addedFromEventTest()
+    {
+        for (var jit : new boolean[]{false, true})
+        {
+            final var breakpoints = new Breakpoints();
+            final var cpu = multiply(c -> c.setJitEnabled(jit), breakpoints);
+            cpu.getScheduler().schedule(1000, (c, cycle) -> breakpoints.add(Coverage.Access.EXECUTE, 0x236));
+            final var result = cpu.run(1_000_000);
+            assertNotNull(result.hit(), "jit " + jit);
+            assertEquals(0x236, cpu.getPC());
+            assertTrue(cpu.getCycles() < 2000, "jit " + jit);
+        }
+    }
+
+    @Test
+    void addedFromDeviceTest()
+    {
+        //STA $C000 / STA $10 / JMP $0205, writing the device sets a watchpoint on $10
+        final var breakpoints = new Breakpoints();
+        cpu.getBus().map(0xc0, 1, new Device() {
+            @Override
+            public short read(int address)
+            {
+                return 0;
+            }
+
+            @Override
+            public void write(int address, byte value)
+            {
+                breakpoints.add(Coverage.Access.WRITE, 0x10);
+            }
+        });
+        memory.load(0x200, HexFormat.of().parseHex("8d00c085104c0502"));
+        cpu.setBreakpoints(breakpoints);
+        cpu.setPC(0x200);
+        final var result = cpu.run(1000);
+        assertEquals(new Breakpoints.Hit(Coverage.Access.WRITE, 0x10, 0x203), result.hit());
+        assertEquals(0x205, cpu.getPC());
+        assertEquals(OpCodes.STA_ABSOLUTE.getCycles() + OpCodes.STA_ZP.getCycles(), cpu.getCycles());
+    }
+
+    @Test
+    void badRangeTest()
+    {
+        final var breakpoints = new Breakpoints();
+        assertThrows(IllegalArgumentException.class, () -> breakpoints.add(Coverage.Access.EXECUTE, 0x10000));
+        assertThrows(IllegalArgumentException.class, () -> breakpoints.add(Coverage.Access.READ, 0x20, 0x10));
+        breakpoints.add(Coverage.Access.WRITE, 0, 0xffff);
+        assertEquals(Memory.MEM_SIZE, breakpoints.size());
+        breakpoints.remove(Coverage.Access.WRITE, 0, 0xffff);
+        assertTrue(breakpoints.isEmpty());
+    }
+}
@@ -0,0 +1,90 @@
+package org.qmor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BusTests extends BaseCpuTest {
+
+    private static final class Latch implements Device {
+        int reads;
+        int lastAddress = -1;
+        byte lastValue;
+
+        @Override
+        public short read(int address)
+        {
+            reads++;
+            return 0x5a;
+        }
+
+        @Override
+        public void write(int address, byte value)
+        {
+            lastAddress = address;
+            lastValue = value;
+        }
+    }
+
+    @Test
+    void devicePagesServeCpuAccess()
+    {
+        var io = new Latch();
+        cpu.getBus().map(0xd0, 1, io);
+        var pgm = HexFormat.of().parseHex("ad20d08d21d0");//LDA $D020 STA $D021
+        System.arraycopy(pgm,0,memory.data(),0x1000,pgm.length);
+        cpu.setPC(0x1000);
+        cpu.run(OpCodes.LDA_ABSOLUTE.getCycles()+OpCodes.STA_ABSOLUTE.getCycles());
+        assertEquals(0x5a, cpu.getA());
+        assertEquals(1, io.reads);
+        assertEquals(0xd021, io.lastAddress);
+        assertEquals(0x5a, io.lastValue);
+        assertEquals(0, memory.data()[0xd021]);
+    }
+
+    @Test
+    void romIgnoresWrites()
+    {
+        var bus = cpu.getBus();
+        bus.map(0xff, 1, new Rom(0xff00, HexFormat.of().parseHex("a942")));
+        bus.write(0xff00, (byte) 0);
+        assertEquals(0xa9, bus.read(0xff00));
+        assertEquals(0x42, bus.read(0xff01));
+        assertEquals(0, bus.read(0xff02));
+    }
+
+    @Test
+    void mirrorRepeatsWindow()
+    {
+        var bus = cpu.getBus();
+        bus.map(0x08, 0x18, new Mirror(bus, 0x0000, 0x800));
+        bus.write(0x0801, (byte) 0x33);
+        assertEquals(0x33, memory.data()[0x0001]);
+        assertEquals(0x33, bus.read(0x1801));
+        assertEquals(0x33, bus.read(0x0001));
+    }
+
+    @Test
+    void unmapRestoresRam()
+    {
+        var bus = cpu.getBus();
+        memory.data()[0xd000] = 7;
+        bus.map(0xd0, 1, new Latch());
+        assertNotNull(bus.getDevice(0xd0ff));
+        assertEquals(0x5a, bus.read(0xd000));
+        bus.unmap(0xd0, 1);
+        assertNull(bus.getDevice(0xd0ff));
+        assertEquals(7, bus.read(0xd000));
+        assertThrows(IllegalArgumentException.class, () -> bus.map(0xff, 2, new Latch()));
+        assertThrows(IllegalArgumentException.class, () -> bus.map(0, 1, null));
+    }
+
+    @Test
+    void addressesWrapAround()
+    {
+        memory.data()[0x0002] = 9;
+        assertEquals(9, cpu.getBus().read(0x10002));
+    }
+}
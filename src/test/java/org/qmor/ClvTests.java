@@ -12,7 +12,7 @@ class ClvTests extends BaseCpuTest {
 	@Test
 	void testClv() {
 		var op = OpCodes.CLV;
-		memory.data[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffc] = (byte) op.getOpcode();
 		cpu.getF().setFlag(Flag.V, true); // Set the overflow flag
 		var cycles = new AtomicInteger(op.getCycles());
 		cpu.exec(cycles);
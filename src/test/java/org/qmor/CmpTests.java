@@ -12,8 +12,8 @@ class CmpTests extends BaseCpuTest {
 	@Test
 	void testCmpImmediateEqual() {
 		var op = OpCodes.CMP_IM;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x42;
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x42;
 		cpu.setA((short) 0x42);
 		var cycles = new AtomicInteger(op.getCycles());
 		cpu.exec(cycles);
@@ -26,8 +26,8 @@ class CmpTests extends BaseCpuTest {
 	@Test
 	void testCmpImmediateLess() {
 		var op = OpCodes.CMP_IM;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x42;
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x42;
 		cpu.setA((short) 0x30);
 		var cycles = new AtomicInteger(op.getCycles());
 		cpu.exec(cycles);
@@ -40,8 +40,8 @@ class CmpTests extends BaseCpuTest {
 	@Test
 	void testCmpImmediateGreater() {
 		var op = OpCodes.CMP_IM;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x42;
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x42;
 		cpu.setA((short) 0x50);
 		var cycles = new AtomicInteger(op.getCycles());
 		cpu.exec(cycles);
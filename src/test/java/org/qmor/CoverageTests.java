@@ -0,0 +1,174 @@
+package org.qmor;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoverageTests extends BaseCpuTest {
+
+    private static Coverage cover(String workload, Consumer<CPU> config)
+    {
+        final var w = Workload.load(workload);
+        final var cpu = new CPU(new Memory());
+        config.accept(cpu);
+        final var coverage = new Coverage();
+        cpu.setCoverage(coverage);
+        w.install(cpu);
+        w.runToHalt(cpu, 10_000_000);
+        return coverage;
+    }
+
+    @Test
+    void workloadCoverageTest()
+    {
+        //the halt instruction is never executed
+        final var coverage = cover("multiply", c -> {});
+        assertEquals("""
+                X 0200-0232
+                X 0236-0249
+                R 00F0-00F5
+                R 01FD-01FE
+                W 00F0-00F5
+                W 01FD-01FE
+                W 0500-053F
+                """, coverage.toRangeString());
+        assertEquals(0x33 + 0x14, coverage.count(Coverage.Access.EXECUTE));
+        assertTrue(coverage.isCovered(Coverage.Access.WRITE, 0x53f));
+        assertFalse(coverage.isCovered(Coverage.Access.WRITE, 0x540));
+        assertFalse(coverage.isCovered(Coverage.Access.READ, 0x500));
+    }
+
+    @Test
+    void sameCoverageEverywhereTest()
+    {
+        final var expected = cover("bubblesort", c -> {});
+        assertEquals(expected.toRangeString(), cover("bubblesort", c -> c.setCore(ExecutionCore.HANDLERS)).toRangeString());
+        assertEquals(expected.toRangeString(), cover("bubblesort", c -> c.setPredecodeEnabled(true)).toRangeString());
+        //blocks are not used while coverage is attached
+        assertEquals(expected.toRangeString(), cover("bubblesort", c -> c.setJitEnabled(true)).toRangeString());
+    }
+
+    @Test
+    void binaryRoundTripTest()
+    {
+        final var coverage = cover("sieve", c -> {});
+        final var bytes = coverage.toBytes();
+        assertTrue(bytes.length < 1024, "size " + bytes.length);
+        assertArrayEquals(bytes, Coverage.fromBytes(bytes).toBytes());
+        assertEquals(coverage.toRangeString(), Coverage.fromBytes(bytes).toRangeString());
+
+        final var empty = new Coverage();
+        assertEquals(10, empty.toBytes().length);
+        assertEquals("", Coverage.fromBytes(empty.toBytes()).toRangeString());
+    }
+
+    @Test
+    void mergeTest()
+    {
+        final var a = cover("multiply", c -> {});
+        final var b = cover("crc8", c -> {});
+        final var merged = new Coverage();
+        merged.merge(a);
+        merged.merge(b);
+        final var streamed = new Coverage();
+        final var buffer = ByteBuffer.allocate(a.toBytes().length + b.toBytes().length);
+        buffer.put(a.toBytes()).put(b.toBytes()).flip();
+        streamed.merge(buffer);
+        streamed.merge(buffer);
+        assertFalse(buffer.hasRemaining());
+        assertArrayEquals(merged.toBytes(), streamed.toBytes());
+        for (var access: Coverage.Access.values())
+        {
+            for (int address = 0; address < Memory.MEM_SIZE; address++)
+                assertEquals(a.isCovered(access, address) || b.isCovered(access, address), merged.isCovered(access, address));
+        }
+        merged.clear();
+        assertEquals(0, merged.count(Coverage.Access.READ));
+    }
+
+    @Test
+    void rejectsBadDataTest()
+    {
+        final var bytes = cover("multiply", c -> {}).toBytes();
+        bytes[0] ^= 1;
+        assertThrows(IllegalArgumentException.class, () -> Coverage.fromBytes(bytes));
+        bytes[0] ^= 1;
+        assertThrows(IllegalArgumentException.class, () -> Coverage.fromBytes(Arrays.copyOf(bytes, bytes.length - 1)));
+    }
+
+    @Test
+    void rangesAtEdgesTest()
+    {
+        final var coverage = new Coverage();
+        coverage.write(0);
+        coverage.write(63);
+        coverage.write(64);
+        coverage.write(0xffff);
+        coverage.execute(0xffc0, 64);
+        assertEquals("""
+                X FFC0-FFFF
+                W 0000
+                W 003F-0040
+                W FFFF
+                """, coverage.toRangeString());
+    }
+
+    @Test
+    void stackAndVectorTest()
+    {
+        //BRK, handler RTI
+        memory.load(0x200, new byte[]{0x00, (byte) 0xff});
+        memory.load(0x300, new byte[]{0x40});
+        memory.load(CPU.IRQ_VECTOR, new byte[]{0x00, 0x03});
+        final var coverage = new Coverage();
+        cpu.setCoverage(coverage);
+        cpu.setPC(0x200);
+        cpu.step();
+        cpu.step();
+        assertEquals("""
+                X 0200
+                X 0300
+                R 01FC-01FE
+                R FFFE-FFFF
+                W 01FC-01FE
+                """, coverage.toRangeString());
+    }
+
+    @Test
+    void batchCoverageTest()
+    {
+        //LDA $10 / BEQ $0207 / STA $20 / NOP / JMP $0207
+        final var pgm = HexFormat.of().parseHex("a510f0038520ea4c0702");
+        final var pool = new ForkJoinPool(4);
+        try
+        {
+            final var runner = new BatchRunner(pgm, 0x200, 0x200, 1000, pool);
+            runner.setHaltAddress(0x207);
+            assertNull(runner.run(IntStream.range(0, 10).mapToObj(i -> (Consumer<CPU>) cpu -> {})).coverage());
+            runner.setCoverageEnabled(true);
+            final var zero = runner.run(IntStream.range(0, 100).mapToObj(i -> (Consumer<CPU>) cpu -> {})).coverage();
+            assertEquals("""
+                    X 0200-0203
+                    R 0010
+                    """, zero.toRangeString());
+            final var mixed = runner.run(IntStream.range(0, 100)
+                    .mapToObj(i -> (Consumer<CPU>) cpu -> cpu.getMemory().write(0x10, (byte) (i == 57 ? 1 : 0)))).coverage();
+            assertEquals("""
+                    X 0200-0206
+                    R 0010
+                    W 0020
+                    """, mixed.toRangeString());
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+}
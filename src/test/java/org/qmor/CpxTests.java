@@ -12,8 +12,8 @@ class CpxTests extends BaseCpuTest{
 	@Test
 	void testCpxImmediateEqual() {
 		var op = OpCodes.CPX_IM;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x42;
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x42;
 		cpu.setX((short) 0x42);
 		var cycles = new AtomicInteger(op.getCycles());
 		cpu.exec(cycles);
@@ -26,8 +26,8 @@ class CpxTests extends BaseCpuTest{
 	@Test
 	void testCpxImmediateLess() {
 		var op = OpCodes.CPX_IM;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x42;
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x42;
 		cpu.setX((short) 0x30);
 		var cycles = new AtomicInteger(op.getCycles());
 		cpu.exec(cycles);
@@ -40,8 +40,8 @@ class CpxTests extends BaseCpuTest{
 	@Test
 	void testCpxImmediateGreater() {
 		var op = OpCodes.CPX_IM;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x42;
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x42;
 		cpu.setX((short) 0x50);
 		var cycles = new AtomicInteger(op.getCycles());
 		cpu.exec(cycles);
@@ -56,9 +56,9 @@ class CpxTests extends BaseCpuTest{
 	@Test
 	void testCpxZpEqual() {
 		var op = OpCodes.CPX_ZP;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x42; // Zero-page address
-		memory.data[0x0042] = 0x30; // Value at zero-page address
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x42; // Zero-page address
+		memory.data()[0x0042] = 0x30; // Value at zero-page address
 		cpu.setX((short) 0x30);
 		var cycles = new AtomicInteger(op.getCycles());
 		cpu.exec(cycles);
@@ -71,9 +71,9 @@ class CpxTests extends BaseCpuTest{
 	@Test
 	void testCpxZpLess() {
 		var op = OpCodes.CPX_ZP;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x42; // Zero-page address
-		memory.data[0x0042] = 0x30; // Value at zero-page address
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x42; // Zero-page address
+		memory.data()[0x0042] = 0x30; // Value at zero-page address
 		cpu.setX((short) 0x20);
 		var cycles = new AtomicInteger(op.getCycles());
 		cpu.exec(cycles);
@@ -86,9 +86,9 @@ class CpxTests extends BaseCpuTest{
 	@Test
 	void testCpxZpGreater() {
 		var op = OpCodes.CPX_ZP;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x42; // Zero-page address
-		memory.data[0x0042] = 0x30; // Value at zero-page address
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x42; // Zero-page address
+		memory.data()[0x0042] = 0x30; // Value at zero-page address
 		cpu.setX((short) 0x40);
 		var cycles = new AtomicInteger(op.getCycles());
 		cpu.exec(cycles);
@@ -101,9 +101,9 @@ class CpxTests extends BaseCpuTest{
 	@Test
 	void testCpxZpEqualNegative() {
 		var op = OpCodes.CPX_ZP;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x42; // Zero-page address
-		memory.data[0x0042] = (byte) 0x80; // -128 in 2's complement
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x42; // Zero-page address
+		memory.data()[0x0042] = (byte) 0x80; // -128 in 2's complement
 		cpu.setX((short) 0x80); // -128 in 2's complement
 		var cycles = new AtomicInteger(op.getCycles());
 		cpu.exec(cycles);
@@ -116,9 +116,9 @@ class CpxTests extends BaseCpuTest{
 	@Test
 	void testCpxZpLessNegative() {
 		var op = OpCodes.CPX_ZP;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x42; // Zero-page address
-		memory.data[0x0042] = (byte) 0x80; // -128 in 2's complement
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x42; // Zero-page address
+		memory.data()[0x0042] = (byte) 0x80; // -128 in 2's complement
 		cpu.setX((short) 0x7F); // 127 in 2's complement
 		var cycles = new AtomicInteger(op.getCycles());
 		cpu.exec(cycles);
@@ -131,9 +131,9 @@ class CpxTests extends BaseCpuTest{
 	@Test
 	void testCpxZpGreaterNegative() {
 		var op = OpCodes.CPX_ZP;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x42; // Zero-page address
-		memory.data[0x0042] = (byte) 0x7F; // 127 in 2's complement
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x42; // Zero-page address
+		memory.data()[0x0042] = (byte) 0x7F; // 127 in 2's complement
 		cpu.setX((short) 0x80); // -128 in 2's complement
 		var cycles = new AtomicInteger(op.getCycles());
 		cpu.exec(cycles);
@@ -146,10 +146,10 @@ class CpxTests extends BaseCpuTest{
 	@Test
 	void testCpxAbsoluteEqual() {
 		var op = OpCodes.CPX_ABSOLUTE;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x34; // Low byte of absolute address
-		memory.data[0xfffe] = 0x12; // High byte of absolute address
-		memory.data[0x1234] = 0x30; // Value at absolute address
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x34; // Low byte of absolute address
+		memory.data()[0xfffe] = 0x12; // High byte of absolute address
+		memory.data()[0x1234] = 0x30; // Value at absolute address
 		cpu.setX((short) 0x30);
 		var cycles = new AtomicInteger(op.getCycles());
 		cpu.exec(cycles);
@@ -162,10 +162,10 @@ class CpxTests extends BaseCpuTest{
 	@Test
 	void testCpxAbsoluteLess() {
 		var op = OpCodes.CPX_ABSOLUTE;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x34; // Low byte of absolute address
-		memory.data[0xfffe] = 0x12; // High byte of absolute address
-		memory.data[0x1234] = 0x30; // Value at absolute address
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x34; // Low byte of absolute address
+		memory.data()[0xfffe] = 0x12; // High byte of absolute address
+		memory.data()[0x1234] = 0x30; // Value at absolute address
 		cpu.setX((short) 0x20);
 		var cycles = new AtomicInteger(op.getCycles());
 		cpu.exec(cycles);
@@ -178,10 +178,10 @@ class CpxTests extends BaseCpuTest{
 	@Test
 	void testCpxAbsoluteGreater() {
 		var op = OpCodes.CPX_ABSOLUTE;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x34; // Low byte of absolute address
-		memory.data[0xfffe] = 0x12; // High byte of absolute address
-		memory.data[0x1234] = 0x30; // Value at absolute address
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x34; // Low byte of absolute address
+		memory.data()[0xfffe] = 0x12; // High byte of absolute address
+		memory.data()[0x1234] = 0x30; // Value at absolute address
 		cpu.setX((short) 0x40);
 		var cycles = new AtomicInteger(op.getCycles());
 		cpu.exec(cycles);
@@ -194,10 +194,10 @@ class CpxTests extends BaseCpuTest{
 	@Test
 	void testCpxAbsoluteEqualNegative() {
 		var op = OpCodes.CPX_ABSOLUTE;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x34; // Low byte of absolute address
-		memory.data[0xfffe] = 0x12; // High byte of absolute address
-		memory.data[0x1234] = (byte) 0x80; // -128 in 2's complement
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x34; // Low byte of absolute address
+		memory.data()[0xfffe] = 0x12; // High byte of absolute address
+		memory.data()[0x1234] = (byte) 0x80; // -128 in 2's complement
 		cpu.setX((short) 0x80); // -128 in 2's complement
 		var cycles = new AtomicInteger(op.getCycles());
 		cpu.exec(cycles);
@@ -210,10 +210,10 @@ class CpxTests extends BaseCpuTest{
 	@Test
 	void testCpxAbsoluteLessNegative() {
 		var op = OpCodes.CPX_ABSOLUTE;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x34; // Low byte of absolute address
-		memory.data[0xfffe] = 0x12; // High byte of absolute address
-		memory.data[0x1234] = (byte) 0x80; // -128 in 2's complement
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x34; // Low byte of absolute address
+		memory.data()[0xfffe] = 0x12; // High byte of absolute address
+		memory.data()[0x1234] = (byte) 0x80; // -128 in 2's complement
 		cpu.setX((short) 0x7F); // 127 in 2's complement
 		var cycles = new AtomicInteger(op.getCycles());
 		cpu.exec(cycles);
@@ -226,10 +226,10 @@ class CpxTests extends BaseCpuTest{
 	@Test
 	void testCpxAbsoluteGreaterNegative() {
 		var op = OpCodes.CPX_ABSOLUTE;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x34; // Low byte of absolute address
-		memory.data[0xfffe] = 0x12; // High byte of absolute address
-		memory.data[0x1234] = (byte) 0x7F; // 127 in 2's complement
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x34; // Low byte of absolute address
+		memory.data()[0xfffe] = 0x12; // High byte of absolute address
+		memory.data()[0x1234] = (byte) 0x7F; // 127 in 2's complement
 		cpu.setX((short) 0x80); // -128 in 2's complement
 		var cycles = new AtomicInteger(op.getCycles());
 		cpu.exec(cycles);
@@ -12,8 +12,8 @@ class CpyTests extends BaseCpuTest{
 	@Test
 	void testCpyImmediateEqual() {
 		var op = OpCodes.CPY_IM;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x42;
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x42;
 		cpu.setY((short) 0x42);
 		var cycles = new AtomicInteger(op.getCycles());
 		cpu.exec(cycles);
@@ -26,8 +26,8 @@ class CpyTests extends BaseCpuTest{
 	@Test
 	void testCpyImmediateLess() {
 		var op = OpCodes.CPY_IM;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x42;
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x42;
 		cpu.setY((short) 0x30);
 		var cycles = new AtomicInteger(op.getCycles());
 		cpu.exec(cycles);
@@ -40,8 +40,8 @@ class CpyTests extends BaseCpuTest{
 	@Test
 	void testCpyImmediateGreater() {
 		var op = OpCodes.CPY_IM;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x42;
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x42;
 		cpu.setY((short) 0x50);
 		var cycles = new AtomicInteger(op.getCycles());
 		cpu.exec(cycles);
@@ -55,9 +55,9 @@ class CpyTests extends BaseCpuTest{
 	@Test
 	void testCpyZpEqual() {
 		var op = OpCodes.CPY_ZP;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x42; // Zero-page address
-		memory.data[0x0042] = 0x30; // Value at zero-page address
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x42; // Zero-page address
+		memory.data()[0x0042] = 0x30; // Value at zero-page address
 		cpu.setY((short) 0x30);
 		var cycles = new AtomicInteger(op.getCycles());
 		cpu.exec(cycles);
@@ -70,9 +70,9 @@ class CpyTests extends BaseCpuTest{
 	@Test
 	void testCpyZpLess() {
 		var op = OpCodes.CPY_ZP;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x42; // Zero-page address
-		memory.data[0x0042] = 0x30; // Value at zero-page address
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x42; // Zero-page address
+		memory.data()[0x0042] = 0x30; // Value at zero-page address
 		cpu.setY((short) 0x20);
 		var cycles = new AtomicInteger(op.getCycles());
 		cpu.exec(cycles);
@@ -85,9 +85,9 @@ class CpyTests extends BaseCpuTest{
 	@Test
 	void testCpyZpGreater() {
 		var op = OpCodes.CPY_ZP;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x42; // Zero-page address
-		memory.data[0x0042] = 0x30; // Value at zero-page address
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x42; // Zero-page address
+		memory.data()[0x0042] = 0x30; // Value at zero-page address
 		cpu.setY((short) 0x40);
 		var cycles = new AtomicInteger(op.getCycles());
 		cpu.exec(cycles);
@@ -100,9 +100,9 @@ class CpyTests extends BaseCpuTest{
 	@Test
 	void testCpyZpEqualNegative() {
 		var op = OpCodes.CPY_ZP;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x42; // Zero-page address
-		memory.data[0x0042] = (byte) 0x80; // -128 in 2's complement
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x42; // Zero-page address
+		memory.data()[0x0042] = (byte) 0x80; // -128 in 2's complement
 		cpu.setY((short) 0x80); // -128 in 2's complement
 		var cycles = new AtomicInteger(op.getCycles());
 		cpu.exec(cycles);
@@ -115,9 +115,9 @@ class CpyTests extends BaseCpuTest{
 	@Test
 	void testCpyZpLessNegative() {
 		var op = OpCodes.CPY_ZP;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x42; // Zero-page address
-		memory.data[0x0042] = (byte) 0x80; // -128 in 2's complement
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x42; // Zero-page address
+		memory.data()[0x0042] = (byte) 0x80; // -128 in 2's complement
 		cpu.setY((short) 0x7F); // 127 in 2's complement
 		var cycles = new AtomicInteger(op.getCycles());
 		cpu.exec(cycles);
@@ -130,9 +130,9 @@ class CpyTests extends BaseCpuTest{
 	@Test
 	void testCpyZpGreaterNegative() {
 		var op = OpCodes.CPY_ZP;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x42; // Zero-page address
-		memory.data[0x0042] = (byte) 0x7F; // 127 in 2's complement
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x42; // Zero-page address
+		memory.data()[0x0042] = (byte) 0x7F; // 127 in 2's complement
 		cpu.setY((short) 0x80); // -128 in 2's complement
 		var cycles = new AtomicInteger(op.getCycles());
 		cpu.exec(cycles);
@@ -145,10 +145,10 @@ class CpyTests extends BaseCpuTest{
 	@Test
 	void testCpyAbsoluteEqual() {
 		var op = OpCodes.CPY_ABSOLUTE;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x34; // Low byte of absolute address
-		memory.data[0xfffe] = 0x12; // High byte of absolute address
-		memory.data[0x1234] = 0x30; // Value at absolute address
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x34; // Low byte of absolute address
+		memory.data()[0xfffe] = 0x12; // High byte of absolute address
+		memory.data()[0x1234] = 0x30; // Value at absolute address
 		cpu.setY((short) 0x30);
 		var cycles = new AtomicInteger(op.getCycles());
 		cpu.exec(cycles);
@@ -161,10 +161,10 @@ class CpyTests extends BaseCpuTest{
 	@Test
 	void testCpyAbsoluteLess() {
 		var op = OpCodes.CPY_ABSOLUTE;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x34; // Low byte of absolute address
-		memory.data[0xfffe] = 0x12; // High byte of absolute address
-		memory.data[0x1234] = 0x30; // Value at absolute address
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x34; // Low byte of absolute address
+		memory.data()[0xfffe] = 0x12; // High byte of absolute address
+		memory.data()[0x1234] = 0x30; // Value at absolute address
 		cpu.setY((short) 0x20);
 		var cycles = new AtomicInteger(op.getCycles());
 		cpu.exec(cycles);
@@ -177,10 +177,10 @@ class CpyTests extends BaseCpuTest{
 	@Test
 	void testCpyAbsoluteGreater() {
 		var op = OpCodes.CPY_ABSOLUTE;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x34; // Low byte of absolute address
-		memory.data[0xfffe] = 0x12; // High byte of absolute address
-		memory.data[0x1234] = 0x30; // Value at absolute address
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x34; // Low byte of absolute address
+		memory.data()[0xfffe] = 0x12; // High byte of absolute address
+		memory.data()[0x1234] = 0x30; // Value at absolute address
 		cpu.setY((short) 0x40);
 		var cycles = new AtomicInteger(op.getCycles());
 		cpu.exec(cycles);
@@ -193,10 +193,10 @@ class CpyTests extends BaseCpuTest{
 	@Test
 	void testCpyAbsoluteEqualNegative() {
 		var op = OpCodes.CPY_ABSOLUTE;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x34; // Low byte of absolute address
-		memory.data[0xfffe] = 0x12; // High byte of absolute address
-		memory.data[0x1234] = (byte) 0x80; // -128 in 2's complement
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x34; // Low byte of absolute address
+		memory.data()[0xfffe] = 0x12; // High byte of absolute address
+		memory.data()[0x1234] = (byte) 0x80; // -128 in 2's complement
 		cpu.setY((short) 0x80); // -128 in 2's complement
 		var cycles = new AtomicInteger(op.getCycles());
 		cpu.exec(cycles);
@@ -209,10 +209,10 @@ class CpyTests extends BaseCpuTest{
 	@Test
 	void testCpyAbsoluteLessNegative() {
 		var op = OpCodes.CPY_ABSOLUTE;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x34; // Low byte of absolute address
-		memory.data[0xfffe] = 0x12; // High byte of absolute address
-		memory.data[0x1234] = (byte) 0x80; // -128 in 2's complement
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x34; // Low byte of absolute address
+		memory.data()[0xfffe] = 0x12; // High byte of absolute address
+		memory.data()[0x1234] = (byte) 0x80; // -128 in 2's complement
 		cpu.setY((short) 0x7F); // 127 in 2's complement
 		var cycles = new AtomicInteger(op.getCycles());
 		cpu.exec(cycles);
@@ -225,10 +225,10 @@ class CpyTests extends BaseCpuTest{
 	@Test
 	void testCpyAbsoluteGreaterNegative() {
 		var op = OpCodes.CPY_ABSOLUTE;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x34; // Low byte of absolute address
-		memory.data[0xfffe] = 0x12; // High byte of absolute address
-		memory.data[0x1234] = (byte) 0x7F; // 127 in 2's complement
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x34; // Low byte of absolute address
+		memory.data()[0xfffe] = 0x12; // High byte of absolute address
+		memory.data()[0x1234] = (byte) 0x7F; // 127 in 2's complement
 		cpu.setY((short) 0x80); // -128 in 2's complement
 		var cycles = new AtomicInteger(op.getCycles());
 		cpu.exec(cycles);
@@ -0,0 +1,45 @@
+package org.qmor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecodeTests extends BaseCpuTest {
+
+    @Test
+    void everyOpcodeDecodesToItself()
+    {
+        for (var op: OpCodes.values())
+        {
+            if (op == OpCodes.ILLEGAL)
+                continue;
+            assertSame(op, OpCodes.decode(op.getOpcode()));
+            assertSame(op, OpCodes.fromByte(op.getOpcode()));
+        }
+    }
+
+    @Test
+    void unimplementedSlotsDecodeToSentinel()
+    {
+        int implemented = 0;
+        for (int b = 0; b < 256; b++)
+        {
+            if (OpCodes.decode(b) != OpCodes.ILLEGAL)
+                implemented++;
+        }
+        assertEquals(OpCodes.values().length - 1, implemented);
+        assertSame(OpCodes.ILLEGAL, OpCodes.decode(0xff));
+        assertThrows(IllegalArgumentException.class, () -> OpCodes.fromByte(0xff));
+        assertThrows(IllegalArgumentException.class, () -> OpCodes.fromByte(0x1a9));
+    }
+
+    @Test
+    void execRejectsIllegalOpcode()
+    {
+        memory.data()[0xfffc] = (byte) 0xff;
+        var cycles = new AtomicInteger(2);
+        assertThrows(IllegalArgumentException.class, () -> cpu.exec(cycles));
+    }
+}
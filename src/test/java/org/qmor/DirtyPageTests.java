@@ -0,0 +1,93 @@
+package org.qmor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DirtyPageTests extends BaseCpuTest {
+
+    private void runStores()
+    {
+        var pgm = HexFormat.of().parseHex("a9ff85908d0080");//LDA #$FF STA $90 STA $8000
+        memory.load(0x1000, pgm);
+        cpu.setPC(0x1000);
+        cpu.run(9);
+    }
+
+    @Test
+    void cpuWritesMarkPages()
+    {
+        assertEquals(0, memory.dirtyPageCount());
+        runStores();
+        assertTrue(memory.isPageDirty(0x00));
+        assertTrue(memory.isPageDirty(0x10));
+        assertTrue(memory.isPageDirty(0x80));
+        assertFalse(memory.isPageDirty(0x01));
+        assertEquals(3, memory.dirtyPageCount());
+    }
+
+    @Test
+    void resetZeroesWrittenPages()
+    {
+        runStores();
+        memory.checkpoint();
+        memory.write(0x4242, (byte) 1);
+        assertEquals(1, memory.dirtyPageCount());
+        cpu.reset();
+        assertEquals(0, memory.dirtyPageCount());
+        assertEquals(-1, memory.mismatch(new Memory()));
+    }
+
+    @Test
+    void markAllDirtyCoversDirectArrayWrites()
+    {
+        memory.data()[0x7777] = 5;
+        memory.markAllDirty();
+        memory.reset();
+        assertEquals(0, memory.data()[0x7777]);
+    }
+
+    @Test
+    void resetClearsProgramLoadedThroughArray()
+    {
+        memory.data()[0x0600] = (byte) OpCodes.NOP.getOpcode();
+        memory.data()[0xc000] = 0x42;
+        cpu.reset();
+        assertEquals(-1, memory.mismatch(new Memory()));
+    }
+
+    @Test
+    void snapshotHoldsPagesWrittenSinceCheckpoint()
+    {
+        memory.load(0x1000, new byte[]{1, 2, 3});
+        memory.checkpoint();
+        runStores();
+        var snapshot = memory.snapshot();
+        assertArrayEquals(new int[]{0x00, 0x10, 0x80}, snapshot.getPages());
+        assertTrue(snapshot.contains(0x8000));
+        assertFalse(snapshot.contains(0x2000));
+
+        var copy = new Memory();
+        snapshot.applyTo(copy);
+        assertEquals(0xff, copy.read(0x8000));
+        assertEquals(0xff, copy.read(0x90));
+        assertEquals(0xa9, copy.read(0x1000));
+    }
+
+    @Test
+    void diffVisitsOnlyDirtyPages()
+    {
+        var other = new Memory();
+        var otherCpu = new CPU(other);
+        otherCpu.reset();
+        runStores();
+        other.load(0x1000, HexFormat.of().parseHex("a9ff85908d0080"));
+        other.write(0x90, (byte) 0xff);
+        other.write(0x3000, (byte) 0);
+        assertArrayEquals(new int[]{0x80}, memory.diffPages(other));
+        other.write(0x8000, (byte) 0xff);
+        assertEquals(0, memory.diffPages(other).length);
+    }
+}
@@ -13,8 +13,8 @@ class EorTests extends BaseCpuTest{
         final var op = EOR_IM;
         cpu.setA((short) 0);
         cpu.setPC(0x1000);
-        memory.data[0x1000] = (byte) op.getOpcode();
-        memory.data[0x1001] = 0;
+        memory.data()[0x1000] = (byte) op.getOpcode();
+        memory.data()[0x1001] = 0;
         var c = op.getCyclesAi();
         cpu.exec(c);
         assertEquals(0,c.get());
@@ -29,8 +29,8 @@ class EorTests extends BaseCpuTest{
         final var op = EOR_IM;
         cpu.setA((short) 0xff);
         cpu.setPC(0x1000);
-        memory.data[0x1000] = (byte) op.getOpcode();
-        memory.data[0x1001] = (byte) 0xff;
+        memory.data()[0x1000] = (byte) op.getOpcode();
+        memory.data()[0x1001] = (byte) 0xff;
         var c = op.getCyclesAi();
         cpu.exec(c);
         assertEquals(0,c.get());
@@ -45,9 +45,9 @@ class EorTests extends BaseCpuTest{
         final var op = EOR_ZP;
         cpu.setA((short) 0xCC);
         cpu.setPC(0x1000);
-        memory.data[0x0] = (byte) 0xaa;
-        memory.data[0x1000] = (byte) op.getOpcode();
-        memory.data[0x1001] = (byte) 0;
+        memory.data()[0x0] = (byte) 0xaa;
+        memory.data()[0x1000] = (byte) op.getOpcode();
+        memory.data()[0x1001] = (byte) 0;
         var c = op.getCyclesAi();
         cpu.exec(c);
         assertEquals(0,c.get());
@@ -63,9 +63,9 @@ class EorTests extends BaseCpuTest{
         cpu.setA((short) 0xCC);
         cpu.setX((short) 1);
         cpu.setPC(0x1000);
-        memory.data[0x1] = (byte) 0xaa;
-        memory.data[0x1000] = (byte) op.getOpcode();
-        memory.data[0x1001] = (byte) 0;
+        memory.data()[0x1] = (byte) 0xaa;
+        memory.data()[0x1000] = (byte) op.getOpcode();
+        memory.data()[0x1001] = (byte) 0;
         var c = op.getCyclesAi();
         cpu.exec(c);
         assertEquals(0,c.get());
@@ -80,10 +80,10 @@ class EorTests extends BaseCpuTest{
         final var op = EOR_ABSOLUTE;
         cpu.setA((short) 0xAA);
         cpu.setPC(0x1000);
-        memory.data[0x1234] = (byte) 0x55;
-        memory.data[0x1000] = (byte) op.getOpcode();
-        memory.data[0x1001] = (byte) 0x34;
-        memory.data[0x1002] = (byte) 0x12;
+        memory.data()[0x1234] = (byte) 0x55;
+        memory.data()[0x1000] = (byte) op.getOpcode();
+        memory.data()[0x1001] = (byte) 0x34;
+        memory.data()[0x1002] = (byte) 0x12;
         var c = op.getCyclesAi();
         cpu.exec(c);
         assertEquals(0,c.get());
@@ -99,10 +99,10 @@ class EorTests extends BaseCpuTest{
         cpu.setA((short) 0xAA);
         cpu.setPC(0x1000);
         cpu.setX((short) 1);
-        memory.data[0x1235] = (byte) 0x5f;
-        memory.data[0x1000] = (byte) op.getOpcode();
-        memory.data[0x1001] = (byte) 0x34;
-        memory.data[0x1002] = (byte) 0x12;
+        memory.data()[0x1235] = (byte) 0x5f;
+        memory.data()[0x1000] = (byte) op.getOpcode();
+        memory.data()[0x1001] = (byte) 0x34;
+        memory.data()[0x1002] = (byte) 0x12;
         var c = op.getCyclesAi();
         cpu.exec(c);
         assertEquals(0,c.get());
@@ -118,10 +118,10 @@ class EorTests extends BaseCpuTest{
         cpu.setA((short) 0xAA);
         cpu.setPC(0x1000);
         cpu.setY((short) 1);
-        memory.data[0x1235] = (byte) 0x5f;
-        memory.data[0x1000] = (byte) op.getOpcode();
-        memory.data[0x1001] = (byte) 0x34;
-        memory.data[0x1002] = (byte) 0x12;
+        memory.data()[0x1235] = (byte) 0x5f;
+        memory.data()[0x1000] = (byte) op.getOpcode();
+        memory.data()[0x1001] = (byte) 0x34;
+        memory.data()[0x1002] = (byte) 0x12;
         var c = op.getCyclesAi();
         cpu.exec(c);
         assertEquals(0,c.get());
@@ -137,11 +137,11 @@ class EorTests extends BaseCpuTest{
         cpu.setA((short) 0xAA);
         cpu.setPC(0x1000);
         cpu.setX((short) 1);
-        memory.data[0x1234] = (byte) 0x5f;
-        memory.data[0x1000] = (byte) op.getOpcode();
-        memory.data[0x1001] = (byte) 2;
-        memory.data[0x3] = (byte) 0x34;
-        memory.data[0x4] = (byte) 0x12;
+        memory.data()[0x1234] = (byte) 0x5f;
+        memory.data()[0x1000] = (byte) op.getOpcode();
+        memory.data()[0x1001] = (byte) 2;
+        memory.data()[0x3] = (byte) 0x34;
+        memory.data()[0x4] = (byte) 0x12;
         var c = op.getCyclesAi();
         cpu.exec(c);
         assertEquals(0,c.get());
@@ -158,11 +158,11 @@ class EorTests extends BaseCpuTest{
         cpu.setA((short) 0xAA);
         cpu.setPC(0x1000);
         cpu.setY((short) 1);
-        memory.data[0x1234] = (byte) 0x5f;
-        memory.data[0x1000] = (byte) op.getOpcode();
-        memory.data[0x1001] = (byte) 2;
-        memory.data[0x2] = (byte) 0x33;
-        memory.data[0x3] = (byte) 0x12;
+        memory.data()[0x1234] = (byte) 0x5f;
+        memory.data()[0x1000] = (byte) op.getOpcode();
+        memory.data()[0x1001] = (byte) 2;
+        memory.data()[0x2] = (byte) 0x33;
+        memory.data()[0x3] = (byte) 0x12;
         var c = op.getCyclesAi();
         cpu.exec(c);
         assertEquals(0,c.get());
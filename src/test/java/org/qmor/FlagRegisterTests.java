@@ -0,0 +1,53 @@
+package org.qmor;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlagRegisterTests {
+
+    @Test
+    void flagsMapToStatusBits()
+    {
+        var f = new FlagRegister();
+        for (var flag: Flag.values())
+        {
+            f.reset();
+            f.setFlag(flag);
+            assertEquals(1 << flag.getOffset(), f.getByteValue());
+            assertTrue(f.getAsBoolean(flag));
+            assertEquals(1, f.getAsInt(flag));
+            f.setFlag(flag, false);
+            assertEquals(0, f.getByteValue());
+            assertEquals(0, f.getAsInt(flag));
+        }
+    }
+
+    @Test
+    void byteValueRoundTrip()
+    {
+        var f = new FlagRegister();
+        f.setByteValue((short) 0x1c3);
+        assertEquals(0xc3, f.getByteValue());
+        assertTrue(f.getAsBoolean(Flag.C));
+        assertTrue(f.getAsBoolean(Flag.Z));
+        assertFalse(f.getAsBoolean(Flag.I));
+        assertTrue(f.getAsBoolean(Flag.V));
+        assertTrue(f.getAsBoolean(Flag.N));
+        assertEquals("C,Z,V,N", f.printFlags());
+        assertEquals("[C,Z,V,N]", f.toString());
+    }
+
+    @Test
+    void copyIsIndependentAndEqual()
+    {
+        var f = new FlagRegister();
+        f.setFlag(Flag.D, true);
+        var copy = f.getCopy();
+        assertEquals(f, copy);
+        assertEquals(f.hashCode(), copy.hashCode());
+        copy.clearFlag(Flag.D);
+        assertNotEquals(f, copy);
+        assertTrue(f.getAsBoolean(Flag.D));
+    }
+}
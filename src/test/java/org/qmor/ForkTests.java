@@ -0,0 +1,111 @@
+package org.qmor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ForkTests {
+
+    private static final byte[] PGM = HexFormat.of().parseHex("e690a590");//INC $90 LDA $90
+
+    private static CPU machine(Memory memory)
+    {
+        final var cpu = new CPU(memory);
+        cpu.reset();
+        memory.load(0x1000, PGM);
+        memory.write(0x90, (byte) 0x10);
+        cpu.setPC(0x1000);
+        return cpu;
+    }
+
+    @Test
+    void forkCopiesRegistersAndSharesPages()
+    {
+        final var parent = machine(Memory.paged());
+        parent.setX((short) 3);
+        parent.getF().setFlag(Flag.C);
+        final var child = parent.fork();
+        assertEquals(parent.printRegs(), child.printRegs());
+        assertEquals(0, ((PagedMemory) child.getMemory()).ownedPageCount());
+        assertNotSame(parent.getF(), child.getF());
+
+        child.run(OpCodes.INC_ZP.getCycles() + OpCodes.LDA_ZP.getCycles());
+        assertEquals(0x11, child.getA());
+        assertEquals(1, ((PagedMemory) child.getMemory()).ownedPageCount());
+        assertEquals(0x10, parent.getMemory().read(0x90));
+        assertEquals(0x1000, parent.getPC());
+        assertEquals(0, parent.getCycles());
+    }
+
+    @Test
+    void parentWritesDoNotLeakIntoForks()
+    {
+        final var parent = machine(Memory.paged());
+        final var a = parent.fork();
+        final var b = parent.fork();
+        parent.run(OpCodes.INC_ZP.getCycles());
+        assertEquals(0x11, parent.getMemory().read(0x90));
+        assertEquals(0x10, a.getMemory().read(0x90));
+        assertEquals(0x10, b.getMemory().read(0x90));
+        b.getMemory().fill(0x0000, 0x200, (byte) 0);
+        assertEquals(0x10, a.getMemory().read(0x90));
+        assertEquals(0xe6, a.getMemory().read(0x1000));
+    }
+
+    @Test
+    void flatMemoryForksIntoPagedCopy()
+    {
+        final var parent = machine(new Memory());
+        final var child = parent.fork();
+        assertInstanceOfPaged(child.getMemory());
+        assertEquals(-1, parent.getMemory().mismatch(child.getMemory()));
+        child.run(OpCodes.INC_ZP.getCycles() + OpCodes.LDA_ZP.getCycles());
+        assertEquals(0x11, child.getA());
+        assertEquals(0x10, parent.getMemory().read(0x90));
+    }
+
+    @Test
+    void resetDropsAllPages()
+    {
+        final var memory = Memory.paged();
+        memory.fill(0x0100, 0x300, (byte) 7);
+        memory.load(0xfff0, new byte[]{1, 2, 3});
+        assertEquals(7, memory.read(0x03ff));
+        assertArrayEquals(new byte[]{7, 0}, memory.copyOf(0x03ff, 2));
+        memory.reset();
+        assertEquals(0, memory.ownedPageCount());
+        assertEquals(0, memory.dirtyPageCount());
+        assertEquals(-1, memory.mismatch(new Memory()));
+    }
+
+    @Test
+    void resetDropsDecodedCode()
+    {
+        for (var jit : new boolean[]{false, true})
+        {
+            final var memory = Memory.paged();
+            final var cpu = machine(memory);
+            cpu.setPredecodeEnabled(!jit);
+            cpu.setJitEnabled(jit);
+            //LDA #1 / JMP $0200
+            memory.load(0x200, HexFormat.of().parseHex("a9014c0002"));
+            cpu.setPC(0x200);
+            cpu.run(1000);
+            assertEquals(1, cpu.getA());
+
+            //memory alone, CPU.reset() would drop the code itself; zeroed memory holds BRK
+            memory.reset();
+            cpu.setA((short) 0);
+            cpu.setPC(0x200);
+            cpu.step();
+            assertEquals(0, cpu.getA(), "jit " + jit);
+        }
+    }
+
+    private static void assertInstanceOfPaged(Memory memory)
+    {
+        assertTrue(memory instanceof PagedMemory, memory.getClass().getName());
+    }
+}
@@ -0,0 +1,91 @@
+package org.qmor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.qmor.BaseCpuTest.assertSameState;
+
+class HandlerCoreTests {
+
+    private static CPU machine(byte[] image, ExecutionCore core)
+    {
+        final var cpu = new CPU(new Memory());
+        cpu.reset();
+        cpu.getMemory().load(0, image);
+        cpu.setCore(core);
+        return cpu;
+    }
+
+    @Test
+    void everyOpcodeMatchesSwitchCoreTest()
+    {
+        final var random = new Random(6502);
+        final var image = new byte[Memory.MEM_SIZE];
+        for (var op: OpCodes.values())
+        {
+            if (op == OpCodes.ILLEGAL)
+                continue;
+            for (int i = 0; i < 50; i++)
+            {
+                random.nextBytes(image);
+                final var pc = random.nextInt(Memory.MEM_SIZE - 3);
+                image[pc] = (byte) op.getOpcode();
+                final var switchCore = machine(image, ExecutionCore.SWITCH);
+                final var handlers = machine(image, ExecutionCore.HANDLERS);
+                final var a = (short) random.nextInt(256);
+                final var x = (short) random.nextInt(256);
+                final var y = (short) random.nextInt(256);
+                final var sp = random.nextInt(256);
+                final var flags = (short) random.nextInt(256);
+                for (var cpu: List.of(switchCore, handlers))
+                {
+                    cpu.setPC(pc);
+                    cpu.setA(a);
+                    cpu.setX(x);
+                    cpu.setY(y);
+                    cpu.setSP(sp);
+                    cpu.getF().setByteValue(flags);
+                    cpu.step();
+                }
+                assertSameState(switchCore, handlers, op.name());
+            }
+        }
+    }
+
+    @Test
+    void workloadsExactWithHandlersTest()
+    {
+        for (var workload: Workload.all())
+        {
+            final var cpu = new CPU(new Memory());
+            cpu.setCore(ExecutionCore.HANDLERS);
+            workload.install(cpu);
+            workload.runToHalt(cpu, 10_000_000);
+            assertEquals(List.of(), workload.verify(cpu), workload.getName());
+        }
+    }
+
+    @Test
+    void illegalOpcodeTest()
+    {
+        final var image = new byte[]{0x02};
+        final var switchCore = machine(image, ExecutionCore.SWITCH);
+        final var handlers = machine(image, ExecutionCore.HANDLERS);
+        switchCore.setPC(0);
+        handlers.setPC(0);
+        final var expected = assertThrows(IllegalArgumentException.class, switchCore::step);
+        final var actual = assertThrows(IllegalArgumentException.class, handlers::step);
+        assertEquals(expected.getMessage(), actual.getMessage());
+    }
+
+    @Test
+    void forkKeepsCoreTest()
+    {
+        final var cpu = new CPU(new Memory());
+        cpu.setCore(ExecutionCore.HANDLERS);
+        assertEquals(ExecutionCore.HANDLERS, cpu.fork().getCore());
+    }
+}
@@ -0,0 +1,126 @@
+package org.qmor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdleLoopTests extends BaseCpuTest {
+    private static final long BUDGET = 10_000_000;
+
+    private static final class PollCounter implements Device {
+        int reads;
+
+        @Override
+        public short read(int address)
+        {
+            reads++;
+            return 0;
+        }
+
+        @Override
+        public void write(int address, byte value)
+        {
+        }
+    }
+
+    private CPU interpreter(String hex)
+    {
+        final var plain = new CPU(new Memory());
+        plain.reset();
+        plain.setIdleSkipEnabled(false);
+        plain.getMemory().load(0x200, HexFormat.of().parseHex(hex));
+        plain.setPC(0x200);
+        memory.load(0x200, HexFormat.of().parseHex(hex));
+        cpu.setPC(0x200);
+        return plain;
+    }
+
+    private void assertSameState(CPU expected)
+    {
+        assertEquals(expected.printRegs(), cpu.printRegs());
+        assertEquals(expected.getCycles(), cpu.getCycles());
+        assertEquals(expected.getInstructions(), cpu.getInstructions());
+        assertEquals(-1, expected.getMemory().mismatch(memory));
+    }
+
+    @Test
+    void jmpToSelfTest()
+    {
+        //LDA #$42 / JMP $0202
+        final var plain = interpreter("a9424c0202");
+        assertEquals(plain.run(BUDGET), cpu.run(BUDGET));
+        assertSameState(plain);
+        assertTrue(cpu.getIdleCyclesSkipped() > BUDGET * 9 / 10);
+        assertEquals(0, plain.getIdleCyclesSkipped());
+    }
+
+    @Test
+    void pollingLoopTest()
+    {
+        //LDA $10 / BEQ $0200 / LDX #1 / JMP $0206
+        final var plain = interpreter("a510f0fca2014c0602");
+        assertEquals(plain.run(BUDGET), cpu.run(BUDGET));
+        assertSameState(plain);
+        assertTrue(cpu.getIdleCyclesSkipped() > 0);
+
+        memory.write(0x10, (byte) 1);
+        plain.getMemory().write(0x10, (byte) 1);
+        assertEquals(plain.run(BUDGET), cpu.run(BUDGET));
+        assertSameState(plain);
+        assertEquals(1, cpu.getX());
+    }
+
+    @Test
+    void slicedBudgetsTest()
+    {
+        final var random = new Random(6502);
+        //LDY #3 / DEY / BNE $0202 / LDA $10 / BEQ $0205 / JMP $0200
+        final var plain = interpreter("a00388d0fda510f0fc4c0002");
+        for (int i = 0; i < 2000; i++)
+        {
+            final var budget = 1 + random.nextInt(i % 2 == 0 ? 10 : 5000);
+            assertEquals(plain.run(budget), cpu.run(budget));
+            assertSameState(plain);
+        }
+        assertTrue(cpu.getIdleCyclesSkipped() > 0);
+    }
+
+    @Test
+    void busyLoopsAreNotSkippedTest()
+    {
+        //INX / BNE $0200 / STA $0300 / INC $0300 / JMP $0203
+        final var plain = interpreter("e8d0fd8d0003ee00034c0302");
+        assertEquals(plain.run(BUDGET), cpu.run(BUDGET));
+        assertSameState(plain);
+        assertEquals(0, cpu.getIdleCyclesSkipped());
+    }
+
+    @Test
+    void devicePollingIsNotSkippedTest()
+    {
+        //LDA $C000 / BEQ $0200
+        final var plain = interpreter("ad00c0f0fb");
+        final var device = new PollCounter();
+        final var plainDevice = new PollCounter();
+        cpu.getBus().map(0xc0, 1, device);
+        plain.getBus().map(0xc0, 1, plainDevice);
+        assertEquals(plain.run(100_000), cpu.run(100_000));
+        assertSameState(plain);
+        assertEquals(plainDevice.reads, device.reads);
+        assertEquals(0, cpu.getIdleCyclesSkipped());
+    }
+
+    @Test
+    void romLoopIsSkippedTest()
+    {
+        //JMP $F000 from ROM
+        cpu.getBus().map(0xf0, 1, new Rom(0xf000, HexFormat.of().parseHex("4c00f0")));
+        cpu.setPC(0xf000);
+        cpu.run(BUDGET);
+        assertTrue(cpu.getIdleCyclesSkipped() > 0);
+        assertEquals(0xf000, cpu.getPC());
+    }
+}
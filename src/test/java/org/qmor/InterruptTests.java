@@ -0,0 +1,193 @@
+package org.qmor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InterruptTests extends BaseCpuTest {
+    private static final int TIMER_PAGE = 0xc0;
+
+    /**
+     * raises IRQ every period cycles, any write acknowledges
+     */
+    private static final class Timer implements Device {
+        private final CPU cpu;
+        private final int period;
+        int expired;
+
+        Timer(CPU cpu, int period)
+        {
+            this.cpu = cpu;
+            this.period = period;
+            cpu.getScheduler().schedule(cpu.getCycles() + period, this::expire);
+        }
+
+        private void expire(CPU cpu, long cycle)
+        {
+            expired++;
+            cpu.setIrq(0, true);
+            cpu.getScheduler().schedule(cycle + period, this::expire);
+        }
+
+        @Override
+        public short read(int address)
+        {
+            return (short) expired;
+        }
+
+        @Override
+        public void write(int address, byte value)
+        {
+            cpu.setIrq(0, false);
+        }
+    }
+
+    /**
+     * main loop CLI / JMP-to-self, IRQ handler INC $20 / STA $C000 / RTI at $0300
+     */
+    private static CPU timerMachine(Consumer<CPU> config)
+    {
+        final var cpu = new CPU(new Memory());
+        cpu.reset();
+        config.accept(cpu);
+        cpu.getMemory().load(0x200, HexFormat.of().parseHex("584c0102"));
+        cpu.getMemory().load(0x300, HexFormat.of().parseHex("e6208d00c040"));
+        cpu.getMemory().load(CPU.IRQ_VECTOR, new byte[]{0x00, 0x03});
+        cpu.getBus().map(TIMER_PAGE, 1, new Timer(cpu, 1000));
+        cpu.setPC(0x200);
+        return cpu;
+    }
+
+    @Test
+    void brkRtiTest()
+    {
+        memory.load(0x200, new byte[]{0x00, (byte) 0xff});
+        memory.load(0x300, new byte[]{0x40});
+        memory.load(CPU.IRQ_VECTOR, new byte[]{0x00, 0x03});
+        cpu.getF().setFlag(Flag.C, true);
+        cpu.setPC(0x200);
+        cpu.step();
+        assertEquals(0x300, cpu.getPC());
+        assertEquals(7, cpu.getCycles());
+        assertTrue(cpu.getF().getAsBoolean(Flag.I));
+        final var sp = cpu.getSP();
+        assertEquals(0xfc, sp);
+        final var pushed = memory.read(CPU.STACK_LOW + sp);
+        assertEquals(Flag.C.getMask() | Flag.B.getMask() | Flag.U.getMask(), pushed & 0xff);
+        assertEquals(0x02, memory.read(CPU.STACK_LOW + sp + 1) & 0xff);
+        assertEquals(0x02, memory.read(CPU.STACK_LOW + sp + 2) & 0xff);
+
+        cpu.step();
+        assertEquals(0x202, cpu.getPC());
+        assertEquals(13, cpu.getCycles());
+        assertEquals(0xff, cpu.getSP());
+        assertEquals("C", cpu.getF().printFlags());
+    }
+
+    @Test
+    void seiCliTest()
+    {
+        memory.load(0x200, HexFormat.of().parseHex("7858"));
+        cpu.setPC(0x200);
+        cpu.step();
+        assertTrue(cpu.getF().getAsBoolean(Flag.I));
+        cpu.step();
+        assertFalse(cpu.getF().getAsBoolean(Flag.I));
+        assertEquals(4, cpu.getCycles());
+    }
+
+    @Test
+    void maskedIrqTakenAfterCliTest()
+    {
+        //SEI / NOP / NOP / CLI / NOP / JMP $0205, handler at $0300 acknowledges and spins
+        memory.load(0x200, HexFormat.of().parseHex("78eaea58ea4c0502"));
+        memory.load(0x300, HexFormat.of().parseHex("8d00c04c0303"));
+        memory.load(CPU.IRQ_VECTOR, new byte[]{0x00, 0x03});
+        final var timer = new Timer(cpu, 1_000_000);
+        cpu.getBus().map(TIMER_PAGE, 1, timer);
+        cpu.setPC(0x200);
+        cpu.run(2);
+        cpu.setIrq(0, true);
+        cpu.run(4);
+        assertEquals(0x203, cpu.getPC());
+        cpu.run(1);
+        assertEquals(0x204, cpu.getPC());
+        //taken at the boundary after CLI
+        cpu.run(1);
+        assertEquals(0x300, cpu.getPC());
+        assertEquals(15, cpu.getCycles());
+        final var sp = cpu.getSP();
+        assertEquals(Flag.U.getMask(), memory.read(CPU.STACK_LOW + sp) & 0xff);
+        assertEquals(0x04, memory.read(CPU.STACK_LOW + sp + 1) & 0xff);
+        assertEquals(0x02, memory.read(CPU.STACK_LOW + sp + 2) & 0xff);
+        cpu.run(100);
+        assertEquals(0, cpu.getIrqSources());
+    }
+
+    @Test
+    void nmiTest()
+    {
+        //SEI / JMP $0201, NMI handler INX / RTI
+        memory.load(0x200, HexFormat.of().parseHex("784c0102"));
+        memory.load(0x310, HexFormat.of().parseHex("e840"));
+        memory.load(CPU.NMI_VECTOR, new byte[]{0x10, 0x03});
+        cpu.getScheduler().schedule(500, (c, cycle) -> c.nmi());
+        cpu.setPC(0x200);
+        cpu.run(10_000);
+        assertEquals(1, cpu.getX());
+        assertFalse(cpu.isNmiPending());
+        assertTrue(cpu.getF().getAsBoolean(Flag.I));
+        assertEquals(0xff, cpu.getSP());
+    }
+
+    @Test
+    void timerIrqTest()
+    {
+        final var cpu = timerMachine(c -> {});
+        cpu.run(100_500);
+        assertEquals(100, cpu.getMemory().read(0x20));
+        assertEquals(0xff, cpu.getSP());
+        assertEquals(0, cpu.getIrqSources());
+        assertTrue(cpu.getIdleCyclesSkipped() > 90_000);
+    }
+
+    @Test
+    void timerIrqExactEverywhereTest()
+    {
+        final var reference = timerMachine(c -> c.setIdleSkipEnabled(false));
+        reference.run(250_000);
+        final List<Consumer<CPU>> configs = List.of(
+                c -> {},
+                c -> c.setCore(ExecutionCore.HANDLERS),
+                c -> c.setPredecodeEnabled(true),
+                c -> c.setJitEnabled(true),
+                c -> c.setTiming(TimingMode.STATIC));
+        for (int i = 0; i < configs.size(); i++)
+        {
+            final var cpu = timerMachine(configs.get(i));
+            cpu.run(250_000);
+            assertSameState(reference, cpu, "config " + i);
+        }
+
+        final var random = new Random(6502);
+        final var sliced = timerMachine(c -> {});
+        while (sliced.getCycles() < reference.getCycles())
+            sliced.run(Math.min(1 + random.nextInt(3000), reference.getCycles() - sliced.getCycles()));
+        assertSameState(reference, sliced, "sliced");
+    }
+
+    @Test
+    void resetDropsEventsTest()
+    {
+        cpu.getScheduler().schedule(100, (c, cycle) -> c.nmi());
+        cpu.nmi();
+        cpu.reset();
+        assertEquals(0, cpu.getScheduler().size());
+        assertFalse(cpu.isNmiPending());
+    }
+}
@@ -11,7 +11,7 @@ class InxDexTests extends BaseCpuTest{
     void InxTest1()
     {
         var op = OpCodes.INX;
-        memory.data[0xfffc] = (byte) op.getOpcode();
+        memory.data()[0xfffc] = (byte) op.getOpcode();
         var cycles = new AtomicInteger(op.getCycles());
         cpu.setX((short) 0);
         cpu.exec(cycles);
@@ -25,7 +25,7 @@ class InxDexTests extends BaseCpuTest{
     void Inx255Test()
     {
         var op = OpCodes.INX;
-        memory.data[0xfffc] = (byte) op.getOpcode();
+        memory.data()[0xfffc] = (byte) op.getOpcode();
         var cycles = new AtomicInteger(op.getCycles());
         cpu.setX((short) 0xff);
         cpu.exec(cycles);
@@ -39,7 +39,7 @@ class InxDexTests extends BaseCpuTest{
     void DexTest1()
     {
         var op = OpCodes.DEX;
-        memory.data[0xfffc] = (byte) op.getOpcode();
+        memory.data()[0xfffc] = (byte) op.getOpcode();
         var cycles = new AtomicInteger(op.getCycles());
         cpu.setX((short) 1);
         cpu.exec(cycles);
@@ -53,7 +53,7 @@ class InxDexTests extends BaseCpuTest{
     void DeyFfTest()
     {
         var op = OpCodes.DEY;
-        memory.data[0xfffc] = (byte) op.getOpcode();
+        memory.data()[0xfffc] = (byte) op.getOpcode();
         var cycles = new AtomicInteger(op.getCycles());
         cpu.setY((short) 0xff);
         cpu.exec(cycles);
@@ -67,7 +67,7 @@ class InxDexTests extends BaseCpuTest{
     void Inx127Test()
     {
         var op = OpCodes.INX;
-        memory.data[0xfffc] = (byte) op.getOpcode();
+        memory.data()[0xfffc] = (byte) op.getOpcode();
         var cycles = new AtomicInteger(op.getCycles());
         cpu.setX((short) 0x7f);
         cpu.exec(cycles);
@@ -81,7 +81,7 @@ class InxDexTests extends BaseCpuTest{
     void Dey0Test()
     {
         var op = OpCodes.DEY;
-        memory.data[0xfffc] = (byte) op.getOpcode();
+        memory.data()[0xfffc] = (byte) op.getOpcode();
         var cycles = new AtomicInteger(op.getCycles());
         cpu.setY((short) 0x0);
         cpu.exec(cycles);
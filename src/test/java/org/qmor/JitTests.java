@@ -0,0 +1,106 @@
+package org.qmor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JitTests extends BaseCpuTest {
+
+    private static CPU run(Workload workload, boolean jit, long[] slices)
+    {
+        final var cpu = new CPU(new Memory());
+        cpu.setJitEnabled(jit);
+        workload.install(cpu);
+        for (var slice: slices)
+            cpu.run(slice);
+        return cpu;
+    }
+
+    @Test
+    void workloadsExactUnderJitTest()
+    {
+        for (var workload: Workload.all())
+        {
+            final var cpu = run(workload, true, new long[]{workload.getCycles()});
+            assertEquals(List.of(), workload.verify(cpu), workload.getName());
+            assertTrue(cpu.getJit().getCompiledBlocks() > 0, workload.getName());
+        }
+    }
+
+    @Test
+    void slicedBudgetsMatchInterpreterTest()
+    {
+        final var random = new Random(6502);
+        for (var workload: Workload.all())
+        {
+            final var slices = new long[200];
+            for (int i = 0; i < slices.length; i++)
+                slices[i] = 1 + random.nextInt(i % 2 == 0 ? 8 : 2000);
+            assertSameState(run(workload, false, slices), run(workload, true, slices), workload.getName());
+        }
+    }
+
+    @Test
+    void selfModifyingCodeTest()
+    {
+        //0200 LDX #0
+        //0202 INX            <- patched to DEX by the store below once X reaches 0x40
+        //0203 CPX #$40
+        //0205 BNE $0202
+        //0207 LDA #$CA       DEX opcode
+        //0209 STA $0202
+        //020C LDY #0
+        //020E INY
+        //020F CPY #$10
+        //0211 BNE $020E
+        //0213 JMP $0202
+        final var code = new byte[]{(byte) 0xA2, 0x00, (byte) 0xE8, (byte) 0xE0, 0x40, (byte) 0xD0, (byte) 0xFB,
+                (byte) 0xA9, (byte) 0xCA, (byte) 0x8D, 0x02, 0x02, (byte) 0xA0, 0x00, (byte) 0xC8, (byte) 0xC0, 0x10,
+                (byte) 0xD0, (byte) 0xFB, 0x4C, 0x02, 0x02};
+        final var interpreted = new CPU(new Memory());
+        interpreted.reset();
+        interpreted.getMemory().load(0x200, code);
+        interpreted.setPC(0x200);
+        memory.load(0x200, code);
+        cpu.setPC(0x200);
+        cpu.setJitEnabled(true);
+        for (int i = 0; i < 50; i++)
+        {
+            interpreted.run(97);
+            cpu.run(97);
+        }
+        assertSameState(interpreted, cpu, "self modifying");
+        assertEquals(0xCA, memory.read(0x202) & 0xff);
+        assertTrue(cpu.getJit().getInvalidatedBlocks() > 0);
+    }
+
+    @Test
+    void resetDropsBlocksTest()
+    {
+        final var workload = Workload.load("multiply");
+        cpu.setJitEnabled(true);
+        workload.install(cpu);
+        cpu.run(workload.getCycles());
+        assertTrue(cpu.getJit().blockCount() > 0);
+        cpu.reset();
+        assertEquals(0, cpu.getJit().blockCount());
+        cpu.setJitEnabled(false);
+        assertNull(cpu.getJit());
+    }
+
+    @Test
+    void traceSinkDisablesBlocksTest()
+    {
+        final var workload = Workload.load("fibonacci");
+        final var pcs = new long[1];
+        cpu.setJitEnabled(true);
+        cpu.setTraceSink((pc, opcode, a, x, y, sp, p, cycle) -> pcs[0]++);
+        workload.install(cpu);
+        cpu.run(workload.getCycles());
+        assertEquals(workload.getInstructions(), pcs[0]);
+        assertEquals(List.of(), workload.verify(cpu));
+    }
+}
@@ -14,9 +14,9 @@ class JmpTests extends BaseCpuTest{
         final var op = OpCodes.JMP_ABSOLUTE;
         var fLatch = cpu.getF().getCopy();
         cpu.setPC(0);
-        memory.data[0] = (byte) op.getOpcode();
-        memory.data[1] = (byte) 0x88;
-        memory.data[2] = (byte) 0x14;
+        memory.data()[0] = (byte) op.getOpcode();
+        memory.data()[1] = (byte) 0x88;
+        memory.data()[2] = (byte) 0x14;
         var cycles = new AtomicInteger(op.getCycles());
         cpu.exec(cycles);
         assertEquals(fLatch, cpu.getF());
@@ -39,11 +39,11 @@ class JmpTests extends BaseCpuTest{
         final var op = OpCodes.JMP_INDIRECT;
         var latchF = cpu.getF().getCopy();
         cpu.setPC(0);
-        memory.data[0] = (byte) op.getOpcode();
-        memory.data[1] = (byte) 0x11;
-        memory.data[2] = (byte) 0x10;
-        memory.data[0x1011] = (byte) 0x88;
-        memory.data[0x1012] = (byte) 0x14;
+        memory.data()[0] = (byte) op.getOpcode();
+        memory.data()[1] = (byte) 0x11;
+        memory.data()[2] = (byte) 0x10;
+        memory.data()[0x1011] = (byte) 0x88;
+        memory.data()[0x1012] = (byte) 0x14;
 
         var cycles = new AtomicInteger(op.getCycles());
         cpu.exec(cycles);
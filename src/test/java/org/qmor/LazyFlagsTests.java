@@ -0,0 +1,82 @@
+package org.qmor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazyFlagsTests {
+
+    private static CPU run(String hex, boolean lazy, int cycles)
+    {
+        final var memory = new Memory();
+        final var cpu = new CPU(memory);
+        cpu.reset();
+        cpu.setLazyFlags(lazy);
+        var pgm = HexFormat.of().parseHex(hex);
+        System.arraycopy(pgm,0,memory.data(),0x1000,pgm.length);
+        cpu.setPC(0x1000);
+        cpu.run(cycles);
+        return cpu;
+    }
+
+    private static void assertSameState(String hex, int cycles)
+    {
+        final var eager = run(hex, false, cycles);
+        final var lazy = run(hex, true, cycles);
+        assertEquals(eager.printRegs(), lazy.printRegs());
+        assertEquals(eager.getF(), lazy.getF());
+        assertEquals(eager.getF().getByteValue(), lazy.getF().getByteValue());
+        assertEquals(eager.getCycles(), lazy.getCycles());
+    }
+
+    @Test
+    void loadsMatchEager()
+    {
+        assertSameState("a980", 2);//LDA #$80
+        assertSameState("a900", 2);//LDA #$00
+        assertSameState("a2ffe8", 4);//LDX #$FF INX
+        assertSameState("a001c888", 6);//LDY #$01 INY DEY
+    }
+
+    @Test
+    void aluMatchesEager()
+    {
+        assertSameState("a9f06901", 4);//LDA #$F0 ADC #$01
+        assertSameState("a9ff6901", 4);//LDA #$FF ADC #$01
+        assertSameState("a9f02900", 4);//LDA #$F0 AND #$00
+        assertSameState("a90f4980", 4);//LDA #$0F EOR #$80
+        assertSameState("e690e690", 10);//INC $90 INC $90
+    }
+
+    @Test
+    void directFlagWritesAfterLazyResult()
+    {
+        assertSameState("a980b8", 4);//LDA #$80 CLV
+        assertSameState("a980c980", 4);//LDA #$80 CMP #$80
+        assertSameState("a9802490", 5);//LDA #$80 BIT $90
+        assertSameState("a98008a90028", 11);//LDA #$80 PHP LDA #$00 PLP
+    }
+
+    @Test
+    void pendingResultIsFoldedOnRead()
+    {
+        var f = new FlagRegister();
+        f.setFlag(Flag.C);
+        f.setResultFlagsLazy(0x100);
+        assertTrue(f.getAsBoolean(Flag.Z));
+        assertFalse(f.getAsBoolean(Flag.N));
+        assertEquals(0x03, f.getByteValue());
+        var copy = f.getCopy();
+        f.setFlag(Flag.Z, false);
+        assertEquals(0x01, f.getByteValue());
+        assertEquals(0x03, copy.getByteValue());
+        copy.setResultFlagsLazy(0x80);
+        assertEquals(0x81, copy.getByteValue());
+        var other = new FlagRegister();
+        other.setByteValue((short) 0x81);
+        assertEquals(other, copy);
+        assertEquals(other.hashCode(), copy.hashCode());
+    }
+}
@@ -11,8 +11,8 @@ class LdaTests extends BaseCpuTest{
 
     @Test
     void testLdaImmediate() {
-        memory.data[0xfffc] = (byte) OpCodes.LDA_IM.getOpcode();
-        memory.data[0xfffd] = (byte) 0x84;
+        memory.data()[0xfffc] = (byte) OpCodes.LDA_IM.getOpcode();
+        memory.data()[0xfffd] = (byte) 0x84;
         var cycles = new AtomicInteger(OpCodes.LDA_IM.getCycles());
         cpu.exec(cycles);
         assertEquals(0,cycles.get());
@@ -22,9 +22,9 @@ class LdaTests extends BaseCpuTest{
 
     @Test
     void testLdaZeroPage() {
-        memory.data[0xfffc] = (byte) OpCodes.LDA_ZP.getOpcode();
-        memory.data[0xfffd] = 0x42;
-        memory.data[0x0042] = 0x14;
+        memory.data()[0xfffc] = (byte) OpCodes.LDA_ZP.getOpcode();
+        memory.data()[0xfffd] = 0x42;
+        memory.data()[0x0042] = 0x14;
         var cycles = new AtomicInteger(OpCodes.LDA_ZP.getCycles());
         cpu.exec(cycles);
         assertEquals(0,cycles.get());
@@ -37,9 +37,9 @@ class LdaTests extends BaseCpuTest{
     void testLdaZeroPageX() {
         cpu.setX((short) 0x10);
 
-        memory.data[0x0020] = 0x14;//value in zero page to be read to A
-        memory.data[0xfffc] = (byte) OpCodes.LDA_ZP_X.getOpcode();
-        memory.data[0xfffd] = 0x10; //zero page address
+        memory.data()[0x0020] = 0x14;//value in zero page to be read to A
+        memory.data()[0xfffc] = (byte) OpCodes.LDA_ZP_X.getOpcode();
+        memory.data()[0xfffd] = 0x10; //zero page address
         var cycles = new AtomicInteger(OpCodes.LDA_ZP_X.getCycles());
         cpu.exec(cycles);
         assertEquals(0,cycles.get());
@@ -51,8 +51,8 @@ class LdaTests extends BaseCpuTest{
     @Test
     void testLdaAbsolute()
     {
-        System.arraycopy(HexFormat.of().parseHex("%02X8814".formatted(OpCodes.LDA_ABSOLUTE.getOpcode())), 0,memory.data,0,3);
-        memory.data[0x1488] = 56;
+        System.arraycopy(HexFormat.of().parseHex("%02X8814".formatted(OpCodes.LDA_ABSOLUTE.getOpcode())), 0,memory.data(),0,3);
+        memory.data()[0x1488] = 56;
         cpu.setPC(0);
         var cycles = new AtomicInteger(OpCodes.LDA_ABSOLUTE.getCycles());
         cpu.exec(cycles);
@@ -67,8 +67,8 @@ class LdaTests extends BaseCpuTest{
     void testLdaAbsoluteX()
     {
         var op = OpCodes.LDA_ABSOLUTE_X;
-        System.arraycopy(HexFormat.of().parseHex("%02X8814".formatted(op.getOpcode())), 0,memory.data,0,3);
-        memory.data[0x1489] = 56;
+        System.arraycopy(HexFormat.of().parseHex("%02X8814".formatted(op.getOpcode())), 0,memory.data(),0,3);
+        memory.data()[0x1489] = 56;
         cpu.setPC(0);
         cpu.setX((short) 1);
         var cycles = new AtomicInteger(op.getCycles());
@@ -81,8 +81,8 @@ class LdaTests extends BaseCpuTest{
 
         //cross page
 
-        System.arraycopy(HexFormat.of().parseHex("%02Xff14".formatted(op.getOpcode())), 0,memory.data,0,3);
-        memory.data[0x1500] = 56;
+        System.arraycopy(HexFormat.of().parseHex("%02Xff14".formatted(op.getOpcode())), 0,memory.data(),0,3);
+        memory.data()[0x1500] = 56;
         cpu.setPC(0);
         cpu.setX((short) 1);
         cycles = new AtomicInteger(op.getCycles());
@@ -99,8 +99,8 @@ class LdaTests extends BaseCpuTest{
     void testLdaAbsoluteY()
     {
         var op = OpCodes.LDA_ABSOLUTE_Y;
-        System.arraycopy(HexFormat.of().parseHex("%02X8814".formatted(op.getOpcode())), 0,memory.data,0,3);
-        memory.data[0x1489] = 56;
+        System.arraycopy(HexFormat.of().parseHex("%02X8814".formatted(op.getOpcode())), 0,memory.data(),0,3);
+        memory.data()[0x1489] = 56;
         cpu.setPC(0);
         cpu.setY((short) 1);
         var cycles = new AtomicInteger(op.getCycles());
@@ -113,8 +113,8 @@ class LdaTests extends BaseCpuTest{
 
         //cross page
 
-        System.arraycopy(HexFormat.of().parseHex("%02Xff14".formatted(op.getOpcode())), 0,memory.data,0,3);
-        memory.data[0x1500] = 56;
+        System.arraycopy(HexFormat.of().parseHex("%02Xff14".formatted(op.getOpcode())), 0,memory.data(),0,3);
+        memory.data()[0x1500] = 56;
         cpu.setPC(0);
         cpu.setY((short) 1);
         cycles = new AtomicInteger(op.getCycles());
@@ -130,11 +130,11 @@ class LdaTests extends BaseCpuTest{
     @Test
     void testLdaIndirectX() {
         var op = OpCodes.LDA_INDIRECT_X;
-        memory.data[0xfffc] = (byte) op.getOpcode();
-        memory.data[0xfffd] = (byte) 0x20;
-        memory.data[0x0030] = (byte) 0x56;
-        memory.data[0x0031] = (byte) 0x78;
-        memory.data[0x7856] = (byte) 0xCD;
+        memory.data()[0xfffc] = (byte) op.getOpcode();
+        memory.data()[0xfffd] = (byte) 0x20;
+        memory.data()[0x0030] = (byte) 0x56;
+        memory.data()[0x0031] = (byte) 0x78;
+        memory.data()[0x7856] = (byte) 0xCD;
         cpu.setX((short) 0x10);
         cpu.setPC(0xfffc);
         var cycles = new AtomicInteger(op.getCycles());
@@ -148,11 +148,11 @@ class LdaTests extends BaseCpuTest{
     @Test
     void testLdaIndirectY() {
         var op = OpCodes.LDA_INDIRECT_Y;
-        memory.data[0xfffc] = (byte) op.getOpcode();
-        memory.data[0xfffd] = (byte) 0x20;
-        memory.data[0x20] = (byte) 0xFE;
-        memory.data[0x21] = (byte) 0x12;
-        memory.data[0x12FF] = (byte) 0x78;
+        memory.data()[0xfffc] = (byte) op.getOpcode();
+        memory.data()[0xfffd] = (byte) 0x20;
+        memory.data()[0x20] = (byte) 0xFE;
+        memory.data()[0x21] = (byte) 0x12;
+        memory.data()[0x12FF] = (byte) 0x78;
 
         cpu.setY((short) 0x1);
         cpu.setPC(0xfffc);
@@ -165,9 +165,9 @@ class LdaTests extends BaseCpuTest{
 
         //page crossed variant
 
-        memory.data[0x20] = (byte) 0xFF;
-        memory.data[0x21] = (byte) 0x12;
-        memory.data[0x1300] = (byte) 0x79;
+        memory.data()[0x20] = (byte) 0xFF;
+        memory.data()[0x21] = (byte) 0x12;
+        memory.data()[0x1300] = (byte) 0x79;
 
         cpu.setA((short) 0);
         cpu.setY((short) 0x1);
@@ -12,7 +12,7 @@ class LdxTests extends BaseCpuTest{
     @Test
     void testLdxImmediate() {
         var op = OpCodes.LDX_IM;
-        memory.data[0xfffc] = (byte) op.getOpcode();
+        memory.data()[0xfffc] = (byte) op.getOpcode();
         var cycles = new AtomicInteger(op.getCycles());
         cpu.exec(cycles);
         assertEquals(0,cycles.get());
@@ -26,9 +26,9 @@ class LdxTests extends BaseCpuTest{
     @Test
     void testLdxZeroPage() {
         var op = OpCodes.LDX_ZP;
-        memory.data[0xfffc] = (byte) op.getOpcode();
-        memory.data[0xfffd] = 0x42;
-        memory.data[0x0042] = 0x14;
+        memory.data()[0xfffc] = (byte) op.getOpcode();
+        memory.data()[0xfffd] = 0x42;
+        memory.data()[0x0042] = 0x14;
         var cycles = new AtomicInteger(op.getCycles());
         cpu.exec(cycles);
         assertEquals(0,cycles.get());
@@ -42,9 +42,9 @@ class LdxTests extends BaseCpuTest{
     void testLdxZeroPageY() {
         cpu.setY((short) 0x10);
         final var op = OpCodes.LDX_ZP_Y;
-        memory.data[0x0020] = 0x14;//value in zero page to be read to X
-        memory.data[0xfffc] = (byte) op.getOpcode();
-        memory.data[0xfffd] = 0x10; //zero page address
+        memory.data()[0x0020] = 0x14;//value in zero page to be read to X
+        memory.data()[0xfffc] = (byte) op.getOpcode();
+        memory.data()[0xfffd] = 0x10; //zero page address
         var cycles = new AtomicInteger(op.getCycles());
         cpu.exec(cycles);
         assertEquals(0,cycles.get());
@@ -59,8 +59,8 @@ class LdxTests extends BaseCpuTest{
     void testLdxAbsolute()
     {
         final var op = OpCodes.LDX_ABSOLUTE;
-        System.arraycopy(HexFormat.of().parseHex("%02X8814".formatted(op.getOpcode())), 0,memory.data,0,3);
-        memory.data[0x1488] = 56;
+        System.arraycopy(HexFormat.of().parseHex("%02X8814".formatted(op.getOpcode())), 0,memory.data(),0,3);
+        memory.data()[0x1488] = 56;
         cpu.setPC(0);
         var cycles = new AtomicInteger(op.getCycles());
         cpu.exec(cycles);
@@ -75,8 +75,8 @@ class LdxTests extends BaseCpuTest{
     void testLdxAbsoluteY()
     {
         var op = OpCodes.LDX_ABSOLUTE_Y;
-        System.arraycopy(HexFormat.of().parseHex("%02X8814".formatted(op.getOpcode())), 0,memory.data,0,3);
-        memory.data[0x1489] = 56;
+        System.arraycopy(HexFormat.of().parseHex("%02X8814".formatted(op.getOpcode())), 0,memory.data(),0,3);
+        memory.data()[0x1489] = 56;
         cpu.setPC(0);
         cpu.setY((short) 1);
         var cycles = new AtomicInteger(op.getCycles());
@@ -89,8 +89,8 @@ class LdxTests extends BaseCpuTest{
 
         //cross page
 
-        System.arraycopy(HexFormat.of().parseHex("%02Xff14".formatted(op.getOpcode())), 0,memory.data,0,3);
-        memory.data[0x1500] = 56;
+        System.arraycopy(HexFormat.of().parseHex("%02Xff14".formatted(op.getOpcode())), 0,memory.data(),0,3);
+        memory.data()[0x1500] = 56;
         cpu.setPC(0);
         cpu.setY((short) 1);
         cycles = new AtomicInteger(op.getCycles());
@@ -19,7 +19,7 @@ class LdyTests extends BaseCpuTest{
     @Test
     void testLdyImmediate() {
         var op = OpCodes.LDY_IM;
-        memory.data[0xfffc] = (byte) op.getOpcode();
+        memory.data()[0xfffc] = (byte) op.getOpcode();
         var cycles = new AtomicInteger(op.getCycles());
         cpu.exec(cycles);
         assertEquals(0,cycles.get());
@@ -33,9 +33,9 @@ class LdyTests extends BaseCpuTest{
     @Test
     void testLdyZeroPage() {
         var op = OpCodes.LDY_ZP;
-        memory.data[0xfffc] = (byte) op.getOpcode();
-        memory.data[0xfffd] = 0x42;
-        memory.data[0x0042] = 0x14;
+        memory.data()[0xfffc] = (byte) op.getOpcode();
+        memory.data()[0xfffd] = 0x42;
+        memory.data()[0x0042] = 0x14;
         var cycles = new AtomicInteger(op.getCycles());
         cpu.exec(cycles);
         assertEquals(0,cycles.get());
@@ -49,9 +49,9 @@ class LdyTests extends BaseCpuTest{
     void testLdyZeroPageX() {
         cpu.setX((short) 0x10);
         var op = OpCodes.LDY_ZP_X;
-        memory.data[0x0020] = 0x14;//value in zero page to be read to X
-        memory.data[0xfffc] = (byte) op.getOpcode();
-        memory.data[0xfffd] = 0x10; //zero page address
+        memory.data()[0x0020] = 0x14;//value in zero page to be read to X
+        memory.data()[0xfffc] = (byte) op.getOpcode();
+        memory.data()[0xfffd] = 0x10; //zero page address
         var cycles = new AtomicInteger(op.getCycles());
         cpu.exec(cycles);
         assertEquals(0,cycles.get());
@@ -66,8 +66,8 @@ class LdyTests extends BaseCpuTest{
     void testLdyAbsolute()
     {
         final var op = OpCodes.LDY_ABSOLUTE;
-        System.arraycopy(HexFormat.of().parseHex("%02X8814".formatted(op.getOpcode())), 0,memory.data,0,3);
-        memory.data[0x1488] = 56;
+        System.arraycopy(HexFormat.of().parseHex("%02X8814".formatted(op.getOpcode())), 0,memory.data(),0,3);
+        memory.data()[0x1488] = 56;
         cpu.setPC(0);
         var cycles = new AtomicInteger(op.getCycles());
         cpu.exec(cycles);
@@ -82,8 +82,8 @@ class LdyTests extends BaseCpuTest{
     void testLdyAbsoluteX()
     {
         var op = OpCodes.LDY_ABSOLUTE_X;
-        System.arraycopy(HexFormat.of().parseHex("%02X8814".formatted(op.getOpcode())), 0,memory.data,0,3);
-        memory.data[0x1489] = 56;
+        System.arraycopy(HexFormat.of().parseHex("%02X8814".formatted(op.getOpcode())), 0,memory.data(),0,3);
+        memory.data()[0x1489] = 56;
         cpu.setPC(0);
         cpu.setX((short) 1);
         var cycles = new AtomicInteger(op.getCycles());
@@ -96,8 +96,8 @@ class LdyTests extends BaseCpuTest{
 
         //cross page
 
-        System.arraycopy(HexFormat.of().parseHex("%02Xff14".formatted(op.getOpcode())), 0,memory.data,0,3);
-        memory.data[0x1500] = 56;
+        System.arraycopy(HexFormat.of().parseHex("%02Xff14".formatted(op.getOpcode())), 0,memory.data(),0,3);
+        memory.data()[0x1500] = 56;
         cpu.setPC(0);
         cpu.setX((short) 1);
         cycles = new AtomicInteger(op.getCycles());
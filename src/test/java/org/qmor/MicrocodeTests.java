@@ -0,0 +1,55 @@
+package org.qmor;
+
+import org.junit.jupiter.api.Test;
+import org.qmor.AddressMode.AddressModeFuncGetAddr.Direction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MicrocodeTests {
+
+    @Test
+    void descriptorsMatchInstructions()
+    {
+        var lda = OpCodes.LDA_ABSOLUTE_X.getMicrocode();
+        assertEquals(Register.A, lda.register());
+        assertEquals(AluOp.NONE, lda.alu());
+        assertTrue(lda.affects(Flag.N));
+        assertTrue(lda.affects(Flag.Z));
+        assertFalse(lda.affects(Flag.C));
+        assertEquals(Direction.R, lda.direction());
+        assertEquals(4, lda.baseCycles());
+
+        var sta = OpCodes.STA_INDIRECT_Y.getMicrocode();
+        assertEquals(Register.NONE, sta.register());
+        assertEquals(0, sta.flagMask());
+        assertEquals(Direction.W, sta.direction());
+        assertEquals(Direction.W, OpCodes.STX_ZP_Y.getMicrocode().direction());
+        assertEquals(Direction.W, OpCodes.STY_ABSOLUTE.getMicrocode().direction());
+
+        var inc = OpCodes.INC_ABSOLUTE_X.getMicrocode();
+        assertEquals(AluOp.INC, inc.alu());
+        assertEquals(Direction.W, inc.direction());
+
+        var dey = OpCodes.DEY.getMicrocode();
+        assertEquals(Register.Y, dey.register());
+        assertEquals(AluOp.DEC, dey.alu());
+        assertEquals(Direction.NONE, dey.direction());
+
+        assertEquals(AluOp.XOR, OpCodes.EOR_ZP.getMicrocode().alu());
+        assertEquals(Register.X, OpCodes.CPX_ZP.getMicrocode().register());
+        assertTrue(OpCodes.ADC_IM.getMicrocode().affects(Flag.C));
+    }
+
+    @Test
+    void everyInstructionHasConsistentDescriptor()
+    {
+        for (var op: OpCodes.values())
+        {
+            var mc = op.getMicrocode();
+            assertNotNull(mc, op.name());
+            assertEquals(op.getCycles(), mc.baseCycles(), op.name());
+            assertEquals(op.getAddressMode() == AddressMode.NONE, mc.direction() == Direction.NONE, op.name());
+            assertEquals(OpFunctions.flagMask(op.getFunctions()), mc.flagMask(), op.name());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.qmor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapMemoryTests {
+
+    private static final byte[] PGM = HexFormat.of().parseHex("a9ff85908d0080e690a690");//LDA #$FF STA $90 STA $8000 INC $90 LDX $90
+
+    private static CPU runOn(Memory memory)
+    {
+        final var cpu = new CPU(memory);
+        cpu.reset();
+        memory.load(0x1000, PGM);
+        cpu.setPC(0x1000);
+        cpu.run(17);
+        return cpu;
+    }
+
+    @Test
+    void executesLikeHeapMemory()
+    {
+        final var heap = runOn(new Memory());
+        final var offHeap = runOn(Memory.offHeap());
+        assertEquals(heap.printRegs(), offHeap.printRegs());
+        assertEquals(heap.getCycles(), offHeap.getCycles());
+        assertEquals(-1, heap.getMemory().mismatch(offHeap.getMemory()));
+        assertEquals(-1, offHeap.getMemory().mismatch(heap.getMemory()));
+        assertEquals(0xff, offHeap.getMemory().read(0x8000));
+        assertEquals(0x00, offHeap.getMemory().read(0x90));
+    }
+
+    @Test
+    void bulkOperations()
+    {
+        final var memory = Memory.offHeap();
+        memory.fill(0x0203, 0x103, (byte) 0xee);
+        assertEquals(0, memory.read(0x0202));
+        assertEquals(0xee, memory.read(0x0203));
+        assertEquals(0xee, memory.read(0x0305));
+        assertEquals(0, memory.read(0x0306));
+        memory.load(0xfffe, new byte[]{1, 2});
+        assertArrayEquals(new byte[]{(byte) 0xee, 0, 0}, memory.copyOf(0x0305, 3));
+        assertArrayEquals(new byte[]{1, 2}, memory.copyOf(0xfffe, 2));
+        assertThrows(IndexOutOfBoundsException.class, () -> memory.load(0xffff, new byte[]{1, 2}));
+
+        final var other = Memory.offHeap();
+        assertEquals(0x0203, memory.mismatch(other));
+        memory.reset();
+        assertEquals(-1, memory.mismatch(other));
+        other.write(0x1234, (byte) 1);
+        assertEquals(0x1234, memory.mismatch(other));
+        final var heap = new Memory();
+        heap.write(0x1234, (byte) 1);
+        heap.write(0x1235, (byte) 1);
+        assertEquals(0x1234, memory.mismatch(heap));
+    }
+
+    @Test
+    void devicesStillOverrideOffHeapPages()
+    {
+        final var memory = Memory.offHeap();
+        final var bus = new Bus(memory);
+        memory.write(0xff00, (byte) 3);
+        assertNull(bus.getDevice(0xff00));
+        assertEquals(3, bus.read(0xff00));
+        bus.map(0xff, 1, new Rom(0xff00, new byte[]{9}));
+        bus.write(0xff00, (byte) 4);
+        assertEquals(9, bus.read(0xff00));
+        bus.unmap(0xff, 1);
+        assertEquals(3, bus.read(0xff00));
+    }
+}
@@ -0,0 +1,153 @@
+package org.qmor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PredecodeTests extends BaseCpuTest {
+
+    private static CPU run(Workload workload, boolean predecode, boolean jit)
+    {
+        final var cpu = new CPU(new Memory());
+        cpu.setPredecodeEnabled(predecode);
+        cpu.setJitEnabled(jit);
+        workload.install(cpu);
+        workload.runToHalt(cpu, 10_000_000);
+        return cpu;
+    }
+
+    @Test
+    void workloadsExactWithPredecodeTest()
+    {
+        for (var workload: Workload.all())
+        {
+            final var cpu = run(workload, true, false);
+            assertEquals(List.of(), workload.verify(cpu), workload.getName());
+            assertTrue(cpu.getDecodeCache().getDecodedInstructions() > 0, workload.getName());
+            assertEquals(List.of(), workload.verify(run(workload, true, true)), workload.getName());
+        }
+    }
+
+    @Test
+    void operandWriteInvalidatesTest()
+    {
+        //0200 LDA $0300
+        //0203 INC $0201      next pass loads from $0301, $0302...
+        //0206 JMP $0200
+        memory.load(0x200, HexFormat.of().parseHex("ad0003ee01024c0002"));
+        memory.load(0x300, new byte[]{1, 2, 3, 4});
+        cpu.setPredecodeEnabled(true);
+        cpu.setPC(0x200);
+        for (int i = 1; i <= 4; i++)
+        {
+            cpu.step();
+            assertEquals(i, cpu.getA());
+            cpu.step();
+            cpu.step();
+        }
+        assertEquals(4, cpu.getDecodeCache().getInvalidatedInstructions());
+    }
+
+    @Test
+    void hostWritesInvalidateTest()
+    {
+        memory.load(0x200, HexFormat.of().parseHex("a9014c0002"));
+        cpu.setPredecodeEnabled(true);
+        cpu.setPC(0x200);
+        cpu.run(10);
+        assertEquals(1, cpu.getA());
+
+        memory.write(0x201, (byte) 2);
+        cpu.setPC(0x200);
+        cpu.step();
+        assertEquals(2, cpu.getA());
+
+        memory.data()[0x201] = 3;
+        memory.markAllDirty();
+        cpu.setPC(0x200);
+        cpu.step();
+        assertEquals(3, cpu.getA());
+
+        //opcode replaced: LDX #4
+        memory.load(0x200, new byte[]{(byte) 0xa2, 4});
+        cpu.setPC(0x200);
+        cpu.step();
+        assertEquals(4, cpu.getX());
+        assertEquals(3, cpu.getA());
+    }
+
+    @Test
+    void remapInvalidatesTest()
+    {
+        memory.load(0x200, HexFormat.of().parseHex("a9014c0002"));
+        cpu.setPredecodeEnabled(true);
+        cpu.setPC(0x200);
+        cpu.run(10);
+        cpu.getBus().map(2, 1, new Rom(0x200, HexFormat.of().parseHex("a9054c0002")));
+        cpu.setPC(0x200);
+        cpu.step();
+        assertEquals(5, cpu.getA());
+    }
+
+    @Test
+    void cyclesMatchInterpreterTest()
+    {
+        final var interpreted = new CPU(new Memory());
+        interpreted.reset();
+        for (var c: new CPU[]{interpreted, cpu})
+        {
+            //zero page pointer at $10 -> $02F0, crossing pages with Y
+            c.getMemory().load(0x10, new byte[]{(byte) 0xf0, 0x02});
+            c.getMemory().load(0x200, HexFormat.of().parseHex("a0f0b110b9f002a2f0b51091109d0003c8d0f14c0002"));
+            c.setPC(0x200);
+        }
+        cpu.setPredecodeEnabled(true);
+        for (int i = 0; i < 100; i++)
+        {
+            interpreted.run(13);
+            cpu.run(13);
+            assertEquals(interpreted.printRegs(), cpu.printRegs());
+            assertEquals(interpreted.getCycles(), cpu.getCycles());
+        }
+        assertEquals(-1, interpreted.getMemory().mismatch(memory));
+        cpu.setPredecodeEnabled(false);
+        assertNull(cpu.getDecodeCache());
+    }
+
+    @Test
+    void devicePagesFetchedOnceTest()
+    {
+        //a device answering NOP to every read, counting them
+        final var reads = new int[1];
+        cpu.getBus().map(0xc0, 1, new Device() {
+            @Override
+            public short read(int address)
+            {
+                reads[0]++;
+                return (short) OpCodes.NOP.getOpcode();
+            }
+
+            @Override
+            public void write(int address, byte value)
+            {
+            }
+        });
+        //NOP / JMP $C000 in RAM, then NOPs served by the device
+        memory.load(0xbffc, HexFormat.of().parseHex("ea4c00c0"));
+        cpu.setPredecodeEnabled(true);
+        cpu.setPC(0xbffc);
+        cpu.step();
+        cpu.step();
+        assertEquals(0, reads[0]);
+        for (int i = 1; i <= 3; i++)
+        {
+            cpu.step();
+            assertEquals(i, reads[0]);
+        }
+        assertEquals(3, cpu.getBus().getDeviceAccesses());
+        assertEquals(0xc003, cpu.getPC());
+    }
+}
@@ -0,0 +1,127 @@
+package org.qmor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HexFormat;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProfilerTests extends BaseCpuTest {
+
+    private static long weightSum(String collapsed)
+    {
+        return collapsed.lines().mapToLong(line -> Long.parseLong(line.substring(line.lastIndexOf(' ') + 1))).sum();
+    }
+
+    private static long weight(String collapsed, String path)
+    {
+        return collapsed.lines()
+                .filter(line -> line.startsWith(path + " "))
+                .mapToLong(line -> Long.parseLong(line.substring(path.length() + 1)))
+                .findFirst()
+                .orElse(0);
+    }
+
+    @Test
+    void workloadProfileTest()
+    {
+        final var workload = Workload.load("multiply");
+        assertEquals("mul8", workload.getLabels().get(0x236));
+        final var profiler = WorkloadRunner.profile(workload);
+        assertEquals(workload.getInstructions(), profiler.getTotalInstructions());
+        assertEquals(workload.getCycles(), profiler.getTotalCycles());
+        assertEquals(profiler.getTotalCycles(), IntStream.range(0, Memory.MEM_SIZE).mapToLong(profiler::getCycles).sum());
+        assertEquals(32, profiler.getInstructions(0x212));
+        assertEquals(32, profiler.getInstructions(0x236));
+
+        final var cycles = profiler.collapsed(true);
+        assertEquals(profiler.getTotalCycles(), weightSum(cycles));
+        assertTrue(weight(cycles, "root;mul8") > weight(cycles, "root"), cycles);
+        assertEquals(2, cycles.lines().count(), cycles);
+        assertEquals(profiler.getTotalInstructions(), weightSum(profiler.collapsed(false)));
+        assertEquals(0, profiler.depth());
+        assertTrue(profiler.hottest(1)[0] > 0x236);
+    }
+
+    @Test
+    void sameProfileWithHandlersTest()
+    {
+        final var workload = Workload.load("bubblesort");
+        final var cpu = new CPU(new Memory());
+        cpu.setCore(ExecutionCore.HANDLERS);
+        final var profiler = new Profiler();
+        cpu.setProfiler(profiler);
+        workload.install(cpu);
+        workload.runToHalt(cpu, 10_000_000);
+        assertEquals(WorkloadRunner.profile(workload).collapsed(true), profiler.collapsed(true));
+    }
+
+    @Test
+    void nestedCallsTest()
+    {
+        //0200 JSR $0300 / JSR $0310 / JMP $0206
+        //0300 JSR $0310 / RTS
+        //0310 PHA / PLA / RTS
+        memory.load(0x200, HexFormat.of().parseHex("2000032010034c0602"));
+        memory.load(0x300, HexFormat.of().parseHex("20100360"));
+        memory.load(0x310, HexFormat.of().parseHex("486860"));
+        final var profiler = new Profiler();
+        profiler.label(0x310, "leaf");
+        cpu.setProfiler(profiler);
+        cpu.setPC(0x200);
+        while (cpu.getPC() != 0x206)
+            cpu.step();
+        final var instructions = profiler.collapsed(false);
+        assertEquals(2, weight(instructions, "root"), instructions);
+        assertEquals(2, weight(instructions, "root;$0300"), instructions);
+        assertEquals(3, weight(instructions, "root;$0300;leaf"), instructions);
+        assertEquals(3, weight(instructions, "root;leaf"), instructions);
+        assertEquals(0, profiler.depth());
+    }
+
+    @Test
+    void droppedReturnAddressTest()
+    {
+        //0200 JSR $0300, 0300 PLA / PLA / JMP $0304
+        memory.load(0x200, HexFormat.of().parseHex("200003"));
+        memory.load(0x300, HexFormat.of().parseHex("68684c0403"));
+        final var profiler = new Profiler();
+        cpu.setProfiler(profiler);
+        cpu.setPC(0x200);
+        cpu.step();
+        assertEquals(1, profiler.depth());
+        //the first pull already consumes the return address
+        cpu.step();
+        assertEquals(0, profiler.depth());
+        cpu.step();
+        cpu.step();
+        final var instructions = profiler.collapsed(false);
+        assertEquals(3, weight(instructions, "root"), instructions);
+        assertEquals(1, weight(instructions, "root;$0300"), instructions);
+    }
+
+    @Test
+    void interruptFrameTest()
+    {
+        //CLI / JMP $0201, handler INC $20 / RTI, the line is released before the handler runs
+        memory.load(0x200, HexFormat.of().parseHex("584c0102"));
+        memory.load(0x300, HexFormat.of().parseHex("e62040"));
+        memory.load(CPU.IRQ_VECTOR, new byte[]{0x00, 0x03});
+        cpu.getScheduler().schedule(100, (c, cycle) -> c.setIrq(0, true));
+        cpu.getScheduler().schedule(105, (c, cycle) -> c.setIrq(0, false));
+        final var profiler = new Profiler();
+        cpu.setProfiler(profiler);
+        cpu.setPC(0x200);
+        cpu.run(1000);
+        assertEquals(1, memory.read(0x20));
+        final var cycles = profiler.collapsed(true);
+        assertEquals(7 + 5 + 6, weight(cycles, "root;$0300"), cycles);
+        assertEquals(cpu.getCycles(), profiler.getTotalCycles());
+        assertEquals(0, cpu.getIdleCyclesSkipped());
+
+        profiler.reset();
+        assertEquals("", profiler.collapsed(true));
+        assertEquals(0, profiler.getCycles(0x201));
+    }
+}
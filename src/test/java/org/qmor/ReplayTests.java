@@ -0,0 +1,153 @@
+package org.qmor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.qmor.BaseCpuTest.assertSameState;
+
+class ReplayTests {
+    private static final int TIMER_PAGE = 0xc0;
+
+    /**
+     * raises IRQ every period cycles, reads return the expiry count, any write acknowledges
+     */
+    private static final class Timer implements Device {
+        private final CPU cpu;
+        private final int period;
+        int expired;
+
+        Timer(CPU cpu, int period)
+        {
+            this.cpu = cpu;
+            this.period = period;
+            cpu.getScheduler().schedule(cpu.getCycles() + period, this::expire);
+        }
+
+        private void expire(CPU cpu, long cycle)
+        {
+            expired++;
+            cpu.setIrq(0, true);
+            cpu.getScheduler().schedule(cycle + period, this::expire);
+        }
+
+        @Override
+        public short read(int address)
+        {
+            return (short) (expired & 0xff);
+        }
+
+        @Override
+        public void write(int address, byte value)
+        {
+            cpu.setIrq(0, false);
+        }
+    }
+
+    /**
+     * main loop copies the timer to $10 and host input $30 to $31, the IRQ handler counts in $20 through a mirror
+     * of page 0 at $0800, the NMI handler counts in $21; vectors are in ROM
+     */
+    private static CPU machine(Consumer<CPU> config)
+    {
+        final var cpu = new CPU(new Memory());
+        cpu.reset();
+        config.accept(cpu);
+        final var memory = cpu.getMemory();
+        //CLI / LDA $C000 / STA $10 / LDA $30 / STA $31 / JMP $0201
+        memory.load(0x200, HexFormat.of().parseHex("58ad00c08510a53085314c0102"));
+        //INC $0820 / STA $C000 / RTI
+        memory.load(0x300, HexFormat.of().parseHex("ee20088d00c040"));
+        //INC $21 / RTI
+        memory.load(0x310, HexFormat.of().parseHex("e62140"));
+        final var rom = new byte[Bus.PAGE_SIZE];
+        rom[0xfa] = 0x10;
+        rom[0xfb] = 0x03;
+        rom[0xfe] = 0x00;
+        rom[0xff] = 0x03;
+        final var bus = cpu.getBus();
+        bus.map(0xff, 1, new Rom(0xff00, rom));
+        bus.map(0x08, 1, new Mirror(bus, 0, Bus.PAGE_SIZE));
+        bus.map(TIMER_PAGE, 1, new Timer(cpu, 1000));
+        cpu.setPC(0x200);
+        return cpu;
+    }
+
+    private static byte[] record(CPU cpu, long cycles)
+    {
+        final var random = new Random(6502);
+        final var recorder = new Recorder(cpu);
+        final var end = cpu.getCycles() + cycles;
+        for (int i = 0; cpu.getCycles() < end; i++)
+        {
+            cpu.run(Math.min(1 + random.nextInt(5000), end - cpu.getCycles()));
+            recorder.write(0x30, (byte) i);
+            if (i % 7 == 0)
+                cpu.getScheduler().schedule(cpu.getCycles() + random.nextInt(100), (c, cycle) -> c.nmi());
+        }
+        return recorder.stop();
+    }
+
+    @Test
+    void replayTest()
+    {
+        final var cpu = machine(c -> {});
+        final var timer = cpu.getBus().getDevice(TIMER_PAGE << 8);
+        cpu.run(12_345);
+        final var log = record(cpu, 250_000);
+        assertSame(timer, cpu.getBus().getDevice(TIMER_PAGE << 8));
+        assertNull(cpu.getRecorder());
+        assertTrue(cpu.getMemory().read(0x20) > 0);
+        assertTrue(cpu.getMemory().read(0x21) > 0);
+        assertTrue(log.length < 4096, "log size " + log.length);
+
+        final List<Consumer<CPU>> configs = List.of(
+                c -> {},
+                c -> c.setIdleSkipEnabled(false),
+                c -> c.setCore(ExecutionCore.HANDLERS),
+                c -> c.setPredecodeEnabled(true),
+                c -> c.setJitEnabled(true),
+                c -> c.setTiming(TimingMode.STATIC));
+        for (int i = 0; i < configs.size(); i++)
+            assertSameState(cpu, Replayer.replay(log, configs.get(i)), "config " + i);
+    }
+
+    @Test
+    void recordWithJitTest()
+    {
+        final var cpu = machine(c -> c.setJitEnabled(true));
+        final var log = record(cpu, 100_000);
+        assertSameState(cpu, Replayer.replay(log), "jit");
+        assertSameState(cpu, Replayer.replay(log, c -> c.setJitEnabled(true)), "jit replay");
+    }
+
+    @Test
+    void emptyRecordingTest()
+    {
+        final var cpu = machine(c -> {});
+        cpu.run(500);
+        cpu.setIrq(3, true);
+        final var recorder = new Recorder(cpu);
+        assertThrows(IllegalStateException.class, () -> new Recorder(cpu));
+        recorder.load(0x40, new byte[]{1, 2, 3});
+        assertEquals(3, recorder.inputCount());
+        final var replayed = Replayer.replay(recorder.stop());
+        assertSameState(cpu, replayed, "empty");
+        assertEquals(cpu.getIrqSources(), replayed.getIrqSources());
+    }
+
+    @Test
+    void divergenceTest()
+    {
+        final var log = record(machine(c -> {}), 50_000);
+        assertThrows(IllegalStateException.class,
+                () -> Replayer.replay(log, c -> c.getScheduler().schedule(20_000, (cpu, cycle) -> cpu.nmi())));
+        assertThrows(IllegalArgumentException.class, () -> Replayer.replay(Arrays.copyOf(log, log.length / 2)));
+        assertThrows(IllegalArgumentException.class, () -> Replayer.replay(new byte[]{1, 2, 3}));
+    }
+}
@@ -0,0 +1,69 @@
+package org.qmor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RunTests extends BaseCpuTest {
+
+    @Test
+    void runReportsCyclesAndInstructions()
+    {
+        var pgm = HexFormat.of().parseHex("a9ff8590ea");//LDA #$FF STA $90 NOP
+        System.arraycopy(pgm,0,memory.data(),0x1000,pgm.length);
+        cpu.setPC(0x1000);
+        var result = cpu.run(OpCodes.LDA_IM.getCycles()+OpCodes.STA_ZP.getCycles()+OpCodes.NOP.getCycles());
+        assertEquals(7, result.cycles());
+        assertEquals(3, result.instructions());
+        assertEquals(7, cpu.getCycles());
+        assertEquals(3, cpu.getInstructions());
+        assertEquals(0xff, memory.data()[0x90]&0xff);
+    }
+
+    @Test
+    void runCompletesLastInstruction()
+    {
+        var pgm = HexFormat.of().parseHex("a9ff8590");//LDA #$FF STA $90
+        System.arraycopy(pgm,0,memory.data(),0x1000,pgm.length);
+        cpu.setPC(0x1000);
+        var result = cpu.run(3);
+        assertEquals(5, result.cycles());
+        assertEquals(2, result.instructions());
+    }
+
+    @Test
+    void nonPositiveBudgetExecutesNothing()
+    {
+        cpu.setPC(0x1000);
+        var result = cpu.run(0);
+        assertEquals(0, result.cycles());
+        assertEquals(0, result.instructions());
+        assertEquals(0x1000, cpu.getPC());
+    }
+
+    @Test
+    void execAdapterSubtractsConsumedCycles()
+    {
+        var pgm = HexFormat.of().parseHex("a9ff8590");//LDA #$FF STA $90
+        System.arraycopy(pgm,0,memory.data(),0x1000,pgm.length);
+        cpu.setPC(0x1000);
+        var cycles = new AtomicInteger(3);
+        cpu.exec(cycles);
+        assertEquals(-2, cycles.get());
+        assertEquals(5, cpu.getCycles());
+    }
+
+    @Test
+    void resetClearsCounters()
+    {
+        memory.data()[0xfffc] = (byte) OpCodes.NOP.getOpcode();
+        cpu.run(OpCodes.NOP.getCycles());
+        assertEquals(1, cpu.getInstructions());
+        cpu.reset();
+        assertEquals(0, cpu.getCycles());
+        assertEquals(0, cpu.getInstructions());
+    }
+}
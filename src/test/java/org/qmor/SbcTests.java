@@ -13,8 +13,8 @@ class SbcTests extends BaseCpuTest{
 	@Test
 	void testSbcImmediate() {
 		var op = OpCodes.SBC_IM;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x42;
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x42;
 		cpu.setA((short) 0x52);
 		cpu.getF().setFlag(Flag.C, true); // Установка флага переноса (нет занимания)
 		var cycles = new AtomicInteger(op.getCycles());
@@ -29,8 +29,8 @@ class SbcTests extends BaseCpuTest{
 	@Test
 	void testSbcImmediateWithBorrow() {
 		var op = OpCodes.SBC_IM;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x42;
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x42;
 		cpu.setA((short) 0x52);
 		cpu.getF().setFlag(Flag.C, false); // Очистка флага переноса (занимание)
 		var cycles = new AtomicInteger(op.getCycles());
@@ -45,8 +45,8 @@ class SbcTests extends BaseCpuTest{
 	@Test
 	void testSbcImmediateWithOverflow() {
 		var op = OpCodes.SBC_IM;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x01;
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x01;
 		cpu.setA((short) 0x00);
 		cpu.getF().setFlag(Flag.C, false); // Очистка флага переноса (занимание)
 		var cycles = new AtomicInteger(op.getCycles());
@@ -61,8 +61,8 @@ class SbcTests extends BaseCpuTest{
 	@Test
 	void testSbcImmediateWithOverflowAndNoBorrow() {
 		var op = OpCodes.SBC_IM;
-		memory.data[0xfffc] = (byte) op.getOpcode();
-		memory.data[0xfffd] = 0x01;
+		memory.data()[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffd] = 0x01;
 		cpu.setA((short) 0x00);
 		cpu.getF().setFlag(Flag.C, true); // Установка флага переноса (нет занимания)
 		var cycles = new AtomicInteger(op.getCycles());
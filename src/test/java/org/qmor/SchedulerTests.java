@@ -0,0 +1,96 @@
+package org.qmor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchedulerTests extends BaseCpuTest {
+
+    @Test
+    void firesInCycleThenSchedulingOrderTest()
+    {
+        final List<String> fired = new ArrayList<>();
+        final var scheduler = cpu.getScheduler();
+        scheduler.schedule(30, (c, cycle) -> fired.add("c30"));
+        scheduler.schedule(10, (c, cycle) -> fired.add("a10"));
+        scheduler.schedule(30, (c, cycle) -> fired.add("d30"));
+        scheduler.schedule(20, (c, cycle) -> fired.add("b20"));
+        assertEquals(10, scheduler.nextCycle());
+        assertEquals(4, scheduler.size());
+        //JMP $0200
+        memory.load(0x200, HexFormat.of().parseHex("4c0002"));
+        cpu.setIdleSkipEnabled(false);
+        cpu.setPC(0x200);
+        cpu.run(100);
+        assertEquals(List.of("a10", "b20", "c30", "d30"), fired);
+        assertEquals(Long.MAX_VALUE, scheduler.nextCycle());
+    }
+
+    @Test
+    void firesAtFirstBoundaryTest()
+    {
+        final List<Long> seen = new ArrayList<>();
+        //JMP $0200, 3 cycles
+        memory.load(0x200, HexFormat.of().parseHex("4c0002"));
+        cpu.setPC(0x200);
+        cpu.getScheduler().schedule(7, (c, cycle) -> {
+            seen.add(cycle);
+            seen.add(c.getCycles());
+        });
+        cpu.run(1000);
+        assertEquals(List.of(7L, 9L), seen);
+    }
+
+    @Test
+    void rescheduleAndCancelTest()
+    {
+        final var count = new int[1];
+        final var scheduler = cpu.getScheduler();
+        final Scheduler.Event tick = new Scheduler.Event() {
+            @Override
+            public void fire(CPU c, long cycle)
+            {
+                count[0]++;
+                c.getScheduler().schedule(cycle + 100, this);
+            }
+        };
+        final Scheduler.Event other = (c, cycle) -> fail("cancelled event fired");
+        scheduler.schedule(100, tick);
+        scheduler.schedule(5000, other);
+        memory.load(0x200, HexFormat.of().parseHex("4c0002"));
+        cpu.setPC(0x200);
+        cpu.run(1050);
+        assertEquals(10, count[0]);
+        assertEquals(1, scheduler.cancel(other));
+        assertEquals(1, scheduler.cancel(tick));
+        assertEquals(0, scheduler.size());
+        cpu.run(10_000);
+        assertEquals(10, count[0]);
+    }
+
+    @Test
+    void heapOrderTest()
+    {
+        final var random = new Random(6502);
+        final var scheduler = cpu.getScheduler();
+        final List<Long> fired = new ArrayList<>();
+        final List<Scheduler.Event> cancelled = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+        {
+            final Scheduler.Event event = (c, cycle) -> fired.add(cycle);
+            scheduler.schedule(random.nextInt(5000), event);
+            if (i % 7 == 0)
+                cancelled.add(event);
+        }
+        cancelled.forEach(scheduler::cancel);
+        scheduler.fireDue(Long.MAX_VALUE);
+        assertEquals(1000 - cancelled.size(), fired.size());
+        for (int i = 1; i < fired.size(); i++)
+            assertTrue(fired.get(i - 1) <= fired.get(i));
+    }
+}
@@ -12,7 +12,7 @@ class SecClcTests extends BaseCpuTest{
 	@Test
 	void testSec() {
 		var op = OpCodes.SEC;
-		memory.data[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffc] = (byte) op.getOpcode();
 		cpu.getF().setFlag(Flag.C, false); // Очистка флага переноса
 		var cycles = new AtomicInteger(op.getCycles());
 		cpu.exec(cycles);
@@ -23,7 +23,7 @@ class SecClcTests extends BaseCpuTest{
 	@Test
 	void testClc() {
 		var op = OpCodes.CLC;
-		memory.data[0xfffc] = (byte) op.getOpcode();
+		memory.data()[0xfffc] = (byte) op.getOpcode();
 		cpu.getF().setFlag(Flag.C, true); // Установка флага переноса
 		var cycles = new AtomicInteger(op.getCycles());
 		cpu.exec(cycles);
@@ -0,0 +1,89 @@
+package org.qmor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShiftTests extends BaseCpuTest {
+
+    @Test
+    void aslAccumulatorTest()
+    {
+        var op = OpCodes.ASL_A;
+        memory.data()[0xfffc] = (byte) op.getOpcode();
+        cpu.setA((short) 0x81);
+        var cycles = new AtomicInteger(op.getCycles());
+        cpu.exec(cycles);
+        assertEquals(0, cycles.get());
+        assertEquals(0x02, cpu.getA());
+        assertTrue(cpu.getF().getAsBoolean(Flag.C));
+        assertFalse(cpu.getF().getAsBoolean(Flag.N));
+        assertFalse(cpu.getF().getAsBoolean(Flag.Z));
+    }
+
+    @Test
+    void lsrAccumulatorTest()
+    {
+        var op = OpCodes.LSR_A;
+        memory.data()[0xfffc] = (byte) op.getOpcode();
+        cpu.setA((short) 0x01);
+        cpu.getF().setFlag(Flag.C, false);
+        var cycles = new AtomicInteger(op.getCycles());
+        cpu.exec(cycles);
+        assertEquals(0, cycles.get());
+        assertEquals(0, cpu.getA());
+        assertTrue(cpu.getF().getAsBoolean(Flag.C));
+        assertTrue(cpu.getF().getAsBoolean(Flag.Z));
+    }
+
+    @Test
+    void rolAccumulatorTest()
+    {
+        var op = OpCodes.ROL_A;
+        memory.data()[0xfffc] = (byte) op.getOpcode();
+        cpu.setA((short) 0x40);
+        cpu.getF().setFlag(Flag.C, true);
+        var cycles = new AtomicInteger(op.getCycles());
+        cpu.exec(cycles);
+        assertEquals(0x81, cpu.getA());
+        assertFalse(cpu.getF().getAsBoolean(Flag.C));
+        assertTrue(cpu.getF().getAsBoolean(Flag.N));
+    }
+
+    @Test
+    void rorZeroPageTest()
+    {
+        var op = OpCodes.ROR_ZP;
+        memory.data()[0xfffc] = (byte) op.getOpcode();
+        memory.data()[0xfffd] = 0x42;
+        memory.data()[0x42] = 0x03;
+        cpu.getF().setFlag(Flag.C, true);
+        var cycles = new AtomicInteger(op.getCycles());
+        cpu.exec(cycles);
+        assertEquals(0, cycles.get());
+        assertEquals((byte) 0x81, memory.data()[0x42]);
+        assertTrue(cpu.getF().getAsBoolean(Flag.C));
+        assertTrue(cpu.getF().getAsBoolean(Flag.N));
+    }
+
+    @Test
+    void aslAbsoluteXTest()
+    {
+        var op = OpCodes.ASL_ABSOLUTE_X;
+        memory.data()[0xfffc] = (byte) op.getOpcode();
+        memory.data()[0xfffd] = 0x00;
+        memory.data()[0xfffe] = 0x20;
+        memory.data()[0x2005] = 0x40;
+        cpu.setX((short) 5);
+        var cycles = new AtomicInteger(op.getCycles());
+        cpu.exec(cycles);
+        assertEquals(0, cycles.get());
+        assertEquals((byte) 0x80, memory.data()[0x2005]);
+        assertFalse(cpu.getF().getAsBoolean(Flag.C));
+        assertTrue(cpu.getF().getAsBoolean(Flag.N));
+    }
+}
@@ -12,7 +12,7 @@ class SimplePgmTest extends BaseCpuTest{
     void simpleTest()
     {
         var pgm = HexFormat.of().parseHex("a9ff85908d00804c0010");
-        System.arraycopy(pgm,0,cpu.getMemory().data,0x1000,pgm.length);
+        System.arraycopy(pgm,0,cpu.getMemory().data(),0x1000,pgm.length);
         cpu.setPC(0x1000);
         cpu.exec(new AtomicInteger(10000));
         assertEquals(255, cpu.getSP());
@@ -13,7 +13,7 @@ class StackOpTests extends BaseCpuTest {
     void TSXtest()
     {
         var op = OpCodes.TSX;
-        memory.data[0] = (byte) op.getOpcode();
+        memory.data()[0] = (byte) op.getOpcode();
         cpu.setPC(0);
         final var cycles = new AtomicInteger(op.getCycles());
         assertNotEquals(cpu.getX(), cpu.getSP());
@@ -27,7 +27,7 @@ class StackOpTests extends BaseCpuTest {
     void TXStest()
     {
         var op = OpCodes.TXS;
-        memory.data[0] = (byte) op.getOpcode();
+        memory.data()[0] = (byte) op.getOpcode();
         cpu.setPC(0);
         cpu.setX((short) 10);
         final var latchF = cpu.getF().getCopy();
@@ -43,7 +43,7 @@ class StackOpTests extends BaseCpuTest {
     void PHA_PLA_Test()
     {
         var op = OpCodes.PHA;
-        memory.data[0] = (byte) op.getOpcode();
+        memory.data()[0] = (byte) op.getOpcode();
         cpu.setPC(0);
         cpu.setA((short) 0x80);
         final var latchF = cpu.getF().getCopy();
@@ -52,9 +52,9 @@ class StackOpTests extends BaseCpuTest {
         assertEquals(latchF,cpu.getF());
         assertEquals(0,cycles.get());
         assertEquals(0xfe, cpu.getSP());
-        assertEquals(0x80,cpu.getMemory().data[CPU.STACK_LOW+cpu.getSP()]&0xff);
+        assertEquals(0x80,cpu.getMemory().data()[CPU.STACK_LOW+cpu.getSP()]&0xff);
         op = OpCodes.PLA;
-        memory.data[1] = (byte) op.getOpcode();
+        memory.data()[1] = (byte) op.getOpcode();
         cpu.setA((short) 12);
         cycles.set(op.getCycles());
         cpu.exec(cycles);
@@ -69,7 +69,7 @@ class StackOpTests extends BaseCpuTest {
     void PHP_PLP_Test()
     {
         var op = OpCodes.PHP;
-        memory.data[0] = (byte) op.getOpcode();
+        memory.data()[0] = (byte) op.getOpcode();
         cpu.setPC(0);
         cpu.getF().setByteValue((short) 0x12);
         final var latchF = cpu.getF().getCopy();
@@ -77,12 +77,12 @@ class StackOpTests extends BaseCpuTest {
         cpu.exec(cycles);
         assertEquals(0,cycles.get());
         assertEquals(0xfe, cpu.getSP());
-        assertEquals(0x12,cpu.getMemory().data[CPU.STACK_LOW+cpu.getSP()]&0xff);
+        assertEquals(0x12,cpu.getMemory().data()[CPU.STACK_LOW+cpu.getSP()]&0xff);
         assertEquals(latchF,cpu.getF());
 
         cpu.getF().setByteValue((short) 0);
         op = OpCodes.PLP;
-        memory.data[1] = (byte) op.getOpcode();
+        memory.data()[1] = (byte) op.getOpcode();
         cycles.set(op.getCycles());
         cpu.exec(cycles);
         assertEquals(0,cycles.get());
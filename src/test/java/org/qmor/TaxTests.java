@@ -13,7 +13,7 @@ class TaxTests extends BaseCpuTest{
     {
         final var op = OpCodes.TAX;
         cpu.setPC(0);
-        memory.data[0] = (byte) op.getOpcode();
+        memory.data()[0] = (byte) op.getOpcode();
         cpu.setA((short) 0x81);
         var cycles = new AtomicInteger(op.getCycles());
         cpu.exec(cycles);
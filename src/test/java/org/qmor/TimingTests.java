@@ -0,0 +1,96 @@
+package org.qmor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingTests extends BaseCpuTest {
+
+    private static CPU machine(byte[] image, ExecutionCore core, TimingMode timing)
+    {
+        final var cpu = new CPU(new Memory());
+        cpu.reset();
+        cpu.getMemory().load(0, image);
+        cpu.setCore(core);
+        cpu.setTiming(timing);
+        return cpu;
+    }
+
+    @Test
+    void staticTimingMatchesBusAccurateForEveryOpcodeTest()
+    {
+        final var random = new Random(6502);
+        final var image = new byte[Memory.MEM_SIZE];
+        for (var core: ExecutionCore.values())
+        {
+            for (var op: OpCodes.values())
+            {
+                if (op == OpCodes.ILLEGAL)
+                    continue;
+                for (int i = 0; i < 50; i++)
+                {
+                    random.nextBytes(image);
+                    final var pc = random.nextInt(Memory.MEM_SIZE - 3);
+                    image[pc] = (byte) op.getOpcode();
+                    final var accurate = machine(image, core, TimingMode.BUS_ACCURATE);
+                    final var fixed = machine(image, core, TimingMode.STATIC);
+                    final var a = (short) random.nextInt(256);
+                    final var x = (short) random.nextInt(256);
+                    final var y = (short) random.nextInt(256);
+                    final var flags = (short) random.nextInt(256);
+                    for (var cpu: List.of(accurate, fixed))
+                    {
+                        cpu.setPC(pc);
+                        cpu.setA(a);
+                        cpu.setX(x);
+                        cpu.setY(y);
+                        cpu.getF().setByteValue(flags);
+                        cpu.step();
+                    }
+                    final var message = core + " " + op;
+                    assertEquals(accurate.getCycles(), fixed.getCycles(), message);
+                    assertTrue(fixed.getCycles() >= op.getCycles(), message);
+                    assertEquals(accurate.printRegs(), fixed.printRegs(), message);
+                    assertEquals(-1, accurate.getMemory().mismatch(fixed.getMemory()), message);
+                }
+            }
+        }
+    }
+
+    @Test
+    void workloadsExactWithStaticTimingTest()
+    {
+        for (var workload: Workload.all())
+        {
+            final var cpu = new CPU(new Memory());
+            cpu.setTiming(TimingMode.STATIC);
+            workload.install(cpu);
+            workload.runToHalt(cpu, 10_000_000);
+            assertEquals(List.of(), workload.verify(cpu), workload.getName());
+        }
+    }
+
+    @Test
+    void penaltiesTest()
+    {
+        //LDA $02F0,X / BNE +0 (taken) / BEQ (not taken)
+        memory.load(0x200, HexFormat.of().parseHex("bdf002d000f000"));
+        cpu.setTiming(TimingMode.STATIC);
+        cpu.setX((short) 0x20);
+        cpu.setPC(0x200);
+        cpu.step();
+        assertEquals(5, cpu.getCycles());
+        memory.write(0x0310, (byte) 1);
+        cpu.setPC(0x200);
+        cpu.step();
+        cpu.step();
+        assertEquals(13, cpu.getCycles());
+        cpu.step();
+        assertEquals(15, cpu.getCycles());
+        assertEquals(TimingMode.STATIC, cpu.fork().getTiming());
+    }
+}
@@ -0,0 +1,172 @@
+package org.qmor;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TraceIndexTests {
+    @TempDir
+    Path dir;
+
+    private Path file;
+    private RingTraceBuffer ring;
+
+    @BeforeEach
+    void traceBubblesort()
+    {
+        final var workload = Workload.load("bubblesort");
+        file = dir.resolve("bubblesort.trace");
+        ring = new RingTraceBuffer((int) workload.getInstructions());
+        final var cpu = new CPU(new Memory());
+        workload.install(cpu);
+        try (var writer = new TraceWriter(file))
+        {
+            cpu.setTraceSink(new TraceSink() {
+                @Override
+                public void record(int pc, int opcode, int a, int x, int y, int sp, int p, long cycle)
+                {
+                    record(pc, opcode, 0, a, x, y, sp, p, cycle);
+                }
+
+                @Override
+                public void record(int pc, int opcode, int operand, int a, int x, int y, int sp, int p, long cycle)
+                {
+                    ring.record(pc, opcode, a, x, y, sp, p, cycle);
+                    writer.record(pc, opcode, operand, a, x, y, sp, p, cycle);
+                }
+            });
+            workload.runToHalt(cpu, 10_000_000);
+            cpu.setTraceSink(null);
+        }
+    }
+
+    @Test
+    void seekTest()
+    {
+        for (var interval : new int[]{1, 100, TraceIndex.DEFAULT_INTERVAL, ring.size() + 1})
+        {
+            final var index = TraceIndex.build(file, dir.resolve("bubblesort.idx"), interval);
+            assertEquals(ring.size(), index.getRecords());
+            final var random = new Random(interval);
+            for (var record : new long[]{0, interval - 1, interval, interval + 1, ring.size() - 1,
+                    random.nextInt(ring.size()), random.nextInt(ring.size())})
+            {
+                if (record >= ring.size())
+                    continue;
+                try (var reader = index.reader(record))
+                {
+                    //the record itself and where decoding continues from it
+                    for (var i = (int) record; i < Math.min(record + 3, ring.size()); i++)
+                    {
+                        assertEquals(i, reader.getIndex());
+                        assertEquals(ring.render(i), reader.render(), "interval %d record %d".formatted(interval, i));
+                        if (i + 1 < ring.size())
+                            assertTrue(reader.next());
+                    }
+                }
+            }
+            assertThrows(IllegalArgumentException.class, () -> index.reader(ring.size()));
+            assertThrows(IllegalArgumentException.class, () -> index.reader(-1));
+        }
+    }
+
+    @Test
+    void restoreTest()
+    {
+        final var index = TraceIndex.build(file, dir.resolve("bubblesort.idx"), 64);
+        final var record = ring.size() / 2;
+        final var cpu = new CPU(new Memory());
+        try (var reader = index.reader(record))
+        {
+            reader.restore(cpu);
+            assertEquals(ring.getPC(record), cpu.getPC());
+            assertEquals(reader.getP(), cpu.getF().getByteValue());
+            assertEquals(reader.getSP(), cpu.getSP());
+            assertEquals(reader.getFlags(), cpu.getF());
+            assertEquals(ring.render(record),
+                    RingTraceBuffer.render(ring.getCycle(record), reader.getOpcode(), cpu.getPC(), cpu.getSP(),
+                            cpu.getA(), cpu.getX(), cpu.getY(), cpu.getF().getByteValue()));
+        }
+    }
+
+    @Test
+    void cycleQueryTest()
+    {
+        final var index = TraceIndex.build(file, dir.resolve("bubblesort.idx"), 100);
+        final var first = ring.getCycle(0);
+        final var last = ring.getCycle(ring.size() - 1);
+        assertEquals(-1, index.recordAtCycle(first - 1));
+        assertEquals(0, index.recordAtCycle(first));
+        assertEquals(ring.size() - 1, index.recordAtCycle(last + 1000));
+        final var random = new Random(6502);
+        for (int n = 0; n < 200; n++)
+        {
+            final var cycle = first + (long) (random.nextDouble() * (last - first));
+            int expected = 0;
+            while (expected + 1 < ring.size() && ring.getCycle(expected + 1) <= cycle)
+                expected++;
+            assertEquals(expected, index.recordAtCycle(cycle), "cycle " + cycle);
+        }
+    }
+
+    @Test
+    void pcQueryTest()
+    {
+        final var index = TraceIndex.build(file, dir.resolve("bubblesort.idx"), 100);
+        final var random = new Random(6502);
+        for (int n = 0; n < 50; n++)
+        {
+            final var pc = ring.getPC(random.nextInt(ring.size()));
+            long count = 0;
+            int first = -1;
+            for (int i = 0; i < ring.size(); i++)
+            {
+                if (ring.getPC(i) == pc)
+                {
+                    count++;
+                    if (first < 0)
+                        first = i;
+                }
+            }
+            assertEquals(count, index.count(pc));
+            assertEquals(first, index.firstOccurrence(pc));
+            //every occurrence after a random record
+            final var from = random.nextInt(ring.size());
+            var expected = from;
+            while (expected < ring.size() && ring.getPC(expected) != pc)
+                expected++;
+            assertEquals(expected == ring.size() ? -1 : expected, index.nextOccurrence(pc, from));
+        }
+        assertEquals(0, index.count(0xfff0));
+        assertEquals(-1, index.firstOccurrence(0xfff0));
+        assertEquals(-1, index.nextOccurrence(ring.getPC(0), ring.size()));
+    }
+
+    @Test
+    void badIndexTest() throws IOException
+    {
+        final var indexFile = dir.resolve("bubblesort.idx");
+        assertThrows(IllegalArgumentException.class, () -> TraceIndex.build(file, indexFile, 0));
+        TraceIndex.build(file, indexFile, 100);
+        final var bytes = Files.readAllBytes(indexFile);
+
+        //separate files, the built index stays mapped
+        final var junk = Files.write(dir.resolve("junk.idx"), new byte[]{1, 2, 3});
+        assertThrows(IllegalArgumentException.class, () -> TraceIndex.open(file, junk));
+        final var truncated = Files.write(dir.resolve("truncated.idx"), Arrays.copyOf(bytes, bytes.length - 4));
+        assertThrows(IllegalArgumentException.class, () -> TraceIndex.open(file, truncated));
+
+        //the trace changed since it was indexed
+        Files.write(file, new byte[]{0}, StandardOpenOption.APPEND);
+        assertThrows(IllegalArgumentException.class, () -> TraceIndex.open(file, indexFile));
+    }
+}
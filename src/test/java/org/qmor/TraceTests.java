@@ -0,0 +1,62 @@
+package org.qmor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TraceTests extends BaseCpuTest {
+
+    @Test
+    void recordsStateBeforeEachInstruction()
+    {
+        var pgm = HexFormat.of().parseHex("a9ff8590ea");//LDA #$FF STA $90 NOP
+        System.arraycopy(pgm,0,memory.data(),0x1000,pgm.length);
+        cpu.setPC(0x1000);
+        var trace = new RingTraceBuffer(16);
+        cpu.setTraceSink(trace);
+        cpu.run(7);
+        assertEquals(3, trace.size());
+        assertEquals(0x1000, trace.getPC(0));
+        assertEquals(OpCodes.LDA_IM.getOpcode(), trace.getOpcode(0));
+        assertEquals(0, trace.getCycle(0));
+        assertEquals(0x1002, trace.getPC(1));
+        assertEquals(0xff, trace.getA(1));
+        assertEquals(0x80, trace.getP(1));
+        assertEquals(2, trace.getCycle(1));
+        assertEquals(0x1004, trace.getPC(2));
+        assertEquals(5, trace.getCycle(2));
+        assertEquals(0xff, trace.getSP(2));
+        assertEquals("2 85 STA_ZP PC:1002 SP:00FF A:FF X:00 Y:00 F:[N]", trace.render(1));
+    }
+
+    @Test
+    void keepsOnlyLastRecords()
+    {
+        var pgm = HexFormat.of().parseHex("4c0010");//JMP $1000
+        System.arraycopy(pgm,0,memory.data(),0x1000,pgm.length);
+        cpu.setPC(0x1000);
+        var trace = new RingTraceBuffer(3);
+        assertEquals(4, trace.capacity());
+        cpu.setTraceSink(trace);
+        cpu.run(30);
+        assertEquals(10, trace.getWritten());
+        assertEquals(4, trace.size());
+        assertEquals(18, trace.getCycle(0));
+        assertEquals(27, trace.getCycle(3));
+        assertEquals(4, trace.render().size());
+        assertThrows(IndexOutOfBoundsException.class, () -> trace.getPC(4));
+    }
+
+    @Test
+    void detachedSinkRecordsNothing()
+    {
+        memory.data()[0xfffc] = (byte) OpCodes.NOP.getOpcode();
+        var trace = new RingTraceBuffer(4);
+        cpu.setTraceSink(trace);
+        cpu.setTraceSink(null);
+        cpu.run(2);
+        assertEquals(0, trace.size());
+    }
+}
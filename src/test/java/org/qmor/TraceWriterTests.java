@@ -0,0 +1,153 @@
+package org.qmor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TraceWriterTests extends BaseCpuTest {
+    @TempDir
+    Path dir;
+
+    /**
+     * feeds both sinks
+     */
+    private static TraceSink tee(TraceSink first, TraceSink second)
+    {
+        return new TraceSink() {
+            @Override
+            public void record(int pc, int opcode, int a, int x, int y, int sp, int p, long cycle)
+            {
+                record(pc, opcode, 0, a, x, y, sp, p, cycle);
+            }
+
+            @Override
+            public void record(int pc, int opcode, int operand, int a, int x, int y, int sp, int p, long cycle)
+            {
+                first.record(pc, opcode, operand, a, x, y, sp, p, cycle);
+                second.record(pc, opcode, operand, a, x, y, sp, p, cycle);
+            }
+        };
+    }
+
+    private static void assertSameTrace(RingTraceBuffer expected, Path file)
+    {
+        try (var reader = new TraceReader(file, 64))
+        {
+            for (int i = 0; i < expected.size(); i++)
+            {
+                assertTrue(reader.next(), "record " + i);
+                assertEquals(i, reader.getIndex());
+                assertEquals(expected.render(i), reader.render(), "record " + i);
+                assertEquals(expected.getPC(i), reader.getPC());
+                assertEquals(expected.getCycle(i), reader.getCycle());
+            }
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    void workloadRoundTripTest()
+    {
+        final var workload = Workload.load("bubblesort");
+        final var file = dir.resolve("bubblesort.trace");
+        final var ring = new RingTraceBuffer((int) workload.getInstructions());
+        final var cpu = new CPU(new Memory());
+        workload.install(cpu);
+        try (var writer = new TraceWriter(file, 256))
+        {
+            cpu.setTraceSink(tee(ring, writer));
+            workload.runToHalt(cpu, 10_000_000);
+            cpu.setTraceSink(null);
+            assertEquals(workload.getInstructions(), writer.getRecords());
+        }
+        assertSameTrace(ring, file);
+
+        try (var reader = new TraceReader(file))
+        {
+            while (reader.next())
+            {
+                final var size = OpCodes.decode(reader.getOpcode()).getAddressMode().getOperandSize();
+                final var operand = size == 0 ? 0 : size == 1 ? cpu.getMemory().read(reader.getPC() + 1)
+                        : cpu.getMemory().read(reader.getPC() + 1) | cpu.getMemory().read(reader.getPC() + 2) << 8;
+                assertEquals(operand, reader.getOperand(), reader.render());
+            }
+        }
+    }
+
+    @Test
+    void compactTest() throws IOException
+    {
+        final var workload = Workload.load("sieve");
+        final var file = dir.resolve("sieve.trace");
+        final var cpu = new CPU(new Memory());
+        workload.install(cpu);
+        try (var writer = new TraceWriter(file))
+        {
+            cpu.setTraceSink(writer);
+            workload.runToHalt(cpu, 10_000_000);
+            cpu.setTraceSink(null);
+        }
+        final var perInstruction = (double) Files.size(file) / workload.getInstructions();
+        assertTrue(perInstruction < 4, "bytes per instruction " + perInstruction);
+    }
+
+    @Test
+    void interruptCyclesTest()
+    {
+        //CLI / JMP $0201, handler INC $20 / RTI, the line is released before the handler runs
+        memory.load(0x200, HexFormat.of().parseHex("584c0102"));
+        memory.load(0x300, HexFormat.of().parseHex("e62040"));
+        memory.load(CPU.IRQ_VECTOR, new byte[]{0x00, 0x03});
+        cpu.getScheduler().schedule(100, (c, cycle) -> c.setIrq(0, true));
+        cpu.getScheduler().schedule(105, (c, cycle) -> c.setIrq(0, false));
+        cpu.setPC(0x200);
+        cpu.run(50);
+        final var file = dir.resolve("irq.trace");
+        final var ring = new RingTraceBuffer(1024);
+        try (var writer = new TraceWriter(file))
+        {
+            cpu.setTraceSink(tee(ring, writer));
+            cpu.run(1000);
+        }
+        assertEquals(1, memory.read(0x20));
+        assertSameTrace(ring, file);
+    }
+
+    @Test
+    void badFileTest() throws IOException
+    {
+        final var empty = dir.resolve("empty.trace");
+        new TraceWriter(empty).close();
+        try (var reader = new TraceReader(empty))
+        {
+            assertFalse(reader.next());
+        }
+
+        final var junk = dir.resolve("junk.trace");
+        Files.write(junk, new byte[]{1, 2, 3, 4, 5});
+        assertThrows(IllegalArgumentException.class, () -> new TraceReader(junk));
+
+        final var file = dir.resolve("full.trace");
+        memory.load(0x200, HexFormat.of().parseHex("4c0002"));
+        cpu.setPC(0x200);
+        try (var writer = new TraceWriter(file))
+        {
+            cpu.setTraceSink(writer);
+            cpu.run(300);
+        }
+        final var bytes = Files.readAllBytes(file);
+        final var truncated = dir.resolve("truncated.trace");
+        Files.write(truncated, Arrays.copyOf(bytes, 5));
+        try (var reader = new TraceReader(truncated))
+        {
+            assertThrows(IllegalStateException.class, reader::next);
+        }
+    }
+}
@@ -14,7 +14,7 @@ class TxaTests extends BaseCpuTest{
     {
         final var op = OpCodes.TXA;
         cpu.setPC(0);
-        memory.data[0] = (byte) op.getOpcode();
+        memory.data()[0] = (byte) op.getOpcode();
         cpu.setX((short) 12);
         cpu.setA((short) 0);
         var cycles = new AtomicInteger(op.getCycles());
@@ -13,7 +13,7 @@ class TyaTests extends BaseCpuTest{
     {
         final var op = OpCodes.TYA;
         cpu.setPC(0);
-        memory.data[0] = (byte) op.getOpcode();
+        memory.data()[0] = (byte) op.getOpcode();
         cpu.setY((short) 12);
         cpu.setA((short) 0);
         var cycles = new AtomicInteger(op.getCycles());
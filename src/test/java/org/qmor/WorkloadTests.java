@@ -0,0 +1,71 @@
+package org.qmor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkloadTests {
+
+    @Test
+    void allWorkloadsReachExpectedStateTest()
+    {
+        final var workloads = Workload.all();
+        assertEquals(Workload.names().size(), workloads.size());
+        assertFalse(workloads.isEmpty());
+        for (var workload: workloads)
+        {
+            final var cpu = new CPU(new Memory());
+            workload.install(cpu);
+            workload.runToHalt(cpu, 10_000_000);
+            assertEquals(List.of(), workload.verify(cpu), workload.getName());
+            assertTrue(workload.getInstructions() > 0, workload.getName());
+        }
+    }
+
+    @Test
+    void verifyReportsMismatchTest()
+    {
+        final var workload = Workload.load("fibonacci");
+        final var cpu = new CPU(new Memory());
+        workload.install(cpu);
+        workload.runToHalt(cpu, 10_000_000);
+        cpu.getMemory().write(0xF0, (byte) 0);
+        assertEquals(1, workload.verify(cpu).size());
+    }
+
+    @Test
+    void parseTest()
+    {
+        final var workload = Workload.parse("t", List.of(
+                "; loop", ".entry 0300", ".halt 0302", ".expect X=05", ".expect 0010=01 02",
+                "0300: A2 05 ; LDX #5", "0302: 4C 02 03 ; JMP $0302", ".instructions 1"));
+        assertEquals("loop", workload.getDescription());
+        assertEquals(1, workload.getSegments().size());
+        assertEquals(5, workload.getSegments().get(0).bytes().length);
+        final var cpu = new CPU(new Memory());
+        workload.install(cpu);
+        workload.runToHalt(cpu, 100);
+        assertEquals(List.of("$0010 00, expected 01", "$0011 00, expected 02"), workload.verify(cpu));
+        assertThrows(IllegalArgumentException.class, () -> Workload.parse("t", List.of("0300: A2")));
+    }
+
+    @Test
+    void hungWorkloadTest()
+    {
+        final var workload = Workload.parse("t", List.of(".entry 0300", ".halt 0400", "0300: 4C 00 03"));
+        final var cpu = new CPU(new Memory());
+        workload.install(cpu);
+        assertThrows(IllegalStateException.class, () -> workload.runToHalt(cpu, 100));
+    }
+
+    @Test
+    void runnerReportTest()
+    {
+        final var report = WorkloadRunner.run(Workload.load("multiply"), 3);
+        assertEquals(3, report.runs());
+        assertEquals(3 * Workload.load("multiply").getCycles(), report.cycles());
+        assertTrue(report.emulatedMHz() > 0);
+    }
+}